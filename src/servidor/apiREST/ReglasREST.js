@@ -60,6 +60,83 @@ function reglasREST(logica) {
         }
     }
 
+    // Antigüedad máxima de fecha_ms (medidas guardadas en el móvil sin
+    // conexión) y adelanto máximo (error de sincronización del reloj)
+    const MAX_ANTIGUEDAD_MEDIDA_MS = 24 * 60 * 60 * 1000;
+    const MAX_ADELANTO_MEDIDA_MS = 2 * 60 * 1000;
+
+    function fechaMedida(fecha_ms) {
+        if (typeof fecha_ms !== "number" || !isFinite(fecha_ms)) return null;
+        const diferencia = Date.now() - fecha_ms;
+        if (diferencia > MAX_ANTIGUEDAD_MEDIDA_MS || diferencia < -MAX_ADELANTO_MEDIDA_MS) return null;
+        return new Date(fecha_ms);
+    }
+
+    // --------------------------------------------------------------------------
+    //  Middleware: subidaUnaVez
+    // --------------------------------------------------------------------------
+    /**
+     * Las subidas del móvil (medida, recorrido, tramo) no son idempotentes y
+     * la app las repite si no le llega la respuesta. Cada una lleva en
+     * X-Atmos-Id un identificador que se mantiene en sus reintentos: si ya
+     * se guardó (en los últimos VIDA_ID_SUBIDA_MS) se responde "ok" sin
+     * volver a guardarla; si aún se está guardando, 503 para que la app lo
+     * intente más tarde. Los ids se guardan en memoria: tras reiniciar el
+     * servidor una repetición sí se guardaría (recorrido_tramo tiene además
+     * clave única). Sin cabecera (clientes antiguos) no se comprueba nada.
+     */
+    const VIDA_ID_SUBIDA_MS = 10 * 60 * 1000;
+    const MAX_IDS_SUBIDA = 100000;
+    const subidasGuardadas = new Map();   // id → hora en que se guardó (orden de llegada)
+    const subidasEnCurso = new Set();
+
+    function subidaUnaVez(req, res, next) {
+        const id = req.headers["x-atmos-id"];
+        if (!id) return next();
+
+        const ahora = Date.now();
+        for (const [viejo, t] of subidasGuardadas) {
+            if (t > ahora - VIDA_ID_SUBIDA_MS && subidasGuardadas.size <= MAX_IDS_SUBIDA) break;
+            subidasGuardadas.delete(viejo);
+        }
+
+        if (subidasGuardadas.has(id)) {
+            return res.json({ status: "ok", repetida: true });
+        }
+        if (subidasEnCurso.has(id)) {
+            return res.status(503).json({ status: "error", mensaje: "Subida en curso" });
+        }
+
+        // Se anota al responder (aunque la app ya haya cortado la conexión)
+        subidasEnCurso.add(id);
+        const json = res.json.bind(res);
+        res.json = (cuerpo) => {
+            subidasEnCurso.delete(id);
+            if (res.statusCode < 300) subidasGuardadas.set(id, Date.now());
+            return json(cuerpo);
+        };
+        next();
+    }
+
+    // --------------------------------------------------------------------------
+    //  Endpoint: GET /hora
+    // --------------------------------------------------------------------------
+    /**
+     * Devuelve la hora del servidor (ms desde 1970).
+     *
+     * La app la pide unas pocas veces al día (RelojServidor /
+     * SincronizacionHora) para pasar el instante de escaneo de cada medida
+     * a la hora del servidor antes de subirla en fecha_ms. Sin token: es
+     * pública y la respuesta debe ser lo más rápida posible (el error de la
+     * sincronización es la mitad del tiempo de ida y vuelta).
+     *
+     * Respuesta: { "ms": 1760870000000 }
+     */
+    router.get("/hora", (req, res) => {
+        res.set("Cache-Control", "no-store");
+        res.json({ ms: Date.now() });
+    });
+
     // --------------------------------------------------------------------------
 //  Endpoint: POST /medida
 //  Autor: Alan Guevara Martínez
@@ -74,14 +151,20 @@ function reglasREST(logica) {
  *   "valor": 412.7,
  *   "latitud": 0.0,
  *   "longitud": 0.0,
- *   "rssi": -65        // NUEVO: intensidad de señal
+ *   "rssi": -65,       // NUEVO: intensidad de señal
+ *   "fecha_ms": 1760870000000  // instante del escaneo, en hora del servidor (GET /hora)
  * }
  *
- * El campo rssi es opcional para mantener compatibilidad.
+ * Los campos rssi y fecha_ms son opcionales para mantener compatibilidad.
+ * La app comprime las medidas (solo sube los cambios significativos) y
+ * puede subir una medida algo después de tomarla; con fecha_ms se guarda
+ * su instante real. Si falta, tiene más de 24 h o va más de 2 min por
+ * delante de la hora del servidor (reloj mal sincronizado), se usa la
+ * hora de llegada.
  */
-router.post("/medida", async (req, res) => {
+router.post("/medida", subidaUnaVez, async (req, res) => {
     try {
-        const { id_placa, tipo, valor, latitud, longitud, rssi } = req.body;
+        const { id_placa, tipo, valor, latitud, longitud, rssi, fecha_ms } = req.body;
 
         if (!id_placa || tipo === undefined || valor === undefined) {
             return res.status(400).json({
@@ -100,7 +183,8 @@ router.post("/medida", async (req, res) => {
                 valor,
                 latitud || 0.0,
                 longitud || 0.0,
-                rssi
+                rssi,
+                fechaMedida(fecha_ms)
             );
         } else {
             // Compatibilidad con clientes antiguos: solo inserta en medida
@@ -539,10 +623,50 @@ router.post("/desvincular", async (req, res) => {
         }
     });
 	
+	// -----------------------------------------------------------------------------
+	// Endpoint: GET /placasUsuario
+	// -----------------------------------------------------------------------------
+	// Devuelve todas las placas vinculadas al usuario. La app escucha todas;
+	// "principal" es la de su pantalla (la misma que da /resumenUsuarioPorGas).
+	//
+	// Parámetros esperados (query):
+	//   - id_usuario {number} : ID del usuario logueado.
+	//
+	// Devuelve:
+	//   - { status: "sin_placa", placas: [] }
+	//   - { status: "con_placa", principal, placas: [id_placa, ...] }
+	// -----------------------------------------------------------------------------
+	router.get("/placasUsuario", async (req, res) => {
+		try {
+			const id_usuario = req.query.id_usuario;
+
+			if (!id_usuario) {
+				return res.status(400).json({ error: "Falta id_usuario" });
+			}
+
+			const placas = await logica.obtenerPlacasDeUsuario(id_usuario);
+			if (!placas.length) {
+				return res.json({ status: "sin_placa", placas: [] });
+			}
+
+			const principal = await logica.obtenerPlacaDeUsuario(id_usuario);
+			return res.json({ status: "con_placa", principal, placas });
+
+		} catch (err) {
+			console.error("Error en GET /placasUsuario:", err);
+			res.status(500).json({ error: "Error interno del servidor" });
+		}
+	});
+
 	// -----------------------------------------------------------------------------
 	// Endpoint: GET /resumen7Dias
 	// -----------------------------------------------------------------------------
 	// Devuelve promedios diarios de los últimos 7 días del gas seleccionado.
+	//
+	// Parámetro opcional:
+	//   - solo_ultimo=1 → devuelve solo el día actual { status, label, valor }.
+	//     Lo usa la app para refrescar la gráfica que ya tiene en caché sin
+	//     volver a descargar la serie completa.
 	// -----------------------------------------------------------------------------
 	router.get("/resumen7Dias", async (req, res) => {
 		try {
@@ -559,6 +683,20 @@ router.post("/desvincular", async (req, res) => {
 				return res.json({ status: "sin_placa" });
 			}
 
+			const dias = ["Dom","Lun","Mar","Mie","Jue","Vie","Sab"];
+
+			// Solo el último día (refresco incremental de la app): se consulta
+			// solo ese día. Es el de ayer en el servidor, porque la serie
+			// completa se desplaza un día (ver la corrección de abajo).
+			if (req.query.solo_ultimo === "1") {
+				const valor = await logica.obtenerPromedioDia(placa, tipo, 1);
+				return res.json({
+					status: "con_placa",
+					label: dias[new Date().getDay()],
+					valor: valor || 0
+				});
+			}
+
 			// Obtener valores
 			const valores = await logica.obtenerPromedios7Dias(placa, tipo);
 
@@ -572,7 +710,6 @@ router.post("/desvincular", async (req, res) => {
 			};
 
 			// Generar labels de días (últimos 7)
-			const dias = ["Dom","Lun","Mar","Mie","Jue","Vie","Sab"];
 			const hoy = new Date();
 			const labels = [];
 
@@ -608,6 +745,7 @@ router.post("/desvincular", async (req, res) => {
 	// Parámetros esperados:
 	//   - id_usuario
 	//   - tipo
+	//   - solo_ultimo (opcional, "1") → solo la hora actual
 	//
 	// Respuesta:
 	//   {
@@ -616,6 +754,9 @@ router.post("/desvincular", async (req, res) => {
 	//     valores: [...],
 	//     promedio: number
 	//   }
+	//
+	// Respuesta con solo_ultimo=1:
+	//   { status: "con_placa", label: "15", valor: number }
 	// -----------------------------------------------------------------------------
 	router.get("/resumen8Horas", async (req, res) => {
 		try {
@@ -629,6 +770,16 @@ router.post("/desvincular", async (req, res) => {
 			const placa = await logica.obtenerPlacaDeUsuario(id_usuario);
 			if (!placa) return res.json({ status: "sin_placa" });
 
+			// Solo la hora en curso: se consulta solo esa hora
+			if (req.query.solo_ultimo === "1") {
+				const valor = await logica.obtenerPromedioHoraActual(placa, tipo);
+				return res.json({
+					status: "con_placa",
+					label: new Date().getHours().toString().padStart(2, "0"),
+					valor: valor || 0
+				});
+			}
+
 			const valores = await logica.obtenerPromedios8HorasPorGas(placa, tipo);
 			const promedio = valores.reduce((a, b) => a + b, 0) / valores.length;
 
@@ -775,10 +926,17 @@ router.post("/desvincular", async (req, res) => {
     //
     // Parámetros (query):
     //   - id_usuario
+    //   - since_id (opcional): solo las notificaciones con id mayor que este.
+    //     La app manda el mayor id que ya tiene, así que si no hay nada nuevo
+    //     la lista viene vacía.
+    //   - antes_id (opcional): página de notificaciones más antiguas que este
+    //     id, de como mucho `limite` elementos (por defecto 50, máximo 100).
     //
     // Respuesta:
     //   {
     //     status: "ok",
+    //     ultimo_id: number,   // mayor id conocido (cursor para el siguiente sondeo)
+    //     has_more: boolean,   // con since_id: quedan más nuevas, pedir otra vez desde ultimo_id
     //     notificaciones: [
     //       {
     //         tipo: "CO2_CRITICO",
@@ -800,10 +958,33 @@ router.post("/desvincular", async (req, res) => {
                 return res.status(400).json({ error: "Falta id_usuario" });
             }
 
-            const notis = await logica.obtenerNotificacionesUsuario(Number(id_usuario));
+            const since_id = Number(req.query.since_id) || 0;
+            const antes_id = Number(req.query.antes_id) || 0;
+
+            let notis;
+            let has_more = false;
+            if (antes_id > 0) {
+                const limite = Math.min(Number(req.query.limite) || 50, 100);
+                notis = await logica.obtenerNotificacionesUsuarioAntesDeId(Number(id_usuario), antes_id, limite);
+            } else if (since_id > 0) {
+                // Ascendentes: el cursor avanza sin saltarse ninguna
+                const pagina = await logica.obtenerNotificacionesUsuarioDesdeId(Number(id_usuario), since_id);
+                notis = pagina.notificaciones;
+                has_more = pagina.has_more;
+            } else {
+                notis = await logica.obtenerNotificacionesUsuario(Number(id_usuario));
+            }
+
+            // Cursor: el mayor id devuelto (o el que ya tenía el cliente)
+            const ultimo_id = notis.reduce(
+                (max, n) => Math.max(max, Number(n.id_notificacion) || 0),
+                since_id
+            );
 
             return res.json({
                 status: "ok",
+                ultimo_id,
+                has_more,
                 notificaciones: notis
             });
 
@@ -1333,7 +1514,7 @@ router.post("/verificarEmailAtmos", async (req, res) => {
  * @author  Alan Guevara Martínez
  * @date    2025-12-17
  */
-router.post("/recorrido", async (req, res) => {
+router.post("/recorrido", subidaUnaVez, async (req, res) => {
 
     try {
 
@@ -1418,6 +1599,185 @@ router.get("/recorrido", async (req, res) => {
         });
     }
 });
+
+/**
+ * @route   POST /recorrido/tramo
+ * @brief   Guarda un tramo del trazado del recorrido.
+ *
+ * La app simplifica las posiciones del recorrido y las sube por tramos
+ * (hasta 100 puntos o 2 minutos) codificados como polilínea: diferencias
+ * de lat/lon en 1e-5 grados y de tiempo en segundos, en caracteres ASCII
+ * '?'..'~'. Aquí solo se comprueba el formato y se guarda tal cual.
+ *
+ * @param {number} id_usuario  Identificador del usuario.
+ * @param {number} inicio_ms   Instante de referencia del tramo (ms).
+ * @param {string} puntos      Puntos codificados.
+ * @param {number} n           Número de puntos.
+ *
+ * @throws {400} Datos incompletos o puntos mal codificados.
+ * @throws {500} Error interno del servidor.
+ *
+ * @date    2026-10-19
+ */
+router.post("/recorrido/tramo", subidaUnaVez, async (req, res) => {
+
+    try {
+
+        const { id_usuario, inicio_ms, puntos, n } = req.body;
+
+        if (!id_usuario || !Number.isFinite(Number(inicio_ms))
+            || typeof puntos !== "string" || !Number.isInteger(n) || n < 2) {
+            return res.status(400).json({ error: "Datos incompletos" });
+        }
+
+        // 3 valores por punto, cada uno al menos un carácter; tope por tramo
+        if (!/^[?-~]+$/.test(puntos) || puntos.length < 3 * n || puntos.length > 16384) {
+            return res.status(400).json({ error: "Puntos mal codificados" });
+        }
+
+        await logica.guardarTramoRecorrido(id_usuario, Number(inicio_ms), puntos, n);
+
+        res.json({ status: "ok" });
+
+    } catch (err) {
+
+        console.error("Error POST /recorrido/tramo:", err);
+
+        res.status(500).json({ error: "Error interno" });
+    }
+});
+
+/**
+ * @route   GET /recorrido/tramos
+ * @brief   Obtiene los tramos del trazado de un usuario en un día.
+ *
+ * @param {number} id_usuario  Identificador del usuario (query).
+ * @param {string} [fecha]     Fecha YYYY-MM-DD (query); por defecto, hoy.
+ *
+ * @returns {Object} { status: "ok", tramos: [{ inicio_ms, n, puntos }] }
+ *
+ * @throws {400} Falta id_usuario.
+ * @throws {500} Error interno del servidor.
+ *
+ * @date    2026-10-19
+ */
+router.get("/recorrido/tramos", async (req, res) => {
+
+    try {
+
+        const { id_usuario, fecha } = req.query;
+
+        if (!id_usuario) {
+            return res.status(400).json({ error: "Falta id_usuario" });
+        }
+
+        const tramos = await logica.obtenerTramosRecorrido(
+            Number(id_usuario),
+            /^\d{4}-\d{2}-\d{2}$/.test(fecha || "") ? fecha : null
+        );
+
+        res.json({ status: "ok", tramos });
+
+    } catch (err) {
+
+        console.error("Error GET /recorrido/tramos:", err);
+
+        res.status(500).json({ error: "Error interno" });
+    }
+});
+
+// --------------------------------------------------------------------------
+//  HISTÓRICO COMPLETO (por trozos de tiempo)
+// --------------------------------------------------------------------------
+
+// Tamaño máximo de un trozo: 1 día (≈86 400 medidas a 1 Hz)
+const HISTORICO_MAX_RANGO_MS = 24 * 3600000;
+
+/**
+ * @route   GET /historico
+ * @brief   Devuelve las medidas crudas de un gas de la placa del usuario en un rango.
+ *
+ * La app lo pide por trozos alineados (chunks) de como máximo un día y los
+ * guarda en caché, así que la respuesta usa dos arrays paralelos.
+ *
+ * Parámetros (query):
+ *   - id_usuario
+ *   - tipo
+ *   - desde  (epoch ms, incluido)
+ *   - hasta  (epoch ms, excluido)
+ *
+ * Respuesta:
+ *   200: { status: "con_placa", desde, hasta, t: [ms, ...], v: [valor, ...] }
+ *   200: { status: "sin_placa" }
+ *   400: { error: "..." }
+ *
+ * @date    2026-10-19
+ */
+router.get("/historico", async (req, res) => {
+    try {
+        const id_usuario = req.query.id_usuario;
+        const tipo = parseInt(req.query.tipo, 10);
+        const desde = Number(req.query.desde);
+        const hasta = Number(req.query.hasta);
+
+        if (!id_usuario || !tipo || !Number.isFinite(desde) || !Number.isFinite(hasta)) {
+            return res.status(400).json({ error: "Faltan datos: id_usuario, tipo, desde o hasta" });
+        }
+
+        if (hasta <= desde || hasta - desde > HISTORICO_MAX_RANGO_MS) {
+            return res.status(400).json({ error: "Rango no válido (máximo 1 día)" });
+        }
+
+        const placa = await logica.obtenerPlacaDeUsuario(id_usuario);
+        if (!placa) return res.json({ status: "sin_placa" });
+
+        const datos = await logica.obtenerMedidasPlacaEnRango(placa, tipo, desde, hasta);
+
+        return res.json({
+            status: "con_placa",
+            desde,
+            hasta,
+            t: datos.t,
+            v: datos.v
+        });
+
+    } catch (err) {
+        console.error("Error en /historico:", err);
+        res.status(500).json({ error: "Error interno" });
+    }
+});
+
+// --------------------------------------------------------------------------
+//  UMBRALES DE CALIDAD DEL AIRE
+// --------------------------------------------------------------------------
+
+/**
+ * Umbrales (ppm) que separan Buena / Moderada / Insalubre / Mala para
+ * cada gas. La app los descarga al arrancar, de forma que se pueden
+ * ajustar aquí sin publicar una versión nueva.
+ */
+const UMBRALES_CALIDAD = {
+    "11": [0.021, 0.053, 0.106],   // NO2
+    "12": [1.7, 4.4, 8.7],         // CO
+    "13": [0.031, 0.061, 0.092],   // O3
+    "14": [0.0076, 0.019, 0.038]   // SO2
+};
+
+/**
+ * @route   GET /umbrales
+ * @brief   Devuelve los umbrales de calidad del aire por gas.
+ *
+ * Respuesta:
+ *   200: { status: "ok", umbrales: { "11": [buena, moderada, insalubre], ... } }
+ *
+ * @date    2026-10-19
+ */
+router.get("/umbrales", (req, res) => {
+    res.json({
+        status: "ok",
+        umbrales: UMBRALES_CALIDAD
+    });
+});
 	
 // --------------------------------------------------------------------------
 //  INCIDENCIAS (USUARIO)
@@ -1483,6 +1843,9 @@ router.post("/incidencia", async (req, res) => {
  *
  * Query:
  *   - id_usuario
+ *   - limite   (opcional): si se indica, devuelve una sola página de ese
+ *              tamaño (máximo 100), de la más reciente a la más antigua.
+ *   - antes_id (opcional): con limite, solo incidencias con id menor que este.
  *
  * Respuesta:
  *   200: { status: "ok", incidencias: [...] }
@@ -1505,7 +1868,12 @@ router.get("/incidencias", async (req, res) => {
             });
         }
 
-        const filas = await logica.listarIncidenciasUsuario(Number(id_usuario));
+        const limite = Math.min(Number(req.query.limite) || 0, 100);
+
+        const filas = limite > 0
+            ? await logica.listarIncidenciasUsuarioPagina(
+                Number(id_usuario), Number(req.query.antes_id) || 0, limite)
+            : await logica.listarIncidenciasUsuario(Number(id_usuario));
 
         return res.json({
             status: "ok",
@@ -15,6 +15,72 @@
 const mysql = require("mysql2/promise"); // Cliente MySQL en modo promesa
 const bcrypt = require("bcrypt");        // Librería para cifrar contraseñas
 
+// Tramo máximo entre dos medidas seguidas que cuenta para los promedios (ms).
+// La app sube como mucho cada 60 s aunque el valor no cambie (medida clave
+// de CompresorMedidas.java); un hueco mayor es que no se estaba midiendo.
+const MAX_HUECO_MEDIA_MS = 2 * 60 * 1000;
+
+// --------------------------------------------------------------------------
+// Función: sqlMediasEnElTiempo()
+// --------------------------------------------------------------------------
+// Descripción:
+//   SQL de la media ponderada por tiempo de las medidas de una placa y un
+//   gas, por grupo (día, hora...): área de los trapecios entre medidas
+//   seguidas dividida entre el tiempo que cubren. La app comprime las
+//   subidas (puerta giratoria): hay muchas filas en los picos y una por
+//   minuto cuando el valor es estable, así que AVG(valor) pesaba de más los
+//   picos.
+//
+//   LEAD() da la medida siguiente del mismo grupo; los tramos de más de
+//   MAX_HUECO_MEDIA_MS no cuentan y un grupo sin ningún tramo se queda con
+//   AVG(valor). Se calcula todo en MySQL y a Node llega una fila por grupo.
+//   Es la misma cuenta que CompresorMedidas.mediaEnElTiempo() en la app,
+//   que tiene sus pruebas.
+//
+//   Solo cuentan las medidas anteriores a hasta (NOW() si no se indica):
+//   una con fecha futura no puede entrar en la hora o el día actual.
+//
+// Parámetros:
+//   - grupo {string} : expresión SQL del grupo a partir de fecha_hora.
+//   - desde {string} : expresión SQL del primer instante que cuenta.
+//   - hasta {string} : expresión SQL del instante en que se para (excluido).
+//
+// Devuelve:
+//   - {string} : SQL con parámetros (id_placa, tipo); filas { grupo, promedio }.
+// --------------------------------------------------------------------------
+function sqlMediasEnElTiempo(grupo, desde, hasta = "NOW()") {
+    return `
+        SELECT grupo,
+               COALESCE(SUM((valor + siguiente) / 2 * dt) / SUM(dt), AVG(valor)) AS promedio
+        FROM (
+            SELECT grupo,
+                   valor,
+                   siguiente,
+                   CASE WHEN dt > 0 AND dt <= ${MAX_HUECO_MEDIA_MS} THEN dt END AS dt
+            FROM (
+                SELECT ${grupo} AS grupo,
+                       valor,
+                       LEAD(valor) OVER w AS siguiente,
+                       TIMESTAMPDIFF(MICROSECOND, fecha_hora, LEAD(fecha_hora) OVER w) / 1000 AS dt
+                FROM medida
+                WHERE id_placa = ?
+                  AND tipo = ?
+                  AND fecha_hora >= ${desde}
+                  AND fecha_hora < ${hasta}
+                WINDOW w AS (PARTITION BY ${grupo} ORDER BY fecha_hora, id_medida)
+            ) AS seguidas
+        ) AS tramos
+        GROUP BY grupo
+    `;
+}
+
+// Fecha a AAAA-MM-DD en zona local (no UTC)
+function claveDia(d) {
+    return d.getFullYear() + "-" +
+        String(d.getMonth() + 1).padStart(2, "0") + "-" +
+        String(d.getDate()).padStart(2, "0");
+}
+
 
 class Logica {
 
@@ -482,6 +548,33 @@ class Logica {
         }
     }
 
+    // --------------------------------------------------------------------------
+    // Método: obtenerPlacasDeUsuario()
+    // --------------------------------------------------------------------------
+    // Descripción:
+    //   Devuelve todas las placas vinculadas a un usuario (una instalación fija
+    //   puede tener varias). La app las escucha todas.
+    //
+    // Parámetros:
+    //   - id_usuario {number} : ID del usuario.
+    //
+    // Devuelve:
+    //   - {Promise<string[]>} : id_placa de cada placa vinculada (vacío si no tiene).
+    // --------------------------------------------------------------------------
+    async obtenerPlacasDeUsuario(id_usuario) {
+        const conn = await this.pool.getConnection();
+        try {
+            const [rows] = await conn.query(
+                "SELECT id_placa FROM usuarioplaca WHERE id_usuario = ?",
+                [id_usuario]
+            );
+            return rows.map(r => r.id_placa);
+
+        } finally {
+            conn.release();
+        }
+    }
+
     // -----------------------------------------------------------------------------
     // Funcionalidad: Desvincular placa de un usuario
     // Autor: Alan Guevara Martínez
@@ -623,8 +716,9 @@ class Logica {
     // Método: obtenerPromedioPorGasHoy()
     // --------------------------------------------------------------------------
     // Descripción:
-    //   Calcula el promedio de las mediciones de un gas concreto (por tipo)
-    //   registradas HOY (fecha actual del servidor) para una placa determinada.
+    //   Calcula el promedio en el tiempo (ver sqlMediasEnElTiempo()) de las
+    //   mediciones de un gas concreto (por tipo) registradas HOY (fecha actual
+    //   del servidor) para una placa determinada.
     //
     // Parámetros:
     //   - id_placa {string} : identificador único de la placa.
@@ -637,20 +731,14 @@ class Logica {
         // Obtenemos una conexión desde el pool
         const conn = await this.pool.getConnection();
         try {
-            // SQL que calcula el promedio de "valor" para las filas de hoy
-            const sql = `
-                SELECT AVG(valor) AS promedio
-                FROM medida
-                WHERE id_placa = ?
-                  AND tipo = ?
-                  AND DATE(fecha_hora) = CURDATE()
-            `;
+            // Un solo grupo: lo que va de hoy
+            const sql = sqlMediasEnElTiempo("DATE(fecha_hora)", "CURDATE()");
 
             // Ejecutamos la consulta con los parámetros adecuados
             const [rows] = await conn.query(sql, [id_placa, tipo]);
 
-            // Si promedio no es null, lo convertimos a Number; si no hay datos, devolvemos null
-            return rows[0].promedio !== null ? Number(rows[0].promedio) : null;
+            // null si no hay datos hoy
+            return rows.length ? Number(rows[0].promedio) : null;
 
         } finally {
             // Liberamos la conexión
@@ -662,29 +750,23 @@ class Logica {
     // Método: obtenerPromedios7Dias()
     // --------------------------------------------------------------------------
     // Descripción:
-    //   Devuelve una lista de 7 promedios, uno por cada día desde hace 6 días
-    //   hasta hoy, SOLO del tipo de gas indicado para una placa.
+    //   Devuelve una lista de 7 promedios en el tiempo, uno por cada día desde
+    //   hace 6 días hasta hoy, SOLO del tipo de gas indicado para una placa.
     //   Si un día no tiene medidas → se devuelve 0.
     // --------------------------------------------------------------------------
     async obtenerPromedios7Dias(id_placa, tipo) {
         const conn = await this.pool.getConnection();
         try {
-            const sql = `
-                SELECT DATE(fecha_hora) AS fecha, AVG(valor) AS promedio
-                FROM medida
-                WHERE id_placa = ?
-                  AND tipo = ?
-                  AND fecha_hora >= DATE_SUB(CURDATE(), INTERVAL 6 DAY)
-                GROUP BY DATE(fecha_hora)
-            `;
+            const sql = sqlMediasEnElTiempo(
+                "DATE_FORMAT(fecha_hora, '%Y-%m-%d')",
+                "DATE_SUB(CURDATE(), INTERVAL 6 DAY)"
+            );
 
             const [rows] = await conn.query(sql, [id_placa, tipo]);
 
             // Convertimos resultado a un mapa: { "2025-11-15": 0.08, ... }
             const mapa = {};
-            rows.forEach(r => {
-                mapa[r.fecha.toISOString().substring(0,10)] = Number(r.promedio);
-            });
+            rows.forEach(r => { mapa[r.grupo] = Number(r.promedio); });
 
             // Construimos salida en orden cronológico
             const hoy = new Date();
@@ -694,12 +776,7 @@ class Logica {
                 const d = new Date();
                 d.setDate(hoy.getDate() - i);
 
-                // Convertir fecha a AAAA-MM-DD en zona local (no UTC)
-                const clave = d.getFullYear() + "-" +
-                  String(d.getMonth() + 1).padStart(2, "0") + "-" +
-                  String(d.getDate()).padStart(2, "0");
-
-
+                const clave = claveDia(d);
                 valores.push(mapa[clave] ? mapa[clave] : 0);
             }
 
@@ -711,12 +788,42 @@ class Logica {
     }
 
     
+    // --------------------------------------------------------------------------
+    // Método: obtenerPromedioDia()
+    // --------------------------------------------------------------------------
+    // Descripción:
+    //   Promedio en el tiempo de un solo día de obtenerPromedios7Dias(): el
+    //   de hace haceDias días (0 = hoy, hasta ahora). Para refrescar el
+    //   último valor de la gráfica sin volver a calcular los 7 días.
+    //
+    // Devuelve:
+    //   - {Promise<number|null>} : promedio o null si ese día no hay medidas.
+    // --------------------------------------------------------------------------
+    async obtenerPromedioDia(id_placa, tipo, haceDias) {
+        const n = Math.max(0, parseInt(haceDias, 10) || 0);
+        const conn = await this.pool.getConnection();
+        try {
+            const sql = sqlMediasEnElTiempo(
+                "DATE(fecha_hora)",
+                `DATE_SUB(CURDATE(), INTERVAL ${n} DAY)`,
+                n === 0 ? "NOW()" : `DATE_SUB(CURDATE(), INTERVAL ${n - 1} DAY)`
+            );
+
+            const [rows] = await conn.query(sql, [id_placa, tipo]);
+
+            return rows.length ? Number(rows[0].promedio) : null;
+
+        } finally {
+            conn.release();
+        }
+    }
+
     // --------------------------------------------------------------------------
     // Método: obtenerPromedios8HorasPorGas()
     // --------------------------------------------------------------------------
     // Descripción:
-    //   Devuelve un arreglo con 8 promedios horarios del gas indicado,
-    //   desde hace 7 horas hasta la hora actual.
+    //   Devuelve un arreglo con 8 promedios horarios en el tiempo del gas
+    //   indicado, desde hace 7 horas hasta la hora actual.
     //
     // Parámetros:
     //   - id_placa {string} : identificador del sensor
@@ -728,43 +835,33 @@ class Logica {
     async obtenerPromedios8HorasPorGas(id_placa, tipo) {
         const conn = await this.pool.getConnection();
         try {
-            const sql = `
-                SELECT 
-                    fecha_hora,
-                    HOUR(fecha_hora) AS hora,
-                    AVG(valor) AS promedio
-                FROM medida
-                WHERE id_placa = ?
-                  AND tipo = ?
-                  AND fecha_hora >= DATE_SUB(NOW(), INTERVAL 8 HOUR)
-                GROUP BY HOUR(fecha_hora)
-                ORDER BY hora;
-            `;
+            const sql = sqlMediasEnElTiempo(
+                "HOUR(fecha_hora)",
+                "DATE_SUB(NOW(), INTERVAL 8 HOUR)"
+            );
 
             const [rows] = await conn.query(sql, [id_placa, tipo]);
 
+            // { hora: promedio, ... } con la hora local de cada medida
+            const porHora = {};
+            rows.forEach(r => { porHora[r.grupo] = Number(r.promedio); });
+
             console.log("\n\n============= DEBUG SQL (ULTIMAS 8 HORAS) =============");
             console.log("NOW() local del servidor:", new Date().toString());
-            console.log("Registros encontrados por MySQL:\n", rows);
+            console.log("Horas con medidas en MySQL:", rows.length);
 
             const resultado = [];
             const ahora = new Date();
 
-            console.log("\nHoras generadas por Node para comparar:");
             for (let i = 7; i >= 0; i--) {
                 const fecha = new Date(ahora.getTime() - i * 3600000);
                 const horaNode = fecha.getHours();
 
-                console.log(` - Hora generada: ${horaNode}`);
-
-                // Buscar en rows
-                const fila = rows.find(r => Number(r.hora) === horaNode);
-
-                if (fila) {
-                    console.log(`   ✔ Coincidencia encontrada: MySQL hora=${fila.hora}, promedio=${fila.promedio}`);
-                    resultado.push(Number(fila.promedio));
+                if (porHora[horaNode] !== undefined) {
+                    console.log(`   ✔ Hora ${horaNode}: promedio=${porHora[horaNode]}`);
+                    resultado.push(porHora[horaNode]);
                 } else {
-                    console.log(`   ✖ Sin coincidencia para esa hora -> se añade 0`);
+                    console.log(`   ✖ Hora ${horaNode}: sin medidas -> se añade 0`);
                     resultado.push(0);
                 }
             }
@@ -779,6 +876,87 @@ class Logica {
         }
     }
 
+    // --------------------------------------------------------------------------
+    // Método: obtenerPromedioHoraActual()
+    // --------------------------------------------------------------------------
+    // Descripción:
+    //   Último valor de obtenerPromedios8HorasPorGas() (la hora en curso),
+    //   consultando solo esa hora.
+    //
+    // Devuelve:
+    //   - {Promise<number|null>} : promedio o null si en esta hora no hay medidas.
+    // --------------------------------------------------------------------------
+    async obtenerPromedioHoraActual(id_placa, tipo) {
+        const conn = await this.pool.getConnection();
+        try {
+            const sql = sqlMediasEnElTiempo(
+                "HOUR(fecha_hora)",
+                "DATE_FORMAT(NOW(), '%Y-%m-%d %H:00:00')"
+            );
+
+            const [rows] = await conn.query(sql, [id_placa, tipo]);
+
+            return rows.length ? Number(rows[0].promedio) : null;
+
+        } finally {
+            conn.release();
+        }
+    }
+
+    // --------------------------------------------------------------------------
+    // Método: obtenerMedidasPlacaEnRango()
+    // --------------------------------------------------------------------------
+    // Descripción:
+    //   Devuelve todas las medidas de un gas de una placa entre dos instantes,
+    //   ordenadas por fecha. Lo usa la pantalla de histórico de la app, que
+    //   pide el histórico en trozos de tiempo (chunks) y los guarda en caché.
+    //
+    //   Para que la respuesta sea compacta se devuelven dos arrays paralelos
+    //   en lugar de un objeto por fila.
+    //
+    // Parámetros:
+    //   - id_placa {string} : identificador del sensor
+    //   - tipo     {number} : tipo del gas
+    //   - desde    {number} : inicio del rango (epoch ms, incluido)
+    //   - hasta    {number} : fin del rango (epoch ms, excluido)
+    //
+    // Devuelve:
+    //   - {Promise<{t: Array<number>, v: Array<number>}>} : instantes (epoch ms) y valores.
+    // --------------------------------------------------------------------------
+    async obtenerMedidasPlacaEnRango(id_placa, tipo, desde, hasta) {
+        const conn = await this.pool.getConnection();
+        try {
+            const sql = `
+                SELECT fecha_hora, valor
+                FROM medida
+                WHERE id_placa = ?
+                  AND tipo = ?
+                  AND fecha_hora >= ?
+                  AND fecha_hora < ?
+                ORDER BY fecha_hora, id_medida;
+            `;
+
+            const [rows] = await conn.query(sql, [
+                id_placa,
+                tipo,
+                new Date(desde),
+                new Date(hasta)
+            ]);
+
+            const t = new Array(rows.length);
+            const v = new Array(rows.length);
+            for (let i = 0; i < rows.length; i++) {
+                t[i] = new Date(rows[i].fecha_hora).getTime();
+                v[i] = Number(rows[i].valor);
+            }
+
+            return { t, v };
+
+        } finally {
+            conn.release();
+        }
+    }
+
    // --------------------------------------------------------------------------
 // Autor: Alan Guevara Martínez
 // Fecha: 20/11/2025
@@ -796,6 +974,7 @@ class Logica {
 //   - latitud  {number} : latitud registrada (opcional).
 //   - longitud {number} : longitud registrada (opcional).
 //   - rssi     {number} : intensidad de señal del beacon.
+//   - fecha    {Date}   : instante de la medida (opcional; si falta, NOW()).
 //
 // Devuelve:
 //   - {Promise<Object>} : fila insertada en "medida".
@@ -806,7 +985,8 @@ async guardarMedidaYActualizarDistancia(
     valor,
     latitud = 0,
     longitud = 0,
-    rssi
+    rssi,
+    fecha = null
 ) {
     const conn = await this.pool.getConnection();
     try {
@@ -816,14 +996,15 @@ async guardarMedidaYActualizarDistancia(
         // 1) Insertar la medida
         const sqlInsert = `
             INSERT INTO medida (id_placa, tipo, valor, latitud, longitud, fecha_hora)
-            VALUES (?, ?, ?, ?, ?, NOW())
+            VALUES (?, ?, ?, ?, ?, COALESCE(?, NOW()))
         `;
         const [resultado] = await conn.execute(sqlInsert, [
             id_placa,
             tipo,
             valor,
             latitud,
-            longitud
+            longitud,
+            fecha
         ]);
 
         const sqlSelect = `SELECT * FROM medida WHERE id_medida = ?`;
@@ -1743,6 +1924,84 @@ async obtenerNotificacionesUsuario(id_usuario) {
             conn.release();
         }
     }
+    /* --------------------------------------------------------------------------
+     * Método: obtenerNotificacionesUsuarioDesdeId()
+     * --------------------------------------------------------------------------
+     * Igual que obtenerNotificacionesUsuarioDesdeBD(), pero solo devuelve las
+     * notificaciones con id_notificacion > since_id (sincronización por cursor).
+     *
+     * La app guarda el mayor id que ya tiene y lo manda en cada sondeo, así
+     * que cuando no hay nada nuevo la respuesta es una lista vacía.
+     *
+     * Van en orden ascendente: si hay más de `limite` nuevas se devuelven las
+     * más antiguas y has_more = true, y el cursor (el mayor id devuelto) no
+     * se salta ninguna; la app vuelve a pedir desde ahí.
+     *
+     * Params:
+     *  - id_usuario {number}
+     *  - since_id   {number} : último id que ya tiene el cliente
+     *  - limite     {number} : máximo de notificaciones (100 por defecto)
+     *
+     * Devuelve: { notificaciones: Array, has_more: boolean }
+     * -------------------------------------------------------------------------- */
+    async obtenerNotificacionesUsuarioDesdeId(id_usuario, since_id, limite = 100) {
+        // Una de más para saber si quedan
+        const notis = await this._consultarNotificacionesUsuario(
+            "AND id_notificacion > ?", [id_usuario, since_id], limite + 1, "ASC");
+        const has_more = notis.length > limite;
+        return { notificaciones: has_more ? notis.slice(0, limite) : notis, has_more };
+    }
+
+    /* --------------------------------------------------------------------------
+     * Método: obtenerNotificacionesUsuarioAntesDeId()
+     * --------------------------------------------------------------------------
+     * Página de notificaciones más antiguas que antes_id (para cargar más al
+     * hacer scroll en la app). Ordenadas de más reciente a más antigua.
+     *
+     * Params:
+     *  - id_usuario {number}
+     *  - antes_id   {number} : id más antiguo que ya tiene el cliente
+     *  - limite     {number} : tamaño de página
+     * -------------------------------------------------------------------------- */
+    async obtenerNotificacionesUsuarioAntesDeId(id_usuario, antes_id, limite) {
+        return this._consultarNotificacionesUsuario(
+            "AND id_notificacion < ?", [id_usuario, antes_id], limite);
+    }
+
+    // Consulta común de las dos anteriores (filtro extra por id + orden + LIMIT)
+    async _consultarNotificacionesUsuario(filtro, params, limite, orden = "DESC") {
+        const conn = await this.pool.getConnection();
+        try {
+            const sql = `
+                SELECT
+                    id_notificacion,
+                    tipo,
+                    titulo,
+                    mensaje,
+                    icono,
+                    fecha_creacion,
+                    estado
+                FROM notificacion
+                WHERE id_usuario = ?
+                  ${filtro}
+                ORDER BY id_notificacion ${orden === "ASC" ? "ASC" : "DESC"}
+                LIMIT ?
+            `;
+            const [rows] = await conn.query(sql, [...params, limite]);
+
+            return rows.map(row => ({
+                id_notificacion: row.id_notificacion,
+                tipo: row.tipo,
+                titulo: row.titulo,
+                texto: row.mensaje,
+                icono: row.icono,
+                fecha_hora: row.fecha_creacion,
+                leido: row.estado === 1
+            }));
+        } finally {
+            conn.release();
+        }
+    }
     /* --------------------------------------------------------------------------
      * Método: marcarNotificacionLeida()
      * --------------------------------------------------------------------------
@@ -1942,6 +2201,94 @@ async obtenerRecorridoHoyYAyer(id_usuario) {
     }
 }
 	
+/**
+ * @brief Guarda un tramo del trazado del recorrido de un usuario.
+ *
+ * Los puntos llegan ya codificados desde la app (polilínea de Google con
+ * una tercera dimensión de tiempo, ver PolilineaCodificada.java) y se
+ * guardan tal cual. Tabla:
+ *
+ *   CREATE TABLE recorrido_tramo (
+ *       id_tramo   INT AUTO_INCREMENT PRIMARY KEY,
+ *       id_usuario INT NOT NULL,
+ *       fecha      DATE NOT NULL,
+ *       inicio_ms  BIGINT NOT NULL,
+ *       n_puntos   INT NOT NULL,
+ *       puntos     TEXT NOT NULL,
+ *       INDEX (id_usuario, fecha, inicio_ms),
+ *       UNIQUE KEY uq_tramo (id_usuario, inicio_ms)
+ *   );
+ *
+ * (en una tabla ya creada:
+ *  ALTER TABLE recorrido_tramo ADD UNIQUE KEY uq_tramo (id_usuario, inicio_ms);)
+ *
+ * Un usuario no tiene dos tramos con el mismo inicio: si la app repite la
+ * subida de un tramo que ya llegó (se perdió la respuesta), el segundo
+ * INSERT no hace nada.
+ *
+ * @param {number} id_usuario  Identificador del usuario.
+ * @param {number} inicio_ms   Instante de referencia del tramo (ms).
+ * @param {string} puntos      Puntos codificados.
+ * @param {number} n_puntos    Número de puntos.
+ *
+ * @date   2026-10-19
+ */
+async guardarTramoRecorrido(id_usuario, inicio_ms, puntos, n_puntos) {
+
+    const conn = await this.pool.getConnection();
+
+    try {
+
+        // La fecha del tramo es la de su instante de referencia
+        const sql = `
+            INSERT INTO recorrido_tramo (id_usuario, fecha, inicio_ms, n_puntos, puntos)
+            VALUES (?, DATE(FROM_UNIXTIME(? / 1000)), ?, ?, ?)
+            ON DUPLICATE KEY UPDATE id_tramo = id_tramo
+        `;
+
+        await conn.execute(sql, [id_usuario, inicio_ms, inicio_ms, n_puntos, puntos]);
+
+    } finally {
+        conn.release();
+    }
+}
+
+/**
+ * @brief Obtiene los tramos del trazado de un usuario en un día, en orden.
+ *
+ * @param {number} id_usuario  Identificador del usuario.
+ * @param {string|null} fecha  Fecha (YYYY-MM-DD); si es null, hoy.
+ * @returns {Promise<Array<{inicio_ms:number, n:number, puntos:string}>>}
+ *
+ * @date   2026-10-19
+ */
+async obtenerTramosRecorrido(id_usuario, fecha = null) {
+
+    const conn = await this.pool.getConnection();
+
+    try {
+
+        const sql = `
+            SELECT inicio_ms, n_puntos, puntos
+            FROM recorrido_tramo
+            WHERE id_usuario = ?
+              AND fecha = COALESCE(?, CURDATE())
+            ORDER BY inicio_ms
+        `;
+
+        const [rows] = await conn.execute(sql, [id_usuario, fecha]);
+
+        return rows.map(r => ({
+            inicio_ms: Number(r.inicio_ms),
+            n: r.n_puntos,
+            puntos: r.puntos
+        }));
+
+    } finally {
+        conn.release();
+    }
+}
+
 // --------------------------------------------------------------------------
 // MÉTODOS DE INCIDENCIAS
 // --------------------------------------------------------------------------
@@ -2009,6 +2356,37 @@ async listarIncidenciasUsuario(id_usuario) {
     }
 }
 
+/**
+ * @brief Obtiene una página de incidencias de un usuario.
+ *
+ * Paginación por cursor: devuelve como mucho `limite` incidencias con
+ * id menor que `antes_id` (todas si antes_id es 0), de la más reciente
+ * a la más antigua. Los ids crecen con la fecha de creación.
+ *
+ * @param {number} id_usuario Identificador del usuario.
+ * @param {number} antes_id   Id más antiguo que ya tiene el cliente (0 = primera página).
+ * @param {number} limite     Tamaño de página.
+ *
+ * @return {Promise<Array>} Incidencias de la página.
+ */
+async listarIncidenciasUsuarioPagina(id_usuario, antes_id, limite) {
+    const conn = await this.pool.getConnection();
+    try {
+        const sql = `
+            SELECT id_incidencia, asunto, mensaje_enviado, respuesta, fecha, id_estado, leida_usuario
+            FROM incidencia
+            WHERE id_usuario = ?
+              AND (? = 0 OR id_incidencia < ?)
+            ORDER BY id_incidencia DESC
+            LIMIT ?
+        `;
+        const [rows] = await conn.query(sql, [id_usuario, antes_id, antes_id, limite]);
+        return rows;
+    } finally {
+        conn.release();
+    }
+}
+
 /**
  * @brief Obtiene el detalle de una incidencia concreta.
  *
@@ -11,6 +11,7 @@
  *   - obtenerPromedioPorGasHoy()
  *   - obtenerPromedios7Dias()
  *   - obtenerPromedios8HorasPorGas()
+ *   - obtenerMedidasPlacaEnRango()
  *
  * @author Alan Guevara Martínez
  * @date 15/12/2025 (Actualizado)
@@ -139,4 +140,27 @@ describe("LOGICA - MEDIDAS", function () {
     assert.strictEqual(valores.length, 8);
   });
 
+  // --------------------------------------------------------------------------
+  // Test: obtenerMedidasPlacaEnRango
+  // --------------------------------------------------------------------------
+  it("obtenerMedidasPlacaEnRango devuelve arrays paralelos ordenados", async function () {
+
+    const hasta = Date.now() + 60000;
+    const desde = hasta - 24 * 3600000;
+
+    const datos = await logica.obtenerMedidasPlacaEnRango(PLACA_TEST, 11, desde, hasta);
+
+    // Mismo número de instantes que de valores
+    assert.strictEqual(datos.t.length, datos.v.length);
+
+    // Las medidas insertadas arriba están dentro del rango
+    assert.ok(datos.t.length > 0);
+
+    // Instantes dentro del rango y en orden creciente
+    for (let i = 0; i < datos.t.length; i++) {
+      assert.ok(datos.t[i] >= desde && datos.t[i] < hasta);
+      if (i > 0) assert.ok(datos.t[i] >= datos.t[i - 1]);
+    }
+  });
+
 });
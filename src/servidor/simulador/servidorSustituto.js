@@ -0,0 +1,226 @@
+/**
+ * @file servidorSustituto.js
+ * @brief Servidor REST sustituto para pruebas de carga de las subidas del móvil.
+ *
+ * Imita los endpoints a los que sube datos la app Android
+ * (POST /medida, /actualizarEstadoPlaca, /recorrido y /recorrido/tramo),
+ * responde como el servidor real y NO toca la base de datos. Mide:
+ *  - Caudal: peticiones por segundo (total y últimos 10 s) por endpoint.
+ *  - Latencia: con la cabecera X-Atmos-Enviado (hora de envío del móvil,
+ *    ya pasada a la hora de este servidor con GET /hora). Como la
+ *    sincronización tiene algo de error, además de la latencia bruta se da
+ *    la latencia por encima de la mínima vista (que no depende del desfase).
+ *  - Pérdidas: huecos en la cabecera X-Atmos-Seq (número de secuencia de
+ *    cada subida, el mismo en todos sus reintentos) y duplicados (subidas
+ *    que llegaron pero se repitieron porque la respuesta no volvió).
+ *
+ * Puede simular un servidor lento o con fallos para ver cómo se comporta
+ * la app.
+ *
+ * Uso:
+ *   node simulador/servidorSustituto.js [puerto] [retardo_ms] [fallos_pct]
+ *   adb reverse tcp:8090 tcp:8090          (app en variante debug)
+ *   adb shell am broadcast -p org.jordi.btlealumnos2021 \
+ *       -a org.jordi.btlealumnos2021.TRAZAS \
+ *       --es orden servidor --es url http://127.0.0.1:8090
+ *
+ *   GET  /hora                    → { ms } hora del servidor (sin retardo ni fallos)
+ *   GET  /estadisticas            → resumen en JSON
+ *   POST /estadisticas/reiniciar  → pone los contadores a cero
+ *
+ * @date 19/10/2026
+ */
+
+const express = require("express");
+
+const PUERTO = parseInt(process.argv[2] || process.env.PUERTO || "8090", 10);
+const RETARDO_MS = parseInt(process.argv[3] || process.env.RETARDO_MS || "0", 10);
+const FALLOS_PCT = parseFloat(process.argv[4] || process.env.FALLOS_PCT || "0");
+
+/** Ventana para el caudal "reciente" (ms) */
+const VENTANA_MS = 10000;
+
+/** Latencias guardadas como máximo (las más recientes) */
+const MAX_LATENCIAS = 20000;
+
+// --------------------------------------------------------------------------
+//  Estadísticas
+// --------------------------------------------------------------------------
+
+let stats = nuevasEstadisticas();
+
+function nuevasEstadisticas() {
+    return {
+        inicio: Date.now(),
+        porRuta: {},        // ruta → { peticiones, bytes, fallosSimulados, llegadas: [ms] }
+        placas: {},         // id_placa → medidas recibidas
+        latencias: [],      // ms (hora de llegada - X-Atmos-Enviado)
+        secuencias: new Set(),
+        seqMin: null,
+        seqMax: null,
+        duplicadas: 0,
+        sinSecuencia: 0
+    };
+}
+
+function registrar(req) {
+    const ahora = Date.now();
+    const ruta = req.path;
+
+    const r = stats.porRuta[ruta] || (stats.porRuta[ruta] = {
+        peticiones: 0, bytes: 0, fallosSimulados: 0, llegadas: []
+    });
+    r.peticiones++;
+    r.bytes += parseInt(req.headers["content-length"] || "0", 10);
+    r.llegadas.push(ahora);
+    while (r.llegadas.length && r.llegadas[0] < ahora - VENTANA_MS) r.llegadas.shift();
+
+    // Latencia
+    const enviado = parseInt(req.headers["x-atmos-enviado"], 10);
+    if (!isNaN(enviado)) {
+        stats.latencias.push(ahora - enviado);
+        if (stats.latencias.length > MAX_LATENCIAS) stats.latencias.shift();
+    }
+
+    // Pérdidas por número de secuencia
+    const seq = parseInt(req.headers["x-atmos-seq"], 10);
+    if (isNaN(seq)) {
+        stats.sinSecuencia++;
+    } else {
+        // La app se ha reiniciado: la secuencia vuelve a empezar
+        if (stats.seqMax !== null && seq === 1 && stats.seqMax > 1) {
+            const anterior = stats;
+            stats = nuevasEstadisticas();
+            stats.porRuta = anterior.porRuta;
+            stats.placas = anterior.placas;
+            console.log("[sustituto] Secuencia reiniciada (la app se ha reiniciado)");
+        }
+
+        if (stats.secuencias.has(seq)) {
+            stats.duplicadas++;
+        } else {
+            stats.secuencias.add(seq);
+        }
+        stats.seqMin = stats.seqMin === null ? seq : Math.min(stats.seqMin, seq);
+        stats.seqMax = stats.seqMax === null ? seq : Math.max(stats.seqMax, seq);
+    }
+
+    if (ruta === "/medida" && req.body && req.body.id_placa) {
+        stats.placas[req.body.id_placa] = (stats.placas[req.body.id_placa] || 0) + 1;
+    }
+
+    return r;
+}
+
+function percentil(ordenado, p) {
+    if (!ordenado.length) return null;
+    const i = Math.min(ordenado.length - 1, Math.floor(p / 100 * ordenado.length));
+    return ordenado[i];
+}
+
+function resumen() {
+    const segundos = Math.max(1, (Date.now() - stats.inicio) / 1000);
+
+    const rutas = {};
+    for (const [ruta, r] of Object.entries(stats.porRuta)) {
+        rutas[ruta] = {
+            peticiones: r.peticiones,
+            bytes: r.bytes,
+            fallosSimulados: r.fallosSimulados,
+            porSegundo: +(r.peticiones / segundos).toFixed(2),
+            porSegundoUltimos10s: +(r.llegadas.length / (VENTANA_MS / 1000)).toFixed(2)
+        };
+    }
+
+    const lat = [...stats.latencias].sort((a, b) => a - b);
+    const minimo = lat.length ? lat[0] : 0;
+    const sobreMinimo = lat.map(x => x - minimo);
+
+    const esperadas = stats.seqMax === null ? 0 : stats.seqMax - stats.seqMin + 1;
+    const perdidas = esperadas - stats.secuencias.size;
+
+    return {
+        segundos: Math.round(segundos),
+        rutas,
+        placas: stats.placas,
+        latenciaMs: {
+            muestras: lat.length,
+            brutaP50: percentil(lat, 50),
+            brutaP95: percentil(lat, 95),
+            sobreMinimaP50: percentil(sobreMinimo, 50),
+            sobreMinimaP95: percentil(sobreMinimo, 95),
+            sobreMinimaMax: sobreMinimo.length ? sobreMinimo[sobreMinimo.length - 1] : null
+        },
+        perdidas: {
+            esperadas,
+            recibidas: stats.secuencias.size,
+            perdidas,
+            porcentaje: esperadas ? +(100 * perdidas / esperadas).toFixed(2) : 0,
+            duplicadas: stats.duplicadas,
+            sinSecuencia: stats.sinSecuencia
+        }
+    };
+}
+
+// --------------------------------------------------------------------------
+//  Servidor
+// --------------------------------------------------------------------------
+
+const app = express();
+app.use(express.json());
+
+/**
+ * Responde tras el retardo configurado; con probabilidad FALLOS_PCT
+ * devuelve 503 (la petición cuenta como recibida).
+ */
+function responder(cuerpo) {
+    return (req, res) => {
+        const r = registrar(req);
+
+        setTimeout(() => {
+            if (Math.random() * 100 < FALLOS_PCT) {
+                r.fallosSimulados++;
+                return res.status(503).json({ error: "Fallo simulado" });
+            }
+            res.status(200).json(cuerpo);
+        }, RETARDO_MS);
+    };
+}
+
+app.post("/medida", responder({ ok: true }));
+app.post("/actualizarEstadoPlaca", responder({ ok: true }));
+app.post("/recorrido", responder({ status: "ok" }));
+app.post("/recorrido/tramo", responder({ status: "ok" }));
+
+// Como el real: la app sincroniza su reloj con este servidor
+app.get("/hora", (req, res) => res.json({ ms: Date.now() }));
+
+app.get("/estadisticas", (req, res) => res.json(resumen()));
+
+app.post("/estadisticas/reiniciar", (req, res) => {
+    stats = nuevasEstadisticas();
+    res.json({ ok: true });
+});
+
+app.listen(PUERTO, () => {
+    console.log("===========================================");
+    console.log(" SERVIDOR SUSTITUTO ATMOS");
+    console.log(` Puerto        : ${PUERTO}`);
+    console.log(` Retardo       : ${RETARDO_MS} ms`);
+    console.log(` Fallos        : ${FALLOS_PCT} %`);
+    console.log("===========================================");
+});
+
+// Resumen periódico por consola
+setInterval(() => {
+    const r = resumen();
+    const total = Object.values(r.rutas).reduce((s, x) => s + x.porSegundoUltimos10s, 0);
+    if (!total) return;
+
+    console.log(
+        `[sustituto] ${total.toFixed(1)} pet/s` +
+        ` | latencia p50/p95 (sobre mínima) ${r.latenciaMs.sobreMinimaP50}/${r.latenciaMs.sobreMinimaP95} ms` +
+        ` | perdidas ${r.perdidas.perdidas}/${r.perdidas.esperadas} (${r.perdidas.porcentaje} %)` +
+        ` | duplicadas ${r.perdidas.duplicadas}`
+    );
+}, VENTANA_MS);
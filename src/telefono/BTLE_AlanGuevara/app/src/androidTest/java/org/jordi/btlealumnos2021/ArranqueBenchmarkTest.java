@@ -0,0 +1,97 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertTrue;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.runner.lifecycle.ActivityLifecycleMonitorRegistry;
+import androidx.test.runner.lifecycle.Stage;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collection;
+
+/**
+ * @brief Mide el arranque: desde abrir ActividadSplash hasta que la primera
+ *        pantalla (login u onboarding) está en primer plano.
+ *
+ * Informa de dos tiempos por la salida de la instrumentación
+ * (am instrument -r) y por logcat (etiqueta "ArranqueBenchmark"):
+ *  - splash_a_destino_ms: lo que tarda el splash en redirigir.
+ *  - tiempo_hasta_interactiva_ms: desde AtmosApp.onCreate hasta la primera
+ *    pantalla interactiva (ArranqueApp.marcarInteractiva).
+ *
+ * Para un arranque en frío real hay que lanzarlo con el proceso recién
+ * creado (p. ej. am force-stop antes de ejecutar la prueba).
+ *
+ * @date 19/10/2026
+ */
+@RunWith(AndroidJUnit4.class)
+public class ArranqueBenchmarkTest {
+
+    private static final String TAG = "ArranqueBenchmark";
+    private static final long TIEMPO_MAXIMO_MS = 10_000;
+
+    @Test
+    public void elSplashRedirigeSinEsperaFija() {
+        Instrumentation instr = InstrumentationRegistry.getInstrumentation();
+
+        Intent intent = new Intent(instr.getTargetContext(), ActividadSplash.class)
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+
+        long inicio = SystemClock.elapsedRealtime();
+        instr.startActivitySync(intent);
+
+        Activity destino = null;
+        while (destino == null && SystemClock.elapsedRealtime() - inicio < TIEMPO_MAXIMO_MS) {
+            destino = destinoEnPrimerPlano(instr);
+            if (destino == null) SystemClock.sleep(5);
+        }
+        long splashADestino = SystemClock.elapsedRealtime() - inicio;
+
+        assertTrue("El splash no redirigió en " + TIEMPO_MAXIMO_MS + " ms", destino != null);
+
+        // marcarInteractiva se anota en el siguiente frame del destino
+        long interactiva = -1;
+        while (interactiva < 0 && SystemClock.elapsedRealtime() - inicio < TIEMPO_MAXIMO_MS) {
+            interactiva = ArranqueApp.getTiempoHastaInteractivaMs();
+            if (interactiva < 0) SystemClock.sleep(5);
+        }
+
+        Bundle resultado = new Bundle();
+        resultado.putLong("splash_a_destino_ms", splashADestino);
+        resultado.putLong("tiempo_hasta_interactiva_ms", interactiva);
+        resultado.putString("destino", destino.getClass().getSimpleName());
+        instr.sendStatus(0, resultado);
+
+        Log.i(TAG, "splash→" + destino.getClass().getSimpleName() + ": " + splashADestino
+                + " ms, interactiva: " + interactiva + " ms");
+
+        // Antes había una espera fija de 2 s; ahora debe ser claramente menor
+        assertTrue("El splash tardó " + splashADestino + " ms", splashADestino < 2000);
+
+        destino.finish();
+    }
+
+    private static Activity destinoEnPrimerPlano(Instrumentation instr) {
+        final Activity[] encontrada = new Activity[1];
+        instr.runOnMainSync(() -> {
+            Collection<Activity> resumidas = ActivityLifecycleMonitorRegistry.getInstance()
+                    .getActivitiesInStage(Stage.RESUMED);
+            for (Activity a : resumidas) {
+                if (a instanceof InicioSesionActivity || a instanceof ActividadInicio) {
+                    encontrada[0] = a;
+                }
+            }
+        });
+        return encontrada[0];
+    }
+}
@@ -0,0 +1,156 @@
+package org.jordi.btlealumnos2021;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @brief Control por adb de la grabación/reproducción de trazas, del
+ *        servidor al que se suben las medidas, de las métricas y de las
+ *        placas adicionales que escucha el servicio.
+ *
+ * Solo existe en la variante debug (src/debug, con su entrada en el
+ * manifiesto): puede redirigir las subidas y la hora a otro servidor y
+ * cambiar las placas que se escuchan. Está exportado pero protegido con el
+ * permiso DUMP, que solo tiene el shell (adb) y el sistema.
+ *
+ * Las órdenes leen y escriben ficheros, así que se ejecutan fuera del hilo
+ * principal (goAsync()).
+ *
+ * Se declara en el manifiesto y la app apunta a SDK 34: los broadcast
+ * implícitos no le llegan, así que todas las órdenes llevan el paquete
+ * (-p).
+ *
+ * Ejemplos:
+ * <pre>
+ *   P=org.jordi.btlealumnos2021
+ *   A=org.jordi.btlealumnos2021.TRAZAS
+ *   adb shell am broadcast -p $P -a $A --es orden grabar
+ *   adb shell am broadcast -p $P -a $A --es orden detener
+ *   adb shell am broadcast -p $P -a $A --es orden reproducir --es traza traza_20261019_101500.atrz --ef velocidad 10
+ *   adb shell am broadcast -p $P -a $A --es orden parar
+ *   adb reverse tcp:8090 tcp:8090
+ *   adb shell am broadcast -p $P -a $A --es orden servidor --es url http://127.0.0.1:8090
+ *   adb shell am broadcast -p $P -a $A --es orden servidor        (vuelve al servidor real)
+ *   adb shell am broadcast -p $P -a $A --es orden metricas        (instantánea a logcat y fichero)
+ *   adb shell am broadcast -p $P -a $A --es orden log --ez detallado true
+ *   adb shell am broadcast -p $P -a $A --es orden placas --es lista PLACA-A,PLACA-B
+ *        (placas de prueba además de las vinculadas en el servidor; al reiniciar el módulo de beacons)
+ *   adb shell am broadcast -p $P -a $A --es orden modulo --es nombre beacons --ez activo false
+ *        (arranca o para un módulo de ServicioSensores: beacons o recorrido)
+ * </pre>
+ *
+ * El servidor sustituto está en src/servidor/simulador/servidorSustituto.js.
+ *
+ * @date 19/10/2026
+ */
+public class TrazasReceiver extends BroadcastReceiver {
+
+    public static final String ACCION = "org.jordi.btlealumnos2021.TRAZAS";
+
+    private static final String TAG = "TrazasReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ACCION.equals(intent.getAction())) return;
+
+        final PendingResult resultado = goAsync();
+        final Context app = context.getApplicationContext();
+        new Thread(() -> {
+            try {
+                ejecutar(app, intent, resultado);
+            } finally {
+                resultado.finish();
+            }
+        }, TAG).start();
+    }
+
+    private static void ejecutar(Context context, Intent intent, PendingResult resultado) {
+        String orden = intent.getStringExtra("orden");
+        if (orden == null) orden = "";
+
+        Log.d(TAG, "Orden recibida: " + orden);
+
+        switch (orden) {
+            case "grabar":
+                try {
+                    File f = GrabadoraTrazas.iniciarGrabacion(context);
+                    resultado.setResultData(f.getAbsolutePath());
+                } catch (IOException e) {
+                    Log.e(TAG, "No se pudo iniciar la grabación", e);
+                }
+                break;
+
+            case "detener":
+                GrabadoraTrazas.detenerGrabacion();
+                break;
+
+            case "reproducir": {
+                String traza = intent.getStringExtra("traza");
+                if (traza == null) {
+                    Log.w(TAG, "Falta --es traza <fichero>");
+                    return;
+                }
+                float velocidad = intent.getFloatExtra("velocidad", 1f);
+                if (!(velocidad >= 0)) {
+                    Log.w(TAG, "--ef velocidad tiene que ser >= 0: " + velocidad);
+                    return;
+                }
+                GrabadoraTrazas.reproducir(GrabadoraTrazas.fichero(context, traza), velocidad);
+                break;
+            }
+
+            case "parar":
+                GrabadoraTrazas.detenerReproduccion();
+                break;
+
+            case "metricas":
+                // Instantánea al logcat y a files/metricas/
+                Log.i(TAG, "Métricas\n" + Metricas.getInstance().informe());
+                try {
+                    resultado.setResultData(Instrumentacion.exportar(context).getAbsolutePath());
+                } catch (IOException e) {
+                    Log.e(TAG, "No se pudieron exportar las métricas", e);
+                }
+                break;
+
+            case "log":
+                Instrumentacion.logDetallado = intent.getBooleanExtra("detallado", false);
+                break;
+
+            case "servidor":
+                LogicaFake.setServidorSubidas(intent.getStringExtra("url"));
+                resultado.setResultData(LogicaFake.getServidorSubidas());
+                break;
+
+            case "placas": {
+                String lista = intent.getStringExtra("lista");
+                context.getSharedPreferences(ModuloBeacons.PREFS_PLACAS, Context.MODE_PRIVATE)
+                        .edit()
+                        .putString(ModuloBeacons.CLAVE_PLACAS_ADICIONALES,
+                                lista == null ? "" : lista)
+                        .apply();
+                resultado.setResultData(lista);
+                break;
+            }
+
+            case "modulo": {
+                String nombre = intent.getStringExtra("nombre");
+                if (intent.getBooleanExtra("activo", true)) {
+                    ServicioSensores.iniciarModulo(context, nombre);
+                } else {
+                    ServicioSensores.detenerModulo(context, nombre);
+                }
+                resultado.setResultData(nombre);
+                break;
+            }
+
+            default:
+                Log.w(TAG, "Orden desconocida: " + orden);
+        }
+    }
+}
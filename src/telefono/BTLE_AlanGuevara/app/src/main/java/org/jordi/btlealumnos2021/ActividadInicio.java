@@ -90,6 +90,8 @@ public class ActividadInicio extends AppCompatActivity {
                 actualizarControles(position);
             }
         });
+
+        ArranqueApp.marcarInteractiva(this);
     }
 
     /**
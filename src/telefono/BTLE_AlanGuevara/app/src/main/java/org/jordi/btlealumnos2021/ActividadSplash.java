@@ -2,49 +2,45 @@ package org.jordi.btlealumnos2021;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.splashscreen.SplashScreen;
 
 /**
  * @brief Actividad de pantalla de carga (splash).
  *
- * Muestra el logo de ATMOS durante un tiempo fijo y decide
- * a qué pantalla redirigir al usuario según su estado:
+ * Usa la API SplashScreen: el logo lo pinta el sistema desde el tema
+ * Theme.Atmos.Splash (sin inflar layout) y se mantiene solo hasta que
+ * ArranqueApp ha leído la sesión y las preferencias. En ese momento
+ * decide a qué pantalla redirigir al usuario según su estado:
  * onboarding, login o sesión existente.
  */
 public class ActividadSplash extends AppCompatActivity {
 
-    private static final int DURACION_SPLASH_MS = 2000;
-
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        SplashScreen splash = SplashScreen.installSplashScreen(this);
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.actividad_splash);
 
-        Preferencias preferencias = new Preferencias(this);
+        // Por si la app se abrió sin pasar por AtmosApp.onCreate (no debería)
+        ArranqueApp.iniciar(this);
 
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
+        splash.setKeepOnScreenCondition(() -> !ArranqueApp.sesionResuelta());
 
-            /// 1️ Si hay sesión → ir a la pantalla de login (que mostrará la huella)
-            if (SesionManager.haySesionActiva(this)) {
-                startActivity(new Intent(ActividadSplash.this, InicioSesionActivity.class));
-                finish();
-                return;
-            }
+        ArranqueApp.alResolverSesion(this::redirigir);
+    }
 
-            /// 2️ Si es la primera vez → mostrar onboarding
-            if (preferencias.esPrimeraVez()) {
-                startActivity(new Intent(ActividadSplash.this, ActividadInicio.class));
-                finish();
-                return;
-            }
+    private void redirigir() {
+        if (isFinishing()) return;
 
-            /// 3️ Si NO es primera vez → mostrar LOGIN (NO registro)
-            startActivity(new Intent(ActividadSplash.this, InicioSesionActivity.class));
-            finish();
+        /// 1️ Si hay sesión → ir a la pantalla de login (que mostrará la huella)
+        /// 2️ Si es la primera vez → mostrar onboarding
+        /// 3️ Si NO es primera vez → mostrar LOGIN (NO registro)
+        Class<?> destino = ArranqueApp.getDestino() == ArranqueApp.DESTINO_ONBOARDING
+                ? ActividadInicio.class
+                : InicioSesionActivity.class;
 
-        }, DURACION_SPLASH_MS);
+        startActivity(new Intent(ActividadSplash.this, destino));
+        finish();
     }
 }
@@ -0,0 +1,321 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * @brief Agregados de las medidas de la placa calculados en el propio
+ *        móvil, en ventanas deslizantes de 1 min, 1 h, 8 h y 24 h.
+ *
+ * ModuloBeacons le pasa cada medida nueva (antes de comprimirla
+ * para subirla). Para cada gas hay tres anillos de tramos de tamaño fijo:
+ * <pre>
+ *   1 min  → 12 tramos de 5 s
+ *   1 h    → 60 tramos de 1 min
+ *   8/24 h → 24 tramos de 1 h (en hora local; 8 h son los 8 últimos)
+ * </pre>
+ * Cada tramo guarda cuenta, suma, mínimo, máximo y un DigestoCuantiles, así
+ * que la memoria no depende de cuántas medidas lleguen. Un tramo se
+ * reutiliza cuando le toca a un periodo nuevo; consultar una ventana es
+ * combinar los tramos que caen dentro.
+ *
+ * Con esto UserPageActivity pinta la última medida y el promedio de hoy, y
+ * GraficaHelper la gráfica de 8 horas, sin preguntar al servidor mientras
+ * el agregador haya estado recibiendo durante todo el periodo (ver
+ * {@link #cubreDesde(long)}); si no (la app acaba de arrancar), se sigue
+ * usando el servidor.
+ *
+ * Es thread-safe (métodos sincronizados): escribe el servicio y leen las
+ * pantallas.
+ *
+ * @date 19/10/2026
+ */
+public final class AgregadorMedidas {
+
+    public static final int VENTANA_1MIN = 0;
+    public static final int VENTANA_1H = 1;
+    public static final int VENTANA_8H = 2;
+    public static final int VENTANA_24H = 3;
+
+    static final long SEGUNDO = 1000L;
+    static final long MINUTO = 60 * SEGUNDO;
+    static final long HORA = 60 * MINUTO;
+
+    /** Compresión de los digestos de cada tramo (~30 centroides como mucho). */
+    private static final double COMPRESION = 20;
+
+    private static final AgregadorMedidas instancia = new AgregadorMedidas(TimeZone.getDefault());
+
+    public static AgregadorMedidas getInstance() {
+        return instancia;
+    }
+
+    /**
+     * @brief Agregados de una ventana.
+     */
+    public static final class Resumen {
+        public final long cuenta;
+        public final double media;
+        public final double minimo;
+        public final double maximo;
+        private final DigestoCuantiles digesto;
+
+        private Resumen(long cuenta, double suma, double minimo, double maximo,
+                        DigestoCuantiles digesto) {
+            this.cuenta = cuenta;
+            this.media = cuenta == 0 ? Double.NaN : suma / cuenta;
+            this.minimo = minimo;
+            this.maximo = maximo;
+            this.digesto = digesto;
+        }
+
+        /** @param q Cuantil en [0, 1]; NaN si la ventana está vacía. */
+        public double cuantil(double q) {
+            return digesto.cuantil(q);
+        }
+    }
+
+    /**
+     * @brief Última medida recibida de un gas.
+     */
+    public static final class Ultima {
+        public final double valor;
+        public final long tMs;
+
+        Ultima(double valor, long tMs) {
+            this.valor = valor;
+            this.tMs = tMs;
+        }
+    }
+
+    // -------------------------------------------------------------
+    // Tramos y anillos
+    // -------------------------------------------------------------
+
+    /** Agregado de un periodo. El digesto se crea con la primera medida. */
+    private static final class Tramo {
+        long periodo = Long.MIN_VALUE;   // índice del periodo que contiene
+        long cuenta;
+        double suma;
+        double minimo;
+        double maximo;
+        DigestoCuantiles digesto;
+
+        void reiniciar(long p) {
+            periodo = p;
+            cuenta = 0;
+            suma = 0;
+            minimo = Double.POSITIVE_INFINITY;
+            maximo = Double.NEGATIVE_INFINITY;
+            if (digesto != null) digesto.reiniciar();
+        }
+
+        void anadir(double v) {
+            cuenta++;
+            suma += v;
+            if (v < minimo) minimo = v;
+            if (v > maximo) maximo = v;
+            if (digesto == null) digesto = new DigestoCuantiles(COMPRESION);
+            digesto.anadir(v);
+        }
+    }
+
+    /** Anillo de n tramos de ancho fijo; el periodo p va al tramo p % n. */
+    private static final class Anillo {
+        final Tramo[] tramos;
+        final long ancho;
+
+        Anillo(int n, long ancho) {
+            this.ancho = ancho;
+            tramos = new Tramo[n];
+            for (int i = 0; i < n; i++) tramos[i] = new Tramo();
+        }
+
+        void anadir(long periodo, double v) {
+            Tramo t = tramos[(int) Math.floorMod(periodo, (long) tramos.length)];
+            if (t.periodo != periodo) {
+                // Un tramo de un periodo anterior ya no se toca
+                if (t.periodo > periodo) return;
+                t.reiniciar(periodo);
+            }
+            t.anadir(v);
+        }
+
+        Tramo tramo(long periodo) {
+            Tramo t = tramos[(int) Math.floorMod(periodo, (long) tramos.length)];
+            return t.periodo == periodo ? t : null;
+        }
+
+        /** Combina los periodos [desde, hasta]. */
+        Resumen resumen(long desde, long hasta) {
+            long cuenta = 0;
+            double suma = 0;
+            double min = Double.NaN, max = Double.NaN;
+            DigestoCuantiles d = new DigestoCuantiles(COMPRESION * 2);
+
+            for (long p = Math.max(desde, hasta - tramos.length + 1); p <= hasta; p++) {
+                Tramo t = tramo(p);
+                if (t == null || t.cuenta == 0) continue;
+
+                cuenta += t.cuenta;
+                suma += t.suma;
+                min = Double.isNaN(min) ? t.minimo : Math.min(min, t.minimo);
+                max = Double.isNaN(max) ? t.maximo : Math.max(max, t.maximo);
+                d.anadir(t.digesto);
+            }
+            return new Resumen(cuenta, suma, min, max, d);
+        }
+    }
+
+    /** Los tres anillos de un gas. */
+    private static final class Gas {
+        final Anillo segundos = new Anillo(12, 5 * SEGUNDO);
+        final Anillo minutos = new Anillo(60, MINUTO);
+        final Anillo horas = new Anillo(24, HORA);
+        Ultima ultima;
+    }
+
+    // -------------------------------------------------------------
+
+    private final TimeZone zona;
+    private final Map<Integer, Gas> gases = new HashMap<>();
+
+    /** Instante de la primera medida (0 = ninguna todavía). */
+    private long desdeMs = 0;
+
+    AgregadorMedidas(TimeZone zona) {
+        this.zona = zona;
+    }
+
+    /**
+     * @brief Añade una medida.
+     *
+     * @param tMs Instante de la medida (hora de pared, ms).
+     */
+    public synchronized void anadir(int tipoGas, double valor, long tMs) {
+        if (Double.isNaN(valor) || valor < 0) return;
+
+        Gas g = gases.get(tipoGas);
+        if (g == null) {
+            g = new Gas();
+            gases.put(tipoGas, g);
+        }
+
+        g.segundos.anadir(Math.floorDiv(tMs, g.segundos.ancho), valor);
+        g.minutos.anadir(Math.floorDiv(tMs, MINUTO), valor);
+        g.horas.anadir(horaLocal(tMs), valor);
+
+        if (g.ultima == null || tMs >= g.ultima.tMs) g.ultima = new Ultima(valor, tMs);
+        if (desdeMs == 0 || tMs < desdeMs) desdeMs = tMs;
+    }
+
+    /**
+     * @brief Agregados de una ventana que acaba ahora.
+     *
+     * @param ventana VENTANA_1MIN, VENTANA_1H, VENTANA_8H o VENTANA_24H.
+     *                Las de 8 y 24 h van por horas completas de reloj (la
+     *                actual incluida), igual que la gráfica del servidor.
+     */
+    public synchronized Resumen ventana(int tipoGas, int ventana, long ahoraMs) {
+        Gas g = gases.get(tipoGas);
+        if (g == null) g = new Gas();
+
+        switch (ventana) {
+            case VENTANA_1MIN: {
+                long p = Math.floorDiv(ahoraMs, g.segundos.ancho);
+                return g.segundos.resumen(p - 11, p);
+            }
+            case VENTANA_1H: {
+                long p = Math.floorDiv(ahoraMs, MINUTO);
+                return g.minutos.resumen(p - 59, p);
+            }
+            case VENTANA_8H: {
+                long p = horaLocal(ahoraMs);
+                return g.horas.resumen(p - 7, p);
+            }
+            case VENTANA_24H: {
+                long p = horaLocal(ahoraMs);
+                return g.horas.resumen(p - 23, p);
+            }
+            default:
+                throw new IllegalArgumentException("Ventana desconocida: " + ventana);
+        }
+    }
+
+    /**
+     * @brief Agregados desde las 00:00 locales de hoy.
+     */
+    public synchronized Resumen hoy(int tipoGas, long ahoraMs) {
+        Gas g = gases.get(tipoGas);
+        if (g == null) g = new Gas();
+        return g.horas.resumen(horaLocal(inicioDia(ahoraMs)), horaLocal(ahoraMs));
+    }
+
+    /**
+     * @brief Media de cada una de las últimas n horas de reloj (la última es
+     *        la actual); 0 en las horas sin medidas, como el servidor.
+     */
+    public synchronized float[] mediasHorarias(int tipoGas, int n, long ahoraMs) {
+        if (n > 24) throw new IllegalArgumentException("Como mucho 24 horas");
+
+        float[] medias = new float[n];
+        Gas g = gases.get(tipoGas);
+        if (g == null) return medias;
+
+        long actual = horaLocal(ahoraMs);
+        for (int i = 0; i < n; i++) {
+            Tramo t = g.horas.tramo(actual - (n - 1 - i));
+            if (t != null && t.cuenta > 0) medias[i] = (float) (t.suma / t.cuenta);
+        }
+        return medias;
+    }
+
+    /**
+     * @return La última medida de un gas, o null si no ha llegado ninguna.
+     */
+    public synchronized Ultima ultima(int tipoGas) {
+        Gas g = gases.get(tipoGas);
+        return g == null ? null : g.ultima;
+    }
+
+    /**
+     * @brief Indica si el agregador ha estado recibiendo desde inicioMs, es
+     *        decir, si sus datos de ese periodo están completos.
+     */
+    public synchronized boolean cubreDesde(long inicioMs) {
+        return desdeMs != 0 && desdeMs <= inicioMs;
+    }
+
+    /** Inicio (ms) de la hora de reloj local que contiene t. */
+    public long inicioHora(long tMs) {
+        long offset = zona.getOffset(tMs);
+        return Math.floorDiv(tMs + offset, HORA) * HORA - offset;
+    }
+
+    /** Inicio (ms) del día local que contiene t. */
+    public long inicioDia(long tMs) {
+        Calendar c = Calendar.getInstance(zona);
+        c.setTimeInMillis(tMs);
+        c.set(Calendar.HOUR_OF_DAY, 0);
+        c.set(Calendar.MINUTE, 0);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        return c.getTimeInMillis();
+    }
+
+    /**
+     * @brief Olvida todas las medidas (al cerrar sesión: son del usuario
+     *        que sale).
+     */
+    public synchronized void reiniciar() {
+        gases.clear();
+        desdeMs = 0;
+    }
+
+    /** Índice de la hora local (las horas de reloj no coinciden con UTC). */
+    private long horaLocal(long tMs) {
+        return Math.floorDiv(tMs + zona.getOffset(tMs), HORA);
+    }
+}
@@ -0,0 +1,161 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * @brief Copia local de las notificaciones de un usuario.
+ *
+ * En vez de descargar la lista completa en cada sondeo, la app pide solo
+ * las notificaciones con id mayor que {@link #getUltimoId()} (since_id) y
+ * las fusiona aquí. Las novedades se detectan por id (un id que no estaba
+ * en el almacén es nuevo), no comparando listas posición a posición.
+ *
+ * La lista ordenada que se entrega a la pantalla solo se reconstruye
+ * cuando algo cambia, así que un sondeo sin novedades no crea objetos.
+ *
+ * Las más antiguas se cargan por páginas al hacer scroll
+ * ({@link #fusionarAnteriores}), pidiendo las anteriores a
+ * {@link #getIdMasAntiguo()}.
+ *
+ * @date 19/10/2026
+ */
+public class AlmacenNotificaciones {
+
+    // Tamaño de la primera carga (LIMIT del backend sin since_id)
+    public static final int PAGINA_INICIAL = 100;
+
+    // Más recientes primero (los ids del backend son crecientes)
+    private final TreeMap<Integer, NotificacionAtmos> porId =
+            new TreeMap<>(Collections.<Integer>reverseOrder());
+
+    private int idUsuario = -1;
+    private int ultimoId = 0;
+    private boolean hayMasAntiguas = false;
+
+    private List<NotificacionAtmos> lista = Collections.emptyList();
+
+    /**
+     * @brief Cambia de usuario; si es otro distinto se vacía el almacén.
+     */
+    public synchronized void usarUsuario(int idUsuario) {
+        if (this.idUsuario != idUsuario) {
+            this.idUsuario = idUsuario;
+            vaciar();
+        }
+    }
+
+    /**
+     * @brief Cursor para el siguiente sondeo (0 = aún no se ha cargado nada).
+     */
+    public synchronized int getUltimoId() {
+        return ultimoId;
+    }
+
+    /**
+     * @brief Fusiona las notificaciones recibidas del backend.
+     *
+     * @param recibidas        Notificaciones de la respuesta (en cualquier orden).
+     * @param ultimoIdServidor Campo ultimo_id de la respuesta (0 si no venía).
+     * @return Las que no estaban ya en el almacén, más recientes primero.
+     *         Lista vacía si no hay nada nuevo.
+     */
+    public synchronized List<NotificacionAtmos> fusionar(List<NotificacionAtmos> recibidas,
+                                                         int ultimoIdServidor) {
+        List<NotificacionAtmos> nuevas = new ArrayList<>();
+
+        // Si la primera carga llega llena, puede haber más en el backend
+        if (ultimoId == 0) hayMasAntiguas = recibidas.size() >= PAGINA_INICIAL;
+
+        for (NotificacionAtmos n : recibidas) {
+            int id = n.getIdNotificacion();
+            if (id < 0 || porId.containsKey(id)) continue;
+
+            porId.put(id, n);
+            nuevas.add(n);
+            if (id > ultimoId) ultimoId = id;
+        }
+
+        if (ultimoIdServidor > ultimoId) ultimoId = ultimoIdServidor;
+
+        if (!nuevas.isEmpty()) {
+            Collections.sort(nuevas, (a, b) -> Integer.compare(b.getIdNotificacion(), a.getIdNotificacion()));
+            lista = Collections.unmodifiableList(new ArrayList<>(porId.values()));
+        }
+
+        return nuevas;
+    }
+
+    /**
+     * @brief Fusiona una página de notificaciones más antiguas.
+     *
+     * No cuentan como nuevas (no generan alertas del sistema).
+     *
+     * @param recibidas Página recibida del backend.
+     * @param tamPagina Tamaño pedido; si llega menos, ya no hay más.
+     * @return Número de notificaciones añadidas.
+     */
+    public synchronized int fusionarAnteriores(List<NotificacionAtmos> recibidas, int tamPagina) {
+        int antes = porId.size();
+
+        for (NotificacionAtmos n : recibidas) {
+            int id = n.getIdNotificacion();
+            if (id >= 0 && !porId.containsKey(id)) porId.put(id, n);
+        }
+
+        hayMasAntiguas = recibidas.size() >= tamPagina;
+
+        int anadidas = porId.size() - antes;
+        if (anadidas > 0) {
+            lista = Collections.unmodifiableList(new ArrayList<>(porId.values()));
+        }
+        return anadidas;
+    }
+
+    /**
+     * @brief Id de la notificación más antigua cargada (0 si no hay ninguna).
+     */
+    public synchronized int getIdMasAntiguo() {
+        return porId.isEmpty() ? 0 : porId.lastKey();
+    }
+
+    /**
+     * @brief true si el backend puede tener notificaciones más antiguas.
+     */
+    public synchronized boolean hayMasAntiguas() {
+        return hayMasAntiguas;
+    }
+
+    /**
+     * @brief Quita una notificación borrada por el usuario.
+     *
+     * El cursor no retrocede, así que el backend no la vuelve a mandar.
+     */
+    public synchronized void olvidar(int idNotificacion) {
+        if (porId.remove(idNotificacion) != null) {
+            lista = Collections.unmodifiableList(new ArrayList<>(porId.values()));
+        }
+    }
+
+    /**
+     * @brief Todas las notificaciones conocidas, más recientes primero.
+     *
+     * La lista no se puede modificar y es la misma instancia mientras
+     * no cambie nada.
+     */
+    public synchronized List<NotificacionAtmos> getLista() {
+        return lista;
+    }
+
+    /**
+     * @brief Vacía el almacén y reinicia el cursor (la próxima carga es completa).
+     */
+    public synchronized void vaciar() {
+        porId.clear();
+        ultimoId = 0;
+        hayMasAntiguas = false;
+        lista = Collections.emptyList();
+    }
+}
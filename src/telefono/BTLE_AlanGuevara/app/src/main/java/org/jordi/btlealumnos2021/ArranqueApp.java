@@ -0,0 +1,229 @@
+package org.jordi.btlealumnos2021;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.preference.PreferenceManager;
+import android.util.Log;
+
+import com.android.volley.toolbox.Volley;
+
+import org.osmdroid.config.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @brief Precarga en paralelo del estado que necesita el arranque.
+ *
+ * AtmosApp.onCreate llama a iniciar() y, mientras el sistema pinta el
+ * splash, varios hilos de fondo preparan a la vez:
+ *  - La sesión y las preferencias (lo único que necesita el splash para
+ *    decidir a qué pantalla ir).
+ *  - La configuración de osmdroid y su caché de teselas en disco, para que
+ *    MapasActivity no lea preferencias ni cree directorios en el hilo principal.
+ *  - Con sesión: el estado de la placa vinculada y la caché de estaciones
+ *    oficiales, que son las primeras peticiones que hacen UserPageActivity
+ *    y MapasActivity.
+ *
+ * El splash se queda en pantalla solo hasta que la sesión está resuelta;
+ * el resto sigue cargando detrás sin bloquear a nadie.
+ *
+ * También mide el tiempo hasta la primera pantalla interactiva
+ * (marcarInteractiva), que lee ArranqueBenchmarkTest.
+ *
+ * @date 19/10/2026
+ */
+public final class ArranqueApp {
+
+    private static final String TAG = "ArranqueApp";
+
+    // Resultado del splash
+    public static final int DESTINO_LOGIN = 0;
+    public static final int DESTINO_ONBOARDING = 1;
+
+    // Vida útil del estado de placa precargado (después se vuelve a pedir)
+    private static final long TTL_ESTADO_PLACA_MS = 30_000;
+
+    private ArranqueApp() { }
+
+    private static final Handler main = new Handler(Looper.getMainLooper());
+
+    private static ExecutorService ejecutor;
+
+    private static long inicioMs = 0;
+    private static volatile long interactivaMs = -1;
+
+    // Estado de la sesión (lo lee el splash)
+    private static volatile boolean sesionResuelta = false;
+    private static volatile int destino = DESTINO_LOGIN;
+    private static Runnable alResolverSesion;
+
+    // Configuración de osmdroid
+    private static final Object lockMapa = new Object();
+    private static boolean mapaConfigurado = false;
+
+    // Estado de placa precargado
+    private static volatile String estadoPlaca = null;
+    private static volatile long estadoPlacaMs = 0;
+
+    /**
+     * @brief Lanza la precarga. Se llama una sola vez desde AtmosApp.onCreate.
+     */
+    public static synchronized void iniciar(Context context) {
+        if (ejecutor != null) return;
+
+        final Context app = context.getApplicationContext();
+        inicioMs = SystemClock.elapsedRealtime();
+        ejecutor = Executors.newFixedThreadPool(2);
+
+        // 1) Sesión y preferencias → decide el destino del splash
+        ejecutor.execute(() -> {
+            boolean haySesion = SesionManager.haySesionActiva(app);
+            boolean primeraVez = !haySesion && new Preferencias(app).esPrimeraVez();
+            destino = primeraVez ? DESTINO_ONBOARDING : DESTINO_LOGIN;
+
+            main.post(ArranqueApp::resolverSesion);
+
+            if (haySesion) {
+                precargarPlaca(app, SesionManager.obtenerIdUsuario(app));
+
+                // Rellena la caché estática de EstacionesMedidaAPI
+                new EstacionesMedidaAPI().obtenerEstacionesOficiales(lista -> { });
+            }
+        });
+
+        // 2) osmdroid: preferencias y caché de teselas en disco
+        ejecutor.execute(() -> configurarMapa(app));
+
+        ejecutor.shutdown();
+    }
+
+    /**
+     * @brief Indica si la sesión ya está resuelta (condición del splash).
+     */
+    public static boolean sesionResuelta() {
+        return sesionResuelta;
+    }
+
+    /**
+     * @brief Ejecuta la acción en el hilo principal en cuanto se conozca el
+     *        destino (inmediatamente si ya se conoce).
+     */
+    public static void alResolverSesion(Runnable accion) {
+        if (sesionResuelta) {
+            accion.run();
+            return;
+        }
+        alResolverSesion = accion;
+    }
+
+    public static int getDestino() {
+        return destino;
+    }
+
+    private static void resolverSesion() {
+        sesionResuelta = true;
+        Runnable accion = alResolverSesion;
+        alResolverSesion = null;
+        if (accion != null) accion.run();
+    }
+
+    /**
+     * @brief Carga la configuración de osmdroid una sola vez.
+     *
+     * MapasActivity la llama antes de setContentView: si la precarga ya
+     * terminó no hace nada; si no, la hace en ese momento (o espera a que
+     * acabe la que está en curso).
+     */
+    public static void configurarMapa(Context context) {
+        synchronized (lockMapa) {
+            if (mapaConfigurado) return;
+
+            Context app = context.getApplicationContext();
+            Configuration.getInstance().load(app, PreferenceManager.getDefaultSharedPreferences(app));
+
+            // Crea (si no existen) los directorios de la caché de teselas
+            // para que el primer MapView las encuentre ya en disco.
+            Configuration.getInstance().getOsmdroidTileCache().mkdirs();
+
+            mapaConfigurado = true;
+        }
+    }
+
+    // -------------------------------------------------------------
+    // Estado de la placa
+    // -------------------------------------------------------------
+
+    private static void precargarPlaca(Context app, int idUsuario) {
+        if (idUsuario <= 0) return;
+
+        main.post(() -> LogicaFake.estadoPlacaServidor(idUsuario, Volley.newRequestQueue(app),
+                new LogicaFake.EstadoPlacaCallback() {
+                    @Override public void onActivo() { guardarEstadoPlaca("activo"); }
+                    @Override public void onInactivo() { guardarEstadoPlaca("inactivo"); }
+                    @Override public void onSinPlaca() { guardarEstadoPlaca("sin_placa"); }
+                    @Override public void onErrorServidor() { }
+                    @Override public void onErrorInesperado() { }
+                }));
+    }
+
+    private static void guardarEstadoPlaca(String estado) {
+        estadoPlaca = estado;
+        estadoPlacaMs = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * @brief Entrega al callback el estado de placa precargado, si es reciente.
+     *
+     * @return true si había estado precargado (la llamada de red se puede
+     *         seguir haciendo para refrescarlo).
+     */
+    public static boolean entregarEstadoPlaca(LogicaFake.EstadoPlacaCallback cb) {
+        String estado = estadoPlaca;
+        if (estado == null
+                || SystemClock.elapsedRealtime() - estadoPlacaMs > TTL_ESTADO_PLACA_MS) {
+            return false;
+        }
+
+        switch (estado) {
+            case "activo": cb.onActivo(); break;
+            case "inactivo": cb.onInactivo(); break;
+            default: cb.onSinPlaca(); break;
+        }
+        return true;
+    }
+
+    // -------------------------------------------------------------
+    // Medición
+    // -------------------------------------------------------------
+
+    /**
+     * @brief Marca la primera pantalla interactiva tras el arranque.
+     *
+     * Solo cuenta la primera vez; informa al sistema con reportFullyDrawn
+     * (aparece en logcat como "Fully drawn") y guarda el tiempo desde que
+     * arrancó el proceso.
+     */
+    public static void marcarInteractiva(Activity activity) {
+        if (interactivaMs >= 0 || inicioMs == 0) return;
+
+        activity.getWindow().getDecorView().post(() -> {
+            if (interactivaMs >= 0) return;
+            interactivaMs = SystemClock.elapsedRealtime() - inicioMs;
+            Log.i(TAG, "Interactiva en " + interactivaMs + " ms ("
+                    + activity.getClass().getSimpleName() + ")");
+            activity.reportFullyDrawn();
+        });
+    }
+
+    /**
+     * @return ms desde AtmosApp.onCreate hasta la primera pantalla
+     *         interactiva, o -1 si aún no se ha llegado.
+     */
+    public static long getTiempoHastaInteractivaMs() {
+        return interactivaMs;
+    }
+}
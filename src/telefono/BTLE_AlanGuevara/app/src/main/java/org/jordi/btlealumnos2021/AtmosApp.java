@@ -9,7 +9,8 @@ import android.os.Bundle;
  *
  * Permite detectar cuándo la aplicación pasa de segundo plano
  * a primer plano y viceversa, con el objetivo de decidir si
- * debe mostrarse la autenticación biométrica.
+ * debe mostrarse la autenticación biométrica y de pausar los
+ * refrescos periódicos de las pantallas (Refrescos).
  */
 public class AtmosApp extends Application {
 
@@ -19,6 +20,9 @@ public class AtmosApp extends Application {
     public void onCreate() {
         super.onCreate();
 
+        // Precarga sesión, mapa y estado de placa mientras se pinta el splash
+        ArranqueApp.iniciar(this);
+
         registerActivityLifecycleCallbacks(new ActivityLifecycleCallbacks() {
 
             @Override
@@ -28,6 +32,7 @@ public class AtmosApp extends Application {
                 // esto significa que la app vuelve desde background.
                 if (actividadesEnForeground == 0) {
                     AppLifecycleTracker.appFueCerrada = false;
+                    Refrescos.getInstance().setPrimerPlano(true);
                 }
 
                 actividadesEnForeground++;
@@ -41,6 +46,8 @@ public class AtmosApp extends Application {
                 // la app se va al background → se considera "cerrada".
                 if (actividadesEnForeground == 0) {
                     AppLifecycleTracker.appFueCerrada = true;
+                    // Ningún refresco de pantalla en segundo plano
+                    Refrescos.getInstance().setPrimerPlano(false);
                 }
             }
 
@@ -0,0 +1,273 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @brief Bandeja de salida única de las subidas de los sensores (medidas,
+ *        estado de placa y recorrido).
+ *
+ * Antes cada subida abría su propio hilo (guardarMedicion,
+ * actualizarEstadoPlaca) o su propia cola de Volley (guardarRecorrido, una
+ * por localización). Ahora los módulos de ServicioSensores las dejan aquí y
+ * se envían de una en una, en orden, en el ejecutor compartido:
+ *  - Una sola subida en vuelo: el servidor las recibe en orden y no se
+ *    abren decenas de conexiones a la vez tras una ráfaga de anuncios.
+ *  - Si una falla, se queda la primera y la bandeja se para un rato: la
+ *    espera empieza en RETRASO_MIN_MS y se dobla en cada fallo seguido,
+ *    hasta RETRASO_MAX_MS; el primer acierto la devuelve al mínimo. Así un
+ *    fallo suelto no retiene las subidas un minuto y sin red no se gastan
+ *    intentos en bucle. Tras MAX_INTENTOS fallos se descarta.
+ *  - Como mucho MAX_PENDIENTES; si se llena se descartan las más antiguas.
+ *  - Cada subida recibe al añadirla su número de secuencia (cabecera
+ *    X-Atmos-Seq) y lo conserva en todos sus intentos: un hueco en el
+ *    servidor es una subida perdida y un número repetido, un reintento.
+ *  - Al parar el servicio, cerrar() hace un último intento con todo lo
+ *    pendiente (también si estaba parada) y a partir de ahí no admite más:
+ *    lo que no se pueda enviar entonces se descarta.
+ *
+ * Es thread-safe: se añade desde el hilo principal y se envía en el
+ * ejecutor.
+ *
+ * @date 19/10/2026
+ */
+public final class BandejaSubidas {
+
+    /** Subidas pendientes como máximo. */
+    public static final int MAX_PENDIENTES = 500;
+
+    /**
+     * Fallos de una misma subida antes de descartarla: con las esperas de
+     * 1, 2, 4... hasta 60 s, unos dos minutos sin red.
+     */
+    public static final int MAX_INTENTOS = 8;
+
+    /** Espera tras el primer fallo (ms). */
+    public static final long RETRASO_MIN_MS = 1_000;
+
+    /** Espera máxima tras fallos seguidos (ms). */
+    public static final long RETRASO_MAX_MS = 60_000;
+
+    // Números de secuencia de todo el proceso (no por bandeja): si el
+    // servicio se vuelve a crear, la secuencia sigue y el servidor no lo
+    // confunde con un reinicio de la app
+    private static final AtomicLong secuencia = new AtomicLong();
+
+    /**
+     * @brief Una subida. Se ejecuta en el ejecutor (puede bloquear).
+     */
+    public interface Envio {
+        /**
+         * @param seq Número de secuencia de la subida (el mismo en cada intento).
+         * @return true si está hecha (o no tiene sentido repetirla, p. ej. un
+         *         error 4xx); false para reintentarla más tarde.
+         */
+        boolean enviar(long seq);
+    }
+
+    /**
+     * @brief Ejecuta una tarea más tarde (en ServicioSensores, el Handler
+     *        principal). Se puede llamar desde cualquier hilo.
+     */
+    public interface Temporizador {
+        void programar(Runnable tarea, long retrasoMs);
+    }
+
+    private static final class Pendiente {
+        final String tipo;
+        final Envio envio;
+        final long seq;
+        int intentos = 0;
+
+        Pendiente(String tipo, Envio envio, long seq) {
+            this.tipo = tipo;
+            this.envio = envio;
+            this.seq = seq;
+        }
+    }
+
+    private final Executor ejecutor;
+    private final Temporizador temporizador;
+    private final ArrayDeque<Pendiente> cola = new ArrayDeque<>();
+
+    private boolean enviando = false;   // hay un vaciar() en el ejecutor
+    private boolean parada = false;     // tras un fallo, hasta que pase la espera
+    private boolean cerrada = false;    // tras cerrar(), no admite más
+    private int fallosSeguidos = 0;
+    private int turno = 0;              // descarta las esperas ya superadas
+
+    private long enviadas = 0;
+    private long fallos = 0;
+    private long descartadas = 0;
+    private String ultimoTipo = null;
+
+    public BandejaSubidas(Executor ejecutor, Temporizador temporizador) {
+        this.ejecutor = ejecutor;
+        this.temporizador = temporizador;
+    }
+
+    /**
+     * @brief Deja una subida en la bandeja y, si no está parada, empieza a enviar.
+     *
+     * @param tipo Nombre corto para métricas y logs ("medida", "recorrido"...).
+     */
+    public void anadir(String tipo, Envio envio) {
+        synchronized (this) {
+            if (cerrada) {
+                descartadas++;
+                return;
+            }
+            if (cola.size() >= MAX_PENDIENTES) {
+                cola.pollFirst();
+                descartadas++;
+            }
+            cola.addLast(new Pendiente(tipo, envio, secuencia.incrementAndGet()));
+            if (enviando || parada) return;
+            enviando = true;
+        }
+        lanzar();
+    }
+
+    /**
+     * @brief Vuelve a enviar ya, sin esperar a que pase la espera tras un
+     *        fallo (si hay algo pendiente).
+     */
+    public void reintentar() {
+        synchronized (this) {
+            if (cerrada) return;
+            parada = false;
+            turno++;
+            if (enviando || cola.isEmpty()) return;
+            enviando = true;
+        }
+        lanzar();
+    }
+
+    /**
+     * @brief Último intento con lo pendiente, antes de parar el ejecutor; a
+     *        partir de aquí no se admiten subidas.
+     */
+    public void cerrar() {
+        synchronized (this) {
+            if (cerrada) return;
+            cerrada = true;
+            parada = false;
+            if (enviando || cola.isEmpty()) return;
+            enviando = true;
+        }
+        lanzar();
+    }
+
+    private void reintentarSiToca(int programado) {
+        synchronized (this) {
+            if (programado != turno) return;
+        }
+        reintentar();
+    }
+
+    private void lanzar() {
+        try {
+            ejecutor.execute(this::vaciar);
+        } catch (RejectedExecutionException e) {
+            // El ejecutor ya está parado: lo pendiente no se va a enviar
+            synchronized (this) {
+                cerrada = true;
+                enviando = false;
+                descartadas += cola.size();
+                cola.clear();
+            }
+        }
+    }
+
+    private void vaciar() {
+        while (true) {
+            Pendiente p;
+            synchronized (this) {
+                p = cola.peekFirst();
+                if (p == null) {
+                    enviando = false;
+                    return;
+                }
+            }
+
+            boolean ok;
+            try {
+                ok = p.envio.enviar(p.seq);
+            } catch (RuntimeException e) {
+                ok = false;
+            }
+
+            long retraso;
+            int programado;
+            synchronized (this) {
+                ultimoTipo = p.tipo;
+                if (ok) {
+                    // Puede que ya no esté (descartada por llenarse la bandeja)
+                    cola.removeFirstOccurrence(p);
+                    enviadas++;
+                    fallosSeguidos = 0;
+                    continue;
+                }
+
+                fallos++;
+                enviando = false;
+                if (cerrada) {
+                    // No habrá otro intento
+                    descartadas += cola.size();
+                    cola.clear();
+                    return;
+                }
+                if (++p.intentos >= MAX_INTENTOS && cola.removeFirstOccurrence(p)) {
+                    descartadas++;
+                }
+                parada = true;
+                retraso = retrasoTrasFallo(++fallosSeguidos);
+                programado = ++turno;
+            }
+            temporizador.programar(() -> reintentarSiToca(programado), retraso);
+            return;
+        }
+    }
+
+    /**
+     * @return Espera tras n fallos seguidos (ms): RETRASO_MIN_MS, el doble
+     *         en cada fallo, hasta RETRASO_MAX_MS.
+     */
+    static long retrasoTrasFallo(int n) {
+        if (n >= 7) return RETRASO_MAX_MS;
+        return Math.min(RETRASO_MAX_MS, RETRASO_MIN_MS << (n - 1));
+    }
+
+    public synchronized int getPendientes() {
+        return cola.size();
+    }
+
+    public synchronized long getEnviadas() {
+        return enviadas;
+    }
+
+    /** @return Intentos fallidos (una subida puede fallar varias veces). */
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    /** @return Subidas perdidas (bandeja llena o MAX_INTENTOS fallos). */
+    public synchronized long getDescartadas() {
+        return descartadas;
+    }
+
+    public synchronized boolean estaParada() {
+        return parada;
+    }
+
+    public synchronized boolean estaCerrada() {
+        return cerrada;
+    }
+
+    /** @return Tipo de la última subida intentada, o null. */
+    public synchronized String getUltimoTipo() {
+        return ultimoTipo;
+    }
+}
@@ -0,0 +1,118 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * @brief Caché en memoria de las series de la gráfica de calidad del aire.
+ *
+ * Guarda, para cada usuario, modo ("dia" / "hora") y gas, la última
+ * {@link SerieGrafica} descargada junto con el bucket (día u hora) al que
+ * corresponde su último valor y el momento en que se refrescó.
+ *
+ * Con esto GraficaHelper puede:
+ *  - Pintar al instante al cambiar de modo o de gas, sin red.
+ *  - Pedir solo el último bucket cuando la serie ha caducado.
+ *  - Saber si el último bucket sigue abierto o si ha empezado uno nuevo.
+ *
+ * Es única para todo el proceso, así que sobrevive a que la Activity
+ * se destruya y se vuelva a crear.
+ *
+ * @date 19/10/2026
+ */
+public class CacheGraficas {
+
+    public static final String MODO_DIA = "dia";
+    public static final String MODO_HORA = "hora";
+
+    // Tiempo durante el que una serie se considera fresca (sin pedir nada)
+    private static final long FRESCURA_HORA_MS = 60_000;       // 1 min
+    private static final long FRESCURA_DIA_MS = 5 * 60_000;    // 5 min
+
+    private static final long MS_HORA = 3_600_000L;
+    private static final long MS_DIA = 24 * MS_HORA;
+
+    /**
+     * @brief Entrada de la caché: serie + metadatos de refresco.
+     */
+    public static class Entrada {
+        public final SerieGrafica serie;
+        public final long bucket;              // día u hora del último valor
+        public final long ultimaActualizacion; // System.currentTimeMillis()
+
+        Entrada(SerieGrafica serie, long bucket, long ultimaActualizacion) {
+            this.serie = serie;
+            this.bucket = bucket;
+            this.ultimaActualizacion = ultimaActualizacion;
+        }
+    }
+
+    private static final CacheGraficas instancia = new CacheGraficas();
+
+    private final Map<String, Entrada> entradas = new HashMap<>();
+
+    private CacheGraficas() { }
+
+    public static CacheGraficas getInstance() {
+        return instancia;
+    }
+
+    /**
+     * @brief Devuelve la entrada guardada o null si no hay ninguna.
+     */
+    public synchronized Entrada obtener(int idUsuario, String modo, int tipoGas) {
+        return entradas.get(clave(idUsuario, modo, tipoGas));
+    }
+
+    /**
+     * @brief Guarda una serie recién descargada para el bucket actual.
+     */
+    public synchronized void guardar(int idUsuario, String modo, int tipoGas,
+                                     SerieGrafica serie, long ahora) {
+        entradas.put(clave(idUsuario, modo, tipoGas),
+                new Entrada(serie, bucketDe(modo, ahora), ahora));
+    }
+
+    /**
+     * @brief Indica si una entrada puede pintarse sin pedir nada al backend.
+     */
+    public static boolean estaFresca(Entrada e, String modo, long ahora) {
+        long frescura = MODO_HORA.equals(modo) ? FRESCURA_HORA_MS : FRESCURA_DIA_MS;
+        return e != null
+                && e.bucket == bucketDe(modo, ahora)
+                && ahora - e.ultimaActualizacion < frescura;
+    }
+
+    /**
+     * @brief Indica si basta con pedir el último bucket para actualizar la entrada.
+     *
+     * Es posible mientras seguimos en el mismo bucket o acaba de empezar
+     * el siguiente (basta con desplazar una posición). Si han pasado más
+     * buckets hay que descargar la serie completa.
+     */
+    public static boolean admiteIncremental(Entrada e, String modo, long ahora) {
+        if (e == null) return false;
+        long diferencia = bucketDe(modo, ahora) - e.bucket;
+        return diferencia == 0 || diferencia == 1;
+    }
+
+    /**
+     * @brief Número de bucket (hora o día local) al que pertenece un instante.
+     */
+    public static long bucketDe(String modo, long instante) {
+        long local = instante + TimeZone.getDefault().getOffset(instante);
+        return MODO_HORA.equals(modo) ? local / MS_HORA : local / MS_DIA;
+    }
+
+    /**
+     * @brief Vacía la caché (por ejemplo al cerrar sesión).
+     */
+    public synchronized void limpiar() {
+        entradas.clear();
+    }
+
+    private static String clave(int idUsuario, String modo, int tipoGas) {
+        return idUsuario + "|" + modo + "|" + tipoGas;
+    }
+}
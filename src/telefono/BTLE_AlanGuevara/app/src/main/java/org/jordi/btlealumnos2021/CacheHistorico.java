@@ -0,0 +1,222 @@
+package org.jordi.btlealumnos2021;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @brief Caché de dos niveles (memoria + disco) de los chunks del histórico.
+ *
+ * Memoria:
+ *  - Chunks completos (medidas crudas) en un LRU limitado por número total
+ *    de puntos, no por número de chunks, porque un día puede tener desde
+ *    cero hasta ~86 400 medidas.
+ *  - Al expulsar un chunk se conserva su resumen LOD (unos pocos miles de
+ *    puntos como mucho), así que las vistas alejadas siguen sin tocar disco.
+ *
+ * Disco:
+ *  - Solo los días ya terminados, que no cambian nunca. El día en curso se
+ *    queda en memoria y caduca a los {@link #CADUCIDAD_ABIERTO_MS}.
+ *  - Se limita a {@link #MAX_BYTES_DISCO}; al pasarse se borran los
+ *    ficheros usados hace más tiempo.
+ *
+ * Recibe el directorio: la pantalla le pasa getCacheDir()/{@link #NOMBRE_DIR}.
+ *
+ * @date 19/10/2026
+ */
+public class CacheHistorico {
+
+    // Subdirectorio de getCacheDir() donde se guardan los chunks
+    public static final String NOMBRE_DIR = "historico";
+
+    private static final long MAX_PUNTOS_MEMORIA = 1_000_000; // ~12 MB
+    private static final int MAX_RESUMENES = 400;
+    private static final long MAX_BYTES_DISCO = 64L * 1024 * 1024;
+    static final long CADUCIDAD_ABIERTO_MS = 60_000;
+
+    private static CacheHistorico instancia;
+
+    private final File dir;
+
+    private final LinkedHashMap<String, ChunkHistorico> chunks =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long puntosEnMemoria = 0;
+
+    private final LinkedHashMap<String, ChunkHistorico> resumenes =
+            new LinkedHashMap<String, ChunkHistorico>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ChunkHistorico> e) {
+                    return size() > MAX_RESUMENES;
+                }
+            };
+
+    CacheHistorico(File dir) {
+        this.dir = dir;
+        dir.mkdirs();
+    }
+
+    /**
+     * @brief Caché única del proceso.
+     *
+     * @param dir Directorio para los ficheros (solo se usa la primera vez).
+     */
+    public static synchronized CacheHistorico getInstance(File dir) {
+        if (instancia == null) {
+            instancia = new CacheHistorico(dir);
+        }
+        return instancia;
+    }
+
+    // ---------------------------------------------------------------------
+    // Lectura
+    // ---------------------------------------------------------------------
+
+    /**
+     * @brief Chunk con las medidas crudas, solo si está en memoria.
+     *
+     * @return El chunk, o null si no está o es el día en curso y ha caducado.
+     */
+    public synchronized ChunkHistorico obtenerMemoria(int idUsuario, int tipoGas, long indice, long ahora) {
+        ChunkHistorico c = chunks.get(clave(idUsuario, tipoGas, indice));
+        return vigente(c, ahora) ? c : null;
+    }
+
+    /**
+     * @brief Chunk que al menos tiene el resumen LOD, solo si está en memoria.
+     *
+     * Puede devolver un chunk completo o uno que solo contiene el resumen
+     * (ver {@link #soloResumen}); en ambos casos getResumenT/V son válidos.
+     */
+    public synchronized ChunkHistorico obtenerResumenMemoria(int idUsuario, int tipoGas, long indice, long ahora) {
+        String k = clave(idUsuario, tipoGas, indice);
+        ChunkHistorico c = chunks.get(k);
+        if (c == null) c = resumenes.get(k);
+        return vigente(c, ahora) ? c : null;
+    }
+
+    /**
+     * @brief Lee un chunk del disco y lo sube a memoria.
+     *
+     * Hace E/S: no debe llamarse desde el hilo principal.
+     *
+     * @return El chunk, o null si no está en disco o el fichero no es válido.
+     */
+    public ChunkHistorico leerDisco(int idUsuario, int tipoGas, long indice) {
+        File f = fichero(idUsuario, tipoGas, indice);
+        if (!f.exists()) return null;
+
+        try {
+            ChunkHistorico c = ChunkHistorico.leer(f);
+            f.setLastModified(System.currentTimeMillis()); // para el LRU de disco
+            ponerEnMemoria(clave(idUsuario, tipoGas, indice), c);
+            return c;
+        } catch (IOException e) {
+            f.delete();
+            return null;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Escritura
+    // ---------------------------------------------------------------------
+
+    /**
+     * @brief Guarda un chunk recién descargado.
+     *
+     * Si el día ya ha terminado también se escribe en disco, así que hace
+     * E/S: no debe llamarse desde el hilo principal.
+     */
+    public void guardar(int idUsuario, ChunkHistorico c) {
+        ponerEnMemoria(clave(idUsuario, c.getTipoGas(), c.getIndice()), c);
+
+        if (c.isCompleto()) {
+            try {
+                c.escribir(fichero(idUsuario, c.getTipoGas(), c.getIndice()));
+                recortarDisco();
+            } catch (IOException e) {
+                // Sin disco seguimos teniendo la copia en memoria
+            }
+        }
+    }
+
+    /**
+     * @brief Vacía la memoria y borra los ficheros (por ejemplo al cerrar sesión).
+     */
+    public synchronized void limpiar() {
+        chunks.clear();
+        resumenes.clear();
+        puntosEnMemoria = 0;
+
+        File[] ficheros = dir.listFiles();
+        if (ficheros != null) {
+            for (File f : ficheros) f.delete();
+        }
+    }
+
+    synchronized long getPuntosEnMemoria() {
+        return puntosEnMemoria;
+    }
+
+    // ---------------------------------------------------------------------
+    // Internos
+    // ---------------------------------------------------------------------
+
+    private synchronized void ponerEnMemoria(String k, ChunkHistorico c) {
+        ChunkHistorico anterior = chunks.put(k, c);
+        if (anterior != null) puntosEnMemoria -= anterior.size();
+        puntosEnMemoria += c.size();
+        resumenes.remove(k);
+
+        // Expulsar los menos usados, conservando su resumen
+        Iterator<Map.Entry<String, ChunkHistorico>> it = chunks.entrySet().iterator();
+        while (puntosEnMemoria > MAX_PUNTOS_MEMORIA && it.hasNext()) {
+            Map.Entry<String, ChunkHistorico> e = it.next();
+            if (e.getValue() == c) continue;
+
+            puntosEnMemoria -= e.getValue().size();
+            resumenes.put(e.getKey(), soloResumen(e.getValue()));
+            it.remove();
+        }
+    }
+
+    /**
+     * @brief Chunk ligero cuyas "medidas" son el resumen LOD del original.
+     */
+    static ChunkHistorico soloResumen(ChunkHistorico c) {
+        return new ChunkHistorico(c.getTipoGas(), c.getIndice(),
+                c.getResumenT(), c.getResumenV(), c.getDescargadoEn());
+    }
+
+    private static boolean vigente(ChunkHistorico c, long ahora) {
+        return c != null && (c.isCompleto() || ahora - c.getDescargadoEn() < CADUCIDAD_ABIERTO_MS);
+    }
+
+    private void recortarDisco() {
+        File[] ficheros = dir.listFiles();
+        if (ficheros == null) return;
+
+        long total = 0;
+        for (File f : ficheros) total += f.length();
+        if (total <= MAX_BYTES_DISCO) return;
+
+        // Más antiguos primero
+        Arrays.sort(ficheros, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+
+        for (File f : ficheros) {
+            if (total <= MAX_BYTES_DISCO) break;
+            total -= f.length();
+            f.delete();
+        }
+    }
+
+    private File fichero(int idUsuario, int tipoGas, long indice) {
+        return new File(dir, idUsuario + "_" + tipoGas + "_" + indice + ".bin");
+    }
+
+    private static String clave(int idUsuario, int tipoGas, long indice) {
+        return idUsuario + "|" + tipoGas + "|" + indice;
+    }
+}
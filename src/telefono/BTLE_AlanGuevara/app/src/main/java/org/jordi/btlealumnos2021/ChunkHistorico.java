@@ -0,0 +1,169 @@
+package org.jordi.btlealumnos2021;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @brief Trozo (chunk) del histórico de un gas: todas las medidas de un día.
+ *
+ * El histórico se pide al backend (GET /historico) por días UTC completos,
+ * identificados por su índice (días desde 1970). Cada chunk guarda:
+ *  - Las medidas crudas en arrays primitivos (instantes en ms y valores).
+ *  - Un resumen de nivel de detalle (LOD): mínimo y máximo de cada minuto,
+ *    como mucho 2 880 puntos, que basta para pintar cuando cada píxel de la
+ *    gráfica abarca un minuto o más.
+ *
+ * Es inmutable. Los chunks de días ya terminados ({@link #isCompleto()})
+ * no cambian nunca, así que se pueden guardar en disco indefinidamente.
+ *
+ * @date 19/10/2026
+ */
+public final class ChunkHistorico {
+
+    public static final long DURACION_MS = 24 * 3_600_000L;
+
+    // Resolución del resumen LOD
+    public static final long RESOLUCION_RESUMEN_MS = 60_000L;
+    private static final int BUCKETS_RESUMEN = (int) (DURACION_MS / RESOLUCION_RESUMEN_MS);
+
+    // Formato del fichero en disco
+    private static final int MAGIA = 0x41544D48; // "ATMH"
+    private static final int VERSION = 1;
+
+    private final int tipoGas;
+    private final long indice;
+    private final long[] t;
+    private final float[] v;
+    private final long descargadoEn;
+
+    private final long[] resumenT;
+    private final float[] resumenV;
+
+    /**
+     * @param tipoGas      Código del gas.
+     * @param indice       Día UTC (ver {@link #indiceDe(long)}).
+     * @param t            Instantes en ms, ordenados y dentro del día.
+     * @param v            Valores, uno por instante.
+     * @param descargadoEn Momento de la descarga (System.currentTimeMillis()).
+     */
+    public ChunkHistorico(int tipoGas, long indice, long[] t, float[] v, long descargadoEn) {
+        this.tipoGas = tipoGas;
+        this.indice = indice;
+        this.t = t;
+        this.v = v;
+        this.descargadoEn = descargadoEn;
+
+        long[] rt = new long[2 * BUCKETS_RESUMEN];
+        float[] rv = new float[2 * BUCKETS_RESUMEN];
+        int n = Submuestreo.minMax(t, v, 0, t.length, getInicio(), getFin(), BUCKETS_RESUMEN, rt, rv);
+
+        this.resumenT = Arrays.copyOf(rt, n);
+        this.resumenV = Arrays.copyOf(rv, n);
+    }
+
+    /**
+     * @brief Índice del chunk (día UTC) al que pertenece un instante.
+     */
+    public static long indiceDe(long instante) {
+        return Math.floorDiv(instante, DURACION_MS);
+    }
+
+    public int getTipoGas() { return tipoGas; }
+    public long getIndice() { return indice; }
+    public long getInicio() { return indice * DURACION_MS; }
+    public long getFin() { return (indice + 1) * DURACION_MS; }
+    public long getDescargadoEn() { return descargadoEn; }
+    public int size() { return t.length; }
+    public long[] getT() { return t; }
+    public float[] getV() { return v; }
+    public long[] getResumenT() { return resumenT; }
+    public float[] getResumenV() { return resumenV; }
+
+    /**
+     * @brief true si el día ya había terminado cuando se descargó.
+     */
+    public boolean isCompleto() {
+        return descargadoEn >= getFin();
+    }
+
+    // ---------------------------------------------------------------------
+    // Disco
+    // ---------------------------------------------------------------------
+
+    /**
+     * @brief Guarda el chunk en un fichero binario.
+     *
+     * Escribe primero en un temporal y luego lo renombra, para que nunca
+     * quede un fichero a medias si la app muere mientras escribe.
+     */
+    public void escribir(File fichero) throws IOException {
+        File tmp = new File(fichero.getPath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)))) {
+
+            out.writeInt(MAGIA);
+            out.writeInt(VERSION);
+            out.writeInt(tipoGas);
+            out.writeLong(indice);
+            out.writeLong(descargadoEn);
+            out.writeInt(t.length);
+
+            // Instantes en diferencias con el anterior (caben en int)
+            long anterior = getInicio();
+            for (long instante : t) {
+                out.writeInt((int) (instante - anterior));
+                anterior = instante;
+            }
+            for (float valor : v) {
+                out.writeFloat(valor);
+            }
+        }
+
+        if (!tmp.renameTo(fichero)) {
+            tmp.delete();
+            throw new IOException("No se pudo renombrar " + tmp);
+        }
+    }
+
+    /**
+     * @brief Lee un chunk guardado con {@link #escribir(File)}.
+     *
+     * @throws IOException si el fichero no existe o no tiene el formato esperado.
+     */
+    public static ChunkHistorico leer(File fichero) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(fichero)))) {
+
+            if (in.readInt() != MAGIA || in.readInt() != VERSION) {
+                throw new IOException("Formato no válido: " + fichero);
+            }
+
+            int tipoGas = in.readInt();
+            long indice = in.readLong();
+            long descargadoEn = in.readLong();
+            int n = in.readInt();
+
+            long[] t = new long[n];
+            float[] v = new float[n];
+
+            long anterior = indice * DURACION_MS;
+            for (int i = 0; i < n; i++) {
+                anterior += in.readInt();
+                t[i] = anterior;
+            }
+            for (int i = 0; i < n; i++) {
+                v[i] = in.readFloat();
+            }
+
+            return new ChunkHistorico(tipoGas, indice, t, v, descargadoEn);
+        }
+    }
+}
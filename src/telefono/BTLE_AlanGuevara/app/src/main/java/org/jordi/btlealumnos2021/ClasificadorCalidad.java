@@ -0,0 +1,294 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Motor único de clasificación de la calidad del aire.
+ *
+ * Sustituye a las cadenas de if/else con los umbrales de cada gas que
+ * estaban repetidas en GraficaHelper, UserPageActivity, MapasActivity y
+ * ContaminacionOverlay. Todas las pantallas llaman aquí.
+ *
+ * Los umbrales se guardan en tablas indexadas por gas (11..14) y las
+ * traducciones de categoría (nivel normalizado del mapa, texto) en tablas
+ * indexadas por categoría, de forma que clasificar es una búsqueda directa
+ * sin switch. Las pantallas guardan sus propias tablas de colores e iconos
+ * indexadas por las mismas categorías.
+ *
+ * Los umbrales pueden actualizarse en caliente desde el servidor
+ * (GET /umbrales) con {@link #actualizarUmbrales(int, double, double, double)}.
+ * Cada cambio crea una tabla nueva y la publica de golpe, así que los
+ * hilos que estén clasificando nunca ven una tabla a medias.
+ *
+ * Categorías:
+ *  - 0 = Sin datos (valor negativo o gas desconocido)
+ *  - 1 = Buena
+ *  - 2 = Moderada
+ *  - 3 = Insalubre
+ *  - 4 = Mala
+ *
+ * @date 19/10/2026
+ */
+public final class ClasificadorCalidad {
+
+    public static final int SIN_DATOS = 0;
+    public static final int BUENA = 1;
+    public static final int MODERADA = 2;
+    public static final int INSALUBRE = 3;
+    public static final int MALA = 4;
+
+    public static final int NUM_CATEGORIAS = 5;
+
+    public static final int GAS_NO2 = 11;
+    public static final int GAS_CO = 12;
+    public static final int GAS_O3 = 13;
+    public static final int GAS_SO2 = 14;
+
+    private static final int PRIMER_GAS = GAS_NO2;
+    private static final int NUM_GASES = 4;
+
+    /**
+     * Nivel normalizado (0..1) de cada categoría, el que usa el mapa
+     * para interpolar y para elegir el color.
+     */
+    private static final double[] NIVEL_CATEGORIA = {0.0, 0.1, 0.45, 0.75, 1.0};
+
+    /** Texto de cada categoría. */
+    private static final String[] TEXTO_CATEGORIA =
+            {"Sin datos", "Buena", "Moderada", "Insalubre", "Mala"};
+
+    /**
+     * Divisores µg/m³ → ppm por gas (NO2, CO, O3, SO2), los mismos que
+     * usaba MapasActivity para las estaciones oficiales.
+     */
+    private static final double[] DIVISOR_UG_A_PPM = {1880.0, 1145.0, 2000.0, 2620.0};
+
+    /** Umbrales por defecto (EPA, ppm): límite superior de Buena, Moderada e Insalubre. */
+    private static final double[][] UMBRALES_POR_DEFECTO = {
+            {0.021, 0.053, 0.106},   // 11 NO2
+            {1.7, 4.4, 8.7},         // 12 CO
+            {0.031, 0.061, 0.092},   // 13 O3
+            {0.0076, 0.019, 0.038}   // 14 SO2
+    };
+
+    /**
+     * @brief Tabla de umbrales inmutable (en double y en float).
+     *
+     * La versión float evita convertir cada muestra a double en la
+     * clasificación por lotes de arrays float.
+     */
+    private static final class Tabla {
+        final double[][] umbrales;
+        final float[][] umbralesF;
+
+        Tabla(double[][] umbrales) {
+            this.umbrales = umbrales;
+            this.umbralesF = new float[umbrales.length][];
+            for (int g = 0; g < umbrales.length; g++) {
+                umbralesF[g] = new float[]{
+                        (float) umbrales[g][0],
+                        (float) umbrales[g][1],
+                        (float) umbrales[g][2]
+                };
+            }
+        }
+    }
+
+    private static volatile Tabla tabla = new Tabla(copiar(UMBRALES_POR_DEFECTO));
+
+    private ClasificadorCalidad() { }
+
+    // ---------------------------------------------------------------------
+    // Clasificación
+    // ---------------------------------------------------------------------
+
+    /**
+     * @brief Clasifica un valor de un gas.
+     *
+     * @param valor   Valor en ppm.
+     * @param tipoGas Código del gas (11, 12, 13, 14).
+     * @return Categoría 1..4, o 0 si el valor es negativo o el gas es desconocido.
+     */
+    public static int categoria(double valor, int tipoGas) {
+        int g = tipoGas - PRIMER_GAS;
+        if (g < 0 || g >= NUM_GASES || valor < 0) return SIN_DATOS;
+
+        double[] u = tabla.umbrales[g];
+        if (valor <= u[0]) return BUENA;
+        if (valor <= u[1]) return MODERADA;
+        if (valor <= u[2]) return INSALUBRE;
+        return MALA;
+    }
+
+    /**
+     * @brief Clasifica un array de valores de un mismo gas.
+     *
+     * Resuelve la tabla del gas una sola vez y recorre el array sin
+     * crear objetos, así que puede usarse sobre series largas.
+     *
+     * @param valores    Valores en ppm.
+     * @param tipoGas    Código del gas.
+     * @param categorias Array de salida (al menos valores.length posiciones).
+     */
+    public static void clasificar(float[] valores, int tipoGas, int[] categorias) {
+        int n = valores.length;
+        int g = tipoGas - PRIMER_GAS;
+
+        if (g < 0 || g >= NUM_GASES) {
+            for (int i = 0; i < n; i++) categorias[i] = SIN_DATOS;
+            return;
+        }
+
+        float[] u = tabla.umbralesF[g];
+        float u0 = u[0], u1 = u[1], u2 = u[2];
+
+        for (int i = 0; i < n; i++) {
+            float v = valores[i];
+            if (v < 0) {
+                categorias[i] = SIN_DATOS;
+            } else {
+                categorias[i] = BUENA
+                        + (v > u0 ? 1 : 0)
+                        + (v > u1 ? 1 : 0)
+                        + (v > u2 ? 1 : 0);
+            }
+        }
+    }
+
+    /**
+     * @brief Igual que {@link #clasificar(float[], int, int[])} pero reservando la salida.
+     */
+    public static int[] clasificar(float[] valores, int tipoGas) {
+        int[] categorias = new int[valores.length];
+        clasificar(valores, tipoGas, categorias);
+        return categorias;
+    }
+
+    /**
+     * @brief Nivel normalizado (0..1) de un valor, el que usa el mapa.
+     *
+     * @return 0.1, 0.45, 0.75 o 1.0 según la categoría; 0 si no hay datos.
+     */
+    public static double nivel(double valor, int tipoGas) {
+        return NIVEL_CATEGORIA[categoria(valor, tipoGas)];
+    }
+
+    /**
+     * @brief Categoría correspondiente a un nivel normalizado del mapa.
+     *
+     * Los cortes (0.10, 0.45, 0.75) son los mismos que usaban el overlay
+     * y los marcadores de estaciones.
+     *
+     * @param nivel Nivel normalizado (0..1).
+     * @return Categoría 1..4, o 0 si nivel <= 0.
+     */
+    public static int categoriaDeNivel(double nivel) {
+        if (nivel <= 0.0) return SIN_DATOS;
+        if (nivel <= 0.10) return BUENA;
+        if (nivel <= 0.45) return MODERADA;
+        if (nivel <= 0.75) return INSALUBRE;
+        return MALA;
+    }
+
+    /**
+     * @brief Texto de una categoría ("Sin datos", "Buena", ...).
+     */
+    public static String texto(int categoria) {
+        return TEXTO_CATEGORIA[categoria];
+    }
+
+    // ---------------------------------------------------------------------
+    // Unidades
+    // ---------------------------------------------------------------------
+
+    /**
+     * @brief Convierte a ppm un valor que puede venir en µg/m³.
+     *
+     * Si la unidad no contiene "µg" se asume que ya está en ppm.
+     *
+     * @param valor   Valor medido.
+     * @param unidad  Unidad tal como llega (p. ej. "µg/m³", "ppm"), puede ser null.
+     * @param tipoGas Código del gas.
+     * @return Valor en ppm.
+     */
+    public static double aPpm(double valor, String unidad, int tipoGas) {
+        int g = tipoGas - PRIMER_GAS;
+        if (unidad == null || !unidad.contains("µg") || g < 0 || g >= NUM_GASES) {
+            return valor;
+        }
+        return valor / DIVISOR_UG_A_PPM[g];
+    }
+
+    /**
+     * @brief Convierte en el sitio un array de valores en µg/m³ a ppm.
+     */
+    public static void ugAPpm(float[] valores, int tipoGas) {
+        int g = tipoGas - PRIMER_GAS;
+        if (g < 0 || g >= NUM_GASES) return;
+
+        float factor = (float) (1.0 / DIVISOR_UG_A_PPM[g]);
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] *= factor;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Umbrales remotos
+    // ---------------------------------------------------------------------
+
+    /**
+     * @brief Sustituye los umbrales de un gas.
+     *
+     * @return true si los umbrales han cambiado, false si eran los mismos
+     *         o no son válidos (deben ser positivos y crecientes).
+     */
+    public static synchronized boolean actualizarUmbrales(int tipoGas,
+                                                          double buena,
+                                                          double moderada,
+                                                          double insalubre) {
+        int g = tipoGas - PRIMER_GAS;
+        if (g < 0 || g >= NUM_GASES) return false;
+        if (!(buena > 0 && buena < moderada && moderada < insalubre)) return false;
+
+        double[] actuales = tabla.umbrales[g];
+        if (actuales[0] == buena && actuales[1] == moderada && actuales[2] == insalubre) {
+            return false;
+        }
+
+        double[][] nuevos = copiar(tabla.umbrales);
+        nuevos[g] = new double[]{buena, moderada, insalubre};
+        tabla = new Tabla(nuevos);
+        return true;
+    }
+
+    /**
+     * @brief Vuelve a los umbrales por defecto.
+     */
+    public static synchronized void restablecerUmbrales() {
+        tabla = new Tabla(copiar(UMBRALES_POR_DEFECTO));
+    }
+
+    /**
+     * @brief Copia de los umbrales actuales de un gas (o null si no existe).
+     */
+    public static double[] getUmbrales(int tipoGas) {
+        int g = tipoGas - PRIMER_GAS;
+        if (g < 0 || g >= NUM_GASES) return null;
+        return tabla.umbrales[g].clone();
+    }
+
+    /**
+     * @brief Un umbral actual de un gas, sin copiar la tabla (NaN si no existe).
+     *
+     * @param indice 0 = límite de Buena, 1 = de Moderada, 2 = de Insalubre.
+     */
+    public static double umbral(int tipoGas, int indice) {
+        int g = tipoGas - PRIMER_GAS;
+        if (g < 0 || g >= NUM_GASES || indice < 0 || indice > 2) return Double.NaN;
+        return tabla.umbrales[g][indice];
+    }
+
+    private static double[][] copiar(double[][] origen) {
+        double[][] copia = new double[origen.length][];
+        for (int i = 0; i < origen.length; i++) copia[i] = origen[i].clone();
+        return copia;
+    }
+}
@@ -0,0 +1,270 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @brief Compresión de las medidas antes de subirlas: solo se envían los
+ *        cambios significativos (puerta giratoria / swinging door por gas)
+ *        más una medida clave periódica.
+ *
+ * Idea: el servidor reconstruye la serie de cada gas uniendo con rectas las
+ * medidas recibidas. Una medida se puede omitir si esa recta pasa a menos
+ * de la tolerancia de su valor. Para cada gas se guardan la última medida
+ * enviada (pivote) y las pendientes de las dos "puertas" que salen de
+ * pivote ± tolerancia; mientras las puertas no se crucen, todas las medidas
+ * intermedias caben en una recta desde el pivote y no se envía nada.
+ *
+ * Cuando se cruzan se cierra el segmento: se envía la última medida que
+ * cabía, con el valor ajustado a la recta más cercana a su valor real que
+ * respeta todas las puertas (nunca se aparta de él más que la tolerancia).
+ * Así se garantiza que la reconstrucción lineal del servidor no se aleja
+ * de ninguna medida real más que la tolerancia.
+ *
+ * Además se cierra el segmento y se envía la medida actual tal cual
+ * (medida clave) cuando:
+ *  - han pasado KEYFRAME_MS desde la última enviada (la serie del servidor
+ *    y el "última medida" de la app nunca se quedan atrás más de eso), o
+ *  - el móvil se ha movido más de TOLERANCIA_METROS desde la última
+ *    enviada (el mapa necesita la medida en el sitio nuevo).
+ *
+ * Como una medida puede enviarse un poco después de tomarse, cada Muestra
+ * lleva su instante y se sube con él (campo fecha_ms de POST /medida).
+ *
+ * No es thread-safe: ModuloBeacons lo usa desde el hilo principal.
+ *
+ * @date 19/10/2026
+ */
+public final class CompresorMedidas {
+
+    /** Tolerancia por defecto: fracción del límite de "Buena" de cada gas. */
+    public static final double FRACCION_TOLERANCIA = 0.10;
+
+    /** Máximo tiempo sin enviar nada de un gas (ms). */
+    public static final long KEYFRAME_MS = 60_000;
+
+    /** Desplazamiento que obliga a enviar (m). */
+    public static final double TOLERANCIA_METROS = 25;
+
+    /** Coordenada que usa el servicio cuando no hay GPS. */
+    private static final double SIN_POSICION = -1;
+
+    /**
+     * @brief Recibe las medidas que hay que subir.
+     */
+    public interface Salida {
+        void enviar(Muestra m);
+    }
+
+    /**
+     * @brief Una medida de un gas con su instante y posición.
+     */
+    public static final class Muestra {
+        public final long tMs;
+        public final int tipoGas;
+        public final float valor;
+        public final int rssi;
+        public final double lat;
+        public final double lon;
+
+        public Muestra(long tMs, int tipoGas, float valor, int rssi, double lat, double lon) {
+            this.tMs = tMs;
+            this.tipoGas = tipoGas;
+            this.valor = valor;
+            this.rssi = rssi;
+            this.lat = lat;
+            this.lon = lon;
+        }
+
+        Muestra conValor(float v) {
+            return new Muestra(tMs, tipoGas, v, rssi, lat, lon);
+        }
+    }
+
+    /** Estado de la puerta giratoria de un gas. */
+    private static final class Puerta {
+        Muestra pivote;      // última enviada
+        Muestra retenida;    // última recibida y aún no enviada
+        double pendSup;      // mayor pendiente mínima (puerta de arriba)
+        double pendInf;      // menor pendiente máxima (puerta de abajo)
+    }
+
+    private final Salida salida;
+    private final long keyframeMs;
+    private final double toleranciaMetros;
+
+    private final Map<Integer, Puerta> puertas = new HashMap<>();
+    private final Map<Integer, Double> tolerancias = new HashMap<>();
+
+    private long recibidas = 0;
+    private long enviadas = 0;
+
+    public CompresorMedidas(Salida salida) {
+        this(salida, KEYFRAME_MS, TOLERANCIA_METROS);
+    }
+
+    public CompresorMedidas(Salida salida, long keyframeMs, double toleranciaMetros) {
+        this.salida = salida;
+        this.keyframeMs = keyframeMs;
+        this.toleranciaMetros = toleranciaMetros;
+    }
+
+    /**
+     * @brief Fija la tolerancia de un gas (en sus unidades, ppm).
+     */
+    public void setTolerancia(int tipoGas, double tolerancia) {
+        if (tolerancia < 0) throw new IllegalArgumentException("tolerancia < 0");
+        tolerancias.put(tipoGas, tolerancia);
+    }
+
+    /**
+     * @brief Tolerancia de un gas: la fijada o, si no, FRACCION_TOLERANCIA
+     *        del límite de "Buena" de ClasificadorCalidad (0 si el gas no
+     *        se conoce: solo se omiten las medidas exactamente en la recta).
+     */
+    public double getTolerancia(int tipoGas) {
+        Double t = tolerancias.get(tipoGas);
+        if (t != null) return t;
+
+        double[] umbrales = ClasificadorCalidad.getUmbrales(tipoGas);
+        return umbrales == null ? 0 : umbrales[0] * FRACCION_TOLERANCIA;
+    }
+
+    /**
+     * @brief Procesa una medida nueva; envía por la Salida lo que toque
+     *        (nada, la medida retenida, o la retenida y esta).
+     */
+    public void ofrecer(Muestra m) {
+        recibidas++;
+
+        Puerta p = puertas.get(m.tipoGas);
+        if (p == null) {
+            p = new Puerta();
+            puertas.put(m.tipoGas, p);
+        }
+
+        Muestra a = p.pivote;
+        if (a == null) {
+            enviar(p, m);
+            return;
+        }
+
+        // Medida clave: por tiempo o por desplazamiento
+        if (m.tMs - a.tMs >= keyframeMs || seHaMovido(a, m)) {
+            cerrarSegmento(p);
+            enviar(p, m);
+            return;
+        }
+
+        double e = getTolerancia(m.tipoGas);
+        double dt = Math.max(1, m.tMs - a.tMs);
+        double sup = Math.max(p.pendSup, (m.valor - (a.valor + e)) / dt);
+        double inf = Math.min(p.pendInf, (m.valor - (a.valor - e)) / dt);
+
+        if (sup > inf && p.retenida != null) {
+            // Las puertas se cruzan: m ya no cabe en una recta desde el
+            // pivote. Se cierra el segmento en la retenida (con las puertas
+            // de antes de m) y m abre el siguiente
+            cerrarSegmento(p);
+
+            Muestra r = p.pivote;
+            dt = Math.max(1, m.tMs - r.tMs);
+            sup = (m.valor - (r.valor + e)) / dt;
+            inf = (m.valor - (r.valor - e)) / dt;
+        }
+        p.pendSup = sup;
+        p.pendInf = inf;
+        p.retenida = m;
+    }
+
+    /**
+     * @brief Envía las medidas retenidas de todos los gases (p. ej. al
+     *        parar el servicio), para no perder el final de la serie.
+     */
+    public void vaciar() {
+        for (Puerta p : puertas.values()) cerrarSegmento(p);
+    }
+
+    public long getRecibidas() {
+        return recibidas;
+    }
+
+    public long getEnviadas() {
+        return enviadas;
+    }
+
+    /**
+     * @return Medidas recibidas por cada una enviada (1 = sin compresión).
+     */
+    public double getRatio() {
+        return enviadas == 0 ? 1 : (double) recibidas / enviadas;
+    }
+
+    /**
+     * @brief Media en el tiempo de una serie ordenada por instante: área de
+     *        los trapecios entre medidas seguidas entre el tiempo que cubren.
+     *
+     * Es la misma cuenta que hace el servidor para los promedios
+     * (Logica.js). Con la serie comprimida las filas no están repartidas
+     * por igual: hay muchas en los picos y una por KEYFRAME_MS en lo
+     * estable, así que la media de las filas pesa de más los picos.
+     *
+     * Los tramos de más de maxHuecoMs no cuentan (no se midió). Si no queda
+     * ningún tramo se devuelve la media de los valores; NaN si está vacía.
+     */
+    public static double mediaEnElTiempo(List<Muestra> serie, long maxHuecoMs) {
+        if (serie.isEmpty()) return Double.NaN;
+
+        double area = 0;
+        long tiempo = 0;
+        double suma = serie.get(0).valor;
+        for (int i = 1; i < serie.size(); i++) {
+            Muestra a = serie.get(i - 1);
+            Muestra b = serie.get(i);
+            suma += b.valor;
+
+            long dt = b.tMs - a.tMs;
+            if (dt <= 0 || dt > maxHuecoMs) continue;
+            area += (a.valor + b.valor) / 2.0 * dt;
+            tiempo += dt;
+        }
+        return tiempo > 0 ? area / tiempo : suma / serie.size();
+    }
+
+    // -------------------------------------------------------------
+
+    /**
+     * Envía la retenida sobre la recta del pivote con la pendiente más
+     * cercana a la suya que respeta las dos puertas.
+     */
+    private void cerrarSegmento(Puerta p) {
+        Muestra r = p.retenida;
+        if (r == null) return;
+
+        Muestra a = p.pivote;
+        double dt = Math.max(1, r.tMs - a.tMs);
+        double pendiente = (r.valor - a.valor) / dt;
+
+        // Las puertas de [pivote, retenida] no se cruzan: pend está entre ellas
+        double pend = Math.max(p.pendSup, Math.min(p.pendInf, pendiente));
+        float ajustado = (float) (a.valor + pend * dt);
+
+        enviar(p, ajustado == r.valor ? r : r.conValor(ajustado));
+    }
+
+    private void enviar(Puerta p, Muestra m) {
+        p.pivote = m;
+        p.retenida = null;
+        p.pendSup = Double.NEGATIVE_INFINITY;
+        p.pendInf = Double.POSITIVE_INFINITY;
+
+        enviadas++;
+        salida.enviar(m);
+    }
+
+    private boolean seHaMovido(Muestra a, Muestra m) {
+        if (a.lat == SIN_POSICION || m.lat == SIN_POSICION) return false;
+        return FiltroRecorrido.distanciaMetros(a.lat, a.lon, m.lat, m.lon) > toleranciaMetros;
+    }
+}
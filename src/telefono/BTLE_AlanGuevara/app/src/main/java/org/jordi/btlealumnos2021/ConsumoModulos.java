@@ -0,0 +1,122 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @brief Despertares y tiempo de CPU de cada módulo de ServicioSensores,
+ *        comparados con su presupuesto.
+ *
+ * Un despertar es cada vez que el módulo hace trabajo en el hilo principal
+ * (un ScanResult, una tanda de localizaciones, una comprobación
+ * periódica). El servicio anota cada uno con la CPU que ha gastado el hilo
+ * (Debug.threadCpuTimeNanos) y cada VENTANA_MS cierra la ventana: da el
+ * ritmo por minuto de cada módulo y del total, y si se sale del
+ * presupuesto.
+ *
+ * Es thread-safe (métodos sincronizados).
+ *
+ * @date 19/10/2026
+ */
+public final class ConsumoModulos {
+
+    /** Nombre del total en el informe. */
+    public static final String TOTAL = "total";
+
+    /**
+     * @brief Recibe el consumo de cada módulo al cerrar una ventana (y al
+     *        final, el TOTAL).
+     */
+    public interface Informe {
+        void modulo(String nombre, double despertaresMin, double cpuMsMin, boolean dentroPresupuesto);
+    }
+
+    private static final class Consumo {
+        long despertares;
+        long cpuNanos;
+        long ventanaDespertares;
+        long ventanaCpuNanos;
+        double presupuestoDespertaresMin = Double.POSITIVE_INFINITY;
+        double presupuestoCpuMsMin = Double.POSITIVE_INFINITY;
+    }
+
+    private final Map<String, Consumo> modulos = new LinkedHashMap<>();
+
+    /**
+     * @brief Fija el presupuesto de un módulo (por minuto).
+     */
+    public synchronized void fijarPresupuesto(String modulo, double despertaresMin, double cpuMsMin) {
+        Consumo c = consumo(modulo);
+        c.presupuestoDespertaresMin = despertaresMin;
+        c.presupuestoCpuMsMin = cpuMsMin;
+    }
+
+    /**
+     * @brief Anota un despertar del módulo.
+     *
+     * @param cpuNanos CPU gastada (ns); negativa si no se sabe (solo cuenta).
+     */
+    public synchronized void anotar(String modulo, long cpuNanos) {
+        Consumo c = consumo(modulo);
+        c.despertares++;
+        c.ventanaDespertares++;
+        if (cpuNanos > 0) {
+            c.cpuNanos += cpuNanos;
+            c.ventanaCpuNanos += cpuNanos;
+        }
+    }
+
+    /**
+     * @brief Cierra la ventana actual y empieza otra.
+     *
+     * @param duracionMs Lo que ha durado la ventana.
+     */
+    public synchronized void cerrarVentana(long duracionMs, Informe informe) {
+        if (duracionMs <= 0) return;
+        double minutos = duracionMs / 60_000.0;
+
+        double totalDespertares = 0, totalCpuMs = 0;
+        double totalPresDespertares = 0, totalPresCpuMs = 0;
+
+        for (Map.Entry<String, Consumo> e : modulos.entrySet()) {
+            Consumo c = e.getValue();
+            double despertaresMin = c.ventanaDespertares / minutos;
+            double cpuMsMin = c.ventanaCpuNanos / 1e6 / minutos;
+
+            informe.modulo(e.getKey(), despertaresMin, cpuMsMin,
+                    despertaresMin <= c.presupuestoDespertaresMin && cpuMsMin <= c.presupuestoCpuMsMin);
+
+            totalDespertares += despertaresMin;
+            totalCpuMs += cpuMsMin;
+            totalPresDespertares += c.presupuestoDespertaresMin;
+            totalPresCpuMs += c.presupuestoCpuMsMin;
+
+            c.ventanaDespertares = 0;
+            c.ventanaCpuNanos = 0;
+        }
+
+        informe.modulo(TOTAL, totalDespertares, totalCpuMs,
+                totalDespertares <= totalPresDespertares && totalCpuMs <= totalPresCpuMs);
+    }
+
+    /** @return Despertares del módulo desde el principio. */
+    public synchronized long getDespertares(String modulo) {
+        Consumo c = modulos.get(modulo);
+        return c == null ? 0 : c.despertares;
+    }
+
+    /** @return CPU del módulo desde el principio (ms). */
+    public synchronized long getCpuMs(String modulo) {
+        Consumo c = modulos.get(modulo);
+        return c == null ? 0 : c.cpuNanos / 1_000_000;
+    }
+
+    private Consumo consumo(String modulo) {
+        Consumo c = modulos.get(modulo);
+        if (c == null) {
+            c = new Consumo();
+            modulos.put(modulo, c);
+        }
+        return c;
+    }
+}
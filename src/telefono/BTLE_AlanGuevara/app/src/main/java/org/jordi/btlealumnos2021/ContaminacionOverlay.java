@@ -30,11 +30,13 @@ import java.util.List;
  * que RADIO. Esto optimiza el cálculo al evitar procesar puntos que no aportarán peso.
  *
  * Parámetros importantes:
- *  - GRID:   resolución de la cuadrícula (celdas por eje).
- *  - RADIO:  radio geográfico máximo de influencia de cada punto.
- *  - EXP:    exponente IDW (cuanto mayor, más penaliza distancia).
+ *  - GRID:   resolución de la cuadrícula (celdas por eje, en RejillaContaminacion).
+ *  - RADIO:  radio geográfico máximo de influencia de cada punto (en RejillaContaminacion).
  *  - ALPHA:  opacidad del círculo pintado (mezcla con el mapa).
  *
+ * El cálculo de la cuadrícula está en RejillaContaminacion (sin Android,
+ * con pruebas y benchmark); aquí solo se proyecta y se pinta.
+ *
  * @author Alan Guevara Martinez
  * @date 10/12/2025 - Modificado: 16/12/2025 (para que se pinte bien el peor nivel cuando todos los contaminantes estén seleccionados).
  */
@@ -43,21 +45,20 @@ public class ContaminacionOverlay extends Overlay {
     /**
      * @class PuntoContaminacion
      * @brief Representa un punto de muestreo: latitud, longitud y nivel.
-     * @details Cada punto influirá en la interpolación en función de su distancia
-     * respecto al píxel consultado.
+     * @details Cada punto influirá en las celdas que queden dentro de su radio
+     * (ver RejillaContaminacion, que hace el cálculo).
      */
-    public static class PuntoContaminacion {
-        public double lat;
-        public double lon;
-        public double nivel;
-
+    public static class PuntoContaminacion extends RejillaContaminacion.Punto {
         public PuntoContaminacion(double lat, double lon, double nivel) {
-            this.lat = lat;
-            this.lon = lon;
-            this.nivel = nivel;
+            super(lat, lon, nivel);
         }
     }
 
+    /**
+     * Opacidad del heatmap.
+     */
+    private static final float ALPHA = 0.11f;
+
     /**
      * Lista interna de puntos usados para interpolar.
      */
@@ -68,13 +69,20 @@ public class ContaminacionOverlay extends Overlay {
     // ===============================================================
 
     /**
-     * @brief Contadores internos para calcular el porcentaje de cada categoría.
+     * @brief Cálculo de categorías por celda y contadores del índice.
      */
-    private int contBuena = 0;
-    private int contModerada = 0;
-    private int contInsalubre = 0;
-    private int contMala = 0;
-    private int totalCeldas = 0;
+    private final RejillaContaminacion rejilla = new RejillaContaminacion();
+
+    /**
+     * @brief Centros de cada celda en coordenadas geográficas (se reutilizan).
+     */
+    private final double[] latCeldas = new double[RejillaContaminacion.GRID * RejillaContaminacion.GRID];
+    private final double[] lonCeldas = new double[RejillaContaminacion.GRID * RejillaContaminacion.GRID];
+
+    /**
+     * @brief Paint reutilizado entre frames.
+     */
+    private final Paint paint = new Paint();
 
     /**
      * @brief Listener que envía al Activity los porcentajes calculados.
@@ -111,30 +119,6 @@ public class ContaminacionOverlay extends Overlay {
         puntos.addAll(nuevos);
     }
 
-    /**
-     * @param r Componente rojo.
-     * @param g Componente verde.
-     * @param b Componente azul.
-     * @return Texto con la categoría: "buena", "moderada", "insalubre" o "mala".
-     * @brief Clasifica un color RGB como nivel de calidad del aire.
-     * @details Usa la misma lógica que la versión Web.
-     */
-    private String clasificar(int r, int g, int b) {
-
-        // Verde → Buena
-        if (g > 200 && r < 80) return "buena";
-
-        // Amarillo → Moderada
-        if (r > 200 && g > 200) return "moderada";
-
-        // Naranja → Insalubre
-        if (r > 200 && g < 200 && g > 80) return "insalubre";
-
-        // Rojo → Mala
-        return "mala";
-    }
-
-
     /// ===============================================================
     /// ===  FIN BLOQUE PARA CÁLCULO DEL ÍNDICE DE CALIDAD  ===========
     /// ===============================================================
@@ -142,10 +126,11 @@ public class ContaminacionOverlay extends Overlay {
     /**
      * @brief Método principal encargado de dibujar el mapa interpolado.
      * @details Este método divide el canvas en una cuadrícula de GRID x GRID celdas.
-     * Para cada centro de celda:
-     * 1. Se proyecta el punto del píxel a coordenadas geográficas.
-     * 2. Se calcula una interpolación IDW usando los puntos de contaminación.
-     * 3. Se dibuja un círculo coloreado con la mezcla obtenida.
+     * 1. Proyecta el centro de cada celda a coordenadas geográficas.
+     * 2. RejillaContaminacion calcula la categoría de cada celda (peor nivel
+     *    de los puntos dentro del radio).
+     * 3. Se dibuja cada celda cubierta con el color de su categoría.
+     * 4. Se envían los porcentajes del índice al listener (una vez por frame).
      * <p>
      * El parámetro `shadow` es estándar en osmdroid, pero aquí no se usa.
      */
@@ -155,20 +140,23 @@ public class ContaminacionOverlay extends Overlay {
         // Si se trata de una llamada al shadow layer o no hay puntos, no dibujar nada.
         if (shadow || puntos.isEmpty()) return;
 
+        // Tiempo de cada frame del heatmap (Metricas + sección en Perfetto)
+        long t0 = Instrumentacion.inicio("Atmos.heatmap");
+        try {
+            Metricas.getInstance().indicador("mapa.puntos").fijar(puntos.size());
+            pintar(canvas, mapView);
+        } finally {
+            Instrumentacion.fin("mapa.render_us", t0);
+        }
+    }
 
-        // Reiniciar contadores índices
-        contBuena = 0;
-        contModerada = 0;
-        contInsalubre = 0;
-        contMala = 0;
-        totalCeldas = 0;
-
+    /**
+     * @brief Calcula la rejilla para la vista actual, la pinta y avisa al listener.
+     */
+    private void pintar(Canvas canvas, MapView mapView) {
 
-        // Número de divisiones por eje del lienzo.
-        final int GRID = 55;
+        final int GRID = RejillaContaminacion.GRID;
 
-        // Objeto Paint reutilizado para dibujar los círculos interpolados.
-        final Paint paint = new Paint();
         paint.setStyle(Paint.Style.FILL);
         paint.setAntiAlias(true);       // suaviza bordes
         paint.setDither(true);          // mejora mezcla de colores en gradientes
@@ -181,121 +169,37 @@ public class ContaminacionOverlay extends Overlay {
         float stepX = width / (float) GRID;
         float stepY = height / (float) GRID;
 
-        // Radio de influencia geográfico para IDW.
-        final double RADIO = 0.013;  // ≈1–1.2 km dependiendo latitud
-        final double EXP = 2.2;        // exponente IDW, 2 = estándar
-        final float ALPHA = 0.11f; // opacidad del heatmap
+        // Convertimos el centro de cada celda a coordenadas geo
+        for (int ix = 0; ix < GRID; ix++) {
+            for (int iy = 0; iy < GRID; iy++) {
+                float cx = ix * stepX + stepX / 2f;
+                float cy = iy * stepY + stepY / 2f;
 
-        // Recorrer toda la cuadrícula
+                GeoPoint gp = (GeoPoint) mapView.getProjection().fromPixels((int) cx, (int) cy);
+
+                latCeldas[ix * GRID + iy] = gp.getLatitude();
+                lonCeldas[ix * GRID + iy] = gp.getLongitude();
+            }
+        }
+
+        rejilla.calcular(latCeldas, lonCeldas, puntos);
+
+        // Pintar las celdas cubiertas
         for (int ix = 0; ix < GRID; ix++) {
             for (int iy = 0; iy < GRID; iy++) {
 
-                // Centro del píxel del grid
+                int categoria = rejilla.getCategoria(ix * GRID + iy);
+
+                // Si ningún punto aporta, esta celda se descarta
+                if (categoria == RejillaContaminacion.SIN_COBERTURA) continue;
+
                 float cx = ix * stepX + stepX / 2f;
                 float cy = iy * stepY + stepY / 2f;
 
-                // Convertimos el centro del píxel a coordenadas geo
-                GeoPoint gp = (GeoPoint) mapView.getProjection().fromPixels((int) cx, (int) cy);
+                // Color ya precalculado con alpha para permitir ver el mapa debajo
+                paint.setColor(COLOR_CATEGORIA[categoria]);
 
-                double lat = gp.getLatitude();
-                double lon = gp.getLongitude();
-
-                // Acumuladores IDW
-                double sumW = 0;      // suma de pesos
-                double maxNivel = 0; // Nos quedaremos con el PEOR nivel para cuando se seleccionen todos los contaminantes
-
-                // Evaluar influencia de cada punto sobre la celda actual
-                for (PuntoContaminacion p : puntos) {
-
-                    // Distancia geográfica aproximada
-                    double dx = lon - p.lon;
-                    double dy = lat - p.lat;
-                    double d = Math.sqrt(dx * dx + dy * dy);
-
-                    // Si está fuera del radio, no aporta nada
-                    if (d > RADIO) continue;
-
-                    // Peso IDW (si d=0 se fuerza peso máximo)
-                    double w = d == 0 ? 1 : 1 / Math.pow(d, EXP);
-
-                    sumW += w;
-
-                    /**
-                     * En lugar de interpolar colores,
-                     * nos quedamos con el nivel MÁS ALTO
-                     * (el contaminante más peligroso)
-                     */
-                    maxNivel = Math.max(maxNivel, p.nivel - 0.05);
-                    if (maxNivel < 0) maxNivel = 0;
-
-                }
-
-                // Enviar resultados índices a la Activity
-                if (indiceListener != null && totalCeldas > 0) {
-
-                    int pctBuena = (int) ((contBuena * 100f) / totalCeldas);
-                    int pctModerada = (int) ((contModerada * 100f) / totalCeldas);
-                    int pctInsalubre = (int) ((contInsalubre * 100f) / totalCeldas);
-                    int pctMala = (int) ((contMala * 100f) / totalCeldas);
-
-                    // Determinar categoría predominante
-                    String dominante = "buena";
-                    int max = pctBuena;
-
-                    if (pctModerada > max) {
-                        dominante = "moderada";
-                        max = pctModerada;
-                    }
-                    if (pctInsalubre > max) {
-                        dominante = "insalubre";
-                        max = pctInsalubre;
-                    }
-                    if (pctMala > max) {
-                        dominante = "mala";
-                    }
-
-                    indiceListener.onIndiceUpdated(
-                            pctBuena,
-                            pctModerada,
-                            pctInsalubre,
-                            pctMala,
-                            dominante
-                    );
-                }
-
-                // Si ningún punto aporta peso, este píxel se descarta
-                if (sumW == 0) continue;
-
-                // Convertimos el PEOR nivel a color
-                int[] rgb = colorPorNivel(maxNivel);
-                int rr = rgb[0];
-                int gg = rgb[1];
-                int bb = rgb[2];
-
-                // Índices calidad del aire, contabilizar celdas y clasificar
-                String nivel = clasificar(rr, gg, bb);
-                totalCeldas++;
-
-                switch (nivel) {
-                    case "buena":
-                        contBuena++;
-                        break;
-                    case "moderada":
-                        contModerada++;
-                        break;
-                    case "insalubre":
-                        contInsalubre++;
-                        break;
-                    default:
-                        contMala++;
-                        break;
-                }
-
-
-                // Ajustar color con alpha para permitir ver el mapa debajo
-                paint.setColor(Color.argb((int) (ALPHA * 255), rr, gg, bb));
-
-                // Se dibuja un círculo ligeramente menor que la celda
+                // Se dibuja un rectángulo algo mayor que la celda para solapar bordes
                 canvas.drawRect(
                         cx - stepX,
                         cy - stepY,
@@ -305,48 +209,39 @@ public class ContaminacionOverlay extends Overlay {
                 );
             }
         }
+
+        // Enviar resultados índices a la Activity
+        if (indiceListener != null && rejilla.getTotalCeldas() > 0) {
+            indiceListener.onIndiceUpdated(
+                    rejilla.porcentaje(ClasificadorCalidad.BUENA),
+                    rejilla.porcentaje(ClasificadorCalidad.MODERADA),
+                    rejilla.porcentaje(ClasificadorCalidad.INSALUBRE),
+                    rejilla.porcentaje(ClasificadorCalidad.MALA),
+                    rejilla.dominante()
+            );
+        }
     }
 
     /**
-     * @brief Convierte un nivel normalizado de contaminación en un color RGB.
+     * @brief Color del heatmap para cada categoría de ClasificadorCalidad.
      *
      * @details
-     * Este método traduce un valor normalizado (entre 0.1 y 1.0) a un color
-     * representativo de la calidad del aire, siguiendo la misma escala visual
-     * utilizada en el índice de calidad:
-     *
-     *  - 0.10 → Verde (calidad buena)
-     *  - 0.45 → Amarillo (calidad moderada)
-     *  - 0.75 → Naranja (calidad insalubre)
-     *  - 1.00 → Rojo (calidad mala)
+     * Misma escala visual que el índice de calidad:
+     *  - Buena     → verde     {36, 255, 84}
+     *  - Moderada  → amarillo  {255, 240, 0}
+     *  - Insalubre → naranja   {255, 144, 0}
+     *  - Mala      → rojo      {255, 48, 48}
      *
-     * El color devuelto se utiliza tanto para:
-     *  - Pintar el mapa de contaminación.
-     *  - Clasificar las celdas visibles para calcular el índice global.
-     *
-     * @param n Nivel normalizado de contaminación.
-     * @return Array de enteros {R, G, B} con valores entre 0 y 255.
-     * @date 16/12/2025
+     * Se precalcula una vez con el alpha ya aplicado, en lugar de crear
+     * un array RGB y volver a clasificarlo en cada celda.
+     * @date 19/10/2026
      */
-    private int[] colorPorNivel(double n) {
-
-        // Calidad buena → verde
-        if (n <= 0.10) {
-            return new int[]{36, 255, 84};
-        }
-
-        // Calidad moderada → amarillo
-        if (n <= 0.45) {
-            return new int[]{255, 240, 0};
-        }
-
-        // Calidad insalubre → naranja
-        if (n <= 0.75) {
-            return new int[]{255, 144, 0};
-        }
-
-        // Calidad mala → rojo
-        return new int[]{255, 48, 48};
-    }
+    private static final int[] COLOR_CATEGORIA = {
+            Color.argb((int) (ALPHA * 255), 36, 255, 84),   // Sin datos (como buena)
+            Color.argb((int) (ALPHA * 255), 36, 255, 84),   // Buena
+            Color.argb((int) (ALPHA * 255), 255, 240, 0),   // Moderada
+            Color.argb((int) (ALPHA * 255), 255, 144, 0),   // Insalubre
+            Color.argb((int) (ALPHA * 255), 255, 48, 48)    // Mala
+    };
 
 }
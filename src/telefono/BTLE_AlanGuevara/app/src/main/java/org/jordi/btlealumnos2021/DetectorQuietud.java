@@ -0,0 +1,82 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Decide si el móvil está quieto a partir del acelerómetro.
+ *
+ * Agrupa las muestras en ventanas de VENTANA_NS y calcula la desviación
+ * típica del módulo de la aceleración (la gravedad es constante, así que
+ * no hace falta quitarla). Por debajo de UMBRAL_QUIETO la ventana es
+ * "quieta": encima de la mesa sale ~0,02 m/s², en el bolsillo andando o
+ * en bici más de 1 m/s².
+ *
+ * Solo clasifica ventanas; cuánto tiempo hace falta estar quieto para
+ * cambiar el GPS lo decide PlanificadorGps.
+ *
+ * @date 19/10/2026
+ */
+public final class DetectorQuietud {
+
+    /** Duración de cada ventana (ns, el reloj de SensorEvent.timestamp). */
+    public static final long VENTANA_NS = 2_000_000_000L;
+
+    /** Desviación típica máxima de |a| para considerar la ventana quieta (m/s²). */
+    public static final double UMBRAL_QUIETO = 0.3;
+
+    /** Muestras mínimas para que una ventana cuente. */
+    private static final int MUESTRAS_MINIMAS = 4;
+
+    private long inicioVentana = -1;
+    private int n;
+    private double suma;
+    private double sumaCuadrados;
+
+    private boolean quieto = false;
+    private double ultimaDesviacion = 0;
+
+    /**
+     * @brief Añade una muestra del acelerómetro.
+     *
+     * @param tNanos Instante de la muestra (SensorEvent.timestamp).
+     * @return true si con esta muestra se ha cerrado una ventana (ver
+     *         estaQuieto()).
+     */
+    public boolean anadir(float x, float y, float z, long tNanos) {
+        boolean cerrada = false;
+
+        if (inicioVentana < 0 || tNanos < inicioVentana) {
+            empezar(tNanos);
+        } else if (tNanos - inicioVentana >= VENTANA_NS) {
+            if (n >= MUESTRAS_MINIMAS) {
+                double media = suma / n;
+                double varianza = Math.max(0, sumaCuadrados / n - media * media);
+                ultimaDesviacion = Math.sqrt(varianza);
+                quieto = ultimaDesviacion < UMBRAL_QUIETO;
+                cerrada = true;
+            }
+            empezar(tNanos);
+        }
+
+        double modulo = Math.sqrt((double) x * x + (double) y * y + (double) z * z);
+        n++;
+        suma += modulo;
+        sumaCuadrados += modulo * modulo;
+        return cerrada;
+    }
+
+    /** Resultado de la última ventana cerrada. */
+    public boolean estaQuieto() {
+        return quieto;
+    }
+
+    /** Desviación típica de |a| en la última ventana cerrada (m/s²). */
+    public double getUltimaDesviacion() {
+        return ultimaDesviacion;
+    }
+
+    private void empezar(long tNanos) {
+        inicioVentana = tNanos;
+        n = 0;
+        suma = 0;
+        sumaCuadrados = 0;
+    }
+}
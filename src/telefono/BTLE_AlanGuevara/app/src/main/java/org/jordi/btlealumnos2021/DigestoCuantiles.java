@@ -0,0 +1,228 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.Arrays;
+
+/**
+ * @brief Resumen de una distribución en memoria acotada para calcular
+ *        percentiles aproximados (t-digest con fusión, de Dunning).
+ *
+ * Guarda la distribución como "centroides" (media y peso) ordenados. Los
+ * centroides de los extremos se quedan pequeños y los del centro crecen,
+ * así que los percentiles altos y bajos (p95, p99) son muy precisos y
+ * la mediana algo menos. El tamaño máximo lo fija la compresión δ
+ * (~δ·π/2 centroides), no el número de valores.
+ *
+ * Los valores nuevos se acumulan en un búfer y se funden con los
+ * centroides cuando se llena. Dos digestos se pueden sumar (anadir(otro)),
+ * que es lo que permite combinar los tramos de AgregadorMedidas.
+ *
+ * No es thread-safe.
+ *
+ * @date 19/10/2026
+ */
+public final class DigestoCuantiles {
+
+    private final double compresion;
+
+    // Centroides fundidos, ordenados por media
+    private double[] medias;
+    private double[] pesos;
+    private int centroides = 0;
+
+    // Búfer de valores aún sin fundir (media, peso)
+    private double[] bufMedias;
+    private double[] bufPesos;
+    private int enBuffer = 0;
+
+    private double pesoTotal = 0;
+    private double minimo = Double.POSITIVE_INFINITY;
+    private double maximo = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param compresion δ: más alto = más preciso y más memoria (20..100).
+     */
+    public DigestoCuantiles(double compresion) {
+        if (compresion < 10) throw new IllegalArgumentException("compresión < 10");
+        this.compresion = compresion;
+
+        int capacidad = (int) Math.ceil(compresion * Math.PI / 2) + 2;
+        medias = new double[capacidad];
+        pesos = new double[capacidad];
+        bufMedias = new double[capacidad * 2];
+        bufPesos = new double[capacidad * 2];
+    }
+
+    public void anadir(double x) {
+        anadir(x, 1);
+    }
+
+    /**
+     * @brief Suma otro digesto a este (el otro no cambia).
+     */
+    public void anadir(DigestoCuantiles otro) {
+        if (otro.pesoTotal == 0) return;
+
+        for (int i = 0; i < otro.centroides; i++) anadir(otro.medias[i], otro.pesos[i]);
+        for (int i = 0; i < otro.enBuffer; i++) anadir(otro.bufMedias[i], otro.bufPesos[i]);
+
+        minimo = Math.min(minimo, otro.minimo);
+        maximo = Math.max(maximo, otro.maximo);
+    }
+
+    private void anadir(double x, double peso) {
+        if (Double.isNaN(x)) return;
+
+        if (enBuffer == bufMedias.length) fundir();
+
+        bufMedias[enBuffer] = x;
+        bufPesos[enBuffer] = peso;
+        enBuffer++;
+
+        pesoTotal += peso;
+        if (x < minimo) minimo = x;
+        if (x > maximo) maximo = x;
+    }
+
+    public long cuenta() {
+        return Math.round(pesoTotal);
+    }
+
+    public double minimo() {
+        return pesoTotal == 0 ? Double.NaN : minimo;
+    }
+
+    public double maximo() {
+        return pesoTotal == 0 ? Double.NaN : maximo;
+    }
+
+    /**
+     * @brief Valor aproximado del cuantil q.
+     *
+     * @param q Cuantil en [0, 1] (0.5 = mediana, 0.95 = p95).
+     * @return NaN si no hay valores.
+     */
+    public double cuantil(double q) {
+        if (pesoTotal == 0) return Double.NaN;
+        fundir();
+
+        if (q <= 0) return minimo;
+        if (q >= 1) return maximo;
+        if (centroides == 1) return medias[0];
+
+        double objetivo = q * pesoTotal;
+
+        // Cada centroide representa su peso centrado en su media: se
+        // interpola entre centros consecutivos (y con min/max en los bordes)
+        double centroAnterior = pesos[0] / 2;
+        if (objetivo < centroAnterior) {
+            return minimo + (medias[0] - minimo) * objetivo / centroAnterior;
+        }
+
+        double acumulado = pesos[0];
+        for (int i = 1; i < centroides; i++) {
+            double centro = acumulado + pesos[i] / 2;
+            if (objetivo < centro) {
+                double f = (objetivo - centroAnterior) / (centro - centroAnterior);
+                return medias[i - 1] + (medias[i] - medias[i - 1]) * f;
+            }
+            centroAnterior = centro;
+            acumulado += pesos[i];
+        }
+
+        double resto = pesoTotal - centroAnterior;
+        double f = resto == 0 ? 1 : (objetivo - centroAnterior) / resto;
+        return medias[centroides - 1] + (maximo - medias[centroides - 1]) * f;
+    }
+
+    public void reiniciar() {
+        centroides = 0;
+        enBuffer = 0;
+        pesoTotal = 0;
+        minimo = Double.POSITIVE_INFINITY;
+        maximo = Double.NEGATIVE_INFINITY;
+    }
+
+    // -------------------------------------------------------------
+    // Fusión
+    // -------------------------------------------------------------
+
+    /**
+     * Ordena el búfer, lo mezcla con los centroides (ya ordenados) y vuelve
+     * a agrupar de izquierda a derecha mientras el grupo no supere una
+     * unidad de la función de escala k(q) = δ/(2π)·asin(2q − 1).
+     */
+    private void fundir() {
+        if (enBuffer == 0) return;
+
+        ordenar(bufMedias, bufPesos, enBuffer);
+
+        int total = centroides + enBuffer;
+        double[] m = new double[total];
+        double[] w = new double[total];
+
+        // Mezcla de dos listas ordenadas
+        int i = 0, j = 0, k = 0;
+        while (i < centroides || j < enBuffer) {
+            if (j >= enBuffer || (i < centroides && medias[i] <= bufMedias[j])) {
+                m[k] = medias[i];
+                w[k++] = pesos[i++];
+            } else {
+                m[k] = bufMedias[j];
+                w[k++] = bufPesos[j++];
+            }
+        }
+
+        // Reagrupar
+        int n = 0;
+        double mediaActual = m[0];
+        double pesoActual = w[0];
+        double pesoPrevio = 0;
+        double kInicio = escala(0);
+
+        for (int x = 1; x < total; x++) {
+            double q = (pesoPrevio + pesoActual + w[x]) / pesoTotal;
+            if (escala(q) - kInicio <= 1) {
+                pesoActual += w[x];
+                mediaActual += (m[x] - mediaActual) * w[x] / pesoActual;
+            } else {
+                n = emitir(n, mediaActual, pesoActual);
+                pesoPrevio += pesoActual;
+                kInicio = escala(pesoPrevio / pesoTotal);
+                mediaActual = m[x];
+                pesoActual = w[x];
+            }
+        }
+        centroides = emitir(n, mediaActual, pesoActual);
+        enBuffer = 0;
+    }
+
+    private int emitir(int n, double media, double peso) {
+        if (n == medias.length) {
+            // No debería pasar con la escala k1, pero por si acaso
+            medias = Arrays.copyOf(medias, n * 2);
+            pesos = Arrays.copyOf(pesos, n * 2);
+        }
+        medias[n] = media;
+        pesos[n] = peso;
+        return n + 1;
+    }
+
+    private double escala(double q) {
+        return compresion / (2 * Math.PI) * Math.asin(2 * Math.min(1, Math.max(0, q)) - 1);
+    }
+
+    /** Ordenación por inserción de arrays paralelos (el búfer es pequeño). */
+    private static void ordenar(double[] m, double[] w, int n) {
+        for (int i = 1; i < n; i++) {
+            double mi = m[i], wi = w[i];
+            int j = i - 1;
+            while (j >= 0 && m[j] > mi) {
+                m[j + 1] = m[j];
+                w[j + 1] = w[j];
+                j--;
+            }
+            m[j + 1] = mi;
+            w[j + 1] = wi;
+        }
+    }
+}
@@ -307,7 +307,7 @@ public class EditarPerfilActivity extends FuncionesBaseActivity {
 
         // Botón confirmar:
         btnConfirmar.setOnClickListener(view -> {
-            stopService(new Intent(EditarPerfilActivity.this, ServicioDeteccionBeacons.class));
+            ServicioSensores.detenerTodo(EditarPerfilActivity.this);
 
             // 1. Cerrar sesión en Firebase
             FirebaseAuth.getInstance().signOut();
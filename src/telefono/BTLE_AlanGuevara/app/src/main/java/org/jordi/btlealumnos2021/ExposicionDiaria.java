@@ -0,0 +1,263 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * @brief Dosis de exposición personal del día por gas, cruzando las
+ *        medidas de la placa con las posiciones del recorrido.
+ *
+ * ModuloBeacons le pasa cada medida de la placa del usuario y
+ * ModuloRecorrido cada posición filtrada, las dos con la hora del
+ * servidor. Se cruzan en streaming, sin guardar series:
+ *  - Entre dos medidas seguidas de un gas, la concentración se integra
+ *    en el tiempo (trapecios): la dosis es concentración × horas. Un
+ *    hueco de más de MAX_HUECO_MS no cuenta (la placa estaba lejos o
+ *    apagada).
+ *  - Cada intervalo se alinea con la posición interpolada en su punto
+ *    medio entre las dos últimas posiciones del recorrido (o la última,
+ *    si tiene menos de MAX_EDAD_POSICION_MS). Si en ese momento el
+ *    usuario se movía, el intervalo cuenta también como "en recorrido".
+ *  - Se guarda dónde se midió el máximo del día.
+ *
+ * El estado es fijo: las dos últimas posiciones y, por gas, la última
+ * medida y unos acumulados (O(1) por gas y por medida). Al cambiar de
+ * día (hora local) se empieza de cero.
+ *
+ * UserPageActivity lo enseña junto a la distancia del recorrido; no hace
+ * falta nada del servidor. Como AgregadorMedidas, vive en memoria: tras
+ * reiniciarse la app cuenta desde getInicioMs().
+ *
+ * Es thread-safe (métodos sincronizados): escribe el servicio y lee la
+ * pantalla.
+ *
+ * @date 19/10/2026
+ */
+public final class ExposicionDiaria {
+
+    /** Hueco máximo entre dos medidas de un gas que se integra (ms). */
+    public static final long MAX_HUECO_MS = 5 * 60_000L;
+    /** Antigüedad máxima de una posición para alinear una medida (ms). */
+    public static final long MAX_EDAD_POSICION_MS = 15_000L;
+    /** Velocidad a partir de la que el usuario se mueve (m/s). */
+    public static final double VELOCIDAD_MINIMA = 0.5;
+
+    private static final int PRIMER_GAS = ClasificadorCalidad.GAS_NO2;
+    private static final int NUM_GASES = 4;
+    private static final double MS_POR_HORA = 3_600_000.0;
+
+    private static final ExposicionDiaria instancia = new ExposicionDiaria(TimeZone.getDefault());
+
+    public static ExposicionDiaria getInstance() {
+        return instancia;
+    }
+
+    /**
+     * @brief Exposición de un gas en lo que va de día.
+     */
+    public static final class Resumen {
+        /** Concentración × horas. */
+        public final double dosis;
+        /** Horas con medidas. */
+        public final double horas;
+        /** Media ponderada por tiempo (NaN sin datos). */
+        public final double media;
+        /** Parte de la dosis y de las horas con el usuario en movimiento. */
+        public final double dosisRecorrido;
+        public final double horasRecorrido;
+        /** Máximo del día y dónde se midió (NaN si no había posición). */
+        public final double maximo;
+        public final double latMaximo;
+        public final double lonMaximo;
+
+        Resumen(double dosis, double horas, double dosisRecorrido, double horasRecorrido,
+                double maximo, double latMaximo, double lonMaximo) {
+            this.dosis = dosis;
+            this.horas = horas;
+            this.media = horas > 0 ? dosis / horas : Double.NaN;
+            this.dosisRecorrido = dosisRecorrido;
+            this.horasRecorrido = horasRecorrido;
+            this.maximo = maximo;
+            this.latMaximo = latMaximo;
+            this.lonMaximo = lonMaximo;
+        }
+    }
+
+    /** Acumulados de un gas. */
+    private static final class Gas {
+        boolean hayUltima;
+        double ultimoValor;
+        long ultimoMs;
+
+        double dosis, ms, dosisRecorrido, msRecorrido;
+        double maximo = Double.NaN, latMaximo = Double.NaN, lonMaximo = Double.NaN;
+
+        void reiniciar() {
+            hayUltima = false;
+            dosis = ms = dosisRecorrido = msRecorrido = 0;
+            maximo = latMaximo = lonMaximo = Double.NaN;
+        }
+    }
+
+    /** Una posición del recorrido. */
+    private static final class Posicion {
+        boolean hay;
+        double lat, lon, velocidad;
+        long tMs;
+
+        void copiar(Posicion o) {
+            hay = o.hay;
+            lat = o.lat;
+            lon = o.lon;
+            velocidad = o.velocidad;
+            tMs = o.tMs;
+        }
+    }
+
+    private final Calendar calendario;
+    private final Gas[] gases = new Gas[NUM_GASES];
+    private final Posicion anterior = new Posicion();
+    private final Posicion actual = new Posicion();
+
+    // Resultado de alinear (evita crear objetos por medida)
+    private double latAlineada, lonAlineada, velocidadAlineada;
+
+    private long dia = Long.MIN_VALUE;
+    private long inicioMs = -1;
+
+    ExposicionDiaria(TimeZone zona) {
+        calendario = Calendar.getInstance(zona);
+        for (int i = 0; i < NUM_GASES; i++) gases[i] = new Gas();
+    }
+
+    /**
+     * @brief Posición filtrada del recorrido.
+     *
+     * @param velocidad Velocidad estimada (m/s).
+     * @param tMs       Instante (ms, hora del servidor).
+     */
+    public synchronized void posicion(double lat, double lon, double velocidad, long tMs) {
+        if (actual.hay && tMs <= actual.tMs) return;
+        anterior.copiar(actual);
+        actual.hay = true;
+        actual.lat = lat;
+        actual.lon = lon;
+        actual.velocidad = velocidad;
+        actual.tMs = tMs;
+    }
+
+    /**
+     * @brief Medida nueva de la placa del usuario.
+     *
+     * @param tMs Instante del escaneo (ms, hora del servidor).
+     */
+    public synchronized void medida(int tipoGas, double valor, long tMs) {
+        int i = tipoGas - PRIMER_GAS;
+        if (i < 0 || i >= NUM_GASES || Double.isNaN(valor)) return;
+
+        long d = inicioDia(tMs);
+        if (d != dia) {
+            if (d < dia) return;            // medida de ayer que llega tarde
+            dia = d;
+            inicioMs = tMs;
+            for (Gas g : gases) g.reiniciar();
+        }
+
+        Gas g = gases[i];
+        if (g.hayUltima && tMs > g.ultimoMs && tMs - g.ultimoMs <= MAX_HUECO_MS) {
+            long dt = tMs - g.ultimoMs;
+            double area = (g.ultimoValor + valor) / 2 * dt;
+            g.dosis += area;
+            g.ms += dt;
+
+            if (alinear(g.ultimoMs + dt / 2) && velocidadAlineada >= VELOCIDAD_MINIMA) {
+                g.dosisRecorrido += area;
+                g.msRecorrido += dt;
+            }
+        } else if (g.hayUltima && tMs <= g.ultimoMs) {
+            return;                          // desordenada: no se integra hacia atrás
+        }
+
+        if (Double.isNaN(g.maximo) || valor > g.maximo) {
+            g.maximo = valor;
+            if (alinear(tMs)) {
+                g.latMaximo = latAlineada;
+                g.lonMaximo = lonAlineada;
+            } else {
+                g.latMaximo = g.lonMaximo = Double.NaN;
+            }
+        }
+
+        g.hayUltima = true;
+        g.ultimoValor = valor;
+        g.ultimoMs = tMs;
+    }
+
+    /**
+     * @brief Exposición de hoy de un gas (ceros si no hay medidas o si es
+     *        de otro día).
+     */
+    public synchronized Resumen hoy(int tipoGas, long ahoraMs) {
+        int i = tipoGas - PRIMER_GAS;
+        if (i < 0 || i >= NUM_GASES || inicioDia(ahoraMs) != dia) {
+            return new Resumen(0, 0, 0, 0, Double.NaN, Double.NaN, Double.NaN);
+        }
+        Gas g = gases[i];
+        return new Resumen(g.dosis / MS_POR_HORA, g.ms / MS_POR_HORA,
+                g.dosisRecorrido / MS_POR_HORA, g.msRecorrido / MS_POR_HORA,
+                g.maximo, g.latMaximo, g.lonMaximo);
+    }
+
+    /**
+     * @brief Olvida la exposición y el recorrido (al cerrar sesión: son del
+     *        usuario que sale).
+     */
+    public synchronized void reiniciar() {
+        for (Gas g : gases) g.reiniciar();
+        anterior.hay = false;
+        actual.hay = false;
+        dia = Long.MIN_VALUE;
+        inicioMs = -1;
+    }
+
+    /** Primera medida del día recibida (ms; -1 si ninguna). */
+    public synchronized long getInicioMs() {
+        return inicioMs;
+    }
+
+    // -------------------------------------------------------------
+
+    /**
+     * Posición en el instante t: interpolada entre las dos últimas, o la
+     * más cercana si t cae fuera pero a menos de MAX_EDAD_POSICION_MS.
+     *
+     * @return false si no hay ninguna posición lo bastante cerca.
+     */
+    private boolean alinear(long t) {
+        if (!actual.hay) return false;
+
+        if (anterior.hay && t >= anterior.tMs && t <= actual.tMs) {
+            double f = (double) (t - anterior.tMs) / (actual.tMs - anterior.tMs);
+            latAlineada = anterior.lat + f * (actual.lat - anterior.lat);
+            lonAlineada = anterior.lon + f * (actual.lon - anterior.lon);
+            velocidadAlineada = anterior.velocidad + f * (actual.velocidad - anterior.velocidad);
+            return true;
+        }
+
+        Posicion p = (t < actual.tMs && anterior.hay) ? anterior : actual;
+        if (Math.abs(t - p.tMs) > MAX_EDAD_POSICION_MS) return false;
+        latAlineada = p.lat;
+        lonAlineada = p.lon;
+        velocidadAlineada = p.velocidad;
+        return true;
+    }
+
+    private long inicioDia(long tMs) {
+        calendario.setTimeInMillis(tMs);
+        calendario.set(Calendar.HOUR_OF_DAY, 0);
+        calendario.set(Calendar.MINUTE, 0);
+        calendario.set(Calendar.SECOND, 0);
+        calendario.set(Calendar.MILLISECOND, 0);
+        return calendario.getTimeInMillis();
+    }
+}
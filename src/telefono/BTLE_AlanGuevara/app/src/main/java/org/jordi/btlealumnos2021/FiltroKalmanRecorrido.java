@@ -0,0 +1,247 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Filtro de Kalman de velocidad constante para la distancia del
+ *        recorrido (ModuloRecorrido).
+ *
+ * Sustituye a los umbrales de FiltroRecorrido (1–7 m por paso), que
+ * obligaban a pedir una localización cada 2 s: con localizaciones más
+ * separadas casi todos los pasos eran "saltos" y se perdían.
+ *
+ * Estado por eje (este y norte, en metros alrededor de la primera
+ * localización): posición y velocidad, con su covarianza 2x2. Los ejes
+ * son independientes, así que cada localización cuesta O(1):
+ *  - Predicción con el tiempo desde la anterior; el ruido de proceso es
+ *    una aceleración blanca de ACELERACION m/s².
+ *  - Corrección con la posición, con varianza precisión².
+ *  - Corrección con la velocidad: si hay rumbo, el vector velocidad; si
+ *    la velocidad es menor que VELOCIDAD_MINIMA, velocidad cero (quieto).
+ *
+ * Una posición cuya innovación sale de la puerta PUERTA_CHI2 es atípica
+ * (salto del GPS) y no se usa; tras MAX_ATIPICAS seguidas se da la razón
+ * al GPS y se reinicia en ella (antes, tras un hueco el filtro de
+ * umbrales podía no volver a aceptar nada).
+ *
+ * La distancia se suma por tramos: cuando la posición filtrada se aleja
+ * PASO_M de la última sumada, se suma la recta entre las dos. Así el
+ * ruido que queda en la posición filtrada apenas cuenta (sumar cada
+ * pequeño movimiento lo acumularía). Con el usuario quieto (velocidad
+ * estimada o del GPS por debajo de VELOCIDAD_MINIMA) no se suma nada y
+ * el tramo empieza donde esté.
+ *
+ * @date 19/10/2026
+ */
+public final class FiltroKalmanRecorrido {
+
+    /** Precisión a partir de la que la localización no se usa (m). */
+    public static final float PRECISION_MAXIMA_M = 50f;
+    /** Ruido de proceso: aceleración típica (m/s²). */
+    public static final double ACELERACION = 0.5;
+    /** Velocidad por debajo de la que se considera quieto (m/s). */
+    public static final double VELOCIDAD_MINIMA = 0.5;
+    /** Desviación de la velocidad del GPS (m/s). */
+    public static final double DESVIACION_VELOCIDAD = 0.5;
+    /** Desviación inicial de la velocidad (m/s). */
+    private static final double DESVIACION_VELOCIDAD_INICIAL = 2.0;
+    /** Puerta de atípicos: chi² con 2 grados de libertad al 99,9 %. */
+    public static final double PUERTA_CHI2 = 13.8;
+    /** Atípicas seguidas tras las que se reinicia en la localización. */
+    public static final int MAX_ATIPICAS = 3;
+    /** Longitud de los tramos que se suman (m). */
+    public static final double PASO_M = 8.0;
+    /** Hueco sin localizaciones tras el que se empieza de nuevo (ms). */
+    public static final long HUECO_REINICIO_MS = 300_000;
+
+    // Motivo de la última decisión (para el log)
+    public static final int ACEPTADA = 0;
+    public static final int POCA_PRECISION = 1;
+    public static final int PRIMERA = 2;
+    public static final int ATIPICA = 3;
+    public static final int PARADO = 4;
+
+    private static final double RADIO_TIERRA_M = 6371008.8;
+
+    /** Posición, velocidad y covarianza [[a, b], [b, c]] de un eje. */
+    private static final class Eje {
+        double p, v, a, b, c;
+
+        void iniciar(double z, double varianza) {
+            p = z;
+            v = 0;
+            a = varianza;
+            b = 0;
+            c = DESVIACION_VELOCIDAD_INICIAL * DESVIACION_VELOCIDAD_INICIAL;
+        }
+
+        void predecir(double dt, double q) {
+            p += v * dt;
+            double dt2 = dt * dt;
+            a += 2 * dt * b + dt2 * c + q * dt2 * dt / 3;
+            b += dt * c + q * dt2 / 2;
+            c += q * dt;
+        }
+
+        /** Varianza de la innovación de una posición con varianza r. */
+        double s(double r) {
+            return a + r;
+        }
+
+        void corregirPosicion(double z, double r) {
+            double s = a + r;
+            double k0 = a / s, k1 = b / s;
+            double y = z - p;
+            p += k0 * y;
+            v += k1 * y;
+            double a0 = a, b0 = b;
+            a = (1 - k0) * a0;
+            b = (1 - k0) * b0;
+            c -= k1 * b0;
+        }
+
+        void corregirVelocidad(double z, double r) {
+            double s = c + r;
+            double k0 = b / s, k1 = c / s;
+            double y = z - v;
+            p += k0 * y;
+            v += k1 * y;
+            double b0 = b, c0 = c;
+            a -= k0 * b0;
+            b = (1 - k1) * b0;
+            c = (1 - k1) * c0;
+        }
+    }
+
+    private final Eje este = new Eje();
+    private final Eje norte = new Eje();
+
+    private boolean iniciado = false;
+    private double lat0, lon0, cosLat0;
+    private long ultimaMs;
+    private int atipicas = 0;
+
+    // Posición filtrada hasta la que ya se ha sumado distancia
+    private double esteSumado, norteSumado;
+
+    private int motivo = PRIMERA;
+
+    /**
+     * @brief Evalúa una localización nueva.
+     *
+     * @param precision Precisión horizontal en metros.
+     * @param velocidad Velocidad en m/s (negativa si no se sabe).
+     * @param rumbo     Rumbo en grados desde el norte (NaN si no se sabe).
+     * @param tMs       Instante de la localización (ms, reloj monótono).
+     * @return Metros que hay que sumar (0 si no hay avance; ver getMotivo()).
+     */
+    public double procesar(double lat, double lon, float precision,
+                           float velocidad, float rumbo, long tMs) {
+        if (precision > PRECISION_MAXIMA_M || precision <= 0) {
+            motivo = POCA_PRECISION;
+            return 0;
+        }
+
+        double r = (double) precision * precision;
+
+        if (!iniciado || tMs - ultimaMs > HUECO_REINICIO_MS) {
+            iniciar(lat, lon, r, tMs);
+            return 0;
+        }
+
+        double x = esteM(lon), y = norteM(lat);
+        double dt = Math.max(0, tMs - ultimaMs) / 1000.0;
+        ultimaMs = Math.max(ultimaMs, tMs);
+
+        double q = ACELERACION * ACELERACION;
+        este.predecir(dt, q);
+        norte.predecir(dt, q);
+
+        // Puerta de atípicos sobre la innovación de la posición
+        double ix = x - este.p, iy = y - norte.p;
+        double d2 = ix * ix / este.s(r) + iy * iy / norte.s(r);
+        if (d2 > PUERTA_CHI2) {
+            if (++atipicas >= MAX_ATIPICAS) {
+                iniciar(lat, lon, r, tMs);
+                return 0;
+            }
+            motivo = ATIPICA;
+            return 0;
+        }
+        atipicas = 0;
+
+        este.corregirPosicion(x, r);
+        norte.corregirPosicion(y, r);
+
+        double rv = DESVIACION_VELOCIDAD * DESVIACION_VELOCIDAD;
+        if (velocidad >= 0 && velocidad < VELOCIDAD_MINIMA) {
+            este.corregirVelocidad(0, rv);
+            norte.corregirVelocidad(0, rv);
+        } else if (velocidad >= 0 && !Float.isNaN(rumbo)) {
+            double rad = Math.toRadians(rumbo);
+            este.corregirVelocidad(velocidad * Math.sin(rad), rv);
+            norte.corregirVelocidad(velocidad * Math.cos(rad), rv);
+        }
+
+        if (getVelocidad() < VELOCIDAD_MINIMA || (velocidad >= 0 && velocidad < VELOCIDAD_MINIMA)) {
+            esteSumado = este.p;
+            norteSumado = norte.p;
+            motivo = PARADO;
+            return 0;
+        }
+        motivo = ACEPTADA;
+
+        double dx = este.p - esteSumado, dy = norte.p - norteSumado;
+        double tramo = Math.sqrt(dx * dx + dy * dy);
+        if (tramo < PASO_M) return 0;
+
+        esteSumado = este.p;
+        norteSumado = norte.p;
+        return tramo;
+    }
+
+    /** Motivo de la última decisión de procesar(). */
+    public int getMotivo() {
+        return motivo;
+    }
+
+    /** Velocidad estimada (m/s). */
+    public double getVelocidad() {
+        return Math.sqrt(este.v * este.v + norte.v * norte.v);
+    }
+
+    /** Latitud filtrada. */
+    public double getLatitud() {
+        return lat0 + Math.toDegrees(norte.p / RADIO_TIERRA_M);
+    }
+
+    /** Longitud filtrada. */
+    public double getLongitud() {
+        return lon0 + Math.toDegrees(este.p / (RADIO_TIERRA_M * cosLat0));
+    }
+
+    public void reiniciar() {
+        iniciado = false;
+        motivo = PRIMERA;
+    }
+
+    private void iniciar(double lat, double lon, double r, long tMs) {
+        lat0 = lat;
+        lon0 = lon;
+        cosLat0 = Math.cos(Math.toRadians(lat));
+        este.iniciar(0, r);
+        norte.iniciar(0, r);
+        esteSumado = 0;
+        norteSumado = 0;
+        ultimaMs = tMs;
+        atipicas = 0;
+        iniciado = true;
+        motivo = PRIMERA;
+    }
+
+    private double esteM(double lon) {
+        return Math.toRadians(lon - lon0) * RADIO_TIERRA_M * cosLat0;
+    }
+
+    private double norteM(double lat) {
+        return Math.toRadians(lat - lat0) * RADIO_TIERRA_M;
+    }
+}
@@ -0,0 +1,159 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Filtros por umbrales para sumar distancia recorrida.
+ *
+ * Era el filtro de ModuloRecorrido hasta que lo sustituyó
+ * FiltroKalmanRecorrido; se mantiene como referencia en las pruebas y por
+ * distanciaMetros().
+ *
+ * Recibe cada localización y decide si el desplazamiento respecto a la
+ * última localización aceptada cuenta para la distancia del día:
+ *  - Precisión peor de PRECISION_MAXIMA_M → se descarta.
+ *  - Primera localización válida → solo se guarda como referencia.
+ *  - Incremento < INCREMENTO_MINIMO_M → ruido (usuario parado).
+ *  - Incremento > INCREMENTO_MAXIMO_M → salto del GPS.
+ *  - Velocidad < VELOCIDAD_MINIMA → parado.
+ *
+ * La referencia solo avanza cuando el incremento se acepta, así que los
+ * pasos cortos se van acumulando hasta superar el mínimo.
+ *
+ * Si se da el instante de cada localización, el máximo crece con el
+ * tiempo desde la anterior (VELOCIDAD_MAXIMA por segundo, hasta
+ * HUECO_MAXIMO_MS): tras un hueco el primer paso puede ser más largo
+ * que INCREMENTO_MAXIMO_M sin ser un salto.
+ *
+ * La distancia se calcula con haversine en vez de Location.distanceTo
+ * (la diferencia a estas distancias es de milímetros).
+ *
+ * @date 19/10/2026
+ */
+public final class FiltroRecorrido {
+
+    public static final float PRECISION_MAXIMA_M = 20f;
+    public static final double INCREMENTO_MINIMO_M = 1.0;
+    public static final double INCREMENTO_MAXIMO_M = 7.0;
+    public static final float VELOCIDAD_MINIMA = 0.5f; // m/s
+
+    /** Velocidad máxima que se admite tras un hueco (m/s). */
+    public static final double VELOCIDAD_MAXIMA = 3.0;
+    /** Hueco máximo que se tiene en cuenta para el salto (ms). */
+    public static final long HUECO_MAXIMO_MS = 20_000;
+
+    // Motivo de la última decisión (para el log)
+    public static final int ACEPTADA = 0;
+    public static final int POCA_PRECISION = 1;
+    public static final int PRIMERA = 2;
+    public static final int RUIDO = 3;
+    public static final int SALTO = 4;
+    public static final int PARADO = 5;
+
+    private static final double RADIO_TIERRA_M = 6371008.8;
+
+    private boolean hayReferencia = false;
+    private double latRef;
+    private double lonRef;
+
+    private long ultimaMs = -1;         // instante de la última localización precisa
+
+    private int motivo = PRIMERA;
+    private double ultimoIncremento = 0;
+
+    /**
+     * @brief Evalúa una localización nueva.
+     *
+     * @param precision Precisión horizontal en metros.
+     * @param velocidad Velocidad en m/s.
+     * @return Metros que hay que sumar (0 si se descarta; ver getMotivo()).
+     */
+    public double procesar(double lat, double lon, float precision, float velocidad) {
+        return procesar(lat, lon, precision, velocidad, -1);
+    }
+
+    /**
+     * @brief Igual que procesar() pero con el instante de la localización,
+     *        para admitir pasos más largos tras un hueco.
+     *
+     * @param tMs Instante de la localización (ms, reloj monótono); negativo
+     *            si no se sabe (máximo fijo INCREMENTO_MAXIMO_M).
+     */
+    public double procesar(double lat, double lon, float precision, float velocidad, long tMs) {
+        ultimoIncremento = 0;
+
+        if (precision > PRECISION_MAXIMA_M) {
+            motivo = POCA_PRECISION;
+            return 0;
+        }
+
+        double maximo = INCREMENTO_MAXIMO_M;
+        if (tMs >= 0 && ultimaMs >= 0 && tMs > ultimaMs) {
+            long hueco = Math.min(tMs - ultimaMs, HUECO_MAXIMO_MS);
+            maximo = Math.max(maximo, VELOCIDAD_MAXIMA * hueco / 1000.0);
+        }
+        if (tMs >= 0) ultimaMs = tMs;
+
+        if (!hayReferencia) {
+            fijarReferencia(lat, lon);
+            motivo = PRIMERA;
+            return 0;
+        }
+
+        double incremento = distanciaMetros(latRef, lonRef, lat, lon);
+        ultimoIncremento = incremento;
+
+        if (incremento < INCREMENTO_MINIMO_M) {
+            motivo = RUIDO;
+            return 0;
+        }
+        if (incremento > maximo) {
+            motivo = SALTO;
+            return 0;
+        }
+        if (velocidad < VELOCIDAD_MINIMA) {
+            motivo = PARADO;
+            return 0;
+        }
+
+        fijarReferencia(lat, lon);
+        motivo = ACEPTADA;
+        return incremento;
+    }
+
+    /** Motivo de la última decisión de procesar(). */
+    public int getMotivo() {
+        return motivo;
+    }
+
+    /** Distancia a la referencia calculada en la última llamada (0 si no llegó a calcularse). */
+    public double getUltimoIncremento() {
+        return ultimoIncremento;
+    }
+
+    public void reiniciar() {
+        hayReferencia = false;
+        ultimaMs = -1;
+        motivo = PRIMERA;
+    }
+
+    private void fijarReferencia(double lat, double lon) {
+        latRef = lat;
+        lonRef = lon;
+        hayReferencia = true;
+    }
+
+    /**
+     * @brief Distancia en metros entre dos coordenadas (haversine).
+     */
+    public static double distanciaMetros(double lat1, double lon1, double lat2, double lon2) {
+        double p1 = Math.toRadians(lat1);
+        double p2 = Math.toRadians(lat2);
+        double dp = p2 - p1;
+        double dl = Math.toRadians(lon2 - lon1);
+
+        double s1 = Math.sin(dp / 2);
+        double s2 = Math.sin(dl / 2);
+        double a = s1 * s1 + Math.cos(p1) * Math.cos(p2) * s2 * s2;
+
+        return 2 * RADIO_TIERRA_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,83 @@
+package org.jordi.btlealumnos2021;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * @brief Formateadores de fechas compartidos y seguros entre hilos.
+ *
+ * SimpleDateFormat es caro de construir y no es thread-safe, y java.time
+ * no está disponible con minSdk 24, así que cada hilo reutiliza su propia
+ * instancia (ThreadLocal) en vez de crear dos por cada elemento de una lista.
+ *
+ * Las fechas del backend llegan en ISO 8601 UTC con milisegundos,
+ * p. ej. "2025-11-20T18:20:00.000Z".
+ *
+ * @date 19/10/2026
+ */
+public final class FormatosFecha {
+
+    private FormatosFecha() { }
+
+    private static final ThreadLocal<SimpleDateFormat> ISO_UTC = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat f = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+            f.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return f;
+        }
+    };
+
+    private static final ThreadLocal<SimpleDateFormat> HORA_LOCAL = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("HH:mm", Locale.getDefault());
+        }
+    };
+
+    private static final ThreadLocal<SimpleDateFormat> FECHA_HORA_LOCAL = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("dd/MM/yyyy · HH:mm", Locale.getDefault());
+        }
+    };
+
+    /**
+     * @brief Convierte una fecha ISO UTC del backend a milisegundos.
+     *
+     * @return Instante en ms, o 0 si la cadena no tiene el formato esperado.
+     */
+    public static long parsearIsoUtc(String fechaUtc) {
+        if (fechaUtc == null || fechaUtc.isEmpty()) return 0L;
+        try {
+            Date d = ISO_UTC.get().parse(fechaUtc);
+            return d != null ? d.getTime() : 0L;
+        } catch (ParseException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * @brief Hora local "HH:mm" de un instante.
+     *
+     * La zona se vuelve a leer en cada llamada por si el usuario la cambia
+     * con la app abierta.
+     */
+    public static String horaLocal(long instante) {
+        SimpleDateFormat f = HORA_LOCAL.get();
+        f.setTimeZone(TimeZone.getDefault());
+        return f.format(new Date(instante));
+    }
+
+    /**
+     * @brief Fecha y hora local para la interfaz, p. ej. "29/12/2025 · 02:12".
+     */
+    public static String fechaHoraLocal(long instante) {
+        SimpleDateFormat f = FECHA_HORA_LOCAL.get();
+        f.setTimeZone(TimeZone.getDefault());
+        return f.format(new Date(instante));
+    }
+}
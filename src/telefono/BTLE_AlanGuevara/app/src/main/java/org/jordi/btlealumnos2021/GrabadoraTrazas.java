@@ -0,0 +1,253 @@
+package org.jordi.btlealumnos2021;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @brief Grabación y reproducción de trazas de sensores (BLE + GPS).
+ *
+ * Grabación: mientras está activa, ModuloBeacons anota cada
+ * ScanRecord crudo (bytes, RSSI, instante) y LocalizacionCompartida cada
+ * Location, antes de cualquier filtro. Se escriben en formato TrazaSensores
+ * en un único hilo, en files/trazas/ del almacenamiento externo de la app
+ * (se sacan con adb pull).
+ *
+ * Reproducción: ModuloBeacons y LocalizacionCompartida se registran como
+ * destino; la traza se lee en un hilo propio y cada evento se entrega en el
+ * hilo principal por el mismo camino que los datos reales (procesarAnuncio
+ * en ModuloBeacons; en LocalizacionCompartida se guarda como última y se
+ * reparte a los oyentes). Se fechan con el instante grabado, escalado por
+ * la velocidad (ver ReproductorTraza). Los eventos de un servicio que no
+ * esté en marcha se descartan.
+ *
+ * Se controla desde TrazasReceiver (adb, variante debug) o llamando a estos métodos.
+ *
+ * @date 19/10/2026
+ */
+public final class GrabadoraTrazas {
+
+    private static final String TAG = "GrabadoraTrazas";
+    private static final String CARPETA = "trazas";
+
+    /** Entrada de anuncios BLE de ModuloBeacons. */
+    public interface DestinoAnuncios {
+        /** @param tNanos Instante del anuncio (elapsedRealtimeNanos). */
+        void procesarAnuncio(byte[] bytes, int rssi, long tNanos);
+    }
+
+    /** Entrada de localizaciones de LocalizacionCompartida. */
+    public interface DestinoLocalizaciones {
+        void procesarLocalizacion(Location loc);
+    }
+
+    private GrabadoraTrazas() { }
+
+    private static final Handler main = new Handler(Looper.getMainLooper());
+
+    // Un solo hilo: escritura en orden y sin tocar disco en el hilo principal
+    private static final ExecutorService escritura = Executors.newSingleThreadExecutor();
+
+    private static volatile TrazaSensores.Escritor escritor;
+    private static File ficheroActual;
+
+    private static volatile DestinoAnuncios destinoAnuncios;
+    private static volatile DestinoLocalizaciones destinoLocalizaciones;
+
+    private static ReproductorTraza reproductor;
+
+    // -------------------------------------------------------------
+    // Grabación
+    // -------------------------------------------------------------
+
+    public static boolean grabando() {
+        return escritor != null;
+    }
+
+    /**
+     * @brief Empieza a grabar en un fichero nuevo (si ya grababa, no hace nada).
+     *
+     * @return El fichero de la traza.
+     */
+    public static synchronized File iniciarGrabacion(Context context) throws IOException {
+        if (escritor != null) return ficheroActual;
+
+        File dir = context.getExternalFilesDir(CARPETA);
+        if (dir == null) dir = new File(context.getFilesDir(), CARPETA);
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("No se puede crear " + dir);
+
+        String nombre = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
+        ficheroActual = new File(dir, "traza_" + nombre + ".atrz");
+        escritor = new TrazaSensores.Escritor(new FileOutputStream(ficheroActual), System.currentTimeMillis());
+
+        Log.i(TAG, "Grabando en " + ficheroActual.getAbsolutePath());
+        return ficheroActual;
+    }
+
+    /**
+     * @brief Termina la grabación y cierra el fichero.
+     */
+    public static synchronized void detenerGrabacion() {
+        final TrazaSensores.Escritor e = escritor;
+        if (e == null) return;
+        escritor = null;
+
+        final File f = ficheroActual;
+        escritura.execute(() -> {
+            try {
+                e.close();
+                Log.i(TAG, "Traza cerrada: " + e.getEventos() + " eventos, "
+                        + f.length() + " bytes (" + f.getName() + ")");
+            } catch (IOException ex) {
+                Log.e(TAG, "Error cerrando la traza", ex);
+            }
+        });
+    }
+
+    /**
+     * @brief Anota un anuncio BLE crudo (solo si se está grabando).
+     *
+     * @param tNanos Instante del anuncio (ScanResult.getTimestampNanos()).
+     */
+    public static void anotarAnuncio(byte[] bytes, int rssi, long tNanos) {
+        final TrazaSensores.Escritor e = escritor;
+        if (e == null || bytes == null) return;
+
+        escritura.execute(() -> {
+            try {
+                e.anuncio(tNanos, bytes, rssi);
+            } catch (IOException ex) {
+                Log.e(TAG, "Error grabando anuncio", ex);
+            }
+        });
+    }
+
+    /**
+     * @brief Anota una localización (solo si se está grabando).
+     */
+    public static void anotarLocalizacion(Location loc) {
+        final TrazaSensores.Escritor e = escritor;
+        if (e == null || loc == null) return;
+
+        final long t = loc.getElapsedRealtimeNanos();
+        final double lat = loc.getLatitude();
+        final double lon = loc.getLongitude();
+        final float precision = loc.getAccuracy();
+        final float velocidad = loc.getSpeed();
+
+        escritura.execute(() -> {
+            try {
+                e.localizacion(t, lat, lon, precision, velocidad);
+            } catch (IOException ex) {
+                Log.e(TAG, "Error grabando localización", ex);
+            }
+        });
+    }
+
+    // -------------------------------------------------------------
+    // Reproducción
+    // -------------------------------------------------------------
+
+    public static void setDestinoAnuncios(DestinoAnuncios d) {
+        destinoAnuncios = d;
+    }
+
+    public static void setDestinoLocalizaciones(DestinoLocalizaciones d) {
+        destinoLocalizaciones = d;
+    }
+
+    /**
+     * @brief Reproduce una traza en un hilo propio.
+     *
+     * @param velocidad 1 = tiempo real, N = N veces más rápido, 0 = sin esperas.
+     */
+    public static synchronized void reproducir(File fichero, double velocidad) {
+        detenerReproduccion();
+
+        final ReproductorTraza r = new ReproductorTraza(velocidad);
+        reproductor = r;
+
+        new Thread(() -> {
+            try (TrazaSensores.Lector lector = new TrazaSensores.Lector(new FileInputStream(fichero))) {
+
+                Log.i(TAG, "Reproduciendo " + fichero.getName() + " a x" + velocidad);
+
+                // Origen de los instantes de la reproducción
+                final long baseNanos = SystemClock.elapsedRealtimeNanos();
+                final long baseMs = System.currentTimeMillis();
+
+                ReproductorTraza.Resumen res = r.reproducir(lector, new ReproductorTraza.Destino() {
+                    @Override
+                    public void onAnuncio(byte[] bytes, int rssi, long tNanos) {
+                        main.post(() -> {
+                            DestinoAnuncios d = destinoAnuncios;
+                            if (d != null) d.procesarAnuncio(bytes, rssi, baseNanos + tNanos);
+                        });
+                    }
+
+                    @Override
+                    public void onLocalizacion(double lat, double lon, float precision, float vel,
+                                               long tNanos) {
+                        main.post(() -> {
+                            DestinoLocalizaciones d = destinoLocalizaciones;
+                            if (d == null) return;
+
+                            Location loc = new Location("traza");
+                            loc.setLatitude(lat);
+                            loc.setLongitude(lon);
+                            loc.setAccuracy(precision);
+                            loc.setSpeed(vel);
+                            loc.setTime(baseMs + tNanos / 1_000_000);
+                            loc.setElapsedRealtimeNanos(baseNanos + tNanos);
+                            d.procesarLocalizacion(loc);
+                        });
+                    }
+                });
+
+                Log.i(TAG, "Reproducción " + (res.detenida ? "detenida" : "terminada")
+                        + ": " + res.anuncios + " anuncios, " + res.localizaciones + " localizaciones, "
+                        + (res.duracionTrazaNanos / 1_000_000) + " ms de traza en "
+                        + (res.duracionRealNanos / 1_000_000) + " ms (retraso máx. "
+                        + (res.maximoRetrasoNanos / 1_000_000) + " ms)");
+
+            } catch (IOException e) {
+                Log.e(TAG, "Error leyendo la traza " + fichero, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "reproductor-traza").start();
+    }
+
+    public static synchronized void detenerReproduccion() {
+        if (reproductor != null) {
+            reproductor.detener();
+            reproductor = null;
+        }
+    }
+
+    /**
+     * @brief Resuelve el nombre de una traza dentro de la carpeta de trazas
+     *        (o devuelve la ruta tal cual si es absoluta).
+     */
+    public static File fichero(Context context, String nombre) {
+        File f = new File(nombre);
+        if (f.isAbsolute()) return f;
+
+        File dir = context.getExternalFilesDir(CARPETA);
+        if (dir == null) dir = new File(context.getFilesDir(), CARPETA);
+        return new File(dir, nombre);
+    }
+}
@@ -5,9 +5,7 @@ import android.graphics.Color;
 import android.widget.ImageView;
 import android.widget.TextView;
 
-import com.android.volley.Request;
 import com.android.volley.RequestQueue;
-import com.android.volley.toolbox.JsonObjectRequest;
 import com.github.mikephil.charting.charts.BarChart;
 import com.github.mikephil.charting.components.AxisBase;
 import com.github.mikephil.charting.components.XAxis;
@@ -18,11 +16,10 @@ import com.github.mikephil.charting.data.BarEntry;
 import com.github.mikephil.charting.formatter.IndexAxisValueFormatter;
 import com.github.mikephil.charting.formatter.ValueFormatter;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * @brief Clase auxiliar para gestionar la gráfica de calidad del aire.
@@ -50,11 +47,26 @@ public class GraficaHelper {
     private final int idUsuario;
 
     // "dia" → /resumen7Dias   |   "hora" → /resumen8Horas
-    private String modoActual = "dia";
+    private String modoActual = CacheGraficas.MODO_DIA;
 
     // Último tipo de gas usado (11,12,13,14). 0 = ninguno todavía.
     private int ultimoTipoGas = 0;
 
+    // Series ya descargadas (compartidas por todo el proceso)
+    private final CacheGraficas cache = CacheGraficas.getInstance();
+
+    // Carita de cada categoría de ClasificadorCalidad (0 = sin datos)
+    private static final int[] ICONO_CATEGORIA = {
+            R.drawable.ic_estado_neutro,
+            R.drawable.ic_cara_buena,
+            R.drawable.ic_cara_moderado,
+            R.drawable.ic_cara_regular,
+            R.drawable.ic_cara_mala
+    };
+
+    // BarData ya montado para cada serie, para no reconstruirlo al cambiar D/H
+    private final Map<SerieGrafica, BarData> barDataPorSerie = new WeakHashMap<>();
+
     /**
      * @brief Crea un gestor de gráficas de calidad del aire.
      *
@@ -150,7 +162,7 @@ public class GraficaHelper {
      */
     private void configurarBotonesModo() {
         btnModoDia.setOnClickListener(v -> {
-            modoActual = "dia";
+            modoActual = CacheGraficas.MODO_DIA;
 
             // Si ya tenemos algún gas cargado, recargamos la gráfica
             if (ultimoTipoGas != 0) {
@@ -162,7 +174,7 @@ public class GraficaHelper {
         });
 
         btnModoHora.setOnClickListener(v -> {
-            modoActual = "hora";
+            modoActual = CacheGraficas.MODO_HORA;
 
             if (ultimoTipoGas != 0) {
                 recargarGrafica(ultimoTipoGas);
@@ -180,7 +192,7 @@ public class GraficaHelper {
      * según el modo activo (día u hora).
      */
     private void actualizarBotonesModo() {
-        if ("dia".equals(modoActual)) {
+        if (CacheGraficas.MODO_DIA.equals(modoActual)) {
             btnModoDia.setBackgroundResource(R.drawable.bg_modo_selected);
             btnModoHora.setBackgroundResource(R.drawable.bg_modo_unselected);
             txtRangoFechas.setText("Últimos 7 días");
@@ -194,9 +206,12 @@ public class GraficaHelper {
     /**
      * @brief Recarga la gráfica con datos actualizados.
      *
-     * Solicita al backend los datos correspondientes al gas indicado
-     * y al modo actual (día u hora), y actualiza la gráfica y el estado
-     * visual de la calidad del aire.
+     * Primero pinta lo que haya en {@link CacheGraficas} para el gas y el
+     * modo actual (día u hora), de forma que cambiar de modo es instantáneo.
+     * Después decide qué pedir al backend:
+     *  - Nada, si la serie en caché sigue fresca.
+     *  - Solo el último bucket, si la serie sigue siendo válida.
+     *  - La serie completa, si no hay nada en caché o está muy desfasada.
      *
      * @param tipoGas Código del gas seleccionado (11, 12, 13, 14).
      */
@@ -208,16 +223,76 @@ public class GraficaHelper {
         // Actualizamos aspecto de botones y texto "Últimos 7 días / Últimas 8 horas"
         actualizarBotonesModo();
 
+        final String modo = modoActual;
+        final long ahora = System.currentTimeMillis();
+        CacheGraficas.Entrada entrada = cache.obtener(idUsuario, modo, tipoGas);
+
+        // Las 8 horas enteras medidas en este móvil: no hace falta el servidor
+        if (CacheGraficas.MODO_HORA.equals(modo)) {
+            SerieGrafica local = serieHorasLocal(tipoGas, ahora);
+            if (local != null) {
+                cache.guardar(idUsuario, modo, tipoGas, local, ahora);
+                pintarGrafica(local);
+                return;
+            }
+        }
+
+        // Pintar al instante lo que tengamos guardado
+        if (entrada != null) {
+            pintarGrafica(entrada.serie);
+        }
+
+        if (CacheGraficas.estaFresca(entrada, modo, ahora)) {
+            return; // Nada que pedir
+        }
+
+        if (CacheGraficas.admiteIncremental(entrada, modo, ahora)) {
+            if (actualizarUltimaHoraLocal(tipoGas, modo, entrada, ahora)) {
+                return;
+            }
+            pedirUltimoBucket(tipoGas, modo, entrada);
+        } else {
+            pedirSerieCompleta(tipoGas, modo, true);
+        }
+    }
+
+    /**
+     * @brief Descarga la serie completa (7 días u 8 horas) y la guarda en caché.
+     *
+     * @param tipoGas     Código del gas.
+     * @param modo        "dia" o "hora".
+     * @param precargar   true para descargar también el otro modo si aún no está
+     *                    en caché, de forma que el cambio D/H no necesite red.
+     */
+    private void pedirSerieCompleta(int tipoGas, String modo, boolean precargar) {
+
         LogicaFake.GraficaCallback callback = new LogicaFake.GraficaCallback() {
             @Override
             public void onSinPlaca() {
                 // Si no hay placa, limpiamos la gráfica
-                pintarGrafica(new ArrayList<>(), new ArrayList<>(), 0, tipoGas);
+                if (esVisible(tipoGas, modo)) {
+                    pintarGrafica(new SerieGrafica(tipoGas, new String[0], new float[0]));
+                }
             }
 
             @Override
-            public void onDatosObtenidos(List<String> labels, List<Float> valores, double promedio) {
-                pintarGrafica(labels, valores, promedio, tipoGas);
+            public void onDatosObtenidos(String[] labels, float[] valores, double promedio) {
+                SerieGrafica serie = new SerieGrafica(tipoGas, labels, valores);
+                cache.guardar(idUsuario, modo, tipoGas, serie, System.currentTimeMillis());
+
+                if (esVisible(tipoGas, modo)) {
+                    pintarGrafica(serie);
+                }
+
+                if (precargar) {
+                    String otroModo = CacheGraficas.MODO_DIA.equals(modo)
+                            ? CacheGraficas.MODO_HORA
+                            : CacheGraficas.MODO_DIA;
+
+                    if (cache.obtener(idUsuario, otroModo, tipoGas) == null) {
+                        pedirSerieCompleta(tipoGas, otroModo, false);
+                    }
+                }
             }
 
             @Override
@@ -231,7 +306,7 @@ public class GraficaHelper {
             }
         };
 
-        if ("dia".equals(modoActual)) {
+        if (CacheGraficas.MODO_DIA.equals(modo)) {
             LogicaFake.resumen7Dias(idUsuario, tipoGas, queue, callback);
         } else {
             LogicaFake.resumen8Horas(idUsuario, tipoGas, queue, callback);
@@ -239,92 +314,161 @@ public class GraficaHelper {
     }
 
     /**
-     * @brief Representa los datos recibidos en la gráfica.
+     * @brief Pide solo el último bucket y actualiza la serie que ya está en caché.
      *
-     * Convierte los valores reales de contaminación en categorías fijas
-     * de calidad del aire, pinta las barras correspondientes y actualiza
-     * el estado visual general según el promedio.
+     * @param tipoGas Código del gas.
+     * @param modo    "dia" o "hora".
+     * @param entrada Entrada actual de la caché (no nula).
+     */
+    private void pedirUltimoBucket(int tipoGas, String modo, CacheGraficas.Entrada entrada) {
+
+        LogicaFake.ultimoBucketGrafica(idUsuario, tipoGas, modo, queue,
+                new LogicaFake.UltimoBucketCallback() {
+                    @Override
+                    public void onSinPlaca() {
+                        if (esVisible(tipoGas, modo)) {
+                            pintarGrafica(new SerieGrafica(tipoGas, new String[0], new float[0]));
+                        }
+                    }
+
+                    @Override
+                    public void onUltimoBucket(String label, float valor) {
+                        long ahora = System.currentTimeMillis();
+
+                        // ¿Ha empezado un día/hora nuevo desde la última descarga?
+                        boolean desplazar = CacheGraficas.bucketDe(modo, ahora) != entrada.bucket;
+
+                        SerieGrafica serie = entrada.serie.conUltimoBucket(label, valor, desplazar);
+                        cache.guardar(idUsuario, modo, tipoGas, serie, ahora);
+
+                        if (esVisible(tipoGas, modo)) {
+                            pintarGrafica(serie);
+                        }
+                    }
+
+                    @Override
+                    public void onErrorServidor() {
+                        // Se mantiene lo que ya está pintado
+                    }
+
+                    @Override
+                    public void onErrorInesperado() {
+                        // Igual que arriba
+                    }
+                });
+    }
+
+    /**
+     * @brief Serie de las últimas 8 horas calculada con AgregadorMedidas,
+     *        con las mismas etiquetas ("HH") y ceros que la del servidor.
      *
-     * @param labels   Etiquetas del eje X (días u horas).
-     * @param valores  Valores reales de contaminación.
-     * @param promedio Valor promedio del periodo.
-     * @param tipoGas  Código del gas para evaluar rangos de calidad.
+     * @return null si el agregador no lleva recibiendo las 8 horas enteras
+     *         (p. ej. la app acaba de arrancar): faltarían medidas.
      */
-    private void pintarGrafica(List<String> labels,
-                               List<Float> valores,
-                               double promedio,
-                               int tipoGas) {
-
-        // ---------------------------
-        // Construcción de entradas (CON ALTURA FIJA POR CATEGORÍA)
-        // ---------------------------
-        List<BarEntry> entries = new ArrayList<>();
-
-        for (int i = 0; i < valores.size(); i++) {
-            float v = valores.get(i);
-
-            // CONVERTIR valor real (0.01, 0.04...) a altura FIJA POR CATEGORÍA
-            // Usamos 1, 2, 3, 4 para que coincida con el eje Y
-            float altura;
-
-            if (tipoGas == 13) {  // O3
-                if (v <= 0.031f) altura = 1f;
-                else if (v <= 0.061f) altura = 2f;
-                else if (v <= 0.092f) altura = 3f;
-                else altura = 4f;
-
-            } else if (tipoGas == 11) { // NO2
-                if (v <= 0.021f) altura = 1f;
-                else if (v <= 0.053f) altura = 2f;
-                else if (v <= 0.106f) altura = 3f;
-                else altura = 4f;
-
-            } else if (tipoGas == 12) { // CO
-                if (v <= 1.7f) altura = 1f;
-                else if (v <= 4.4f) altura = 2f;
-                else if (v <= 8.7f) altura = 3f;
-                else altura = 4f;
-
-            } else if (tipoGas == 14) { // SO2
-                if (v <= 0.0076f) altura = 1f;
-                else if (v <= 0.019f) altura = 2f;
-                else if (v <= 0.038f) altura = 3f;
-                else altura = 4f;
+    private SerieGrafica serieHorasLocal(int tipoGas, long ahora) {
+        AgregadorMedidas agregador = AgregadorMedidas.getInstance();
+        long horaActual = agregador.inicioHora(ahora);
+        if (!agregador.cubreDesde(horaActual - 7 * AgregadorMedidas.HORA)) {
+            return null;
+        }
 
-            } else {
-                altura = 0f;
-            }
+        String[] labels = new String[8];
+        for (int i = 0; i < 8; i++) {
+            long hora = horaActual - (7 - i) * AgregadorMedidas.HORA;
+            labels[i] = FormatosFecha.horaLocal(hora).substring(0, 2);
+        }
+        return new SerieGrafica(tipoGas, labels, agregador.mediasHorarias(tipoGas, 8, ahora));
+    }
 
-            entries.add(new BarEntry(i, altura));
+    /**
+     * @brief Actualiza la hora en curso de la serie en caché con la media
+     *        local, si el agregador tiene la hora entera y la serie no se
+     *        ha quedado atrás (en ese caso hay que desplazarla y se deja al
+     *        servidor).
+     *
+     * @return true si se ha actualizado sin pedir nada.
+     */
+    private boolean actualizarUltimaHoraLocal(int tipoGas, String modo,
+                                              CacheGraficas.Entrada entrada, long ahora) {
+        if (!CacheGraficas.MODO_HORA.equals(modo)
+                || CacheGraficas.bucketDe(modo, ahora) != entrada.bucket) {
+            return false;
         }
 
+        AgregadorMedidas agregador = AgregadorMedidas.getInstance();
+        if (!agregador.cubreDesde(agregador.inicioHora(ahora))) return false;
 
+        float[] media = agregador.mediasHorarias(tipoGas, 1, ahora);
+        String label = FormatosFecha.horaLocal(ahora).substring(0, 2);
 
-        BarDataSet dataSet = new BarDataSet(entries, "");
-        dataSet.setDrawValues(false);
+        SerieGrafica serie = entrada.serie.conUltimoBucket(label, media[0], false);
+        cache.guardar(idUsuario, modo, tipoGas, serie, ahora);
+        pintarGrafica(serie);
+        return true;
+    }
 
-        // Colores por barra según valor del gas
-        List<Integer> colores = new ArrayList<>();
-        for (float v : valores) {
-            colores.add(colorParaValor(v, tipoGas));
-        }
-        dataSet.setColors(colores);
+    /**
+     * @brief Indica si una respuesta sigue correspondiendo a lo que se ve en pantalla.
+     *
+     * Evita que una respuesta lenta pinte otro gas u otro modo cuando el
+     * usuario ya ha cambiado la selección.
+     */
+    private boolean esVisible(int tipoGas, String modo) {
+        return tipoGas == ultimoTipoGas && modo.equals(modoActual);
+    }
 
-        BarData data = new BarData(dataSet);
-        data.setBarWidth(0.6f);
+    /**
+     * @brief Representa una serie en la gráfica.
+     *
+     * Las alturas fijas por categoría y los colores de cada barra ya vienen
+     * precalculados en la serie, así que aquí solo se monta (una vez por serie)
+     * el BarData y se actualiza el estado visual general según el promedio.
+     *
+     * @param serie Serie a pintar.
+     */
+    private void pintarGrafica(SerieGrafica serie) {
+
+        BarData data = barDataPorSerie.get(serie);
+
+        if (data == null) {
+            // ---------------------------
+            // Construcción de entradas (CON ALTURA FIJA POR CATEGORÍA)
+            // ---------------------------
+            float[] alturas = serie.getAlturas();
+            int[] colores = serie.getColores();
+
+            List<BarEntry> entries = new ArrayList<>(alturas.length);
+            List<Integer> listaColores = new ArrayList<>(colores.length);
+
+            for (int i = 0; i < alturas.length; i++) {
+                entries.add(new BarEntry(i, alturas[i]));
+                listaColores.add(colores[i]);
+            }
+
+            BarDataSet dataSet = new BarDataSet(entries, "");
+            dataSet.setDrawValues(false);
+
+            // Colores por barra según valor del gas
+            dataSet.setColors(listaColores);
+
+            data = new BarData(dataSet);
+            data.setBarWidth(0.6f);
+
+            barDataPorSerie.put(serie, data);
+        }
 
         // Asignar datos al chart
         barChart.setData(data);
 
         // Eje X con labels
         XAxis xAxis = barChart.getXAxis();
-        xAxis.setValueFormatter(new IndexAxisValueFormatter(labels));
+        xAxis.setValueFormatter(new IndexAxisValueFormatter(serie.getLabels()));
         xAxis.setLabelRotationAngle(0f);
 
         barChart.invalidate();
 
         // Actualizar carita y texto según promedio
-        actualizarEstadoCalidad(promedio, tipoGas);
+        actualizarEstadoCalidad(serie.getPromedio(), serie.getTipoGas());
     }
 
     /**
@@ -339,132 +483,12 @@ public class GraficaHelper {
      */
     private void actualizarEstadoCalidad(double promedio, int tipoGas) {
 
-        String estado = "Sin datos";
-        int icono = R.drawable.ic_estado_neutro;
-
-        if (promedio <= 0) {
-            txtEstadoCalidad.setText(estado);
-            iconEstadoCalidad.setImageResource(icono);
-            return;
-        }
-
-        switch (tipoGas) {
-
-            case 13: // O3
-                if (promedio <= 0.031) {
-                    estado = "Buena";
-                    icono = R.drawable.ic_cara_buena;
-                } else if (promedio <= 0.061) {
-                    estado = "Moderada";
-                    icono = R.drawable.ic_cara_moderado;
-                } else if (promedio <= 0.092) {
-                    estado = "Insalubre";
-                    icono = R.drawable.ic_cara_regular;
-                } else {
-                    estado = "Mala";
-                    icono = R.drawable.ic_cara_mala;
-                }
-                break;
-
-            case 11: // NO2
-                if (promedio <= 0.021) {
-                    estado = "Buena";
-                    icono = R.drawable.ic_cara_buena;
-                } else if (promedio <= 0.053) {
-                    estado = "Moderada";
-                    icono = R.drawable.ic_cara_moderado;
-                } else if (promedio <= 0.106) {
-                    estado = "Insalubre";
-                    icono = R.drawable.ic_cara_regular;
-                } else {
-                    estado = "Mala";
-                    icono = R.drawable.ic_cara_mala;
-                }
-                break;
-
-            case 12: // CO
-                if (promedio <= 1.7) {
-                    estado = "Buena";
-                    icono = R.drawable.ic_cara_buena;
-                } else if (promedio <= 4.4) {
-                    estado = "Moderada";
-                    icono = R.drawable.ic_cara_moderado;
-                } else if (promedio <= 8.7) {
-                    estado = "Insalubre";
-                    icono = R.drawable.ic_cara_regular;
-                } else {
-                    estado = "Mala";
-                    icono = R.drawable.ic_cara_mala;
-                }
-                break;
-
-            case 14: // SO2
-                if (promedio <= 0.0076) {
-                    estado = "Buena";
-                    icono = R.drawable.ic_cara_buena;
-                } else if (promedio <= 0.019) {
-                    estado = "Moderada";
-                    icono = R.drawable.ic_cara_moderado;
-                } else if (promedio <= 0.038) {
-                    estado = "Insalubre";
-                    icono = R.drawable.ic_cara_regular;
-                } else {
-                    estado = "Mala";
-                    icono = R.drawable.ic_cara_mala;
-                }
-                break;
-        }
-
-        txtEstadoCalidad.setText(estado);
-        iconEstadoCalidad.setImageResource(icono);
-    }
-
-
-
-    /**
-     * @brief Devuelve el color asociado a un valor de contaminación.
-     *
-     * Asigna un color representativo (verde, amarillo, naranja o rojo)
-     * según el nivel de calidad del aire del gas indicado.
-     *
-     * @param v       Valor real del gas.
-     * @param tipoGas Código del gas.
-     * @return Color correspondiente al nivel de calidad.
-     */
-    private int colorParaValor(float v, int tipoGas) {
-
-        // O3
-        if (tipoGas == 13) {
-            if (v <= 0.031f) return Color.rgb(76, 175, 80);      // Buena
-            else if (v <= 0.061f) return Color.rgb(255, 235, 59); // Moderada
-            else if (v <= 0.092f) return Color.rgb(255, 152, 0);  // Insalubre
-            else return Color.rgb(244, 67, 54);                   // Mala
-        }
-
-        // NO2
-        if (tipoGas == 11) {
-            if (v <= 0.021f) return Color.rgb(76, 175, 80);
-            else if (v <= 0.053f) return Color.rgb(255, 235, 59);
-            else if (v <= 0.106f) return Color.rgb(255, 152, 0);
-            else return Color.rgb(244, 67, 54);
-        }
-
-        // CO
-        if (tipoGas == 12) {
-            if (v <= 1.7f) return Color.rgb(76, 175, 80);
-            else if (v <= 4.4f) return Color.rgb(255, 235, 59);
-            else if (v <= 8.7f) return Color.rgb(255, 152, 0);
-            else return Color.rgb(244, 67, 54);
-        }
-
-        // SO2
-        if (tipoGas == 14) {
-            if (v <= 0.0076f) return Color.rgb(76, 175, 80);
-            else if (v <= 0.019f) return Color.rgb(255, 235, 59);
-            else if (v <= 0.038f) return Color.rgb(255, 152, 0);
-            else return Color.rgb(244, 67, 54);
-        }
+        // Sin datos si el promedio es 0 (no hubo medidas en el periodo)
+        int categoria = promedio <= 0
+                ? ClasificadorCalidad.SIN_DATOS
+                : ClasificadorCalidad.categoria(promedio, tipoGas);
 
-        return Color.GRAY; // fallback
+        txtEstadoCalidad.setText(ClasificadorCalidad.texto(categoria));
+        iconEstadoCalidad.setImageResource(ICONO_CATEGORIA[categoria]);
     }
 }
@@ -0,0 +1,398 @@
+package org.jordi.btlealumnos2021;
+
+import android.graphics.Color;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.Volley;
+import com.github.mikephil.charting.charts.LineChart;
+import com.github.mikephil.charting.components.AxisBase;
+import com.github.mikephil.charting.components.LimitLine;
+import com.github.mikephil.charting.components.XAxis;
+import com.github.mikephil.charting.components.YAxis;
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineData;
+import com.github.mikephil.charting.data.LineDataSet;
+import com.github.mikephil.charting.formatter.ValueFormatter;
+import com.github.mikephil.charting.listener.ChartTouchListener;
+import com.github.mikephil.charting.listener.OnChartGestureListener;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @brief Pantalla de histórico completo de un gas de la placa del usuario.
+ *
+ * Muestra todas las medidas (hasta una por segundo) de las últimas
+ * {@link #DIAS_HISTORICO} jornadas en una gráfica de líneas con zoom y
+ * desplazamiento.
+ *
+ * Como eso pueden ser millones de puntos, nunca se pintan todos:
+ *  - Los datos se piden al backend por días (ChunkHistorico) y solo los
+ *    que caen en la parte visible. Se guardan en CacheHistorico (memoria
+ *    y disco), así que volver a una zona ya vista no usa la red.
+ *  - Si cada píxel abarca un minuto o más, se usa el resumen LOD de cada
+ *    chunk (mínimo y máximo por minuto) en lugar de las medidas crudas.
+ *  - Lo que queda se reduce con LTTB a dos puntos por píxel.
+ *
+ * Todo el trabajo pesado (disco, recorte, submuestreo) se hace en un hilo
+ * aparte; el hilo principal solo recibe la lista final de puntos.
+ *
+ * Extra del Intent: {@link #EXTRA_TIPO_GAS} (11, 12, 13, 14).
+ *
+ * @date 19/10/2026
+ */
+public class HistoricoActivity extends AppCompatActivity {
+
+    public static final String EXTRA_TIPO_GAS = "tipo_gas";
+
+    private static final int DIAS_HISTORICO = 28;
+    private static final long MS_DIA = ChunkHistorico.DURACION_MS;
+
+    // Espera tras un gesto antes de recalcular la vista
+    private static final long RETARDO_ACTUALIZACION_MS = 80;
+
+    // Zoom máximo: 2 minutos en pantalla
+    private static final float RANGO_MINIMO_S = 120f;
+
+    private LineChart chart;
+    private LineDataSet serie;
+    private TextView txtRango;
+    private TextView txtSinDatos;
+    private ProgressBar progreso;
+
+    private RequestQueue queue;
+    private CacheHistorico cache;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private int idUsuario;
+    private int tipoGas;
+
+    // Eje X en segundos desde el inicio del histórico (un float no tiene
+    // precisión suficiente para epoch en ms)
+    private long origen;
+
+    // Chunks que se están descargando
+    private final Set<Long> pendientes = new HashSet<>();
+
+    // Para descartar resultados de una vista que ya no está en pantalla
+    private int generacionVista = 0;
+
+    private final SimpleDateFormat formatoEje = new SimpleDateFormat("dd/MM HH:mm", Locale.getDefault());
+    private final SimpleDateFormat formatoRango = new SimpleDateFormat("dd/MM/yyyy HH:mm", Locale.getDefault());
+
+    private final Runnable actualizar = this::actualizarVista;
+
+    /**
+     * @brief Inicializa la pantalla y muestra las últimas 24 horas.
+     */
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_historico);
+
+        idUsuario = SesionManager.obtenerIdUsuario(this);
+        if (idUsuario == -1) {
+            finish();
+            return;
+        }
+
+        tipoGas = getIntent().getIntExtra(EXTRA_TIPO_GAS, ClasificadorCalidad.GAS_O3);
+
+        queue = Volley.newRequestQueue(this);
+        cache = CacheHistorico.getInstance(new File(getCacheDir(), CacheHistorico.NOMBRE_DIR));
+
+        chart = findViewById(R.id.lineChartHistorico);
+        txtRango = findViewById(R.id.txtRangoHistorico);
+        txtSinDatos = findViewById(R.id.txtSinDatosHistorico);
+        progreso = findViewById(R.id.progresoHistorico);
+
+        findViewById(R.id.btnBack).setOnClickListener(v -> finish());
+
+        long ahora = System.currentTimeMillis();
+        origen = (ChunkHistorico.indiceDe(ahora) - (DIAS_HISTORICO - 1)) * MS_DIA;
+
+        configurarChart(ahora);
+
+        // Vista inicial: últimas 24 horas (cuando el chart ya tiene tamaño)
+        chart.post(() -> {
+            float totalS = (ahora - origen) / 1000f;
+            chart.zoom(totalS / (MS_DIA / 1000f), 1f, 0, 0);
+            chart.moveViewToX(totalS);
+            programarActualizacion();
+        });
+    }
+
+    /**
+     * @brief Cancela descargas y trabajo pendiente.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacksAndMessages(null);
+        executor.shutdownNow();
+        if (queue != null) queue.cancelAll(this);
+    }
+
+    /**
+     * @brief Misma estética que GraficaHelper, adaptada a una serie temporal.
+     *
+     * El eje X abarca todo el histórico aunque solo haya datos de una parte,
+     * para poder desplazarse a zonas que aún no se han descargado.
+     */
+    private void configurarChart(long ahora) {
+        chart.getDescription().setEnabled(false);
+        chart.setDrawGridBackground(false);
+        chart.getLegend().setEnabled(false);
+        chart.getAxisRight().setEnabled(false);
+        chart.setScaleYEnabled(false);
+        chart.setPinchZoom(false);
+        chart.setAutoScaleMinMaxEnabled(true);
+        chart.setNoDataText("Cargando…");
+
+        XAxis xAxis = chart.getXAxis();
+        xAxis.setPosition(XAxis.XAxisPosition.BOTTOM);
+        xAxis.setDrawGridLines(false);
+        xAxis.setLabelCount(4);
+        xAxis.setAxisMinimum(0f);
+        xAxis.setAxisMaximum((ahora - origen) / 1000f);
+        xAxis.setValueFormatter(new ValueFormatter() {
+            @Override
+            public String getAxisLabel(float value, AxisBase axis) {
+                return formatoEje.format(new Date(origen + (long) (value * 1000)));
+            }
+        });
+
+        YAxis left = chart.getAxisLeft();
+        left.setDrawGridLines(true);
+        left.setGridColor(Color.LTGRAY);
+        left.setTextSize(10f);
+        left.setAxisMinimum(0f);
+
+        // Líneas de los umbrales de calidad del gas
+        double[] umbrales = ClasificadorCalidad.getUmbrales(tipoGas);
+        if (umbrales != null) {
+            int[] colores = {0xFFFFEB3B, 0xFFFF9800, 0xFFF44336};
+            for (int i = 0; i < umbrales.length; i++) {
+                LimitLine l = new LimitLine((float) umbrales[i]);
+                l.setLineColor(colores[i]);
+                l.setLineWidth(1f);
+                l.enableDashedLine(10f, 10f, 0f);
+                left.addLimitLine(l);
+            }
+        }
+
+        serie = new LineDataSet(new ArrayList<>(), "");
+        serie.setDrawCircles(false);
+        serie.setDrawValues(false);
+        serie.setLineWidth(1.2f);
+        serie.setColor(Color.parseColor("#009966"));
+        serie.setHighlightEnabled(false);
+
+        chart.setData(new LineData(serie));
+        chart.setVisibleXRangeMinimum(RANGO_MINIMO_S);
+
+        chart.setOnChartGestureListener(new OnChartGestureListener() {
+            @Override public void onChartTranslate(MotionEvent me, float dX, float dY) { programarActualizacion(); }
+            @Override public void onChartScale(MotionEvent me, float scaleX, float scaleY) { programarActualizacion(); }
+            @Override public void onChartGestureEnd(MotionEvent me, ChartTouchListener.ChartGesture g) { programarActualizacion(); }
+            @Override public void onChartGestureStart(MotionEvent me, ChartTouchListener.ChartGesture g) { }
+            @Override public void onChartLongPressed(MotionEvent me) { }
+            @Override public void onChartDoubleTapped(MotionEvent me) { programarActualizacion(); }
+            @Override public void onChartSingleTapped(MotionEvent me) { }
+            @Override public void onChartFling(MotionEvent me1, MotionEvent me2, float vX, float vY) { }
+        });
+    }
+
+    /**
+     * @brief Recalcula la vista poco después del último gesto.
+     */
+    private void programarActualizacion() {
+        handler.removeCallbacks(actualizar);
+        handler.postDelayed(actualizar, RETARDO_ACTUALIZACION_MS);
+    }
+
+    /**
+     * @brief Prepara en segundo plano los puntos de la zona visible y los pinta.
+     *
+     * Los chunks que no estén ni en memoria ni en disco se piden al backend;
+     * al llegar se vuelve a llamar a este método.
+     */
+    private void actualizarVista() {
+        final long t0 = Math.max(origen, origen + (long) (chart.getLowestVisibleX() * 1000));
+        final long t1 = origen + (long) (chart.getHighestVisibleX() * 1000);
+        final int anchoPx = Math.max(1, (int) chart.getViewPortHandler().contentWidth());
+        if (t1 <= t0 || executor.isShutdown()) return;
+
+        // Si cada píxel abarca un minuto o más, basta con el resumen LOD
+        final boolean usarResumen = (t1 - t0) / ChunkHistorico.RESOLUCION_RESUMEN_MS >= anchoPx;
+        final int generacion = ++generacionVista;
+
+        txtRango.setText(nombreGas(tipoGas) + "  ·  "
+                + formatoRango.format(new Date(t0)) + " – " + formatoRango.format(new Date(t1)));
+
+        executor.execute(() -> {
+            long ahora = System.currentTimeMillis();
+            List<long[]> listaT = new ArrayList<>();
+            List<float[]> listaV = new ArrayList<>();
+            List<Long> faltan = new ArrayList<>();
+
+            for (long i = ChunkHistorico.indiceDe(t0); i <= ChunkHistorico.indiceDe(t1 - 1); i++) {
+                ChunkHistorico c = usarResumen
+                        ? cache.obtenerResumenMemoria(idUsuario, tipoGas, i, ahora)
+                        : cache.obtenerMemoria(idUsuario, tipoGas, i, ahora);
+
+                if (c == null) c = cache.leerDisco(idUsuario, tipoGas, i);
+
+                if (c == null) {
+                    faltan.add(i);
+                    continue;
+                }
+
+                listaT.add(usarResumen ? c.getResumenT() : c.getT());
+                listaV.add(usarResumen ? c.getResumenV() : c.getV());
+            }
+
+            List<Entry> puntos = submuestrear(listaT, listaV, t0, t1, 2 * anchoPx);
+
+            handler.post(() -> {
+                if (generacion != generacionVista || isFinishing()) return;
+                pintar(puntos);
+                pedirChunks(faltan);
+            });
+        });
+    }
+
+    /**
+     * @brief Junta los trozos visibles de varios chunks y los reduce con LTTB.
+     *
+     * Se ejecuta en el hilo de trabajo.
+     */
+    private List<Entry> submuestrear(List<long[]> listaT, List<float[]> listaV,
+                                     long t0, long t1, int maxPuntos) {
+        // Tamaño total de la parte visible (los chunks van en orden)
+        int[] desde = new int[listaT.size()];
+        int[] hasta = new int[listaT.size()];
+        int total = 0;
+
+        for (int k = 0; k < listaT.size(); k++) {
+            long[] t = listaT.get(k);
+            desde[k] = posicion(t, t0);
+            hasta[k] = posicion(t, t1);
+            total += hasta[k] - desde[k];
+        }
+
+        long[] t = new long[total];
+        float[] v = new float[total];
+        int n = 0;
+        for (int k = 0; k < listaT.size(); k++) {
+            int len = hasta[k] - desde[k];
+            System.arraycopy(listaT.get(k), desde[k], t, n, len);
+            System.arraycopy(listaV.get(k), desde[k], v, n, len);
+            n += len;
+        }
+
+        long[] outT = new long[Math.min(total, maxPuntos)];
+        float[] outV = new float[outT.length];
+        int m = Submuestreo.lttb(t, v, 0, total, maxPuntos, outT, outV);
+
+        List<Entry> puntos = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            puntos.add(new Entry((outT[i] - origen) / 1000f, outV[i]));
+        }
+        return puntos;
+    }
+
+    /**
+     * @brief Primera posición con instante >= x en un array ordenado.
+     */
+    private static int posicion(long[] t, long x) {
+        int i = Arrays.binarySearch(t, x);
+        if (i < 0) return -i - 1;
+        while (i > 0 && t[i - 1] == x) i--;
+        return i;
+    }
+
+    /**
+     * @brief Sustituye los puntos pintados sin tocar el zoom ni el desplazamiento.
+     */
+    private void pintar(List<Entry> puntos) {
+        serie.setValues(puntos);
+        chart.getData().notifyDataChanged();
+        chart.notifyDataSetChanged();
+        chart.invalidate();
+    }
+
+    /**
+     * @brief Descarga los chunks que faltan (los que no se estén descargando ya).
+     */
+    private void pedirChunks(List<Long> faltan) {
+        for (Long indice : faltan) {
+            if (!pendientes.add(indice)) continue;
+
+            LogicaFake.historicoChunk(idUsuario, tipoGas, indice, queue, this,
+                    new LogicaFake.HistoricoCallback() {
+                        @Override
+                        public void onSinPlaca() {
+                            pendientes.remove(indice);
+                            txtSinDatos.setVisibility(View.VISIBLE);
+                            actualizarProgreso();
+                        }
+
+                        @Override
+                        public void onChunk(ChunkHistorico chunk) {
+                            if (executor.isShutdown()) return;
+
+                            // Guardar (posible escritura en disco) fuera del hilo principal
+                            executor.execute(() -> {
+                                cache.guardar(idUsuario, chunk);
+                                handler.post(() -> {
+                                    pendientes.remove(indice);
+                                    actualizarProgreso();
+                                    programarActualizacion();
+                                });
+                            });
+                        }
+
+                        @Override
+                        public void onErrorServidor() {
+                            // Se reintentará en el siguiente gesto
+                            pendientes.remove(indice);
+                            actualizarProgreso();
+                        }
+                    });
+        }
+        actualizarProgreso();
+    }
+
+    private void actualizarProgreso() {
+        progreso.setVisibility(pendientes.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+
+    private static String nombreGas(int tipoGas) {
+        switch (tipoGas) {
+            case ClasificadorCalidad.GAS_NO2: return "NO₂";
+            case ClasificadorCalidad.GAS_CO: return "CO";
+            case ClasificadorCalidad.GAS_SO2: return "SO₂";
+            default: return "O₃";
+        }
+    }
+}
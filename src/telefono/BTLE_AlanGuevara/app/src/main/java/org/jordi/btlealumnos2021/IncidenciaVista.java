@@ -0,0 +1,63 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Incidencia lista para pintar en la tarjeta de IncidenciasAdapter.
+ *
+ * La fecha del backend se parsea una sola vez a milisegundos y todos los
+ * textos (fecha, estado) se formatean al crear el objeto, en un hilo de
+ * fondo; onBindViewHolder solo hace setText. Es inmutable: si la
+ * incidencia cambia, se crea una vista nueva al recargar.
+ *
+ * @date 19/10/2026
+ */
+public final class IncidenciaVista {
+
+    public final Incidencia incidencia;
+
+    // Fecha de creación en ms (0 si no se pudo parsear)
+    public final long fechaMs;
+
+    public final String fechaTexto;
+    public final String estadoTexto;
+    public final boolean tieneRespuesta;
+
+    // Hay respuesta del administrador que el usuario aún no ha leído
+    public final boolean respuestaPendiente;
+
+    public IncidenciaVista(Incidencia incidencia) {
+        this.incidencia = incidencia;
+
+        this.fechaMs = FormatosFecha.parsearIsoUtc(incidencia.fecha);
+        this.fechaTexto = fechaMs > 0
+                ? FormatosFecha.fechaHoraLocal(fechaMs)
+                : incidencia.fecha; // fallback
+
+        this.estadoTexto = textoEstado(incidencia.idEstado);
+
+        this.tieneRespuesta = incidencia.respuesta != null
+                && !incidencia.respuesta.trim().isEmpty()
+                && !"null".equalsIgnoreCase(incidencia.respuesta.trim());
+
+        this.respuestaPendiente = tieneRespuesta && incidencia.leidaUsuario == 0;
+    }
+
+    public int getId() {
+        return incidencia.idIncidencia;
+    }
+
+    /**
+     * @brief Devuelve el texto de estado visible para el usuario.
+     *
+     * @param idEstado Estado numérico desde backend
+     * @return Texto de estado
+     */
+    public static String textoEstado(int idEstado) {
+        switch (idEstado) {
+            case 1: return "Recibida";
+            case 2: return "En proceso";
+            case 3: return "Resuelta";
+            case 4: return "Rechazada";
+            default: return "Recibida";
+        }
+    }
+}
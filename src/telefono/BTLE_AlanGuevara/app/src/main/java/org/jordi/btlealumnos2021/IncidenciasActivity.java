@@ -2,10 +2,13 @@ package org.jordi.btlealumnos2021;
 
 import android.app.Dialog;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.View;
 import android.widget.EditText;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -17,12 +20,10 @@ import com.google.android.material.tabs.TabLayout;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
-import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @brief Pantalla de gestión de incidencias del usuario.
@@ -48,6 +49,26 @@ public class IncidenciasActivity extends AppCompatActivity {
     private RequestQueue requestQueue;
     private int idUsuario;
 
+    // Paginación: incidencias por página y filas de margen antes del final
+    private static final int TAM_PAGINA = 30;
+    private static final int MARGEN_PAGINA = 5;
+
+    // Todas las páginas cargadas, sin filtrar por pestaña (más recientes primero)
+    private final List<IncidenciaVista> cargadas = new ArrayList<>();
+
+    // Parseo y formateo de cada página fuera del hilo principal
+    private final ExecutorService ejecutor = Executors.newSingleThreadExecutor();
+    private final Handler hiloPrincipal = new Handler(Looper.getMainLooper());
+    private boolean hayMas = true;
+    private boolean cargando = false;
+
+    // Se incrementa al recargar, para descartar respuestas de páginas viejas
+    private int generacion = 0;
+
+    // Un adapter por pestaña: cambiar de pestaña no recrea nada
+    private IncidenciasAdapter adapterRespuestas;
+    private IncidenciasAdapter adapterEnviadas;
+
     /**
      * @brief Inicializa la pantalla de incidencias.
      *
@@ -74,6 +95,30 @@ public class IncidenciasActivity extends AppCompatActivity {
         recyclerView = findViewById(R.id.rvIncidencias);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
 
+        View.OnClickListener alPulsar = v -> {
+            int pos = recyclerView.getChildAdapterPosition(v);
+            if (pos != RecyclerView.NO_POSITION) {
+                abrirIncidencia(adapterActual().getIncidencia(pos));
+            }
+        };
+        adapterRespuestas = new IncidenciasAdapter(alPulsar, true);
+        adapterEnviadas = new IncidenciasAdapter(alPulsar, false);
+        recyclerView.setAdapter(adapterActual());
+
+        // Al acercarse al final, pedir la siguiente página
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) return;
+
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                if (lm != null
+                        && lm.findLastVisibleItemPosition() >= adapterActual().getItemCount() - MARGEN_PAGINA) {
+                    cargarPagina(false);
+                }
+            }
+        });
+
         requestQueue = Volley.newRequestQueue(this);
 
         findViewById(R.id.btnBack).setOnClickListener(v -> finish());
@@ -98,7 +143,9 @@ public class IncidenciasActivity extends AppCompatActivity {
                 } else {
                     modoActual = MODO_ENVIADAS;
                 }
-                cargarIncidencias();
+                // Las dos pestañas salen de las mismas incidencias ya cargadas
+                recyclerView.setAdapter(adapterActual());
+                mostrarIncidencias();
             }
 
             @Override public void onTabUnselected(TabLayout.Tab tab) { }
@@ -110,91 +157,151 @@ public class IncidenciasActivity extends AppCompatActivity {
     /**
      * @brief Carga y muestra las incidencias del usuario.
      *
-     * Solicita al backend el listado de incidencias y actualiza
-     * el RecyclerView según el modo activo (respuestas o enviadas).
+     * Vuelve a pedir la primera página al backend; las siguientes se piden
+     * al hacer scroll (ver cargarPagina()).
      */
     private void cargarIncidencias() {
+        cargarPagina(true);
+    }
+
+    /**
+     * @brief Pide una página de incidencias al backend.
+     *
+     * @param desdeElPrincipio true para recargar desde la más reciente,
+     *                         false para la página siguiente a las ya cargadas.
+     */
+    private void cargarPagina(boolean desdeElPrincipio) {
+
+        if (!desdeElPrincipio && (cargando || !hayMas)) return;
+
+        final int gen = desdeElPrincipio ? ++generacion : generacion;
+        int antesId = desdeElPrincipio || cargadas.isEmpty()
+                ? 0
+                : cargadas.get(cargadas.size() - 1).getId();
+
+        cargando = true;
 
         LogicaFake.listarIncidenciasUsuario(
                 idUsuario,
+                antesId,
+                TAM_PAGINA,
                 requestQueue,
                 new LogicaFake.ListarIncidenciasCallback() {
 
                     @Override
                     public void onIncidenciasOk(JSONArray arr) {
 
-                        List<Incidencia> lista = new ArrayList<>();
-
-                        for (int i = 0; i < arr.length(); i++) {
-                            JSONObject o = arr.optJSONObject(i);
-                            if (o == null) continue;
-
-                            String respuesta = o.optString("respuesta", null);
-
-                            // Si estamos en "Respuestas", solo mostramos incidencias que tengan respuesta
-                            if (modoActual == MODO_RESPUESTAS && (respuesta == null || respuesta.equals("null") || respuesta.isEmpty())) {
-                                continue;
-                            }
-
-                            lista.add(new Incidencia(
-                                    o.optInt("id_incidencia"),
-                                    o.optString("asunto"),
-                                    o.optString("mensaje_enviado"),
-                                    respuesta,
-                                    o.optString("fecha"),
-                                    o.optInt("id_estado"),
-                                    o.optInt("leida_usuario")
-                            ));
-                        }
-
-                        // En caso de no haber incidencias muestra que no hay
-                        TextView txtVacio = findViewById(R.id.txtSinIncidencias);
-
-                        if (lista.isEmpty()) {
-                            txtVacio.setVisibility(View.VISIBLE);
-                            recyclerView.setVisibility(View.GONE);
+                        // Respuesta de antes de una recarga: se ignora
+                        if (gen != generacion || isDestroyed()) return;
 
-                            if (modoActual == MODO_RESPUESTAS) {
-                                txtVacio.setText("Aún no tienes respuestas");
-                            } else {
-                                txtVacio.setText("No has enviado incidencias");
-                            }
-
-                            return; // ⬅ importante: no seguimos
-                        } else {
-                            txtVacio.setVisibility(View.GONE);
-                            recyclerView.setVisibility(View.VISIBLE);
-                        }
+                        // Fechas y textos se preparan en segundo plano
+                        ejecutor.execute(() -> {
+                            List<IncidenciaVista> pagina = crearVistas(arr);
 
-                        IncidenciasAdapter adapter =
-                                new IncidenciasAdapter(
-                                        lista,
-                                        v -> {
-                                            int pos = recyclerView.getChildAdapterPosition(v);
-                                            if (pos != RecyclerView.NO_POSITION) {
-                                                abrirIncidencia(lista.get(pos));
-                                            }
-                                        },
-                                        modoActual == MODO_RESPUESTAS
-                                );
+                            hiloPrincipal.post(() -> {
+                                if (gen != generacion || isDestroyed()) return;
+                                cargando = false;
 
-                        recyclerView.setAdapter(adapter);
+                                if (desdeElPrincipio) cargadas.clear();
+                                cargadas.addAll(pagina);
+                                hayMas = arr.length() >= TAM_PAGINA;
 
+                                mostrarIncidencias();
+                            });
+                        });
                     }
 
                     @Override
                     public void onErrorServidor() {
                         // Se podría mostrar un mensaje de error al usuario
+                        if (gen == generacion) cargando = false;
                     }
 
                     @Override
                     public void onErrorInesperado() {
                         // Error inesperado durante la petición
+                        if (gen == generacion) cargando = false;
                     }
                 }
         );
     }
 
+    /**
+     * @brief Convierte una página del backend en vistas ya formateadas.
+     *
+     * Se ejecuta en el hilo de fondo.
+     */
+    private static List<IncidenciaVista> crearVistas(JSONArray arr) {
+        List<IncidenciaVista> pagina = new ArrayList<>(arr.length());
+
+        for (int i = 0; i < arr.length(); i++) {
+            JSONObject o = arr.optJSONObject(i);
+            if (o == null) continue;
+
+            pagina.add(new IncidenciaVista(new Incidencia(
+                    o.optInt("id_incidencia"),
+                    o.optString("asunto"),
+                    o.optString("mensaje_enviado"),
+                    o.optString("respuesta", null),
+                    o.optString("fecha"),
+                    o.optInt("id_estado"),
+                    o.optInt("leida_usuario")
+            )));
+        }
+
+        return pagina;
+    }
+
+    /**
+     * @brief Filtra las incidencias cargadas según la pestaña y las pasa al adapter.
+     */
+    private void mostrarIncidencias() {
+
+        List<IncidenciaVista> lista = new ArrayList<>();
+
+        for (IncidenciaVista v : cargadas) {
+            // Si estamos en "Respuestas", solo mostramos incidencias que tengan respuesta
+            if (modoActual == MODO_RESPUESTAS && !v.tieneRespuesta) {
+                continue;
+            }
+            lista.add(v);
+        }
+
+        // Con pocas filas no se puede hacer scroll: pedir ya la siguiente página
+        if (lista.size() < MARGEN_PAGINA && hayMas) {
+            cargarPagina(false);
+        }
+
+        // En caso de no haber incidencias muestra que no hay
+        TextView txtVacio = findViewById(R.id.txtSinIncidencias);
+
+        if (lista.isEmpty() && !hayMas) {
+            txtVacio.setVisibility(View.VISIBLE);
+            recyclerView.setVisibility(View.GONE);
+
+            if (modoActual == MODO_RESPUESTAS) {
+                txtVacio.setText("Aún no tienes respuestas");
+            } else {
+                txtVacio.setText("No has enviado incidencias");
+            }
+        } else {
+            txtVacio.setVisibility(View.GONE);
+            recyclerView.setVisibility(View.VISIBLE);
+        }
+
+        adapterActual().submitList(lista);
+    }
+
+    private IncidenciasAdapter adapterActual() {
+        return modoActual == MODO_RESPUESTAS ? adapterRespuestas : adapterEnviadas;
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        ejecutor.shutdownNow();
+    }
+
     /**
      * @brief Muestra el detalle completo de una incidencia.
      *
@@ -205,12 +312,14 @@ public class IncidenciasActivity extends AppCompatActivity {
      * Si la incidencia no estaba marcada como leída, se actualiza
      * su estado tanto en el backend como en la sesión local.
      *
-     * @param incidencia Incidencia seleccionada por el usuario.
+     * @param vista Incidencia seleccionada por el usuario.
      *
      * @author Nerea Aguilar Forés
      * @date 29/12/2025
      */
-    private void abrirIncidencia(Incidencia incidencia) {
+    private void abrirIncidencia(IncidenciaVista vista) {
+
+        Incidencia incidencia = vista.incidencia;
 
         // Marcar incidencia como leída en backend
         if (incidencia.leidaUsuario == 0) {
@@ -228,12 +337,11 @@ public class IncidenciasActivity extends AppCompatActivity {
         dialog.getWindow().setBackgroundDrawableResource(android.R.color.transparent);
 
         TextView txtEstado = dialog.findViewById(R.id.txtEstado);
-        txtEstado.setText(getTextoEstado(incidencia.idEstado));
+        txtEstado.setText(vista.estadoTexto);
 
         TextView txtRespuesta = dialog.findViewById(R.id.txtRespuestaAdmin);
 
-        if (incidencia.respuesta != null && !incidencia.respuesta.trim().isEmpty()
-                && !"null".equalsIgnoreCase(incidencia.respuesta.trim())) {
+        if (vista.tieneRespuesta) {
             txtRespuesta.setText(incidencia.respuesta);
         } else {
             txtRespuesta.setText(
@@ -249,7 +357,7 @@ public class IncidenciasActivity extends AppCompatActivity {
                 .setText(incidencia.mensaje);
 
         ((TextView) dialog.findViewById(R.id.txtFechaGrande))
-                .setText(formatearFechaUsuario(incidencia.fecha));
+                .setText(vista.fechaTexto);
 
         dialog.findViewById(R.id.btnCerrar)
                 .setOnClickListener(v -> {
@@ -261,10 +369,7 @@ public class IncidenciasActivity extends AppCompatActivity {
         dialog.show();
 
         // Marcar como leída si tiene respuesta
-        if (incidencia.respuesta != null
-                && !incidencia.respuesta.trim().isEmpty()
-                && !"null".equalsIgnoreCase(incidencia.respuesta.trim())
-                && incidencia.leidaUsuario == 0) {
+        if (vista.tieneRespuesta && incidencia.leidaUsuario == 0) {
 
             LogicaFake.marcarIncidenciaLeida(
                     incidencia.idIncidencia,
@@ -329,46 +434,4 @@ public class IncidenciasActivity extends AppCompatActivity {
 
         dialog.show();
     }
-
-    /**
-     * @brief Convierte una fecha ISO a un formato legible para el usuario.
-     *
-     * @param fechaIso Fecha en formato ISO recibida del backend.
-     * @return Fecha formateada para mostrar en la interfaz.
-     */
-    private String formatearFechaUsuario(String fechaIso) {
-        try {
-            SimpleDateFormat isoFormat =
-                    new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault());
-            isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-
-            Date date = isoFormat.parse(fechaIso);
-
-            SimpleDateFormat userFormat =
-                    new SimpleDateFormat("dd/MM/yyyy · HH:mm", Locale.getDefault());
-
-            return userFormat.format(date);
-
-        } catch (Exception e) {
-            return fechaIso;
-        }
-    }
-
-    /**
-     * @brief Devuelve el texto descriptivo del estado de una incidencia.
-     *
-     * @param idEstado Identificador numérico del estado.
-     * @return Texto asociado al estado de la incidencia.
-     */
-    private String getTextoEstado(int idEstado) {
-        switch (idEstado) {
-            case 1: return "Recibida";
-            case 2: return "En proceso";
-            case 3: return "Resuelta";
-            case 4: return "Rechazada";
-            default: return "Recibida";
-        }
-    }
-
-
-}
\ No newline at end of file
+}
@@ -5,13 +5,12 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
-import java.util.TimeZone;
+import java.util.Objects;
 
 /**
  * @brief Adapter para mostrar la lista de incidencias del usuario.
@@ -21,13 +20,17 @@ import java.util.TimeZone;
  * - Mostrar el estado de la incidencia.
  * - Mostrar u ocultar el punto rojo según si la respuesta ha sido leída.
  *
+ * Es un ListAdapter con ids estables (id de la incidencia): al recargar
+ * se le pasa la nueva lista con submitList() y DiffUtil calcula en segundo
+ * plano qué tarjetas han cambiado, en vez de crear un adapter nuevo.
+ *
+ * Recibe IncidenciaVista con la fecha y el estado ya formateados, así que
+ * onBindViewHolder no parsea ni formatea nada.
+ *
  * @author Nerea Aguilar Forés
  * @date 29/12/2025
  */
-public class IncidenciasAdapter extends RecyclerView.Adapter<IncidenciasAdapter.ViewHolder> {
-
-    /* Lista de incidencias a mostrar */
-    private final List<Incidencia> lista;
+public class IncidenciasAdapter extends ListAdapter<IncidenciaVista, IncidenciasAdapter.ViewHolder> {
 
     /* Listener de click sobre cada tarjeta */
     private final View.OnClickListener listener;
@@ -38,18 +41,29 @@ public class IncidenciasAdapter extends RecyclerView.Adapter<IncidenciasAdapter.
     /**
      * @brief Constructor del adapter de incidencias.
      *
-     * @param lista Lista de incidencias
      * @param listener Listener al pulsar una incidencia
      * @param mostrarPuntoRojo true si se debe mostrar punto rojo (RESPUESTAS)
      */
     public IncidenciasAdapter(
-            List<Incidencia> lista,
             View.OnClickListener listener,
             boolean mostrarPuntoRojo
     ) {
-        this.lista = lista;
+        super(DIFF);
         this.listener = listener;
         this.mostrarPuntoRojo = mostrarPuntoRojo;
+        setHasStableIds(true);
+    }
+
+    /**
+     * @brief Incidencia mostrada en una posición.
+     */
+    public IncidenciaVista getIncidencia(int position) {
+        return getItem(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     @Override
@@ -63,45 +77,46 @@ public class IncidenciasAdapter extends RecyclerView.Adapter<IncidenciasAdapter.
     @Override
     public void onBindViewHolder(ViewHolder holder, int position) {
 
-        Incidencia i = lista.get(position);
+        IncidenciaVista v = getItem(position);
 
         /* ------------------ TEXTO PRINCIPAL ------------------ */
-        holder.titulo.setText(i.asunto);
-        holder.descripcion.setText(i.mensaje);
+        holder.titulo.setText(v.incidencia.asunto);
+        holder.descripcion.setText(v.incidencia.mensaje);
 
         /* ------------------ FECHA FORMATEADA ------------------ */
-        holder.fecha.setText(formatearFechaUsuario(i.fecha));
+        holder.fecha.setText(v.fechaTexto);
 
         /* ------------------ ESTADO DE LA INCIDENCIA ------------------ */
-        holder.estado.setText(getTextoEstado(i.idEstado));
+        holder.estado.setText(v.estadoTexto);
 
         /* ------------------ PUNTO ROJO (LEÍDO / NO LEÍDO) ------------------
          * Regla acordada:
          *  - En ENVIADAS: NUNCA se muestra
          *  - En RESPUESTAS: se muestra SOLO si hay respuesta y no está leída por el usuario
          */
+        holder.puntoRojo.setVisibility(
+                mostrarPuntoRojo && v.respuestaPendiente ? View.VISIBLE : View.GONE
+        );
+    }
 
-        if (!mostrarPuntoRojo) {
-            holder.puntoRojo.setVisibility(View.GONE);
-        } else {
-            boolean hayRespuesta =
-                    i.respuesta != null &&
-                            !i.respuesta.trim().isEmpty() &&
-                            !"null".equalsIgnoreCase(i.respuesta.trim());
-
-            boolean noLeida = (i.leidaUsuario == 0);
-
-            holder.puntoRojo.setVisibility(
-                    hayRespuesta && noLeida ? View.VISIBLE : View.GONE
-            );
+    /**
+     * @brief Misma incidencia = mismo id; mismo contenido = mismos campos visibles.
+     */
+    private static final DiffUtil.ItemCallback<IncidenciaVista> DIFF = new DiffUtil.ItemCallback<IncidenciaVista>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull IncidenciaVista a, @NonNull IncidenciaVista b) {
+            return a.getId() == b.getId();
         }
 
-    }
-
-    @Override
-    public int getItemCount() {
-        return lista.size();
-    }
+        @Override
+        public boolean areContentsTheSame(@NonNull IncidenciaVista a, @NonNull IncidenciaVista b) {
+            return a.respuestaPendiente == b.respuestaPendiente
+                    && a.estadoTexto.equals(b.estadoTexto)
+                    && Objects.equals(a.fechaTexto, b.fechaTexto)
+                    && Objects.equals(a.incidencia.asunto, b.incidencia.asunto)
+                    && Objects.equals(a.incidencia.mensaje, b.incidencia.mensaje);
+        }
+    };
 
     /**
      * @brief ViewHolder para una tarjeta de incidencia.
@@ -123,51 +138,4 @@ public class IncidenciasAdapter extends RecyclerView.Adapter<IncidenciasAdapter.
             puntoRojo = itemView.findViewById(R.id.puntoRojo);
         }
     }
-
-    /* =========================================================
-     * MÉTODOS AUXILIARES PRIVADOS (SIN CLASES EXTERNAS)
-     * ========================================================= */
-
-    /**
-     * @brief Convierte una fecha ISO 8601 UTC a formato legible para el usuario.
-     *
-     * Ejemplo entrada: 2025-12-29T01:12:24.000Z
-     * Ejemplo salida: 29/12/2025 · 02:12
-     *
-     * @param fechaIso Fecha recibida del backend
-     * @return Fecha formateada para UI
-     */
-    private String formatearFechaUsuario(String fechaIso) {
-        try {
-            SimpleDateFormat isoFormat =
-                    new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.getDefault());
-            isoFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-
-            Date date = isoFormat.parse(fechaIso);
-
-            SimpleDateFormat userFormat =
-                    new SimpleDateFormat("dd/MM/yyyy · HH:mm", Locale.getDefault());
-
-            return userFormat.format(date);
-
-        } catch (Exception e) {
-            return fechaIso; // fallback
-        }
-    }
-
-    /**
-     * @brief Devuelve el texto de estado visible para el usuario.
-     *
-     * @param idEstado Estado numérico desde backend
-     * @return Texto de estado
-     */
-    private String getTextoEstado(int idEstado) {
-        switch (idEstado) {
-            case 1: return "Recibida";
-            case 2: return "En proceso";
-            case 3: return "Resuelta";
-            case 4: return "Rechazada";
-            default: return "Recibida";
-        }
-    }
 }
@@ -109,6 +109,8 @@ public class InicioSesionActivity extends FuncionesBaseActivity {
 
         System.out.println("DEBUG_SESION: " + SesionManager.obtenerSesion(this));
 
+        ArranqueApp.marcarInteractiva(this);
+
     }
 
     /**
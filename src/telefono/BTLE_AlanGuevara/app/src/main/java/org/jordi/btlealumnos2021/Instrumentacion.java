@@ -0,0 +1,101 @@
+package org.jordi.btlealumnos2021;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * @brief Utilidades de instrumentación del lado Android: secciones de
+ *        android.os.Trace, cronometraje hacia Metricas, log detallado
+ *        desactivable y exportación de instantáneas.
+ *
+ * Secciones Trace: aparecen en Perfetto / systrace con el prefijo "Atmos."
+ * (p. ej. capturar con la categoría "app" y el paquete de la app). Deben
+ * abrirse y cerrarse en el mismo hilo, siempre con try/finally:
+ * <pre>
+ *   long t0 = Instrumentacion.inicio("Atmos.procesarAnuncio");
+ *   try { ... } finally { Instrumentacion.fin("ble.procesado_us", t0); }
+ * </pre>
+ *
+ * Log detallado: los logs por paquete BLE o por localización se escriben
+ * dentro de {@code if (Instrumentacion.logDetallado)}; con el interruptor
+ * apagado (por defecto) no se construye ni un solo String.
+ *
+ * @date 19/10/2026
+ */
+public final class Instrumentacion {
+
+    private static final String TAG = "Instrumentacion";
+    private static final String CARPETA = "metricas";
+
+    /** Logs por paquete / por localización (MetricasActivity o adb). */
+    public static volatile boolean logDetallado = false;
+
+    private Instrumentacion() { }
+
+    /**
+     * @brief Abre una sección Trace y devuelve el instante de inicio (ns).
+     */
+    public static long inicio(String seccion) {
+        Trace.beginSection(seccion);
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * @brief Cierra la sección abierta con inicio() y registra lo que ha
+     *        durado (µs) en el histograma indicado.
+     */
+    public static void fin(String histograma, long inicioNanos) {
+        Trace.endSection();
+        registrarDesde(histograma, inicioNanos);
+    }
+
+    /**
+     * @brief Registra en un histograma los µs transcurridos desde inicioNanos
+     *        (sin sección Trace; para medir en otro hilo, p. ej. subidas).
+     */
+    public static void registrarDesde(String histograma, long inicioNanos) {
+        long us = (SystemClock.elapsedRealtimeNanos() - inicioNanos) / 1000;
+        Metricas.getInstance().histograma(histograma).registrar(us);
+    }
+
+    public static long ahoraNanos() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    public static void contar(String contador) {
+        Metricas.getInstance().contador(contador).incrementar();
+    }
+
+    /**
+     * @brief Escribe la instantánea actual en JSON en files/metricas/ del
+     *        almacenamiento externo de la app (se saca con adb pull).
+     *
+     * @return El fichero escrito.
+     */
+    public static File exportar(Context context) throws IOException {
+        File dir = context.getExternalFilesDir(CARPETA);
+        if (dir == null) dir = new File(context.getFilesDir(), CARPETA);
+        if (!dir.exists() && !dir.mkdirs()) throw new IOException("No se puede crear " + dir);
+
+        String nombre = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
+        File f = new File(dir, "metricas_" + nombre + ".json");
+
+        try (OutputStream os = new FileOutputStream(f)) {
+            os.write(Metricas.getInstance().json().getBytes(StandardCharsets.UTF_8));
+        }
+
+        Log.i(TAG, "Métricas exportadas a " + f.getAbsolutePath());
+        return f;
+    }
+}
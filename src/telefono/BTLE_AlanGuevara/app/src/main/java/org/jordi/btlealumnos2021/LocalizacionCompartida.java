@@ -0,0 +1,277 @@
+package org.jordi.btlealumnos2021;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.os.Debug;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @brief Una sola suscripción de localización para todos los módulos de
+ *        ServicioSensores.
+ *
+ * Antes ServicioRecorridoGPS tenía su propio FusedLocationProviderClient
+ * con actualizaciones cada 2 s y ServicioDeteccionBeacons otro, con el que
+ * pedía getLastLocation() para cada medida. Ahora:
+ *  - Los módulos que quieren actualizaciones se suscriben con su
+ *    intervalo y prioridad; se pide una sola vez al sistema, con el menor
+ *    intervalo y la prioridad más alta, y cada localización se reparte a
+ *    todos. Con todos en PRIORITY_PASSIVE el GPS no se enciende por
+ *    nosotros (ModuloRecorrido con el usuario quieto).
+ *  - ultima() da la última localización conocida: si alguna suscripción
+ *    la ha traído hace menos de FRESCA_MS se usa esa, sin llamar al
+ *    sistema; si no, se pide getLastLocation() una vez y se guarda.
+ *
+ * Cada entrega cuenta como un despertar de CONSUMO en ConsumoModulos (sin
+ * el trabajo de los oyentes, que lo anota cada módulo).
+ *
+ * Las localizaciones de una traza reproducida (GrabadoraTrazas) entran por
+ * aquí igual que las del sistema: se guardan como última y se reparten.
+ *
+ * Todo en el hilo principal (las actualizaciones se entregan en su Looper).
+ *
+ * @date 19/10/2026
+ */
+public final class LocalizacionCompartida {
+
+    private static final String TAG = "LocalizacionCompartida";
+
+    /** Antigüedad máxima de la última localización para no pedirla al sistema (ms). */
+    public static final long FRESCA_MS = 30_000;
+
+    /** Nombre en ConsumoModulos. */
+    public static final String CONSUMO = "localizacion";
+
+    /** Desplazamiento mínimo para que el sistema entregue una localización (m). */
+    private static final float DESPLAZAMIENTO_MIN_M = 1.0f;
+
+    /**
+     * @brief Recibe las localizaciones de la suscripción compartida.
+     */
+    public interface Oyente {
+        void onLocalizacion(Location loc);
+    }
+
+    /**
+     * @brief Recibe la última localización conocida (null si no hay).
+     */
+    public interface Ultima {
+        void onUltima(Location loc);
+    }
+
+    /** Intervalos y prioridad pedidos por un oyente. */
+    private static final class Intervalos {
+        final long intervaloMs;
+        final long rapidoMs;
+        final int prioridad;
+
+        Intervalos(long intervaloMs, long rapidoMs, int prioridad) {
+            this.intervaloMs = intervaloMs;
+            this.rapidoMs = rapidoMs;
+            this.prioridad = prioridad;
+        }
+    }
+
+    private final Context context;
+    private final FusedLocationProviderClient fused;
+    private final ConsumoModulos consumo;
+    private final Map<Oyente, Intervalos> oyentes = new LinkedHashMap<>();
+
+    private Location ultima;
+    private long ultimaMs = Long.MIN_VALUE;     // elapsedRealtime del fix
+
+    // Intervalos de la petición actual al sistema (0 = sin petición)
+    private long intervaloPedido = 0;
+    private long rapidoPedido = 0;
+    private int prioridadPedida = 0;
+
+    private final LocationCallback callback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult result) {
+            if (result == null) {
+                Log.e(TAG, "LocationResult es NULL");
+                return;
+            }
+            long cpu0 = Debug.threadCpuTimeNanos();
+
+            Metricas.getInstance().contador("gps.localizaciones")
+                    .sumar(result.getLocations().size());
+
+            for (Location loc : result.getLocations()) {
+                GrabadoraTrazas.anotarLocalizacion(loc);
+                guardar(loc);
+            }
+            consumo.anotar(CONSUMO, Debug.threadCpuTimeNanos() - cpu0);
+
+            repartir(result.getLocations());
+        }
+    };
+
+    public LocalizacionCompartida(Context context, ConsumoModulos consumo) {
+        this.context = context.getApplicationContext();
+        this.fused = LocationServices.getFusedLocationProviderClient(this.context);
+        this.consumo = consumo;
+
+        // Entrada para las trazas reproducidas
+        GrabadoraTrazas.setDestinoLocalizaciones(this::reproducida);
+    }
+
+    /**
+     * @brief Suscribe (o cambia los intervalos de) un oyente, con alta
+     *        precisión.
+     *
+     * @param intervaloMs Intervalo deseado entre localizaciones.
+     * @param rapidoMs    Intervalo mínimo aceptado si otra app pide más a menudo.
+     * @return false si no hay permiso de localización.
+     */
+    public boolean suscribir(Oyente oyente, long intervaloMs, long rapidoMs) {
+        return suscribir(oyente, intervaloMs, rapidoMs, Priority.PRIORITY_HIGH_ACCURACY);
+    }
+
+    /**
+     * @brief Suscribe (o cambia los intervalos y la prioridad de) un oyente.
+     *
+     * @param prioridad Una de Priority (PRIORITY_HIGH_ACCURACY ... PRIORITY_PASSIVE).
+     * @return false si no hay permiso de localización.
+     */
+    public boolean suscribir(Oyente oyente, long intervaloMs, long rapidoMs, int prioridad) {
+        if (!hayPermiso()) {
+            Log.e(TAG, "Permisos GPS NO concedidos");
+            return false;
+        }
+        oyentes.put(oyente, new Intervalos(intervaloMs, rapidoMs, prioridad));
+        actualizarPeticion();
+        return true;
+    }
+
+    /**
+     * @brief Cancela la suscripción de un oyente (si era el último, se deja
+     *        de pedir localizaciones al sistema).
+     */
+    public void cancelar(Oyente oyente) {
+        if (oyentes.remove(oyente) != null) {
+            actualizarPeticion();
+        }
+    }
+
+    /**
+     * @brief Última localización conocida, sin llamar al sistema si hay una
+     *        reciente (ver FRESCA_MS).
+     */
+    @SuppressLint("MissingPermission")
+    public void ultima(Ultima destino) {
+        if (ultima != null && SystemClock.elapsedRealtime() - ultimaMs <= FRESCA_MS) {
+            Metricas.getInstance().contador("gps.ultima_compartida").incrementar();
+            destino.onUltima(ultima);
+            return;
+        }
+
+        if (!hayPermiso()) {
+            destino.onUltima(null);
+            return;
+        }
+
+        Metricas.getInstance().contador("gps.ultima_sistema").incrementar();
+        fused.getLastLocation()
+                .addOnSuccessListener(loc -> {
+                    if (loc != null) guardar(loc);
+                    destino.onUltima(loc);
+                })
+                .addOnFailureListener(e -> destino.onUltima(null));
+    }
+
+    /**
+     * @brief Deja de pedir localizaciones (al destruir el servicio).
+     */
+    public void detener() {
+        GrabadoraTrazas.setDestinoLocalizaciones(null);
+        oyentes.clear();
+        actualizarPeticion();
+    }
+
+    // -------------------------------------------------------------
+
+    /** Localización de una traza reproducida: como las del sistema. */
+    private void reproducida(Location loc) {
+        guardar(loc);
+        repartir(Collections.singletonList(loc));
+    }
+
+    private void repartir(List<Location> locs) {
+        // Copia: un oyente puede cancelar su suscripción al recibirla
+        Oyente[] copia = oyentes.keySet().toArray(new Oyente[0]);
+        for (Location loc : locs) {
+            for (Oyente o : copia) {
+                o.onLocalizacion(loc);
+            }
+        }
+    }
+
+    private void guardar(Location loc) {
+        ultima = loc;
+        // Instante del fix, no el de la entrega (getLastLocation() puede ser viejo)
+        ultimaMs = loc.getElapsedRealtimeNanos() / 1_000_000;
+    }
+
+    /**
+     * Vuelve a pedir al sistema solo si cambian los intervalos (el menor
+     * de los oyentes) o la prioridad (la más alta; en Priority, el valor
+     * más bajo).
+     */
+    @SuppressLint("MissingPermission")
+    private void actualizarPeticion() {
+        long intervalo = 0, rapido = 0;
+        int prioridad = 0;
+        for (Intervalos i : oyentes.values()) {
+            if (intervalo == 0 || i.intervaloMs < intervalo) intervalo = i.intervaloMs;
+            if (rapido == 0 || i.rapidoMs < rapido) rapido = i.rapidoMs;
+            if (prioridad == 0 || i.prioridad < prioridad) prioridad = i.prioridad;
+        }
+        if (intervalo == intervaloPedido && rapido == rapidoPedido
+                && prioridad == prioridadPedida) return;
+
+        fused.removeLocationUpdates(callback);
+        intervaloPedido = intervalo;
+        rapidoPedido = rapido;
+        prioridadPedida = prioridad;
+        if (intervalo == 0) {
+            Log.d(TAG, "LocationUpdates eliminados");
+            return;
+        }
+
+        LocationRequest request = LocationRequest.create()
+                .setInterval(intervalo)
+                .setFastestInterval(rapido)
+                .setSmallestDisplacement(DESPLAZAMIENTO_MIN_M)
+                .setPriority(prioridad);
+
+        fused.requestLocationUpdates(request, callback, Looper.getMainLooper());
+        Metricas.getInstance().indicador("gps.intervalo_ms").fijar(intervalo);
+        Metricas.getInstance().indicador("gps.prioridad").fijar(prioridad);
+        Log.d(TAG, "requestLocationUpdates cada " + intervalo + " ms, prioridad "
+                + prioridad + " (" + oyentes.size() + " oyentes)");
+    }
+
+    private boolean hayPermiso() {
+        return context.checkSelfPermission(Manifest.permission.ACCESS_FINE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED
+                || context.checkSelfPermission(Manifest.permission.ACCESS_COARSE_LOCATION)
+                == PackageManager.PERMISSION_GRANTED;
+    }
+}
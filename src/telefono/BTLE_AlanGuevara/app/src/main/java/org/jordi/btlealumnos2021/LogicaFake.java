@@ -2,14 +2,19 @@ package org.jordi.btlealumnos2021;
 
 import android.util.Log;
 
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
 import com.android.volley.toolbox.JsonObjectRequest;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
@@ -19,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import com.android.volley.Request;
 import com.android.volley.toolbox.JsonObjectRequest;
 import org.json.JSONObject;
@@ -44,6 +50,123 @@ public class LogicaFake {
     private static final String URL_DESVINCULAR = "https://nagufor.upv.edu.es/desvincular";
     private static final String URL_RECORRIDO = "https://nagufor.upv.edu.es/recorrido";
     private static final String URL_INCIDENCIA = "https://nagufor.upv.edu.es/incidencia";
+    private static final String URL_UMBRALES = "https://nagufor.upv.edu.es/umbrales";
+    private static final String URL_HISTORICO = "https://nagufor.upv.edu.es/historico";
+
+    // Los umbrales remotos solo se piden una vez por proceso
+    private static boolean umbralesRemotosPedidos = false;
+
+    // Servidor de las subidas del sensor (medida, estado de placa, recorrido).
+    // Se puede apuntar a un servidor sustituto para pruebas de carga (TrazasReceiver, solo debug).
+    private static final String SERVIDOR_REAL = "https://nagufor.upv.edu.es";
+    private static volatile String servidorSubidas = SERVIDOR_REAL;
+
+    // Tiempo máximo de conexión y de lectura de cada subida
+    private static final int TIMEOUT_SUBIDA_MS = 15_000;
+
+    // Prefijo del identificador de las subidas de este proceso: la
+    // secuencia vuelve a 1 al reiniciar la app
+    private static final String PROCESO_SUBIDAS = UUID.randomUUID().toString();
+
+    /**
+     * @brief Cambia el servidor al que se suben medidas, estado de placa y recorrido.
+     *
+     * @param url URL base (p. ej. "http://127.0.0.1:8090"); null o vacía = servidor real.
+     */
+    public static void setServidorSubidas(String url) {
+        servidorSubidas = (url == null || url.trim().isEmpty())
+                ? SERVIDOR_REAL
+                : url.trim().replaceAll("/+$", "");
+        Log.i(TAG, "Servidor de subidas: " + servidorSubidas);
+    }
+
+    public static String getServidorSubidas() {
+        return servidorSubidas;
+    }
+
+    /**
+     * @brief Cabeceras de seguimiento de una subida: número de secuencia y
+     *        hora de envío (ms), para medir pérdidas y latencia en el servidor.
+     *        La hora va en la del servidor (SincronizacionHora), para que la
+     *        latencia no incluya el desfase del reloj del móvil.
+     *
+     * X-Atmos-Id identifica la subida (proceso + secuencia) y es el mismo en
+     * sus reintentos: si la respuesta se pierde y se repite, el servidor no
+     * la guarda dos veces.
+     *
+     * @param seq Número de la subida en BandejaSubidas (igual en sus reintentos).
+     */
+    private static Map<String, String> cabecerasSubida(long seq) {
+        Map<String, String> h = new HashMap<>();
+        h.put("X-Atmos-Seq", String.valueOf(seq));
+        h.put("X-Atmos-Id", PROCESO_SUBIDAS + "-" + seq);
+        h.put("X-Atmos-Enviado", String.valueOf(SincronizacionHora.ahora()));
+        return h;
+    }
+
+    /**
+     * @brief Anota en Metricas el tiempo de ida y vuelta de una subida
+     *        ("subida.<nombre>_us") y si ha ido bien o mal.
+     */
+    private static void registrarSubida(String nombre, long inicioNanos, boolean ok) {
+        Instrumentacion.registrarDesde("subida." + nombre + "_us", inicioNanos);
+        Metricas.getInstance()
+                .contador("subida." + nombre + (ok ? "_ok" : "_error"))
+                .incrementar();
+    }
+
+    private static HttpURLConnection abrirSubida(String ruta, long seq) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(servidorSubidas + ruta).openConnection();
+        for (Map.Entry<String, String> c : cabecerasSubida(seq).entrySet()) {
+            conn.setRequestProperty(c.getKey(), c.getValue());
+        }
+        // Las subidas van de una en una (BandejaSubidas): una colgada no
+        // puede parar las demás
+        conn.setConnectTimeout(TIMEOUT_SUBIDA_MS);
+        conn.setReadTimeout(TIMEOUT_SUBIDA_MS);
+        return conn;
+    }
+
+    /**
+     * @brief POST de un JSON a una ruta de subidas. Bloquea: se llama desde
+     *        la BandejaSubidas de ServicioSensores, en su ejecutor.
+     *
+     * @param nombre Nombre de la subida en Metricas ("subida.<nombre>_us").
+     * @param seq    Número de la subida en BandejaSubidas.
+     * @return true si está hecha o no tiene sentido repetirla (2xx o 4xx);
+     *         false para reintentarla (sin red o 5xx).
+     */
+    private static boolean postSubida(String ruta, String nombre, JSONObject json, long seq) {
+        long t0 = Instrumentacion.ahoraNanos();
+        HttpURLConnection conn = null;
+        try {
+            conn = abrirSubida(ruta, seq);
+
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+            conn.setDoOutput(true);
+
+            try (OutputStream os = conn.getOutputStream()) {
+                os.write(json.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            int code = conn.getResponseCode();
+            registrarSubida(nombre, t0, code >= 200 && code < 300);
+
+            // Hay una subida por medida o cambio de estado: log solo en modo detallado
+            if (Instrumentacion.logDetallado) {
+                Log.d(TAG, "Respuesta " + ruta + ": HTTP " + code);
+            }
+            return code < 500;
+
+        } catch (Exception e) {
+            registrarSubida(nombre, t0, false);
+            Log.e(TAG, "Error en la subida " + ruta, e);
+            return false;
+        } finally {
+            if (conn != null) conn.disconnect();
+        }
+    }
 
     /**
      * @brief Envía al backend una medición (ahora también permite valores promediados).
@@ -54,42 +177,33 @@ public class LogicaFake {
      * @param rssi     RSSI medido o promedio.
      * @param lat      Latitud real o -1 si no disponible.
      * @param lon      Longitud real o -1 si no disponible.
+     * @param fechaMs  Instante del escaneo en hora del servidor (ms,
+     *                 SincronizacionHora); el servidor lo usa en vez de su
+     *                 hora de llegada (CompresorMedidas puede subirla algo
+     *                 después de tomarla).
+     * @param seq      Número de la subida en BandejaSubidas.
+     * @return Como postSubida(): false si hay que reintentarla.
      *
      * @author Alan Guevara Martínez
      * @date 05/12/2025 (modificado a esta fecha)
      */
-    public void guardarMedicion(String uuid, int gas, float valor, int rssi, double lat, double lon) {
-
-        new Thread(() -> {
-            try {
-                URL url = new URL("https://nagufor.upv.edu.es/medida");
-                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-                conn.setRequestMethod("POST");
-                conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-                conn.setDoOutput(true);
-
-                JSONObject json = new JSONObject();
-                json.put("id_placa", uuid);
-                json.put("tipo", gas);
-                json.put("valor", valor);
-                json.put("latitud", lat);
-                json.put("longitud", lon);
-                json.put("rssi", rssi);
-
-                try (OutputStream os = conn.getOutputStream()) {
-                    os.write(json.toString().getBytes(StandardCharsets.UTF_8));
-                }
-
-                int code = conn.getResponseCode();
-                Log.d(">>>", "Medición enviada (promedio o normal) HTTP=" + code);
-
-                conn.disconnect();
-
-            } catch (Exception e) {
-                Log.e(">>>", "Error enviando medición", e);
-            }
-        }).start();
+    public static boolean enviarMedicion(String uuid, int gas, float valor, int rssi,
+                                         double lat, double lon, long fechaMs, long seq) {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("id_placa", uuid);
+            json.put("tipo", gas);
+            json.put("valor", valor);
+            json.put("latitud", lat);
+            json.put("longitud", lon);
+            json.put("rssi", rssi);
+            json.put("fecha_ms", fechaMs);
+        } catch (JSONException e) {
+            // Valor no representable (NaN): no se puede subir nunca
+            Log.e(TAG, "Medición no válida", e);
+            return true;
+        }
+        return postSubida("/medida", "medida", json, seq);
     }
 
 
@@ -484,6 +598,69 @@ public class LogicaFake {
     }
 
 
+    /// =========================================================
+    /// PLACAS DEL USUARIO
+    /// =========================================================
+
+    /**
+     * @brief Callback con todas las placas vinculadas a un usuario.
+     */
+    public interface PlacasUsuarioCallback {
+        void onSinPlaca();
+        void onPlacas(String principal, List<String> placas);   // principal: la de su pantalla
+        void onErrorServidor();
+        void onErrorInesperado();
+    }
+
+    /**
+     * @brief Obtiene todas las placas vinculadas a un usuario (una
+     *        instalación fija puede tener varias).
+     *
+     * @param idUsuario ID del usuario.
+     * @param queue     Cola de Volley para ejecutar la petición HTTP.
+     * @param callback  Callback que recibe las placas.
+     *
+     * @date 19/10/2026
+     */
+    public static void placasUsuario(
+            int idUsuario,
+            RequestQueue queue,
+            PlacasUsuarioCallback callback
+    ) {
+
+        String url = "https://nagufor.upv.edu.es/placasUsuario?id_usuario=" + idUsuario;
+
+        JsonObjectRequest req = new JsonObjectRequest(
+                Request.Method.GET,
+                url,
+                null,
+                response -> {
+                    try {
+                        JSONArray lista = response.optJSONArray("placas");
+                        if (!"con_placa".equals(response.optString("status", ""))
+                                || lista == null || lista.length() == 0) {
+                            callback.onSinPlaca();
+                            return;
+                        }
+
+                        List<String> placas = new ArrayList<>();
+                        for (int i = 0; i < lista.length(); i++) placas.add(lista.getString(i));
+
+                        callback.onPlacas(response.optString("principal", placas.get(0)), placas);
+
+                    } catch (Exception e) {
+                        callback.onErrorInesperado();
+                    }
+                },
+                error -> callback.onErrorServidor()
+        );
+
+        // Las placas cambian al vincular o desvincular: sin caché
+        req.setShouldCache(false);
+        queue.add(req);
+    }
+
+
     /// =========================================================
     /// VINCULAR PLACA A USUARIO
     /// =========================================================
@@ -699,44 +876,37 @@ public class LogicaFake {
      *
      * @param idPlaca UUID de la placa.
      * @param estado  Estado de la placa (1 = encendida, 0 = apagada).
+     * @param seq     Número de la subida en BandejaSubidas.
+     * @return Como postSubida(): false si hay que reintentarla.
      *
      * @author Alan Guevara Martínez
-     * @date 20/11/2025
+     * @date 20/11/2025 (modificado a esta fecha)
      */
-    public void actualizarEstadoPlaca(String idPlaca, int estado) {
-
-        new Thread(() -> {
-            try {
-                URL url = new URL("https://nagufor.upv.edu.es/actualizarEstadoPlaca");
-                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-                conn.setRequestMethod("POST");
-                conn.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-                conn.setDoOutput(true);
-
-                JSONObject json = new JSONObject();
-                json.put("id_placa", idPlaca);
-                json.put("encendida", estado);
-
-                try (OutputStream os = conn.getOutputStream()) {
-                    os.write(json.toString().getBytes(StandardCharsets.UTF_8));
-                }
-
-                int code = conn.getResponseCode();
-                Log.d(TAG, "Respuesta /actualizarEstadoPlaca: HTTP " + code);
-
-                conn.disconnect();
-
-            } catch (Exception e) {
-                Log.e(TAG, "Error actualizando estado placa", e);
-            }
-        }).start();
+    public static boolean enviarEstadoPlaca(String idPlaca, int estado, long seq) {
+        JSONObject json = new JSONObject();
+        try {
+            json.put("id_placa", idPlaca);
+            json.put("encendida", estado);
+        } catch (JSONException e) {
+            return true;
+        }
+        return postSubida("/actualizarEstadoPlaca", "estado_placa", json, seq);
     }
 
 
     public interface GraficaCallback {
         void onSinPlaca();
-        void onDatosObtenidos(List<String> labels, List<Float> valores, double promedio);
+        void onDatosObtenidos(String[] labels, float[] valores, double promedio);
+        void onErrorServidor();
+        void onErrorInesperado();
+    }
+
+    /**
+     * @brief Callback para el refresco incremental de la gráfica (solo el último bucket).
+     */
+    public interface UltimoBucketCallback {
+        void onSinPlaca();
+        void onUltimoBucket(String label, float valor);
         void onErrorServidor();
         void onErrorInesperado();
     }
@@ -783,12 +953,13 @@ public class LogicaFake {
                             JSONArray arrValores = response.getJSONArray("valores");
                             double promedio = response.getDouble("promedio");
 
-                            List<String> labels = new ArrayList<>();
-                            List<Float> valores = new ArrayList<>();
+                            int n = arrLabels.length();
+                            String[] labels = new String[n];
+                            float[] valores = new float[n];
 
-                            for (int i = 0; i < arrLabels.length(); i++) {
-                                labels.add(arrLabels.getString(i));
-                                valores.add((float) arrValores.getDouble(i));
+                            for (int i = 0; i < n; i++) {
+                                labels[i] = arrLabels.getString(i);
+                                valores[i] = (float) arrValores.getDouble(i);
                             }
 
                             callback.onDatosObtenidos(labels, valores, promedio);
@@ -855,12 +1026,13 @@ public class LogicaFake {
                             JSONArray arrValores = response.getJSONArray("valores");
                             double promedio = response.getDouble("promedio");
 
-                            List<String> labels = new ArrayList<>();
-                            List<Float> valores = new ArrayList<>();
+                            int n = arrLabels.length();
+                            String[] labels = new String[n];
+                            float[] valores = new float[n];
 
-                            for (int i = 0; i < arrLabels.length(); i++) {
-                                labels.add(arrLabels.getString(i));
-                                valores.add((float) arrValores.getDouble(i));
+                            for (int i = 0; i < n; i++) {
+                                labels[i] = arrLabels.getString(i);
+                                valores[i] = (float) arrValores.getDouble(i);
                             }
 
                             callback.onDatosObtenidos(labels, valores, promedio);
@@ -884,6 +1056,229 @@ public class LogicaFake {
         }
     }
 
+    /**
+     * @brief Obtiene solo el bucket más reciente (día u hora actual) de la gráfica.
+     *
+     * Llama a /resumen7Dias o /resumen8Horas con solo_ultimo=1. Se usa para
+     * refrescar una serie que ya está en caché sin descargarla entera.
+     *
+     * @param idUsuario ID del usuario.
+     * @param tipoGas   Código del gas (11, 12, 13, 14).
+     * @param modo      "dia" o "hora".
+     * @param queue     Cola de Volley para ejecutar la petición HTTP.
+     * @param callback  Callback que recibe la etiqueta y el valor del bucket.
+     *
+     * @date 19/10/2026
+     */
+    public static void ultimoBucketGrafica(
+            int idUsuario,
+            int tipoGas,
+            String modo,
+            RequestQueue queue,
+            UltimoBucketCallback callback
+    ) {
+        try {
+            String endpoint = "hora".equals(modo) ? "/resumen8Horas" : "/resumen7Dias";
+            String url = "https://nagufor.upv.edu.es" + endpoint +
+                    "?id_usuario=" + idUsuario +
+                    "&tipo=" + tipoGas +
+                    "&solo_ultimo=1";
+
+            JsonObjectRequest request = new JsonObjectRequest(
+                    Request.Method.GET,
+                    url,
+                    null,
+                    response -> {
+                        try {
+                            String status = response.optString("status", "");
+
+                            if ("sin_placa".equals(status)) {
+                                callback.onSinPlaca();
+                                return;
+                            }
+
+                            callback.onUltimoBucket(
+                                    response.getString("label"),
+                                    (float) response.getDouble("valor")
+                            );
+
+                        } catch (JSONException e) {
+                            e.printStackTrace();
+                            callback.onErrorInesperado();
+                        }
+                    },
+                    error -> {
+                        error.printStackTrace();
+                        callback.onErrorServidor();
+                    }
+            );
+
+            request.setShouldCache(false);
+            queue.add(request);
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            callback.onErrorInesperado();
+        }
+    }
+
+    /**
+     * @brief Descarga los umbrales de calidad del aire y los aplica a ClasificadorCalidad.
+     *
+     * Solo hace la petición la primera vez que se llama en el proceso. Si algún
+     * umbral cambia, se vacía CacheGraficas para que las series se vuelvan a
+     * clasificar con los valores nuevos. Si falla, se siguen usando los de por defecto.
+     *
+     * Respuesta esperada:
+     *   { status: "ok", umbrales: { "11": [buena, moderada, insalubre], ... } }
+     *
+     * @param queue Cola de Volley para ejecutar la petición HTTP.
+     *
+     * @date 19/10/2026
+     */
+    public static synchronized void cargarUmbralesRemotos(RequestQueue queue) {
+        if (umbralesRemotosPedidos) return;
+        umbralesRemotosPedidos = true;
+
+        JsonObjectRequest request = new JsonObjectRequest(
+                Request.Method.GET,
+                URL_UMBRALES,
+                null,
+                response -> {
+                    JSONObject umbrales = response.optJSONObject("umbrales");
+                    if (umbrales == null) return;
+
+                    boolean cambiado = false;
+                    for (int gas = ClasificadorCalidad.GAS_NO2; gas <= ClasificadorCalidad.GAS_SO2; gas++) {
+                        JSONArray u = umbrales.optJSONArray(String.valueOf(gas));
+                        if (u == null || u.length() < 3) continue;
+
+                        cambiado |= ClasificadorCalidad.actualizarUmbrales(
+                                gas, u.optDouble(0), u.optDouble(1), u.optDouble(2));
+                    }
+
+                    if (cambiado) {
+                        Log.d(TAG, "Umbrales de calidad actualizados desde el servidor");
+                        CacheGraficas.getInstance().limpiar();
+                    }
+                },
+                error -> {
+                    // Se permite reintentar en la siguiente pantalla
+                    synchronized (LogicaFake.class) {
+                        umbralesRemotosPedidos = false;
+                    }
+                    Log.d(TAG, "No se pudieron obtener los umbrales: " + error);
+                }
+        );
+
+        queue.add(request);
+    }
+
+    /**
+     * @brief Callback de la descarga de un chunk del histórico.
+     *
+     * Se llama en el hilo principal, con el chunk ya convertido a arrays
+     * primitivos (el JSON se procesa en el hilo de red de Volley).
+     */
+    public interface HistoricoCallback {
+        void onSinPlaca();
+        void onChunk(ChunkHistorico chunk);
+        void onErrorServidor();
+    }
+
+    /**
+     * @brief Descarga todas las medidas de un gas de un día (chunk) del histórico.
+     *
+     * Llama a GET /historico con el rango del chunk. Un día puede tener
+     * decenas de miles de medidas, así que en lugar de JsonObjectRequest se
+     * usa una petición propia que convierte el JSON a arrays primitivos en
+     * el hilo de red, sin bloquear la interfaz.
+     *
+     * @param idUsuario ID del usuario.
+     * @param tipoGas   Código del gas.
+     * @param indice    Índice del chunk (ver ChunkHistorico.indiceDe).
+     * @param queue     Cola de Volley.
+     * @param tag       Tag de la petición, para poder cancelarla (queue.cancelAll).
+     * @param callback  Resultado.
+     *
+     * @date 19/10/2026
+     */
+    public static void historicoChunk(
+            int idUsuario,
+            int tipoGas,
+            long indice,
+            RequestQueue queue,
+            Object tag,
+            HistoricoCallback callback
+    ) {
+        final long desde = indice * ChunkHistorico.DURACION_MS;
+        final long hasta = desde + ChunkHistorico.DURACION_MS;
+
+        String url = URL_HISTORICO +
+                "?id_usuario=" + idUsuario +
+                "&tipo=" + tipoGas +
+                "&desde=" + desde +
+                "&hasta=" + hasta;
+
+        Request<ChunkHistorico> request = new Request<ChunkHistorico>(
+                Request.Method.GET,
+                url,
+                error -> {
+                    Log.d(TAG, "Error descargando histórico: " + error);
+                    callback.onErrorServidor();
+                }) {
+
+            @Override
+            protected Response<ChunkHistorico> parseNetworkResponse(NetworkResponse response) {
+                try {
+                    long descargadoEn = System.currentTimeMillis();
+
+                    String cuerpo = new String(response.data,
+                            HttpHeaderParser.parseCharset(response.headers, "utf-8"));
+                    JSONObject json = new JSONObject(cuerpo);
+
+                    // Sin placa → chunk nulo
+                    if ("sin_placa".equals(json.optString("status"))) {
+                        return Response.success(null, null);
+                    }
+
+                    JSONArray jt = json.getJSONArray("t");
+                    JSONArray jv = json.getJSONArray("v");
+                    int n = Math.min(jt.length(), jv.length());
+
+                    long[] t = new long[n];
+                    float[] v = new float[n];
+                    for (int i = 0; i < n; i++) {
+                        t[i] = jt.getLong(i);
+                        v[i] = (float) jv.getDouble(i);
+                    }
+
+                    return Response.success(
+                            new ChunkHistorico(tipoGas, indice, t, v, descargadoEn),
+                            null
+                    );
+
+                } catch (Exception e) {
+                    return Response.error(new ParseError(e));
+                }
+            }
+
+            @Override
+            protected void deliverResponse(ChunkHistorico chunk) {
+                if (chunk == null) {
+                    callback.onSinPlaca();
+                } else {
+                    callback.onChunk(chunk);
+                }
+            }
+        };
+
+        // Ya lo cachea CacheHistorico (memoria + disco)
+        request.setShouldCache(false);
+        request.setTag(tag);
+        queue.add(request);
+    }
+
     public interface EstadoPlacaCallback {
         void onActivo();
         void onInactivo();
@@ -1144,40 +1539,22 @@ public class LogicaFake {
      *
      * @param idUsuario ID del usuario
      * @param distancia Distancia acumulada en metros
-     * @param queue     Cola Volley para ejecutar la petición
+     * @param seq       Número de la subida en BandejaSubidas
+     * @return Como postSubida(): false si hay que reintentarla.
      *
      * @author Alan Guevara Martínez
-     * @date 17/12/2025
+     * @date 17/12/2025 (modificado a esta fecha)
      */
-    public static void guardarRecorrido(
-            int idUsuario,
-            double distancia,
-            RequestQueue queue
-    ) {
-
+    public static boolean enviarRecorrido(int idUsuario, double distancia, long seq) {
+        JSONObject body = new JSONObject();
         try {
-            // Construir el cuerpo JSON
-            JSONObject body = new JSONObject();
             body.put("id_usuario", idUsuario);
             body.put("distancia_m", distancia);
-
-            // Crear petición POST
-            JsonObjectRequest req = new JsonObjectRequest(
-                    Request.Method.POST,
-                    URL_RECORRIDO,
-                    body,
-                    r -> {
-                        // Guardado correcto (sin acción adicional)
-                    },
-                    e -> Log.e(TAG, "Error guardando recorrido", e)
-            );
-
-            // Enviar petición
-            queue.add(req);
-
-        } catch (Exception e) {
+        } catch (JSONException e) {
             Log.e(TAG, "Error creando JSON de recorrido", e);
+            return true;
         }
+        return postSubida("/recorrido", "recorrido", body, seq);
     }
 
     /**
@@ -1218,6 +1595,87 @@ public class LogicaFake {
 
         queue.add(req);
     }
+
+    /**
+     * @brief Recibe el trazado del recorrido de un día (vacío si no hay o
+     *        si falla la petición).
+     */
+    public interface CallbackTrazadoRecorrido {
+        void onTrazado(List<PolilineaCodificada.Punto> puntos);
+    }
+
+    /**
+     * @brief Envía al backend un tramo del trazado del recorrido.
+     *
+     * Llama al endpoint POST /recorrido/tramo con los puntos codificados
+     * (PolilineaCodificada) y el instante de referencia del tramo.
+     *
+     * @param idUsuario ID del usuario
+     * @param inicioMs  Instante de referencia del tramo (ms, hora del servidor)
+     * @param puntos    Puntos codificados
+     * @param n         Número de puntos
+     * @param seq       Número de la subida en BandejaSubidas
+     * @return Como postSubida(): false si hay que reintentarla.
+     */
+    public static boolean enviarTramoRecorrido(int idUsuario, long inicioMs, String puntos, int n,
+                                               long seq) {
+        JSONObject body = new JSONObject();
+        try {
+            body.put("id_usuario", idUsuario);
+            body.put("inicio_ms", inicioMs);
+            body.put("puntos", puntos);
+            body.put("n", n);
+        } catch (JSONException e) {
+            return true;
+        }
+        return postSubida("/recorrido/tramo", "tramo_recorrido", body, seq);
+    }
+
+    /**
+     * @brief Obtiene del backend el trazado del recorrido de hoy.
+     *
+     * Llama al endpoint GET /recorrido/tramos?id_usuario=XX y decodifica
+     * los tramos en orden en una sola lista de puntos.
+     *
+     * @param idUsuario ID del usuario
+     * @param queue     Cola Volley
+     * @param callback  Callback con los puntos
+     */
+    public static void obtenerTrazadoRecorrido(
+            int idUsuario,
+            RequestQueue queue,
+            CallbackTrazadoRecorrido callback
+    ) {
+
+        String url = URL_RECORRIDO + "/tramos?id_usuario=" + idUsuario;
+
+        JsonObjectRequest req = new JsonObjectRequest(
+                Request.Method.GET,
+                url,
+                null,
+                r -> {
+                    List<PolilineaCodificada.Punto> puntos = new ArrayList<>();
+                    JSONArray tramos = r.optJSONArray("tramos");
+                    for (int i = 0; tramos != null && i < tramos.length(); i++) {
+                        JSONObject t = tramos.optJSONObject(i);
+                        if (t == null) continue;
+                        try {
+                            puntos.addAll(PolilineaCodificada.decodificar(
+                                    t.optString("puntos", ""), t.optLong("inicio_ms")));
+                        } catch (IllegalArgumentException e) {
+                            Log.w(TAG, "Tramo de recorrido no válido", e);
+                        }
+                    }
+                    callback.onTrazado(puntos);
+                },
+                e -> {
+                    Log.e(TAG, "Error obteniendo trazado del recorrido", e);
+                    callback.onTrazado(new ArrayList<>());
+                }
+        );
+
+        queue.add(req);
+    }
     /* ------------------- FIN DISTANCIA RECORRIDA ------------------- */
 
     /**
@@ -1310,8 +1768,34 @@ public class LogicaFake {
             RequestQueue queue,
             ListarIncidenciasCallback callback
     ) {
+        listarIncidenciasUsuario(idUsuario, 0, 0, queue, callback);
+    }
+
+    /**
+     * @brief Obtiene una página de incidencias de un usuario.
+     *
+     * Igual que la versión sin paginar, pero pide como mucho {@code limite}
+     * incidencias con id menor que {@code antesId}, de la más reciente a la
+     * más antigua. Si llegan menos de {@code limite}, no hay más.
+     *
+     * @param idUsuario ID del usuario.
+     * @param antesId   Id más antiguo ya cargado (0 = primera página).
+     * @param limite    Tamaño de página (0 = todas, sin paginar).
+     * @param queue     Cola de Volley para ejecutar la petición HTTP.
+     * @param callback  Callback que recibe el resultado de la consulta.
+     */
+    public static void listarIncidenciasUsuario(
+            int idUsuario,
+            int antesId,
+            int limite,
+            RequestQueue queue,
+            ListarIncidenciasCallback callback
+    ) {
 
         String url = "https://nagufor.upv.edu.es/incidencias?id_usuario=" + idUsuario;
+        if (limite > 0) {
+            url += "&limite=" + limite + "&antes_id=" + antesId;
+        }
 
         JsonObjectRequest request = new JsonObjectRequest(
                 Request.Method.GET,
@@ -432,10 +432,9 @@ public class MainActivity extends AppCompatActivity {
 
         Log.d(ETIQUETA_LOG, " onCreate(): termina ");
 
-        // --- ARRANCAR SERVICIO DE DETECCIÓN DE BEACONS ---
-        Intent s = new Intent(MainActivity.this, ServicioDeteccionBeacons.class);
-        startForegroundService(s);
-        Log.d(ETIQUETA_LOG, "ServicioDeteccionBeacons arrancado desde MainActivity");
+        // --- ARRANCAR LA DETECCIÓN DE BEACONS (módulo de ServicioSensores) ---
+        ServicioSensores.iniciarModulo(MainActivity.this, ServicioSensores.MODULO_BEACONS);
+        Log.d(ETIQUETA_LOG, "ModuloBeacons arrancado desde MainActivity");
 
 
     } // onCreate()
@@ -1,12 +1,14 @@
 package org.jordi.btlealumnos2021;
 
 import android.Manifest;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.graphics.Color;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
-import android.preference.PreferenceManager;
 import android.util.Log;
 import android.view.View;
 import android.widget.ArrayAdapter;
@@ -20,6 +22,9 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.Volley;
+
 import org.json.JSONObject;
 import org.osmdroid.config.Configuration;
 import org.osmdroid.tileprovider.modules.MBTilesFileArchive;
@@ -29,6 +34,7 @@ import org.osmdroid.util.BoundingBox;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
 import org.osmdroid.views.overlay.Marker;
+import org.osmdroid.views.overlay.Polyline;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -61,6 +67,13 @@ public class MapasActivity extends FuncionesBaseActivity {
     // Overlay encargado de pintar el mapa interpolado de contaminación
     private ContaminacionOverlay overlayContaminacion;
 
+    // Trazado del recorrido de hoy (ModuloRecorrido → /recorrido/tramos)
+    private static final int MAX_PUNTOS_TRAZADO = 2000;
+    private Polyline overlayTrazado;
+    private List<PolilineaCodificada.Punto> puntosTrazado = new ArrayList<>();
+    private BroadcastReceiver receptorTrazado;
+    private RequestQueue cola;
+
     // Acceso a la lógica fake que realiza peticiones a la API y devuelve JSON
     private LogicaFake logica = new LogicaFake();
 
@@ -100,10 +113,8 @@ public class MapasActivity extends FuncionesBaseActivity {
         super.onCreate(savedInstanceState);
 
         // MUY IMPORTANTE: inicializar configuración de OSMDroid
-        Configuration.getInstance().load(
-                getApplicationContext(),
-                PreferenceManager.getDefaultSharedPreferences(getApplicationContext())
-        );
+        // (normalmente ya la ha cargado ArranqueApp en segundo plano)
+        ArranqueApp.configurarMapa(this);
 
         setContentView(R.layout.activity_mapas);
 
@@ -454,17 +465,12 @@ public class MapasActivity extends FuncionesBaseActivity {
     }
 
     /**
-     * @brief Inicia el ServicioDeteccionBeacons como servicio en primer plano.
-     * @note Este servicio requiere permisos BLE y location para funcionar.
-     * En Android 12+ es obligatorio iniciarlo mediante startForegroundService().
+     * @brief Inicia el ModuloBeacons en el servicio en primer plano de los sensores.
+     * @note Este módulo requiere permisos BLE y location para funcionar.
+     * ServicioSensores.iniciarModulo() usa startForegroundService() en Android 8+.
      */
     private void iniciarServicioBeacons() {
-        Intent s = new Intent(MapasActivity.this, ServicioDeteccionBeacons.class);
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.O) {
-            startForegroundService(s);
-        } else {
-            startService(s);
-        }
+        ServicioSensores.iniciarModulo(MapasActivity.this, ServicioSensores.MODULO_BEACONS);
     }
     // ---------------------------------------------------------
 
@@ -592,6 +598,14 @@ public class MapasActivity extends FuncionesBaseActivity {
         mapa.getOverlays().add(overlayContaminacion);
         /* --------------------------- */
 
+        /* --- TRAZADO DEL RECORRIDO (encima de la contaminación) --- */
+        overlayTrazado = new Polyline(mapa);
+        overlayTrazado.getOutlinePaint().setColor(Color.parseColor("#1E88E5"));
+        overlayTrazado.getOutlinePaint().setStrokeWidth(8f);
+        overlayTrazado.setInfoWindow(null);
+        mapa.getOverlays().add(overlayTrazado);
+        /* --------------------------- */
+
         /** -------------------------------------------------------------------------
          * RECEPCIÓN DEL ÍNDICE DE CALIDAD DEL AIRE DESDE EL OVERLAY
          * @brief Recibe los porcentajes calculados por el ContaminacionOverlay.
@@ -1062,8 +1076,8 @@ public class MapasActivity extends FuncionesBaseActivity {
 
                         // Normalizamos cada gas individualmente y nos quedamos con el peor nivel
                         double peor = Math.max(
-                                Math.max(normal(no2, 11), normal(co, 12)),
-                                Math.max(normal(o3, 13), normal(so2, 14))
+                                Math.max(ClasificadorCalidad.nivel(no2, 11), ClasificadorCalidad.nivel(co, 12)),
+                                Math.max(ClasificadorCalidad.nivel(o3, 13), ClasificadorCalidad.nivel(so2, 14))
                         );
 
                         // Creamos punto para el overlay
@@ -1101,7 +1115,7 @@ public class MapasActivity extends FuncionesBaseActivity {
                         double v = o.getDouble("valor");
 
                         // Normalizar el valor según la tabla del gas correspondiente
-                        double n = normal(v, gas);
+                        double n = ClasificadorCalidad.nivel(v, gas);
 
                         /*
                          * En modo gas individual:
@@ -1122,50 +1136,6 @@ public class MapasActivity extends FuncionesBaseActivity {
         }
     }
 
-    /**
-     * @brief Normaliza un valor de un gas a un nivel entre 0 y 1.
-     *
-     * @details
-     * Cada gas tiene sus propios umbrales (tomados de estándares EPA).
-     * De esta forma, valores pequeños se convierten en niveles bajos (verde),
-     * y valores altos se convierten en niveles altos (rojo).
-     *
-     * @param valor Valor absoluto medido del gas.
-     * @param tipo Código del gas (11=NO2, 12=CO, 13=O3, 14=SO2).
-     * @return Nivel normalizado: 0.1, 0.45, 0.75 o 1.0 según rangos.
-     */
-    private double normal(double valor, int tipo) {
-        if (valor < 0) return 0;
-
-        switch (tipo) {
-            case 12: // CO
-                if (valor <= 1.7) return 0.1;
-                if (valor <= 4.4) return 0.45;
-                if (valor <= 8.7) return 0.75;
-                return 1.0;
-
-            case 11: // NO2
-                if (valor <= 0.021) return 0.1;
-                if (valor <= 0.053) return 0.45;
-                if (valor <= 0.106) return 0.75;
-                return 1.0;
-
-            case 13: // O3
-                if (valor <= 0.031) return 0.1;
-                if (valor <= 0.061) return 0.45;
-                if (valor <= 0.092) return 0.75;
-                return 1.0;
-
-            case 14: // SO2
-                if (valor <= 0.0076) return 0.1;
-                if (valor <= 0.019) return 0.45;
-                if (valor <= 0.038) return 0.75;
-                return 1.0;
-        }
-
-        return 0;
-    }
-
     /* ----- FIN SECCIÓN PINTAR MAPA -----*/
 
     /* ----- SECCIÓN ACTUALIZAR PANEL ÍNDICES MAPA -----*/
@@ -1258,55 +1228,6 @@ public class MapasActivity extends FuncionesBaseActivity {
 
     /* ----- SECCIÓN ESTACIONES DE MEDIDA REAL - API https://explore.openaq.org -----*/
     // --------------------------------------------------------------------------------------
-    /**
-     * @brief Convierte NO₂ a ppm si la unidad viene en µg/m³.
-     *
-     * @details
-     * Las estaciones oficiales (OpenAQ) devuelven valores en µg/m³,
-     * mientras que la normalización interna usa ppm (EPA).
-     * Esta conversión SOLO se aplica a estaciones oficiales.
-     */
-    private double convertirNO2(double v, String u) {
-        if (u != null && u.contains("µg")) {
-            return v / 1880.0;
-        }
-        return v;
-    }
-
-    /**
-     * @brief Convierte O₃ a ppm si la unidad viene en µg/m³.
-     * @details Solo se usa para estaciones oficiales.
-     */
-    private double convertirO3(double v, String u) {
-        if (u != null && u.contains("µg")) {
-            return v / 2000.0;
-        }
-        return v;
-    }
-
-    /**
-     * @brief Convierte SO₂ a ppm si la unidad viene en µg/m³.
-     * @details Solo se usa para estaciones oficiales.
-     */
-    private double convertirSO2(double v, String u) {
-        if (u != null && u.contains("µg")) {
-            return v / 2620.0;
-        }
-        return v;
-    }
-
-    /**
-     * @brief Convierte CO a ppm si la unidad viene en µg/m³.
-     * @details Solo se aplica a estaciones oficiales (OpenAQ).
-     */
-    private double convertirCO(double v, String u) {
-        if (u != null && u.contains("µg")) {
-            return v / 1145.0; // µg/m³ → ppm
-        }
-        return v;
-    }
-    // --------------------------------------------------------------------------------------
-
     /**
      * @brief Calcula el nivel de contaminación de una estación oficial.
      *
@@ -1319,17 +1240,18 @@ public class MapasActivity extends FuncionesBaseActivity {
 
         double peor = 0.0;
 
+        // Las estaciones oficiales (OpenAQ) pueden venir en µg/m³ → se pasan a ppm
         if (e.no2 != null)
-            peor = Math.max(peor, normal(convertirNO2(e.no2, e.unidadNO2), 11));
+            peor = Math.max(peor, ClasificadorCalidad.nivel(ClasificadorCalidad.aPpm(e.no2, e.unidadNO2, 11), 11));
 
         if (e.o3 != null)
-            peor = Math.max(peor, normal(convertirO3(e.o3, e.unidadO3), 13));
+            peor = Math.max(peor, ClasificadorCalidad.nivel(ClasificadorCalidad.aPpm(e.o3, e.unidadO3, 13), 13));
 
         if (e.so2 != null)
-            peor = Math.max(peor, normal(convertirSO2(e.so2, e.unidadSO2), 14));
+            peor = Math.max(peor, ClasificadorCalidad.nivel(ClasificadorCalidad.aPpm(e.so2, e.unidadSO2, 14), 14));
 
         if (e.co != null)
-            peor = Math.max(peor, normal(convertirCO(e.co, e.unidadCO), 12));
+            peor = Math.max(peor, ClasificadorCalidad.nivel(ClasificadorCalidad.aPpm(e.co, e.unidadCO, 12), 12));
 
         return peor;
     }
@@ -1344,31 +1266,21 @@ public class MapasActivity extends FuncionesBaseActivity {
      * @return Color ARGB para el marcador.
      */
     private int colorPorNivel(double nivel) {
-
-        // Sin datos reales
-        if (nivel <= 0.0) {
-            return Color.parseColor("#9CA3AF"); // Gris
-        }
-
-        // Verde (0.00 – 0.10) — verde apagado
-        if (nivel <= 0.10) {
-            return Color.parseColor("#059669"); // Verde
-        }
-
-        // Amarillo (0.10 – 0.45) — mostaza suave
-        if (nivel <= 0.45) {
-            return Color.parseColor("#FBC02D"); // Amarillo
-        }
-
-        // Naranja (0.45 – 0.75) — naranja terroso
-        if (nivel <= 0.75) {
-            return Color.parseColor("#FB8C00"); // Naranja
-        }
-
-        // Rojo (> 0.75) — rojo oscuro no chillón
-        return Color.parseColor("#DC2626");     // Rojo
+        return COLOR_ESTACION[ClasificadorCalidad.categoriaDeNivel(nivel)];
     }
 
+    /**
+     * Colores de los marcadores de estaciones por categoría de ClasificadorCalidad.
+     * Mismo criterio que en web, colores más apagados.
+     */
+    private static final int[] COLOR_ESTACION = {
+            0xFF9CA3AF, // Sin datos → gris
+            0xFF059669, // Buena → verde apagado
+            0xFFFBC02D, // Moderada → mostaza suave
+            0xFFFB8C00, // Insalubre → naranja terroso
+            0xFFDC2626  // Mala → rojo oscuro no chillón
+    };
+
 
 
     /**
@@ -1487,17 +1399,70 @@ public class MapasActivity extends FuncionesBaseActivity {
 
     /* ----- FIN SECCIÓN ESTACIONES DE MEDIDA REAL - API https://explore.openaq.org -----*/
 
+    /* ----- TRAZADO DEL RECORRIDO ----- */
+
+    /**
+     * @brief Pide al backend el trazado de hoy y lo pinta; a partir de ahí
+     *        se van añadiendo los puntos que llegan de ModuloRecorrido.
+     */
+    private void cargarTrazado() {
+        int idUsuario = SesionManager.obtenerIdUsuario(this);
+        if (idUsuario <= 0 || overlayTrazado == null) return;
+
+        if (cola == null) cola = Volley.newRequestQueue(this);
+        LogicaFake.obtenerTrazadoRecorrido(idUsuario, cola, puntos -> {
+            if (isFinishing() || mapa == null) return;
+            puntosTrazado = TrazadoRecorrido.acotar(puntos, MAX_PUNTOS_TRAZADO);
+            pintarTrazado();
+        });
+
+        receptorTrazado = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (!intent.hasExtra("lat")) return;
+                puntosTrazado.add(new PolilineaCodificada.Punto(
+                        intent.getDoubleExtra("lat", 0), intent.getDoubleExtra("lon", 0), 0));
+                // En paseos largos con el mapa abierto, se vuelve a simplificar
+                if (puntosTrazado.size() > MAX_PUNTOS_TRAZADO) {
+                    puntosTrazado = new ArrayList<>(
+                            TrazadoRecorrido.acotar(puntosTrazado, MAX_PUNTOS_TRAZADO / 2));
+                }
+                pintarTrazado();
+            }
+        };
+        IntentFilter filtro = new IntentFilter(ModuloRecorrido.ACTION_RECorrido_UPDATE);
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
+            registerReceiver(receptorTrazado, filtro, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            registerReceiver(receptorTrazado, filtro);
+        }
+    }
+
+    private void pintarTrazado() {
+        List<GeoPoint> geo = new ArrayList<>(puntosTrazado.size());
+        for (PolilineaCodificada.Punto p : puntosTrazado) geo.add(new GeoPoint(p.lat, p.lon));
+        overlayTrazado.setPoints(geo);
+        mapa.invalidate();
+    }
+
+    /* ----- FIN TRAZADO DEL RECORRIDO ----- */
+
     /* Ciclo de vida - Android */
     @Override
     protected void onResume() {
         super.onResume();
         if (mapa != null) mapa.onResume();
+        cargarTrazado();
     }
 
     @Override
     protected void onPause() {
         super.onPause();
         if (mapa != null) mapa.onPause();
+        if (receptorTrazado != null) {
+            unregisterReceiver(receptorTrazado);
+            receptorTrazado = null;
+        }
     }
     /* Fin Ciclo de vida - Android */
 
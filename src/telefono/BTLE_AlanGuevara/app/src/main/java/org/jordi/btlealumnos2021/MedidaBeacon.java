@@ -0,0 +1,75 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Medida Atmos decodificada de un anuncio iBeacon de la placa.
+ *
+ * Es la interpretación que hacía ServicioDeteccionBeacons a mano sobre
+ * TramaIBeacon + Utilidades, sacada aquí para poder probarla y medirla
+ * sin Android:
+ *  - UUID: 16 bytes ASCII con el nombre de la placa (sin espacios a los lados).
+ *  - major: byte alto = tipo de gas (11..14), byte bajo = contador de medida.
+ *  - minor: valor × 10000, entero de 16 bits con signo.
+ *
+ * decodificar() lee los campos directamente de los bytes del anuncio, sin
+ * las copias intermedias de TramaIBeacon (se llama con cada anuncio
+ * recibido, varias veces por segundo).
+ *
+ * @date 19/10/2026
+ */
+public final class MedidaBeacon {
+
+    // Posiciones dentro del anuncio (mismo formato que TramaIBeacon)
+    private static final int INICIO_UUID = 9;
+    private static final int LONGITUD_UUID = 16;
+    private static final int INICIO_MAJOR = 25;
+    private static final int INICIO_MINOR = 27;
+
+    /** Longitud mínima de un anuncio con todos los campos (hasta txPower). */
+    public static final int LONGITUD_MINIMA = 30;
+
+    public final String uuid;
+    public final int tipoGas;
+    public final float valor;
+    public final int contador;
+
+    public MedidaBeacon(String uuid, int tipoGas, float valor, int contador) {
+        this.uuid = uuid;
+        this.tipoGas = tipoGas;
+        this.valor = valor;
+        this.contador = contador;
+    }
+
+    /**
+     * @brief Decodifica los bytes crudos de un anuncio (ScanRecord.getBytes()).
+     *
+     * @return La medida, o null si el anuncio es demasiado corto.
+     */
+    public static MedidaBeacon decodificar(byte[] bytes) {
+        if (bytes == null || bytes.length < LONGITUD_MINIMA) return null;
+
+        // Igual que Utilidades.bytesToString(...).trim()
+        char[] letras = new char[LONGITUD_UUID];
+        for (int i = 0; i < LONGITUD_UUID; i++) {
+            letras[i] = (char) bytes[INICIO_UUID + i];
+        }
+        return decodificar(bytes, new String(letras).trim());
+    }
+
+    /**
+     * @brief Igual que decodificar(bytes), pero con el UUID ya conocido (el
+     *        nombre de la placa de RegistroPlacas): no crea el String.
+     *
+     * @return La medida, o null si el anuncio es demasiado corto.
+     */
+    public static MedidaBeacon decodificar(byte[] bytes, String uuid) {
+        if (bytes == null || bytes.length < LONGITUD_MINIMA) return null;
+
+        int tipoGas = bytes[INICIO_MAJOR] & 0xFF;
+        int contador = bytes[INICIO_MAJOR + 1] & 0xFF;
+
+        // 16 bits con signo, como Utilidades.bytesToInt(minor)
+        int minor = (short) ((bytes[INICIO_MINOR] << 8) | (bytes[INICIO_MINOR + 1] & 0xFF));
+
+        return new MedidaBeacon(uuid, tipoGas, minor / 10000f, contador);
+    }
+}
@@ -110,6 +110,12 @@ public class MenuActivity extends FuncionesBaseActivity {
                     mostrarDialogoConfirmarDescarga()
 
             );
+
+            // Pulsación larga: pantalla de métricas (depuración)
+            cardManualUsuario.setOnLongClickListener(v -> {
+                startActivity(new Intent(MenuActivity.this, MetricasActivity.class));
+                return true;
+            });
         }
 
         // Tarjeta "Incidencias"
@@ -0,0 +1,301 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @brief Registro ligero de métricas de la app: contadores, indicadores e
+ *        histogramas de latencia.
+ *
+ * Pensado para los caminos calientes (callback del escáner BLE, subidas,
+ * pintado del mapa de calor, bucles de sondeo): registrar una muestra es
+ * una operación atómica sin reservar memoria ni bloquear.
+ *
+ * Los histogramas son log-lineales, al estilo HdrHistogram: cada potencia
+ * de 2 se divide en 32 tramos iguales, así que cualquier percentil tiene un
+ * error relativo menor del 3 % con un array fijo de ~1200 casillas
+ * (valores de 0 a 2^40).
+ *
+ * Convención de nombres: "área.qué" y la unidad al final si la hay
+ * (p. ej. "ble.procesado_us", "subida.medida_us").
+ *
+ * Se consulta con informe() (texto, pantalla MetricasActivity) o json()
+ * (exportación).
+ *
+ * @date 19/10/2026
+ */
+public final class Metricas {
+
+    private static final Metricas instancia = new Metricas();
+
+    public static Metricas getInstance() {
+        return instancia;
+    }
+
+    // Paquete: la app usa getInstance(); las pruebas, registros propios
+    Metricas() { }
+
+    private final ConcurrentHashMap<String, Contador> contadores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Indicador> indicadores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Histograma> histogramas = new ConcurrentHashMap<>();
+
+    private volatile long inicioMs = System.currentTimeMillis();
+
+    // -------------------------------------------------------------
+    // Acceso (crea la métrica la primera vez)
+    // -------------------------------------------------------------
+
+    public Contador contador(String nombre) {
+        Contador c = contadores.get(nombre);
+        return c != null ? c : contadores.computeIfAbsent(nombre, k -> new Contador());
+    }
+
+    public Indicador indicador(String nombre) {
+        Indicador i = indicadores.get(nombre);
+        return i != null ? i : indicadores.computeIfAbsent(nombre, k -> new Indicador());
+    }
+
+    public Histograma histograma(String nombre) {
+        Histograma h = histogramas.get(nombre);
+        return h != null ? h : histogramas.computeIfAbsent(nombre, k -> new Histograma());
+    }
+
+    /**
+     * @brief Pone todas las métricas a cero (las referencias siguen valiendo).
+     */
+    public void reiniciar() {
+        for (Contador c : contadores.values()) c.valor.set(0);
+        for (Indicador i : indicadores.values()) i.valor = 0;
+        for (Histograma h : histogramas.values()) h.reiniciar();
+        inicioMs = System.currentTimeMillis();
+    }
+
+    // -------------------------------------------------------------
+    // Tipos de métrica
+    // -------------------------------------------------------------
+
+    /**
+     * @brief Cuenta eventos (solo crece).
+     */
+    public static final class Contador {
+        private final AtomicLong valor = new AtomicLong();
+
+        public void incrementar() {
+            valor.incrementAndGet();
+        }
+
+        public void sumar(long n) {
+            valor.addAndGet(n);
+        }
+
+        public long valor() {
+            return valor.get();
+        }
+    }
+
+    /**
+     * @brief Último valor de algo que sube y baja (RSSI, puntos en el mapa…).
+     */
+    public static final class Indicador {
+        private volatile long valor;
+
+        public void fijar(long v) {
+            valor = v;
+        }
+
+        public long valor() {
+            return valor;
+        }
+    }
+
+    /**
+     * @brief Histograma log-lineal de valores no negativos.
+     */
+    public static final class Histograma {
+
+        // 2^BITS_TRAMO tramos por potencia de 2
+        static final int BITS_TRAMO = 5;
+        static final int TRAMOS = 1 << BITS_TRAMO;
+        static final int EXPONENTE_MAX = 40;
+        static final int CASILLAS = (EXPONENTE_MAX - BITS_TRAMO + 2) * TRAMOS;
+
+        private final AtomicLongArray casillas = new AtomicLongArray(CASILLAS);
+        private final AtomicLong cuenta = new AtomicLong();
+        private final AtomicLong suma = new AtomicLong();
+        private final AtomicLong maximo = new AtomicLong();
+
+        /**
+         * @brief Registra una muestra (los negativos cuentan como 0).
+         */
+        public void registrar(long v) {
+            if (v < 0) v = 0;
+            casillas.incrementAndGet(indice(v));
+            cuenta.incrementAndGet();
+            suma.addAndGet(v);
+
+            long m;
+            while (v > (m = maximo.get()) && !maximo.compareAndSet(m, v)) { }
+        }
+
+        public long cuenta() {
+            return cuenta.get();
+        }
+
+        public long maximo() {
+            return maximo.get();
+        }
+
+        public double media() {
+            long n = cuenta.get();
+            return n == 0 ? 0 : (double) suma.get() / n;
+        }
+
+        /**
+         * @brief Valor por debajo del cual queda el p % de las muestras.
+         *
+         * @param p Percentil en [0, 100].
+         * @return Punto medio de la casilla correspondiente (nunca mayor que
+         *         el máximo visto); 0 si no hay muestras.
+         */
+        public long percentil(double p) {
+            long n = cuenta.get();
+            if (n == 0) return 0;
+
+            long objetivo = Math.max(1, (long) Math.ceil(p / 100.0 * n));
+            long acumulado = 0;
+            for (int i = 0; i < CASILLAS; i++) {
+                acumulado += casillas.get(i);
+                if (acumulado >= objetivo) {
+                    // La última casilla recoge todo lo que se sale de rango
+                    return i == CASILLAS - 1 ? maximo.get() : Math.min(puntoMedio(i), maximo.get());
+                }
+            }
+            return maximo.get();
+        }
+
+        void reiniciar() {
+            for (int i = 0; i < CASILLAS; i++) casillas.set(i, 0);
+            cuenta.set(0);
+            suma.set(0);
+            maximo.set(0);
+        }
+
+        /**
+         * Los valores < TRAMOS tienen casilla propia; a partir de ahí, la
+         * casilla la dan el exponente y los BITS_TRAMO bits siguientes al
+         * más alto.
+         */
+        static int indice(long v) {
+            if (v < TRAMOS) return (int) v;
+
+            int exponente = 63 - Long.numberOfLeadingZeros(v);
+            if (exponente > EXPONENTE_MAX) return CASILLAS - 1;
+
+            int tramo = (int) ((v >>> (exponente - BITS_TRAMO)) & (TRAMOS - 1));
+            return (exponente - BITS_TRAMO + 1) * TRAMOS + tramo;
+        }
+
+        static long inicioCasilla(int i) {
+            if (i < TRAMOS) return i;
+
+            int exponente = i / TRAMOS + BITS_TRAMO - 1;
+            int tramo = i % TRAMOS;
+            return (1L << exponente) + ((long) tramo << (exponente - BITS_TRAMO));
+        }
+
+        static long puntoMedio(int i) {
+            if (i < TRAMOS) return i;
+
+            int exponente = i / TRAMOS + BITS_TRAMO - 1;
+            return inicioCasilla(i) + ((1L << (exponente - BITS_TRAMO)) >> 1);
+        }
+    }
+
+    // -------------------------------------------------------------
+    // Instantáneas
+    // -------------------------------------------------------------
+
+    /**
+     * @brief Resumen legible, ordenado por nombre (pantalla de depuración y logcat).
+     */
+    public String informe() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "Desde hace %d s%n",
+                (System.currentTimeMillis() - inicioMs) / 1000));
+
+        Map<String, Contador> c = new TreeMap<>(contadores);
+        if (!c.isEmpty()) {
+            sb.append("\nCONTADORES\n");
+            for (Map.Entry<String, Contador> e : c.entrySet()) {
+                sb.append(String.format(Locale.US, "  %-28s %10d%n", e.getKey(), e.getValue().valor()));
+            }
+        }
+
+        Map<String, Indicador> ind = new TreeMap<>(indicadores);
+        if (!ind.isEmpty()) {
+            sb.append("\nINDICADORES\n");
+            for (Map.Entry<String, Indicador> e : ind.entrySet()) {
+                sb.append(String.format(Locale.US, "  %-28s %10d%n", e.getKey(), e.getValue().valor()));
+            }
+        }
+
+        Map<String, Histograma> h = new TreeMap<>(histogramas);
+        if (!h.isEmpty()) {
+            sb.append("\nHISTOGRAMAS           n      p50      p90      p99      máx\n");
+            for (Map.Entry<String, Histograma> e : h.entrySet()) {
+                Histograma x = e.getValue();
+                sb.append(String.format(Locale.US, "  %-18s %6d %8d %8d %8d %8d%n",
+                        e.getKey(), x.cuenta(), x.percentil(50), x.percentil(90),
+                        x.percentil(99), x.maximo()));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @brief Instantánea completa en JSON (exportación).
+     */
+    public String json() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"inicio_ms\":").append(inicioMs)
+          .append(",\"instante_ms\":").append(System.currentTimeMillis());
+
+        sb.append(",\"contadores\":{");
+        boolean primero = true;
+        for (Map.Entry<String, Contador> e : new TreeMap<>(contadores).entrySet()) {
+            if (!primero) sb.append(',');
+            primero = false;
+            sb.append('"').append(e.getKey()).append("\":").append(e.getValue().valor());
+        }
+
+        sb.append("},\"indicadores\":{");
+        primero = true;
+        for (Map.Entry<String, Indicador> e : new TreeMap<>(indicadores).entrySet()) {
+            if (!primero) sb.append(',');
+            primero = false;
+            sb.append('"').append(e.getKey()).append("\":").append(e.getValue().valor());
+        }
+
+        sb.append("},\"histogramas\":{");
+        primero = true;
+        for (Map.Entry<String, Histograma> e : new TreeMap<>(histogramas).entrySet()) {
+            if (!primero) sb.append(',');
+            primero = false;
+            Histograma x = e.getValue();
+            sb.append('"').append(e.getKey()).append("\":{")
+              .append("\"n\":").append(x.cuenta())
+              .append(",\"media\":").append(String.format(Locale.US, "%.1f", x.media()))
+              .append(",\"p50\":").append(x.percentil(50))
+              .append(",\"p90\":").append(x.percentil(90))
+              .append(",\"p99\":").append(x.percentil(99))
+              .append(",\"max\":").append(x.maximo())
+              .append('}');
+        }
+        sb.append("}}");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,74 @@
+package org.jordi.btlealumnos2021;
+
+import android.os.Bundle;
+import android.widget.Button;
+import android.widget.ImageView;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SwitchCompat;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * @brief Pantalla de depuración con las métricas de la app en vivo.
+ *
+ * Muestra las tareas de refresco activas de las pantallas (Refrescos, con
+ * su tasa de peticiones) y el informe de Metricas, refrescados cada
+ * segundo mientras está en primer plano. Permite activar el log detallado
+ * (por paquete BLE y por localización), reiniciar los contadores y
+ * exportar una instantánea en JSON a files/metricas/ (adb pull).
+ *
+ * Se abre con una pulsación larga en la tarjeta "Manual de Usuario" del menú.
+ *
+ * @date 19/10/2026
+ */
+public class MetricasActivity extends AppCompatActivity {
+
+    private static final long REFRESCO_MS = 1000;
+
+    private TextView txtInforme;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metricas);
+
+        txtInforme = findViewById(R.id.txtInforme);
+
+        Refrescos.getInstance().registrar(this, "depuracion.metricas", REFRESCO_MS, fin -> {
+            pintarInforme();
+            fin.hecho(true);
+        });
+
+        ImageView btnClose = findViewById(R.id.btnClose);
+        btnClose.setOnClickListener(v -> finish());
+
+        SwitchCompat switchLog = findViewById(R.id.switchLogDetallado);
+        switchLog.setChecked(Instrumentacion.logDetallado);
+        switchLog.setOnCheckedChangeListener((b, activo) -> Instrumentacion.logDetallado = activo);
+
+        Button btnReiniciar = findViewById(R.id.btnReiniciar);
+        btnReiniciar.setOnClickListener(v -> {
+            Metricas.getInstance().reiniciar();
+            pintarInforme();
+        });
+
+        Button btnExportar = findViewById(R.id.btnExportar);
+        btnExportar.setOnClickListener(v -> {
+            try {
+                File f = Instrumentacion.exportar(this);
+                Toast.makeText(this, "Exportado: " + f.getName(), Toast.LENGTH_SHORT).show();
+            } catch (IOException e) {
+                Toast.makeText(this, "No se pudo exportar", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private void pintarInforme() {
+        txtInforme.setText(Refrescos.getInstance().informe() + "\n"
+                + Metricas.getInstance().informe());
+    }
+}
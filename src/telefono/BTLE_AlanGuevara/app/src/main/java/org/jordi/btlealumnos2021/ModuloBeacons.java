@@ -0,0 +1,830 @@
+package org.jordi.btlealumnos2021;
+
+import android.Manifest;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothManager;
+import android.bluetooth.le.BluetoothLeScanner;
+import android.bluetooth.le.ScanCallback;
+import android.bluetooth.le.ScanResult;
+import android.bluetooth.le.ScanSettings;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.ActivityCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.content.BroadcastReceiver;
+import android.content.IntentFilter;
+
+// IMPORTANTE: No voy a hacer el promedio porque ya de por sí (por lo que sea) el sensor mide mal, no quiero más problemas, ya hay bastantes (Att: Alan)
+// Segun chat en pantalla apagada no recibe beacons por que Pantalla apagada + apps en segundo plano =  ALTA restricción
+/**
+ * @class ModuloBeacons
+ * @brief Módulo de ServicioSensores responsable del escaneo BLE Atmos, parseo iBeacon,
+ *        validación de placa, promedio de mediciones, obtención GPS y envío al backend.
+ *
+ * @details
+ *  - Escanea continuamente anuncios BLE iBeacon Atmos.
+ *  - Filtra por UUID: la placa asignada al usuario y las adicionales
+ *    (RegistroPlacas, varias a la vez).
+ *  - Decodifica con TramaAtmos: v2 (varios gases por anuncio) o iBeacon
+ *    (major/minor → tipoGas / valorMedido).
+ *  - Acumula 10 muestras → calcula promedio valor + RSSI.
+ *  - Obtiene la ubicación del móvil de LocalizacionCompartida (la del
+ *    recorrido si está en marcha).
+ *  - Pasa cada medida por CompresorMedidas y deja los cambios
+ *    significativos en la BandejaSubidas (LogicaFake.enviarMedicion()).
+ *  - Mantiene control del estado encendida/apagada de la placa.
+ *
+ * Hasta el 19/10/2026 era un servicio propio (ServicioDeteccionBeacons);
+ * ahora comparte servicio, localización, hilos y subidas con
+ * ModuloRecorrido.
+ *
+ * @date 06/12/2025
+ * @author
+ * Alan Guevara Martínez
+ */
+public class ModuloBeacons implements ServicioSensores.Modulo {
+
+    private static final String TAG = "ServicioBeacons";
+
+    // Presupuesto en ServicioSensores: escaneo continuo de baja latencia sin
+    // filtro (también llegan anuncios de otros dispositivos)
+    private static final double PRESUPUESTO_DESPERTARES_MIN = 3000;
+    private static final double PRESUPUESTO_CPU_MS_MIN = 1500;
+
+    private ServicioSensores servicio;
+
+    // false tras detener(): las respuestas que lleguen tarde no arrancan el escaneo
+    private boolean activo = false;
+
+    // BLE
+    private BluetoothAdapter bluetoothAdapter;
+    private BluetoothLeScanner escanerBLE;
+
+    // Ajustes del escaneo BLE reutilizables
+    private ScanSettings scanSettings;
+
+    // Handler para reiniciar el escaneo periódicamente (pantalla apagada / Doze)
+    private Handler handlerReinicioScan = new Handler();
+
+    // Placas escuchadas (la vinculada al usuario y las adicionales), cada
+    // una con su filtro de contador, su presencia y su compresor
+    private final RegistroPlacas registro = new RegistroPlacas(this::subirMedida);
+
+    private Handler handlerEstado = new Handler();
+
+    // Anuncio decodificado, reutilizado en cada anuncio (hilo principal)
+    private final TramaAtmos trama = new TramaAtmos();
+
+    // Alertas de la placa del usuario evaluadas en el móvil
+    private final MotorAlertas alertas = new MotorAlertas(MotorAlertas.reglasPorDefecto());
+
+    // Promedio de medidas
+    private final List<Float> bufferValores = new ArrayList<>();
+    private final List<Integer> bufferRSSI = new ArrayList<>();
+
+    /*  Variable para recordar el último valor real
+    // Necesario hacerlo así para el promedio ya que Android recibe la misma medida muchas veces, si hacemos el promedio de 10 en bruto
+    // solo estamos haciendo el promedio de 10 anuncios y no de 10 medidas reales
+    private float ultimoValorReal = -999f; */
+
+    // Placas adicionales a escuchar además de las vinculadas en el servidor,
+    // separadas por comas. Solo para pruebas: se fijan con TrazasReceiver
+    // (orden "placas", variante debug)
+    public static final String PREFS_PLACAS = "ATMOS_PLACAS";
+    public static final String CLAVE_PLACAS_ADICIONALES = "adicionales";
+
+
+
+
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public String getNombre() {
+        return ServicioSensores.MODULO_BEACONS;
+    }
+
+    @Override
+    public double getPresupuestoDespertaresMin() {
+        return PRESUPUESTO_DESPERTARES_MIN;
+    }
+
+    @Override
+    public double getPresupuestoCpuMsMin() {
+        return PRESUPUESTO_CPU_MS_MIN;
+    }
+
+    /**
+     * @brief Inicializa la lógica BLE y obtiene la placa asignada.
+     *
+     * @details
+     *  - La notificación y la localización son de ServicioSensores.
+     *  - Obtiene las placas vinculadas mediante placasUsuario().
+     *  - Inicia escaneo BLE.
+     *
+     * @param[in] servicio Servicio que aloja el módulo.
+     *
+     * @return void
+     */
+    @Override
+    public void iniciar(ServicioSensores servicio) {
+        this.servicio = servicio;
+        this.activo = true;
+
+        Log.d(TAG, "MÓDULO INICIADO - El proceso está vivo");
+
+        // Hora del servidor para fechar las medidas (puntos guardados + sincronizar si toca)
+        SincronizacionHora.cargar(servicio);
+        SincronizacionHora.sincronizarSiToca(servicio);
+
+        inicializarBluetoothYBuscarPlaca();
+
+        // Entrada para las trazas reproducidas (GrabadoraTrazas), con su instante escalado
+        GrabadoraTrazas.setDestinoAnuncios(this::procesarAnuncio);
+
+        // Escuchar cambios de estado del Bluetooth (ON / OFF)
+        IntentFilter filtro = new IntentFilter(BluetoothAdapter.ACTION_STATE_CHANGED);
+        servicio.registerReceiver(receptorBT, filtro);
+    }
+
+    /**
+     * @brief Prepara los componentes BLE y consulta la placa asignada al usuario.
+     *
+     * @details
+     *  - Obtiene el BluetoothAdapter y su escáner.
+     *  - Pide al backend todas las placas vinculadas al usuario logueado
+     *    (una instalación fija puede tener varias).
+     *  - Al obtenerlas, inicia el escaneo BLE.
+     *
+     * @return void
+     */
+    private void inicializarBluetoothYBuscarPlaca() {
+
+        BluetoothManager manager =
+                (BluetoothManager) servicio.getSystemService(Context.BLUETOOTH_SERVICE);
+
+        bluetoothAdapter = manager.getAdapter();
+        escanerBLE = bluetoothAdapter.getBluetoothLeScanner();
+
+        int idUsuario = SesionManager.obtenerIdUsuario(servicio);
+        if (idUsuario <= 0) {
+            servicio.pararModulo(getNombre());
+            return;
+        }
+
+        registrarPlacasAdicionales();
+
+        LogicaFake.placasUsuario(
+                idUsuario,
+                servicio.getCola(),
+                new LogicaFake.PlacasUsuarioCallback() {
+
+                    @Override public void onSinPlaca() { escucharOParar(); }
+
+                    @Override
+                    public void onPlacas(String principal, List<String> placas) {
+                        if (!activo) return;
+
+                        // La principal (la de su pantalla) es la de las alertas
+                        for (String nombre : placas) {
+                            try {
+                                registro.registrar(nombre, nombre.equals(principal));
+                            } catch (IllegalArgumentException e) {
+                                Log.w(TAG, e.getMessage());
+                            }
+                        }
+                        escucharOParar();
+                    }
+
+                    @Override public void onErrorServidor() { escucharOParar(); }
+                    @Override public void onErrorInesperado() { escucharOParar(); }
+                }
+        );
+    }
+
+    /**
+     * @brief Registra las placas adicionales guardadas en PREFS_PLACAS
+     *        (solo pruebas; en uso normal la lista está vacía).
+     */
+    private void registrarPlacasAdicionales() {
+        String lista = servicio.getSharedPreferences(PREFS_PLACAS, Context.MODE_PRIVATE)
+                .getString(CLAVE_PLACAS_ADICIONALES, "");
+
+        for (String nombre : lista.split(",")) {
+            if (nombre.trim().isEmpty()) continue;
+            try {
+                registro.registrar(nombre, false);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @brief Escucha si hay alguna placa registrada (vinculada o
+     *        adicional); si no, no hay nada que hacer y se para.
+     */
+    private void escucharOParar() {
+        if (!activo) return;
+        if (registro.size() > 0) {
+            iniciarEscaneoBLE();
+        } else {
+            servicio.pararModulo(getNombre());
+        }
+    }
+
+    /**
+     * @brief Inicia el escaneo BLE continuo en modo baja latencia.
+     *
+     * @details
+     *  - Usa ScanSettings.SCAN_MODE_LOW_LATENCY.
+     *  - Conecta ScanCallback definido en callbackBLE.
+     *  - Activa monitor de estado (encendida/apagada).
+     *
+     * @return void
+     */
+    private void iniciarEscaneoBLE() {
+        try {
+            // Validar Bluetooth
+            if (bluetoothAdapter == null || !bluetoothAdapter.isEnabled()) {
+                Log.w(TAG, "Bluetooth no disponible o apagado, no se inicia escaneo");
+                return;
+            }
+
+            // Asegurar que tenemos escáner
+            if (escanerBLE == null) {
+                BluetoothManager manager =
+                        (BluetoothManager) servicio.getSystemService(Context.BLUETOOTH_SERVICE);
+                bluetoothAdapter = manager.getAdapter();
+                escanerBLE = bluetoothAdapter.getBluetoothLeScanner();
+            }
+
+            // Crear ScanSettings una sola vez y reutilizarlos
+            if (scanSettings == null) {
+                ScanSettings.Builder ajustes = new ScanSettings.Builder()
+                        .setScanMode(ScanSettings.SCAN_MODE_LOW_LATENCY)
+                        .setMatchMode(ScanSettings.MATCH_MODE_AGGRESSIVE)
+                        .setCallbackType(ScanSettings.CALLBACK_TYPE_ALL_MATCHES);
+
+                // Los anuncios v2 (TramaAtmos) van en anuncios extendidos de BLE 5
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                        && bluetoothAdapter.isLeExtendedAdvertisingSupported()) {
+                    ajustes.setLegacy(false);
+                }
+                scanSettings = ajustes.build();
+            }
+
+            // Por si acaso había un escaneo anterior
+            try {
+                if (ActivityCompat.checkSelfPermission(servicio, Manifest.permission.BLUETOOTH_SCAN) != PackageManager.PERMISSION_GRANTED) {
+                    // TODO: Consider calling
+                    //    ActivityCompat#requestPermissions
+                    // here to request the missing permissions, and then overriding
+                    //   public void onRequestPermissionsResult(int requestCode, String[] permissions,
+                    //                                          int[] grantResults)
+                    // to handle the case where the user grants the permission. See the documentation
+                    // for ActivityCompat#requestPermissions for more details.
+                    return;
+                }
+                escanerBLE.stopScan(callbackBLE);
+            } catch (Exception ignored) { }
+
+            escanerBLE.startScan(null, scanSettings, callbackBLE);
+            Log.d(TAG, "Escaneo BLE iniciado");
+
+            // Verificación periódica del estado de la placa
+            iniciarVerificacionEstado();
+
+            // Workaround para pantalla apagada / Doze: reiniciar escaneo cada X segundos
+            iniciarReinicioPeriodicoEscaneo();
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error iniciando BLE", e);
+        }
+    }
+
+    /**
+     * @brief Callback principal invocado en cada anuncio BLE recibido.
+     *
+     * @details
+     *  - Registra cualquier beacon Atmos detectado.
+     *  - Delegado hacia procesarBeaconDetectado() para análisis profundo.
+     */
+    private final ScanCallback callbackBLE = new ScanCallback() {
+
+        @Override
+        public void onScanResult(int callbackType, ScanResult result) {
+            long cpu0 = ServicioSensores.inicioDespertar();
+
+            // Anuncio crudo, antes de cualquier filtro (solo si se está grabando)
+            if (result.getScanRecord() != null) {
+                GrabadoraTrazas.anotarAnuncio(result.getScanRecord().getBytes(),
+                        result.getRssi(), result.getTimestampNanos());
+            }
+
+            Metricas.getInstance().contador("ble.anuncios").incrementar();
+
+            // Log por paquete: solo con el log detallado activo (el nombre
+            // necesita BLUETOOTH_CONNECT y la comprobación no es gratis)
+            if (Instrumentacion.logDetallado
+                    && ActivityCompat.checkSelfPermission(servicio, Manifest.permission.BLUETOOTH_CONNECT) == PackageManager.PERMISSION_GRANTED) {
+                BluetoothDevice dev = result.getDevice();
+                Log.d("ATMOS_SCAN", "Beacon bruto detectado: " + dev.getName()
+                        + " rssi=" + result.getRssi());
+            }
+
+            procesarBeaconDetectado(result);
+            servicio.anotarDespertar(getNombre(), cpu0);
+        }
+    };
+
+    /**
+     * @brief Procesa una trama BLE tipo Atmos (iBeacon) y valida si pertenece a una placa escuchada.
+     *
+     * @details
+     *  - Busca la placa por los bytes del UUID en RegistroPlacas.
+     *  - Decodifica los bytes con TramaAtmos (v2 o el formato de TramaIBeacon)
+     *    → tipoGas y valorMedido de cada medida.
+     *  - Registra actividad para el monitor de estado.
+     *  - Envía valores al sistema de promedio → onBeaconDetectado().
+     *
+     * @param[in] result ScanResult recibido por el escáner BLE.
+     *
+     * @return void
+     */
+    private void procesarBeaconDetectado(ScanResult result) {
+        if (result.getScanRecord() == null) return;
+        procesarAnuncio(result.getScanRecord().getBytes(), result.getRssi(),
+                result.getTimestampNanos());
+    }
+
+    /**
+     * @brief Procesa los bytes crudos de un anuncio (del escáner o de una
+     *        traza reproducida por GrabadoraTrazas).
+     *
+     * @param[in] bytes  Bytes del ScanRecord.
+     * @param[in] rssi   RSSI del anuncio.
+     * @param[in] tNanos Instante de recepción (elapsedRealtimeNanos, el de
+     *                   ScanResult.getTimestampNanos()), no el de entrega.
+     */
+    private void procesarAnuncio(byte[] bytes, int rssi, long tNanos) {
+
+        long t0 = Instrumentacion.inicio("Atmos.procesarAnuncio");
+        try {
+            // v2 (varias medidas) o iBeacon de siempre; sin reservar memoria
+            if (!trama.decodificar(bytes)) {
+                Metricas.getInstance().contador("ble.anuncios_invalidos").incrementar();
+                return;
+            }
+
+            // Las placas que no se escuchan se descartan sin crear nada
+            RegistroPlacas.Placa placa = registro.buscar(bytes, trama.getInicioId());
+            if (placa == null) return;
+
+            Metricas.getInstance().contador("ble.anuncios_placa").incrementar();
+            if (trama.getVersion() == TramaAtmos.VERSION_2) {
+                Metricas.getInstance().contador("ble.anuncios_v2").incrementar();
+            }
+            if (placa.isVinculada()) {
+                Metricas.getInstance().indicador("ble.rssi").fijar(rssi);
+            }
+
+            // Solo se avisa al servidor al pasar a encendida (no con cada anuncio)
+            if (registro.anotarAnuncio(placa, tNanos / 1_000_000)) {
+                final String nombre = placa.nombre;
+                servicio.getBandeja().anadir("estado_placa", seq -> LogicaFake.enviarEstadoPlaca(nombre, 1, seq));
+            }
+
+            if (trama.getBateria() != TramaAtmos.BATERIA_DESCONOCIDA) {
+                placa.setBateria(trama.getBateria());
+            }
+
+            // LOG PARA VER CADA MEDICIÓN RECIBIDA
+            if (Instrumentacion.logDetallado) {
+                for (int i = 0; i < trama.getMedidas(); i++) {
+                    Log.d("ATMOS_MEDICION",
+                            "UUID=" + placa.nombre +
+                                    " | v" + trama.getVersion() +
+                                    " | tipoGas=" + trama.getGas(i) +
+                                    " | valor=" + trama.getValor(i) +
+                                    " | rssi=" + rssi +
+                                    " | timestamp=" + System.currentTimeMillis()
+                    );
+                }
+            }
+
+            // Ahora le pasamos también el contador, para que distinga que es una medida distinta, no hay promedio, no sirve de nada, SI FUNCIONA NO SE TOCA
+            onBeaconDetectado(placa, trama, rssi, tNanos);
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error procesando beacon", e);
+        } finally {
+            Instrumentacion.fin("ble.procesado_us", t0);
+        }
+    }
+
+    /**
+     * @brief Recibe cada medición válida y calcula un promedio cada 10 muestras.
+     *
+     * @details
+     *  - Acumula 10 muestras en bufferValores y bufferRSSI.
+     *  - Al completar 10 → calcula promedio valor + RSSI.
+     *  - Obtiene GPS vía FusedLocationProviderClient.
+     *  - La entrega a CompresorMedidas, que llama a subirMedida() solo con
+     *    los cambios significativos y las medidas clave.
+     *
+     * @param[in] placa Placa Atmos que ha enviado el anuncio.
+     * @param[in] trama Anuncio decodificado (una medida en v1, varias en v2).
+     * @param[in] rssi RSSI del paquete BLE recibido.
+     * @param[in] tNanos Instante de recepción (elapsedRealtimeNanos).
+     *
+     * @return void
+     */
+    public void onBeaconDetectado(RegistroPlacas.Placa placa, TramaAtmos trama, int rssi, long tNanos) {
+
+        /*
+        --- ESTO ESTÁ ROMPIENDO LA LÓGICA DEL ESTADO DEL SENSOR (encendido o apagado y la señal rssi ---
+        --- APARTE NO SIRVE DE NADA HACER EL PROMEDIO EL SENSOR SIGUE MIDIENDO MAL ---
+        --- LO ÚNICO QUE HAY QUE CONTROLAR ES QUE NO SE ENVIE UNA MEDIDA IGUAL A LA ANTERIOR Y YA --- (contador distinto al anterior, como dijo Jordi)
+
+        // 1) Detectar si esta medición es REAL (ha cambiado)
+        if (Math.abs(valor - ultimoValorReal) < 0.0001f) {
+            // Es el mismo valor que antes → es anuncio duplicado → ignorar
+            Log.d("ATMOS_REAL", "Duplicado BLE ignorado. valor=" + valor);
+            return;
+        }
+
+        // 2) Es una nueva medición real → guardarla
+        ultimoValorReal = valor;
+
+        Log.d("ATMOS_REAL", "Nueva medición REAL añadida al buffer → valor=" + valor);
+
+        bufferValores.add(valor);
+        bufferRSSI.add(rssi);
+
+        // 3) Si aún no tenemos 5 mediciones reales → salir
+        if (bufferValores.size() < 5)
+            return;
+
+        // 4) Calcular promedios reales
+        double promValor = bufferValores.stream().mapToDouble(Float::doubleValue).average().orElse(0);
+        int promRSSI = (int) bufferRSSI.stream().mapToInt(Integer::intValue).average().orElse(0);
+
+        bufferValores.clear();
+        bufferRSSI.clear(); */
+
+        // 1) Si el contador ya se había recibido → es duplicado BLE → ignorar
+        //    (SecuenciaContador de la placa: también cuenta huecos y desorden)
+        int contador = trama.getContador();
+        int resultado = placa.secuencia.registrar(contador, tNanos / 1_000_000);
+        contarSecuencia(resultado);
+        if (!SecuenciaContador.esNueva(resultado)) {
+            if (Instrumentacion.logDetallado) {
+                Log.d("ATMOS_DUPLICADO", "Ignorado contador repetido = " + contador);
+            }
+            return;
+        }
+
+        // 2) Fechas del anuncio: hora local para la pantalla y hora del
+        //    servidor (corregida la deriva, RelojServidor) para la subida
+        long instanteLocal = System.currentTimeMillis()
+                - SystemClock.elapsedRealtime() + tNanos / 1_000_000;
+        long instanteServidor = SincronizacionHora.aHoraServidor(tNanos);
+
+        // 3) Cada gas del anuncio por separado
+        for (int i = 0; i < trama.getMedidas(); i++) {
+            procesarMedida(placa, trama.getGas(i), trama.getValor(i), rssi, contador,
+                    instanteLocal, instanteServidor);
+        }
+    }
+
+    /**
+     * @brief Procesa una medida nueva de un gas de una placa: canal, agregados
+     *        locales, GPS y compresor.
+     *
+     * @param[in] instanteLocal    Recepción en hora del móvil (canal y agregados).
+     * @param[in] instanteServidor Recepción en hora del servidor (la que se sube).
+     */
+    private void procesarMedida(RegistroPlacas.Placa placa, int tipoGas, float valor,
+                                int rssi, int contador, long instanteLocal, long instanteServidor) {
+
+        // Canal del gas en la placa (los gases que no son de Atmos se descartan)
+        if (placa.anotarMedida(tipoGas, valor, instanteLocal) == null) {
+            Metricas.getInstance().contador("ble.gas_desconocido").incrementar();
+            return;
+        }
+
+        Metricas.getInstance().contador("ble.medidas_nuevas").incrementar();
+        if (Instrumentacion.logDetallado) {
+            Log.d("ATMOS_REAL", "NUEVA medida real: placa=" + placa.nombre
+                    + " valor=" + valor + " contador=" + contador);
+        }
+
+        // Agregados locales de la placa del usuario (todas las medidas, antes de comprimir)
+        if (placa.isVinculada()) {
+            AgregadorMedidas.getInstance().anadir(tipoGas, valor, instanteLocal);
+            // Dosis de exposición: con la hora del servidor, como el recorrido
+            ExposicionDiaria.getInstance().medida(tipoGas, valor, instanteServidor);
+            // Alertas locales: el aviso sale en este mismo escaneo
+            evaluarAlertas(tipoGas, valor, instanteLocal);
+        }
+
+        // Obtener GPS y pasarla por el compresor, que decide si se sube
+        // (el instante es el del escaneo, no el de la respuesta del GPS ni
+        // el de la subida, que puede ir en un lote mucho después)
+        obtenerGPS((lat, lon) -> {
+            // La respuesta puede llegar con el módulo ya parado (y los
+            // compresores vaciados)
+            if (!activo) return;
+            placa.compresor.ofrecer(
+                    new CompresorMedidas.Muestra(instanteServidor, tipoGas, valor, rssi, lat, lon));
+        });
+    }
+
+    /**
+     * @brief Pasa una medida de la placa del usuario por MotorAlertas y
+     *        muestra las alertas que salgan.
+     */
+    private void evaluarAlertas(int tipoGas, float valor, long instanteLocal) {
+        int res = alertas.evaluar(tipoGas, valor, instanteLocal, (regla, v, t) -> {
+            NotificacionesManager.getInstance(servicio)
+                    .mostrarAlertaLocal(servicio, regla.tipo, regla.titulo, regla.texto(v));
+            Log.w(TAG, "Alerta local " + regla.tipo + ": " + v);
+        });
+        if (res == MotorAlertas.AVISO) {
+            Metricas.getInstance().contador("alertas.locales").incrementar();
+        } else if (res == MotorAlertas.RETENIDA) {
+            Metricas.getInstance().contador("alertas.retenidas").incrementar();
+        }
+    }
+
+    /**
+     * @brief Cuenta en Metricas el resultado de SecuenciaContador.registrar().
+     */
+    private static void contarSecuencia(int resultado) {
+        switch (resultado) {
+            case SecuenciaContador.DUPLICADA:
+                Metricas.getInstance().contador("ble.duplicados").incrementar();
+                break;
+            case SecuenciaContador.DESORDENADA:
+                Metricas.getInstance().contador("ble.desordenados").incrementar();
+                break;
+            case SecuenciaContador.RESINCRONIZADA:
+                Metricas.getInstance().contador("ble.resincronizaciones").incrementar();
+                break;
+            case SecuenciaContador.ANTIGUA:
+                Metricas.getInstance().contador("ble.antiguos").incrementar();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @brief Deja en la bandeja de subidas una medida que el compresor ha
+     *        decidido enviar.
+     *
+     * @param[in] placa Placa de la medida.
+     * @param[in] m Medida (con su instante original; el valor puede estar
+     *              ajustado dentro de la tolerancia, ver CompresorMedidas).
+     */
+    private void subirMedida(RegistroPlacas.Placa placa, CompresorMedidas.Muestra m) {
+        final String nombre = placa.nombre;
+        servicio.getBandeja().anadir("medida", seq -> LogicaFake.enviarMedicion(
+                nombre,
+                m.tipoGas,
+                m.valor,
+                m.rssi,
+                m.lat,
+                m.lon,
+                m.tMs,
+                seq
+        ));
+
+        Metricas.getInstance().contador("ble.medidas_subidas").incrementar();
+        if (placa.isVinculada()) {
+            Metricas.getInstance().indicador("compresion.ratio_x100")
+                    .fijar(Math.round(placa.compresor.getRatio() * 100));
+        }
+
+        if (Instrumentacion.logDetallado) {
+            Log.d("ATMOS_ENVIO",
+                    "ENVIADO placa=" + placa.nombre +
+                            " valor=" + m.valor +
+                            " tipoGas=" + m.tipoGas +
+                            " rssi=" + m.rssi +
+                            " lat=" + m.lat +
+                            " lon=" + m.lon +
+                            " ratio=" + placa.compresor.getRatio());
+        }
+    }
+
+    /**
+     * @brief Obtiene la ubicación aproximada del dispositivo o (-1, -1) si no disponible.
+     *
+     * @details
+     *  - Pide la última a LocalizacionCompartida: si el recorrido está en
+     *    marcha usa su localización, sin llamar al sistema.
+     *  - Si falla → aplica fallback a (-1, -1).
+     *
+     * @param[in] callback Función que recibe latitud y longitud.
+     *
+     * @return void
+     */
+    private void obtenerGPS(GPSCallback callback) {
+
+        servicio.getLocalizacion().ultima(loc -> {
+            if (loc != null)
+                callback.onGPS(loc.getLatitude(), loc.getLongitude());
+            else
+                callback.onGPS(-1, -1);
+        });
+    }
+
+    /**
+     * @brief Interfaz callback para recibir coordenadas GPS.
+     */
+    private interface GPSCallback {
+        void onGPS(double lat, double lon);
+    }
+
+    /**
+     * @brief Comprueba periódicamente si las placas siguen enviando beacons.
+     *
+     * @details
+     *  - Si pasan >5s sin recibir anuncios BLE de una placa → encendida = 0
+     *    (una vez, al cambiar).
+     *  - Se ejecuta cada 2 segundos.
+     *
+     * @return void
+     */
+    private void iniciarVerificacionEstado() {
+
+        handlerEstado.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                long cpu0 = ServicioSensores.inicioDespertar();
+
+                Metricas.getInstance().contador("sondeo.estado_placa_ble").incrementar();
+                // Presencia con el reloj monótono, como anotarAnuncio()
+                long ahora = SystemClock.elapsedRealtime();
+
+                registro.revisarPresencia(ahora, (placa, encendida) -> servicio.getBandeja()
+                        .anadir("estado_placa", seq -> LogicaFake.enviarEstadoPlaca(placa.nombre, 0, seq)));
+
+                // Pérdidas y tasa de entrega de cada placa (para ajustar el
+                // escaneo y la colocación con datos reales)
+                for (RegistroPlacas.Placa placa : registro.placas()) {
+                    Metricas.getInstance().indicador("ble.perdidas." + placa.nombre)
+                            .fijar(placa.secuencia.getPerdidas());
+                    Metricas.getInstance().indicador("ble.pdr_x1000." + placa.nombre)
+                            .fijar(Math.round(placa.secuencia.getTasaEntrega() * 1000));
+                    if (placa.getBateria() != TramaAtmos.BATERIA_DESCONOCIDA) {
+                        Metricas.getInstance().indicador("placa.bateria_pct." + placa.nombre)
+                                .fijar(placa.getBateria());
+                    }
+                }
+
+                // Casi siempre no hace nada (cada 6 h, RelojServidor)
+                SincronizacionHora.sincronizarSiToca(servicio);
+
+                servicio.anotarDespertar(getNombre(), cpu0);
+                handlerEstado.postDelayed(this, 2000);
+            }
+        }, 2000);
+    }
+
+    // Escucha cambios de estado del Bluetooth (ON / OFF)
+    private final BroadcastReceiver receptorBT = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final String accion = intent.getAction();
+
+            if (BluetoothAdapter.ACTION_STATE_CHANGED.equals(accion)) {
+                int estado = intent.getIntExtra(BluetoothAdapter.EXTRA_STATE, BluetoothAdapter.ERROR);
+
+                if (estado == BluetoothAdapter.STATE_ON) {
+                    Log.d(TAG, "Bluetooth encendido → reiniciando escaneo BLE");
+                    // Solo tiene sentido si ya hay alguna placa que escuchar
+                    if (registro.size() > 0) {
+                        iniciarEscaneoBLE();
+                    }
+                }
+
+                if (estado == BluetoothAdapter.STATE_OFF) {
+                    Log.d(TAG, "Bluetooth apagado → deteniendo escaneo BLE");
+                    try {
+                        if (escanerBLE != null) {
+                            if (ActivityCompat.checkSelfPermission(servicio, Manifest.permission.BLUETOOTH_SCAN) != PackageManager.PERMISSION_GRANTED) {
+                                // TODO: Consider calling
+                                //    ActivityCompat#requestPermissions
+                                // here to request the missing permissions, and then overriding
+                                //   public void onRequestPermissionsResult(int requestCode, String[] permissions,
+                                //                                          int[] grantResults)
+                                // to handle the case where the user grants the permission. See the documentation
+                                // for ActivityCompat#requestPermissions for more details.
+                                return;
+                            }
+                            escanerBLE.stopScan(callbackBLE);
+                        }
+                    } catch (Exception ignored) { }
+                }
+            }
+        }
+    };
+
+    /**
+     * Reinicia periódicamente el escaneo BLE para evitar que Doze / pantalla apagada
+     * lo deje "congelado". Cada 15 segundos se para y se vuelve a arrancar.
+     */
+    private void iniciarReinicioPeriodicoEscaneo() {
+        // Limpiamos callbacks anteriores
+        handlerReinicioScan.removeCallbacksAndMessages(null);
+
+        handlerReinicioScan.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                long cpu0 = ServicioSensores.inicioDespertar();
+                try {
+                    if (bluetoothAdapter != null &&
+                            bluetoothAdapter.isEnabled() &&
+                            escanerBLE != null &&
+                            scanSettings != null) {
+
+                        if (ActivityCompat.checkSelfPermission(servicio, Manifest.permission.BLUETOOTH_SCAN) != PackageManager.PERMISSION_GRANTED) {
+                            // TODO: Consider calling
+                            //    ActivityCompat#requestPermissions
+                            // here to request the missing permissions, and then overriding
+                            //   public void onRequestPermissionsResult(int requestCode, String[] permissions,
+                            //                                          int[] grantResults)
+                            // to handle the case where the user grants the permission. See the documentation
+                            // for ActivityCompat#requestPermissions for more details.
+                            return;
+                        }
+                        escanerBLE.stopScan(callbackBLE);
+                        escanerBLE.startScan(null, scanSettings, callbackBLE);
+                        Metricas.getInstance().contador("ble.reinicios_escaneo").incrementar();
+                        Log.d(TAG, "Reinicio periódico de escaneo BLE");
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "Error reiniciando escaneo BLE", e);
+                }
+
+                // Programar el siguiente reinicio
+                servicio.anotarDespertar(getNombre(), cpu0);
+                handlerReinicioScan.postDelayed(this, 15000); // 15 segundos
+            }
+        }, 15000);
+    }
+
+    /**
+     * @brief Para el escaneo, sube lo retenido en los compresores y suelta
+     *        lo propio del módulo.
+     */
+    @Override
+    public void detener() {
+        activo = false;
+
+        GrabadoraTrazas.setDestinoAnuncios(null);
+
+        // Subir lo que los compresores tengan retenido
+        for (RegistroPlacas.Placa placa : registro.placas()) {
+            placa.compresor.vaciar();
+            Log.d(TAG, "Compresión de medidas de " + placa.nombre + ": "
+                    + placa.compresor.getRecibidas() + " → "
+                    + placa.compresor.getEnviadas() + " (x" + placa.compresor.getRatio() + ")");
+            Log.d(TAG, "Entrega de " + placa.nombre + ": " + placa.secuencia.getNuevas()
+                    + " recibidas, " + placa.secuencia.getPerdidas() + " perdidas, PDR "
+                    + placa.secuencia.getTasaEntrega());
+        }
+
+        // Parar escaneo BLE (sin permiso no puede haber escaneo; se sigue
+        // limpiando lo demás)
+        try {
+            if (escanerBLE != null
+                    && ActivityCompat.checkSelfPermission(servicio, Manifest.permission.BLUETOOTH_SCAN) == PackageManager.PERMISSION_GRANTED) {
+                escanerBLE.stopScan(callbackBLE);
+            }
+        } catch (Exception ignored) { }
+
+        // Eliminar callbacks de handlers
+        handlerEstado.removeCallbacksAndMessages(null);
+        handlerReinicioScan.removeCallbacksAndMessages(null);
+
+        // Desregistrar receptor de Bluetooth
+        try {
+            servicio.unregisterReceiver(receptorBT);
+        } catch (Exception ignored) { }
+
+        Log.d(TAG, "ModuloBeacons detenido");
+    }
+}
\ No newline at end of file
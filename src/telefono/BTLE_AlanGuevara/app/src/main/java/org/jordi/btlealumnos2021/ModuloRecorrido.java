@@ -0,0 +1,443 @@
+package org.jordi.btlealumnos2021;
+
+import android.content.Context;
+import android.content.Intent;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.location.Location;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.location.Priority;
+
+/**
+ * @file ModuloRecorrido.java
+ * @brief Módulo GPS de ServicioSensores para el cálculo de la distancia diaria.
+ *
+ * Se ejecuta dentro del servicio en primer plano de los sensores para
+ * garantizar su continuidad incluso cuando la aplicación se encuentra en
+ * segundo plano. Hasta el 19/10/2026 era un servicio propio
+ * (ServicioRecorridoGPS); ahora comparte servicio, localización y subidas
+ * con ModuloBeacons.
+ *
+ * Funcionalidades principales:
+ *  - Obtención periódica de la ubicación del usuario mediante la
+ *    suscripción compartida (LocalizacionCompartida)
+ *  - Cálculo incremental de la distancia recorrida
+ *  - Filtrado de lecturas erróneas o poco precisas (GPS drift)
+ *  - Envío progresivo de datos al backend (BandejaSubidas)
+ *  - Trazado simplificado del recorrido, subido por tramos codificados
+ *    (TrazadoRecorrido) para dibujarlo en MapasActivity
+ *  - Comunicación en tiempo real con la interfaz mediante Broadcasts
+ *
+ * Está optimizado para el consumo de batería mediante:
+ *  - Muestreo adaptativo (PlanificadorGps): con el acelerómetro
+ *    (DetectorQuietud) se detecta si el usuario está quieto y entonces la
+ *    suscripción pasa a pasiva; andando se pide una localización cada
+ *    5 s y en bici, cada 2 s
+ *  - Filtro de precisión y velocidad
+ *  - Uso controlado de la prioridad de localización
+ *
+ * Se usa el acelerómetro y no Activity Recognition para no pedir el
+ * permiso ACTIVITY_RECOGNITION. Se registra a 5 Hz con entrega por
+ * tandas (LATENCIA_ACELEROMETRO_US): el sensor acumula en su FIFO y la
+ * CPU despierta pocas veces.
+ *
+ * @author Alan Guevara Martínez
+ * @date 17/12/2025
+ */
+public class ModuloRecorrido implements ServicioSensores.Modulo,
+        LocalizacionCompartida.Oyente, SensorEventListener {
+
+    /** Periodo de muestreo del acelerómetro (µs): 5 Hz */
+    private static final int PERIODO_ACELEROMETRO_US = 200_000;
+
+    /** Retraso máximo de entrega de las tandas del acelerómetro (µs) */
+    private static final int LATENCIA_ACELEROMETRO_US = 10_000_000;
+
+    /** Eventos separados menos de esto son de la misma tanda (un despertar) */
+    private static final long TANDA_MS = 1000;
+
+    // Presupuesto en ServicioSensores: una localización por segundo en bici
+    // más las tandas del acelerómetro
+    private static final double PRESUPUESTO_DESPERTARES_MIN = 70;
+    private static final double PRESUPUESTO_CPU_MS_MIN = 140;
+
+    /** Servicio que aloja el módulo */
+    private ServicioSensores servicio;
+
+    /** Filtro de Kalman: suaviza posición y velocidad y da la distancia */
+    private final FiltroKalmanRecorrido filtro = new FiltroKalmanRecorrido();
+
+    /** Distancia total acumulada durante el día (en metros) */
+    private double distanciaAcumulada = 0;
+
+    /** Trazado del recorrido (posiciones filtradas, simplificadas y por tramos) */
+    private TrazadoRecorrido trazado;
+
+    /** Quietud a partir del acelerómetro y modo del GPS */
+    private final DetectorQuietud detector = new DetectorQuietud();
+    private final PlanificadorGps planificador = new PlanificadorGps();
+
+    private SensorManager sensores;
+    private long ultimaEntregaMs = Long.MIN_VALUE / 2;
+
+    /** Etiqueta para mensajes de depuración */
+    private static final String TAG = "ServicioRecorridoGPS";
+
+    /**
+     * Acción de broadcast utilizada para notificar a la UI
+     * actualizaciones de la distancia recorrida en tiempo real.
+     */
+    public static final String ACTION_RECorrido_UPDATE =
+            "org.jordi.btlealumnos2021.RECORRIDO_UPDATE";
+
+    /**
+     * Acción broadcast enviada cuando el módulo se detiene completamente.
+     * Permite a la UI sincronizar su estado (botón iniciar/detener).
+     */
+    public static final String ACTION_SERVICIO_DETENIDO =
+            "org.jordi.btlealumnos2021.RECORRIDO_STOPPED";
+
+
+    /**
+     * Permite consultar desde fuera si el recorrido está activo.
+     */
+    public static boolean isRunning() {
+        return ServicioSensores.moduloActivo(ServicioSensores.MODULO_RECORRIDO);
+    }
+
+    @Override
+    public String getNombre() {
+        return ServicioSensores.MODULO_RECORRIDO;
+    }
+
+    @Override
+    public double getPresupuestoDespertaresMin() {
+        return PRESUPUESTO_DESPERTARES_MIN;
+    }
+
+    @Override
+    public double getPresupuestoCpuMsMin() {
+        return PRESUPUESTO_CPU_MS_MIN;
+    }
+
+    /**
+     * Método invocado al iniciar el módulo.
+     *
+     * Inicializa la distancia acumulada desde el backend e inicia la
+     * obtención de localizaciones.
+     *
+     * @param servicio Servicio que aloja el módulo.
+     */
+    @Override
+    public void iniciar(ServicioSensores servicio) {
+
+        Log.d(TAG, "Módulo iniciado");
+
+        this.servicio = servicio;
+        this.trazado = new TrazadoRecorrido(this::subirTramo);
+
+        inicializarDistanciaAcumulada();
+        planificador.empezar(SystemClock.elapsedRealtime());
+        if (!iniciarLocalizacion()) return;
+        iniciarAcelerometro();
+    }
+
+    /**
+     * @brief Se suscribe a la localización compartida con los intervalos
+     *        y la prioridad del modo actual.
+     *
+     * Sin permisos de localización el módulo se detiene.
+     *
+     * @return false si no hay permisos.
+     */
+    private boolean iniciarLocalizacion() {
+
+        Log.d(TAG, "Inicializando localización");
+
+        if (!suscribir()) {
+            Log.e(TAG, "Permisos GPS NO concedidos. Abortando localización.");
+            servicio.pararModulo(getNombre());
+            return false;
+        }
+
+        Log.d(TAG, "Suscripción a la localización compartida lanzada correctamente");
+        return true;
+    }
+
+    private boolean suscribir() {
+        int prioridad = planificador.usaGps()
+                ? Priority.PRIORITY_HIGH_ACCURACY
+                : Priority.PRIORITY_PASSIVE;
+        return servicio.getLocalizacion().suscribir(this,
+                planificador.getIntervaloMs(), planificador.getRapidoMs(), prioridad);
+    }
+
+    /**
+     * @brief Registra el acelerómetro por tandas. Sin acelerómetro el
+     *        planificador no sale de ANDANDO (el comportamiento de antes).
+     */
+    private void iniciarAcelerometro() {
+        sensores = (SensorManager) servicio.getSystemService(Context.SENSOR_SERVICE);
+        Sensor acelerometro = sensores == null ? null : sensores.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+        if (acelerometro == null) {
+            Log.w(TAG, "Sin acelerómetro: GPS siempre en modo andando");
+            sensores = null;
+            return;
+        }
+        sensores.registerListener(this, acelerometro,
+                PERIODO_ACELEROMETRO_US, LATENCIA_ACELEROMETRO_US);
+    }
+
+    /**
+     * @brief Recibe cada muestra del acelerómetro (llegan por tandas).
+     *
+     * Solo la primera muestra de cada tanda cuenta como despertar; el
+     * resto se procesan en el mismo.
+     */
+    @Override
+    public void onSensorChanged(SensorEvent e) {
+        long ahora = SystemClock.elapsedRealtime();
+        boolean tanda = ahora - ultimaEntregaMs > TANDA_MS;
+        ultimaEntregaMs = ahora;
+        long cpu0 = tanda ? ServicioSensores.inicioDespertar() : 0;
+
+        if (detector.anadir(e.values[0], e.values[1], e.values[2], e.timestamp)
+                && planificador.alMovimiento(detector.estaQuieto(), ahora)) {
+            aplicarModo(ahora);
+        }
+
+        if (tanda) servicio.anotarDespertar(getNombre(), cpu0);
+    }
+
+    @Override
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+    }
+
+    /**
+     * @brief Cambia la suscripción al modo nuevo del planificador.
+     */
+    private void aplicarModo(long ahora) {
+        Log.d(TAG, "Modo GPS: " + PlanificadorGps.nombre(planificador.getModo())
+                + " (desviación acelerómetro " + detector.getUltimaDesviacion() + ")");
+        suscribir();
+        Metricas.getInstance().contador("gps.cambios_modo").incrementar();
+        publicarModo(ahora);
+    }
+
+    /**
+     * @brief Modo actual y tiempo en cada modo a Metricas (el tiempo con el
+     *        GPS encendido es el de andando más el de rápido).
+     */
+    private void publicarModo(long ahora) {
+        Metricas m = Metricas.getInstance();
+        m.indicador("gps.modo").fijar(planificador.getModo());
+        for (int i = PlanificadorGps.QUIETO; i <= PlanificadorGps.RAPIDO; i++) {
+            m.indicador("gps.ms_" + PlanificadorGps.nombre(i))
+                    .fijar(planificador.getMsEnModo(i, ahora));
+        }
+    }
+
+    /**
+     * @brief Recibe cada localización de la suscripción compartida.
+     */
+    @Override
+    public void onLocalizacion(Location loc) {
+        long cpu0 = ServicioSensores.inicioDespertar();
+        long ahora = SystemClock.elapsedRealtime();
+        if (planificador.alLocalizacion(loc.hasSpeed() ? loc.getSpeed() : 0, ahora)) {
+            aplicarModo(ahora);
+        }
+        procesarLocalizacion(loc);
+        servicio.anotarDespertar(getNombre(), cpu0);
+    }
+
+    /**
+     * @brief Procesa una nueva localización recibida.
+     *
+     * Calcula el incremento de distancia respecto a la última
+     * localización válida, aplicando filtros para descartar
+     * lecturas erróneas, saltos irreales o situaciones de
+     * usuario en reposo.
+     *
+     * @param nueva Nueva localización recibida.
+     */
+    private void procesarLocalizacion(Location nueva) {
+
+        if (Instrumentacion.logDetallado) {
+            Log.d(TAG, "Nueva localización: "
+                    + nueva.getLatitude() + ", "
+                    + nueva.getLongitude()
+                    + " | Accuracy: " + nueva.getAccuracy());
+        }
+
+        // ------------------------------------------------------------------
+        // Filtro de Kalman (ver FiltroKalmanRecorrido):
+        //    - precisión peor de 50 m → lectura descartada
+        //    - primera localización (o tras 5 min sin ninguna) → inicio
+        //    - posición incompatible con la estimada → salto del GPS
+        //    - velocidad < 0.5 m/s → parado
+        //    - si no, la distancia sale por tramos de la posición filtrada
+        // ------------------------------------------------------------------
+        double incremento = filtro.procesar(
+                nueva.getLatitude(),
+                nueva.getLongitude(),
+                nueva.getAccuracy(),
+                nueva.hasSpeed() ? nueva.getSpeed() : -1,
+                nueva.hasBearing() ? nueva.getBearing() : Float.NaN,
+                nueva.getElapsedRealtimeNanos() / 1_000_000
+        );
+
+        // Descartes del filtro (el motivo concreto va al log)
+        if (filtro.getMotivo() != FiltroKalmanRecorrido.ACEPTADA) {
+            Metricas.getInstance().contador("gps.descartadas").incrementar();
+        }
+
+        switch (filtro.getMotivo()) {
+            case FiltroKalmanRecorrido.POCA_PRECISION:
+                Log.w(TAG, "Localización descartada por baja precisión: " + nueva.getAccuracy());
+                return;
+            case FiltroKalmanRecorrido.PRIMERA:
+                Log.d(TAG, "Filtro iniciado en esta localización");
+                return;
+            case FiltroKalmanRecorrido.ATIPICA:
+                Log.w(TAG, "Salto GPS descartado");
+                return;
+            case FiltroKalmanRecorrido.PARADO:
+                Log.d(TAG, "Parado: velocidad " + nueva.getSpeed()
+                        + ", estimada " + filtro.getVelocidad());
+                // Parado no se añade nada al trazado: se entrega ya el tramo
+                // abierto (solo hace algo la primera vez) para que se vea en
+                // el mapa sin esperar a que el usuario vuelva a moverse
+                trazado.entregar();
+                // Sigue contando para la exposición (tiempo quieto aquí)
+                ExposicionDiaria.getInstance().posicion(filtro.getLatitud(), filtro.getLongitud(),
+                        0, SincronizacionHora.aHoraServidor(nueva.getElapsedRealtimeNanos()));
+                return;
+            default:
+                break;
+        }
+
+        // Posición filtrada al trazado y a la exposición (con la hora del
+        // servidor, para cruzarla con las medidas)
+        long instanteServidor = SincronizacionHora.aHoraServidor(nueva.getElapsedRealtimeNanos());
+        trazado.anadir(filtro.getLatitud(), filtro.getLongitud(), instanteServidor);
+        ExposicionDiaria.getInstance().posicion(filtro.getLatitud(), filtro.getLongitud(),
+                filtro.getVelocidad(), instanteServidor);
+
+        // El tramo aún no llega a FiltroKalmanRecorrido.PASO_M
+        if (incremento <= 0) return;
+
+        // ------------------------------------------------------------------
+        // Incremento válido
+        //    Se suma la distancia al total acumulado del día.
+        // ------------------------------------------------------------------
+        distanciaAcumulada += incremento;
+
+        int idUsuario = SesionManager.obtenerIdUsuario(servicio);
+
+        Log.d(TAG, "Incremento aceptado: " + incremento + " m");
+        Log.d(TAG,
+                "Total acumulado (local): "
+                        + distanciaAcumulada + " m");
+
+        if (idUsuario > 0) {
+
+            // Guardado incremental en backend (bandeja de subidas compartida)
+            final double enviar = incremento;
+            servicio.getBandeja().anadir("recorrido",
+                    seq -> LogicaFake.enviarRecorrido(idUsuario, enviar, seq));
+
+            Log.d(TAG, "Incremento enviado al backend");
+
+            // Broadcast para actualización inmediata de la UI (y del
+            // trazado en el mapa)
+            Intent intent = new Intent(ACTION_RECorrido_UPDATE);
+            intent.putExtra("distancia_total", distanciaAcumulada);
+            intent.putExtra("lat", filtro.getLatitud());
+            intent.putExtra("lon", filtro.getLongitud());
+            servicio.sendBroadcast(intent);
+
+            Log.d(TAG,
+                    "Broadcast enviado. Distancia total: "
+                            + distanciaAcumulada);
+        }
+    }
+
+    /**
+     * Método invocado al detener el módulo.
+     *
+     * Cancela su suscripción a la localización compartida (si era la
+     * última, se deja de pedir al sistema) y avisa a la UI.
+     */
+    @Override
+    public void detener() {
+
+        Log.d(TAG, "Módulo detenido");
+
+        if (sensores != null) {
+            sensores.unregisterListener(this);
+            sensores = null;
+        }
+        trazado.cerrar();
+        Metricas.getInstance().indicador("recorrido.puntos_trazado").fijar(trazado.getGuardados());
+        publicarModo(SystemClock.elapsedRealtime());
+
+        servicio.getLocalizacion().cancelar(this);
+        Log.d(TAG, "Suscripción de localización cancelada");
+
+        // Avisar a la UI de que el recorrido se ha detenido
+        Intent intent = new Intent(ACTION_SERVICIO_DETENIDO);
+        servicio.sendBroadcast(intent);
+    }
+
+    /**
+     * @brief Sube un tramo terminado del trazado (bandeja compartida).
+     */
+    private void subirTramo(long inicioMs, String puntos, int n) {
+        int idUsuario = SesionManager.obtenerIdUsuario(servicio);
+        if (idUsuario <= 0) return;
+
+        Metricas.getInstance().contador("recorrido.tramos").incrementar();
+        Metricas.getInstance().contador("recorrido.bytes_tramos").sumar(puntos.length());
+        servicio.getBandeja().anadir("tramo_recorrido",
+                seq -> LogicaFake.enviarTramoRecorrido(idUsuario, inicioMs, puntos, n, seq));
+    }
+
+    /**
+     * @brief Inicializa la distancia acumulada del día desde el backend.
+     *
+     * Recupera la distancia ya recorrida durante el día actual
+     * para continuar el cálculo de forma coherente tras reinicios
+     * del servicio.
+     */
+    private void inicializarDistanciaAcumulada() {
+
+        int idUsuario = SesionManager.obtenerIdUsuario(servicio);
+
+        if (idUsuario <= 0) {
+            Log.e(TAG,
+                    "ID usuario inválido al inicializar distancia");
+            return;
+        }
+
+        LogicaFake.obtenerRecorrido(
+                idUsuario,
+                servicio.getCola(),
+                new LogicaFake.CallbackRecorrido() {
+                    @Override
+                    public void onRespuesta(double hoy, double ayer) {
+
+                        distanciaAcumulada = hoy;
+
+                        Log.d(TAG,
+                                "Distancia inicial del día cargada: "
+                                        + distanciaAcumulada + " m");
+                    }
+                }
+        );
+    }
+}
@@ -0,0 +1,248 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @brief Alertas de calidad del aire evaluadas en el móvil con cada medida
+ *        de la placa del usuario.
+ *
+ * Hasta ahora las alertas llegaban por el cron del servidor
+ * (notificacionesCron.js), /notificacionesUsuario y el sondeo de
+ * NotificacionesActivity: minutos de retraso. ModuloBeacons ya ve cada
+ * medida, así que le pasa aquí las de la placa vinculada y el aviso sale
+ * en el mismo escaneo.
+ *
+ * Cada Regla es de un gas y se dispara cuando el valor supera uno de los
+ * umbrales de ClasificadorCalidad (los actuales, también si el servidor
+ * los cambia):
+ *  - instantánea (duracionMs = 0): con la primera medida por encima;
+ *  - sostenida: por encima durante duracionMs seguidos. Un hueco de más
+ *    de MAX_HUECO_MS sin medidas vuelve a empezar la cuenta.
+ *
+ * Histéresis: una regla disparada no vuelve a avisar hasta que el valor
+ * baja de umbral × (1 − HISTERESIS); mientras esté entre los dos, sigue
+ * "encima" (no parpadea con el ruido del sensor).
+ *
+ * Límites de avisos: cada regla espera minIntervaloMs desde su último
+ * aviso y, entre todas, como mucho MAX_AVISOS_HORA por hora (cubo de
+ * fichas). Un aviso retenido no se pierde: sale en la siguiente medida
+ * permitida si la condición sigue cumpliéndose.
+ *
+ * El estado es fijo por regla y cada medida solo mira las reglas de su
+ * gas: O(1) por medida, sin listas de muestras.
+ *
+ * ModuloBeacons traduce la Salida a una notificación del sistema
+ * (NotificacionesManager).
+ *
+ * @date 19/10/2026
+ */
+public final class MotorAlertas {
+
+    /** Fracción del umbral que hay que bajar para rearmar una regla. */
+    public static final double HISTERESIS = 0.10;
+    /** Hueco sin medidas que reinicia una condición sostenida (ms). */
+    public static final long MAX_HUECO_MS = 60_000;
+    /** Avisos como mucho por hora, entre todas las reglas. */
+    public static final int MAX_AVISOS_HORA = 6;
+
+    /** Duración de las reglas sostenidas por defecto (ms). */
+    public static final long SOSTENIDA_MS = 5 * 60_000L;
+    /**
+     * Tras una alerta de un gas (local o del servidor), la del otro origen
+     * sobre el mismo gas se considera repetida durante este tiempo (ms).
+     */
+    public static final long VENTANA_REPETIDA_MS = 30 * 60_000L;
+
+    // Resultado de evaluar() (para las métricas)
+    public static final int NADA = 0;
+    public static final int RETENIDA = 1;
+    public static final int AVISO = 2;
+
+    private static final int PRIMER_GAS = ClasificadorCalidad.GAS_NO2;
+    private static final int NUM_GASES = 4;
+    private static final long HORA_MS = 3_600_000L;
+
+    /** Nombre de cada gas para los textos y para el tipo de las reglas. */
+    private static final String[] NOMBRE_GAS = {"NO₂", "CO", "O₃", "SO₂"};
+    private static final String[] ID_GAS = {"NO2", "CO", "O3", "SO2"};
+
+    /**
+     * @brief Recibe cada alerta que hay que mostrar.
+     */
+    public interface Salida {
+        void alerta(Regla regla, double valor, long tMs);
+    }
+
+    /**
+     * @brief Condición de aviso de un gas.
+     */
+    public static final class Regla {
+        /** Identificador corto (también el de la notificación). */
+        public final String tipo;
+        public final int tipoGas;
+        /** Índice del umbral de ClasificadorCalidad que hay que superar. */
+        public final int indiceUmbral;
+        /** Tiempo que hay que estar por encima (0 = instantánea). */
+        public final long duracionMs;
+        /** Tiempo mínimo entre dos avisos de la regla. */
+        public final long minIntervaloMs;
+        public final String titulo;
+
+        // Estado (solo lo toca el motor)
+        private long encimaDesdeMs = -1;
+        private long ultimaMedidaMs = -1;
+        private boolean disparada = false;
+        private long ultimoAvisoMs = -1;
+
+        public Regla(String tipo, int tipoGas, int indiceUmbral, long duracionMs,
+                     long minIntervaloMs, String titulo) {
+            this.tipo = tipo;
+            this.tipoGas = tipoGas;
+            this.indiceUmbral = indiceUmbral;
+            this.duracionMs = duracionMs;
+            this.minIntervaloMs = minIntervaloMs;
+            this.titulo = titulo;
+        }
+
+        /** Umbral actual de la regla. */
+        public double umbral() {
+            return ClasificadorCalidad.umbral(tipoGas, indiceUmbral);
+        }
+
+        /** Texto de la notificación para un valor. */
+        public String texto(double valor) {
+            String nombre = nombreGas(tipoGas);
+            String s = String.format(Locale.US, "%s: %.3f ppm (límite %.3f ppm)",
+                    nombre, valor, umbral());
+            if (duracionMs > 0) s += " durante " + (duracionMs / 60_000) + " min";
+            return s + ".";
+        }
+    }
+
+    /** Reglas de cada gas (índice tipoGas − PRIMER_GAS). */
+    private final List<List<Regla>> porGas = new ArrayList<>(NUM_GASES);
+
+    // Cubo de fichas de los avisos
+    private double fichas = MAX_AVISOS_HORA;
+    private long fichasMs = -1;
+
+    public MotorAlertas(List<Regla> reglas) {
+        for (int i = 0; i < NUM_GASES; i++) porGas.add(new ArrayList<>());
+        for (Regla r : reglas) {
+            int g = r.tipoGas - PRIMER_GAS;
+            if (g >= 0 && g < NUM_GASES) porGas.get(g).add(r);
+        }
+    }
+
+    /**
+     * @brief Reglas por defecto para cada gas: valor "Mala" al momento y
+     *        "Insalubre" o peor durante SOSTENIDA_MS.
+     */
+    public static List<Regla> reglasPorDefecto() {
+        List<Regla> reglas = new ArrayList<>();
+        for (int g = PRIMER_GAS; g < PRIMER_GAS + NUM_GASES; g++) {
+            String nombre = nombreGas(g);
+            String id = ID_GAS[g - PRIMER_GAS];
+            reglas.add(new Regla(id + "_MALA", g, 2, 0, 15 * 60_000L,
+                    "Nivel malo de " + nombre));
+            reglas.add(new Regla(id + "_INSALUBRE_SOSTENIDO", g, 1, SOSTENIDA_MS, 30 * 60_000L,
+                    "Nivel insalubre de " + nombre + " sostenido"));
+        }
+        return reglas;
+    }
+
+    /**
+     * @brief Gas de una alerta de nivel: las reglas locales ("O3_MALA",
+     *        "O3_INSALUBRE_SOSTENIDO") y la del servidor ("O3_CRITICO").
+     *
+     * @param tipo Tipo de la alerta.
+     * @return Id del gas ("NO2", "CO", "O3", "SO2"), o null si la alerta no
+     *         es de nivel de un gas (SENSOR_INACTIVO, RESUMEN_DIARIO...).
+     */
+    public static String gasDeAlerta(String tipo) {
+        if (tipo == null) return null;
+        int i = tipo.indexOf('_');
+        if (i <= 0) return null;
+
+        String resto = tipo.substring(i + 1);
+        if (!resto.equals("MALA") && !resto.equals("INSALUBRE_SOSTENIDO")
+                && !resto.equals("CRITICO")) {
+            return null;
+        }
+        String gas = tipo.substring(0, i);
+        for (String id : ID_GAS) {
+            if (id.equals(gas)) return id;
+        }
+        return null;
+    }
+
+    public static String nombreGas(int tipoGas) {
+        int g = tipoGas - PRIMER_GAS;
+        return g >= 0 && g < NUM_GASES ? NOMBRE_GAS[g] : String.valueOf(tipoGas);
+    }
+
+    /**
+     * @brief Evalúa una medida de la placa del usuario.
+     *
+     * @param tMs    Instante de la medida (ms).
+     * @param salida Recibe las alertas que hay que mostrar.
+     * @return AVISO si salió alguna, RETENIDA si alguna se quedó por los
+     *         límites de avisos, NADA si no.
+     */
+    public synchronized int evaluar(int tipoGas, double valor, long tMs, Salida salida) {
+        int g = tipoGas - PRIMER_GAS;
+        if (g < 0 || g >= NUM_GASES || Double.isNaN(valor)) return NADA;
+
+        int resultado = NADA;
+        List<Regla> reglas = porGas.get(g);
+        for (int i = 0; i < reglas.size(); i++) {
+            Regla r = reglas.get(i);
+            int res = evaluar(r, valor, tMs, salida);
+            if (res > resultado) resultado = res;
+        }
+        return resultado;
+    }
+
+    private int evaluar(Regla r, double valor, long tMs, Salida salida) {
+        double umbral = r.umbral();
+        if (Double.isNaN(umbral)) return NADA;
+
+        boolean hueco = r.ultimaMedidaMs >= 0 && tMs - r.ultimaMedidaMs > MAX_HUECO_MS;
+        r.ultimaMedidaMs = tMs;
+
+        // Por debajo de la banda de histéresis: se rearma
+        if (valor < umbral * (1 - HISTERESIS)) {
+            r.encimaDesdeMs = -1;
+            r.disparada = false;
+            return NADA;
+        }
+
+        // Dentro de la banda: sigue como estaba (solo cuenta si ya estaba encima)
+        if (valor <= umbral && r.encimaDesdeMs < 0) return NADA;
+
+        if (r.encimaDesdeMs < 0 || hueco) r.encimaDesdeMs = tMs;
+        if (r.disparada || tMs - r.encimaDesdeMs < r.duracionMs) return NADA;
+
+        // Condición cumplida: ¿se puede avisar?
+        boolean pronto = r.ultimoAvisoMs >= 0 && tMs - r.ultimoAvisoMs < r.minIntervaloMs;
+        if (pronto || !tomarFicha(tMs)) return RETENIDA;
+
+        r.disparada = true;
+        r.ultimoAvisoMs = tMs;
+        salida.alerta(r, valor, tMs);
+        return AVISO;
+    }
+
+    private boolean tomarFicha(long tMs) {
+        if (fichasMs >= 0 && tMs > fichasMs) {
+            fichas = Math.min(MAX_AVISOS_HORA,
+                    fichas + (double) (tMs - fichasMs) * MAX_AVISOS_HORA / HORA_MS);
+        }
+        fichasMs = Math.max(fichasMs, tMs);
+        if (fichas < 1) return false;
+        fichas -= 1;
+        return true;
+    }
+}
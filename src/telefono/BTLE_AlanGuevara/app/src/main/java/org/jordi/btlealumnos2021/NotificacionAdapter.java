@@ -6,7 +6,12 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import android.os.Handler;
+import android.os.Looper;
+
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
@@ -15,14 +20,30 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
-public class NotificacionAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @brief Adapter de la lista de notificaciones (nuevas + leídas por fecha).
+ *
+ * Es un ListAdapter con ids estables: las filas (cabeceras incluidas) se
+ * construyen en un hilo de fondo y DiffUtil calcula, también en segundo
+ * plano, qué filas cambian, así un refresco solo rebindea lo que cambió
+ * en vez de toda la lista.
+ *
+ * Cada fila lleva ya resueltos los textos, la etiqueta de fecha y el icono,
+ * así que onBindViewHolder solo asigna valores a las vistas.
+ */
+public class NotificacionAdapter extends ListAdapter<NotificacionAdapter.RowItem, RecyclerView.ViewHolder> {
 
     private static final int TYPE_HEADER = 0;
     private static final int TYPE_ITEM_NUEVA = 1;
     private static final int TYPE_ITEM_LEIDA = 2;
 
-    private final List<RowItem> rows = new ArrayList<>();
+    // Construcción de filas (ordenar y agrupar) fuera del hilo principal
+    private static final ExecutorService EJECUTOR = Executors.newSingleThreadExecutor();
+
+    private final Handler hiloPrincipal = new Handler(Looper.getMainLooper());
     private final OnItemClickListener listener;
 
     // ---------------- INTERFAZ CALLBACK ----------------
@@ -33,13 +54,35 @@ public class NotificacionAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
     }
 
     public NotificacionAdapter(OnItemClickListener listener) {
+        super(DIFF);
         this.listener = listener;
+        setHasStableIds(true);
     }
 
+    /**
+     * @brief Actualiza la lista.
+     *
+     * Copia las listas en el momento de la llamada (la actividad las sigue
+     * modificando) y el resto del trabajo se hace en segundo plano.
+     */
     public void setNotificaciones(List<NotificacionAtmos> nuevas,
                                   List<NotificacionAtmos> leidas) {
 
-        rows.clear();
+        List<NotificacionAtmos> copiaNuevas =
+                nuevas != null ? new ArrayList<>(nuevas) : new ArrayList<>();
+        List<NotificacionAtmos> copiaLeidas =
+                leidas != null ? new ArrayList<>(leidas) : new ArrayList<>();
+
+        EJECUTOR.execute(() -> {
+            List<RowItem> rows = construirFilas(copiaNuevas, copiaLeidas);
+            hiloPrincipal.post(() -> submitList(rows));
+        });
+    }
+
+    private static List<RowItem> construirFilas(List<NotificacionAtmos> nuevas,
+                                                List<NotificacionAtmos> leidas) {
+
+        List<RowItem> rows = new ArrayList<>();
 
         // 1. SECCIÓN: NUEVAS
         if (nuevas != null && !nuevas.isEmpty()) {
@@ -55,10 +98,20 @@ public class NotificacionAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
             Collections.sort(leidas,
                     (a, b) -> Long.compare(b.getTimestamp(), a.getTimestamp()));
 
+            // Límites de "Hoy" y "Ayer" calculados una vez por lista, no por fila
+            Calendar cal = Calendar.getInstance();
+            cal.set(Calendar.HOUR_OF_DAY, 0);
+            cal.set(Calendar.MINUTE, 0);
+            cal.set(Calendar.SECOND, 0);
+            cal.set(Calendar.MILLISECOND, 0);
+            long inicioHoy = cal.getTimeInMillis();
+            cal.add(Calendar.DAY_OF_YEAR, -1);
+            long inicioAyer = cal.getTimeInMillis();
+
             Map<String, List<NotificacionAtmos>> grupos = new LinkedHashMap<>();
 
             for (NotificacionAtmos n : leidas) {
-                String label = getFechaLabel(n.getTimestamp());
+                String label = getFechaLabel(n.getTimestamp(), inicioHoy, inicioAyer);
                 if (!grupos.containsKey(label)) {
                     grupos.put(label, new ArrayList<>());
                 }
@@ -73,41 +126,45 @@ public class NotificacionAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
             }
         }
 
-        notifyDataSetChanged();
+        return rows;
     }
 
     // ---------------- FECHAS ----------------
 
-    private String getFechaLabel(long timestamp) {
+    private static String getFechaLabel(long timestamp, long inicioHoy, long inicioAyer) {
         if (timestamp == 0) return "Antiguas";
-
-        Calendar hoy = Calendar.getInstance();
-        Calendar noti = Calendar.getInstance();
-        noti.setTimeInMillis(timestamp);
-
-        if (esMismoDia(hoy, noti)) return "Hoy";
-
-        hoy.add(Calendar.DAY_OF_YEAR, -1);
-        if (esMismoDia(hoy, noti)) return "Ayer";
-
+        if (timestamp >= inicioHoy) return "Hoy";
+        if (timestamp >= inicioAyer) return "Ayer";
         return "Antiguas";
     }
 
-    private boolean esMismoDia(Calendar a, Calendar b) {
-        return a.get(Calendar.YEAR) == b.get(Calendar.YEAR) &&
-                a.get(Calendar.DAY_OF_YEAR) == b.get(Calendar.DAY_OF_YEAR);
+    // ---------------- ICONOS ----------------
+
+    private static int iconoDe(String tipo) {
+        switch (tipo) {
+            case "SENSOR_INACTIVO":
+                return R.drawable.ic_sensor_off;
+            case "LECTURAS_ERRONEAS":
+                return R.drawable.ic_warning;
+            case "RESUMEN_DIARIO":
+                return R.drawable.ic_resumen;
+            case "DISTANCIA_SENSOR":
+                return R.drawable.ic_distancia;
+            default:
+                return R.drawable.ic_alerta_co2;
+        }
     }
 
     // ---------------- RECYCLERVIEW ----------------
 
     @Override
     public int getItemViewType(int position) {
-        return rows.get(position).type;
+        return getItem(position).type;
     }
 
     @Override
-    public int getItemCount() {
-        return rows.size();
+    public long getItemId(int position) {
+        return getItem(position).id;
     }
 
     @NonNull
@@ -130,30 +187,72 @@ public class NotificacionAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
     public void onBindViewHolder(
             @NonNull RecyclerView.ViewHolder holder, int position) {
 
-        RowItem item = rows.get(position);
+        RowItem item = getItem(position);
 
         if (holder instanceof HeaderViewHolder) {
             ((HeaderViewHolder) holder).tvTituloSeccion.setText(item.headerTitle);
         } else if (holder instanceof NotiViewHolder) {
-            boolean esNueva = item.type == TYPE_ITEM_NUEVA;
-            ((NotiViewHolder) holder).bind(item.notificacion, esNueva);
+            ((NotiViewHolder) holder).bind(item);
         }
     }
 
     // ---------------- CLASES INTERNAS ----------------
 
-    private static class RowItem {
-        int type;
-        String headerTitle;
-        NotificacionAtmos notificacion;
+    static final class RowItem {
+        final int type;
+        final String headerTitle;
+        final NotificacionAtmos notificacion;
+
+        // Id estable: el de la notificación, o uno negativo por cabecera
+        final long id;
+
+        // Lo que se pinta, copiado para que DiffUtil detecte cambios aunque
+        // el objeto NotificacionAtmos sea el mismo
+        final String titulo, texto, hora;
+        final int iconoRes;
+        final boolean esNueva;
 
         RowItem(int type, String headerTitle, NotificacionAtmos notificacion) {
             this.type = type;
             this.headerTitle = headerTitle;
             this.notificacion = notificacion;
+            this.esNueva = type == TYPE_ITEM_NUEVA;
+
+            if (notificacion != null) {
+                id = notificacion.getIdNotificacion();
+                titulo = notificacion.getTitulo();
+                texto = notificacion.getTexto();
+                hora = notificacion.getHora();
+                iconoRes = iconoDe(notificacion.getTipo());
+            } else {
+                id = Long.MIN_VALUE + (headerTitle.hashCode() & 0xFFFFFFFFL);
+                titulo = texto = hora = null;
+                iconoRes = 0;
+            }
         }
     }
 
+    private static final DiffUtil.ItemCallback<RowItem> DIFF = new DiffUtil.ItemCallback<RowItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull RowItem a, @NonNull RowItem b) {
+            return a.id == b.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull RowItem a, @NonNull RowItem b) {
+            return a.type == b.type
+                    && a.iconoRes == b.iconoRes
+                    && igual(a.headerTitle, b.headerTitle)
+                    && igual(a.titulo, b.titulo)
+                    && igual(a.texto, b.texto)
+                    && igual(a.hora, b.hora);
+        }
+
+        private boolean igual(String x, String y) {
+            return x == null ? y == null : x.equals(y);
+        }
+    };
+
     static class HeaderViewHolder extends RecyclerView.ViewHolder {
         TextView tvTituloSeccion;
 
@@ -176,47 +275,34 @@ public class NotificacionAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
             ivEstado = itemView.findViewById(R.id.estadoNotis);
             ivEliminar = itemView.findViewById(R.id.btnEliminarNoti);
             ivIcono = itemView.findViewById(R.id.imagenNoti);
-        }
-
-        void bind(NotificacionAtmos n, boolean esNueva) {
-
-            tvTitulo.setText(n.getTitulo());
-            tvTexto.setText(n.getTexto());
-            tvHora.setText(n.getHora());
-            ivEstado.setVisibility(esNueva ? View.VISIBLE : View.GONE);
-
-            int resId;
-            switch (n.getTipo()) {
-                case "SENSOR_INACTIVO":
-                    resId = R.drawable.ic_sensor_off;
-                    break;
-                case "LECTURAS_ERRONEAS":
-                    resId = R.drawable.ic_warning;
-                    break;
-                case "RESUMEN_DIARIO":
-                    resId = R.drawable.ic_resumen;
-                    break;
-                case "DISTANCIA_SENSOR":
-                    resId = R.drawable.ic_distancia;
-                    break;
-                default:
-                    resId = R.drawable.ic_alerta_co2;
-                    break;
-            }
-
-            ivIcono.setImageResource(resId);
 
+            // Listeners creados una vez por ViewHolder, no en cada bind
             itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onNotificacionClick(esNueva, n.getIdNotificacion());
+                RowItem row = filaActual();
+                if (row != null && listener != null) {
+                    listener.onNotificacionClick(row.esNueva, (int) row.id);
                 }
             });
 
             ivEliminar.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onDeleteClick(esNueva, n.getIdNotificacion());
+                RowItem row = filaActual();
+                if (row != null && listener != null) {
+                    listener.onDeleteClick(row.esNueva, (int) row.id);
                 }
             });
         }
+
+        private RowItem filaActual() {
+            int pos = getBindingAdapterPosition();
+            return pos == RecyclerView.NO_POSITION ? null : getItem(pos);
+        }
+
+        void bind(RowItem row) {
+            tvTitulo.setText(row.titulo);
+            tvTexto.setText(row.texto);
+            tvHora.setText(row.hora);
+            ivEstado.setVisibility(row.esNueva ? View.VISIBLE : View.GONE);
+            ivIcono.setImageResource(row.iconoRes);
+        }
     }
 }
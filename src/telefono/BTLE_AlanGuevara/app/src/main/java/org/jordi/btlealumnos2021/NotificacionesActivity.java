@@ -5,12 +5,11 @@ import android.Manifest;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.widget.ImageView;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -20,7 +19,9 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class NotificacionesActivity extends AppCompatActivity {
 
@@ -31,18 +32,19 @@ public class NotificacionesActivity extends AppCompatActivity {
     private ArrayList<NotificacionAtmos> listaLeidas;
 
     // 🛑 Lista negra PERMANENTE durante la sesión
-    private final ArrayList<Integer> listaNegraBorrados = new ArrayList<>();
+    private final Set<Integer> listaNegraBorrados = new HashSet<>();
 
-    private int idUsuario = 23;
+    // Ids de listaLeidas, para no recorrerla por cada notificación recibida
+    private final Set<Integer> idsLeidas = new HashSet<>();
 
-    private final Handler handler = new Handler(Looper.getMainLooper());
-    private final Runnable refrescoPeriodico = new Runnable() {
-        @Override
-        public void run() {
-            cargarNotificacionesDesdeServidor();
-            handler.postDelayed(this, 5000);
-        }
-    };
+    // Última lista del almacén ya pintada (misma instancia = nada cambió)
+    private List<NotificacionAtmos> ultimaPintada = null;
+
+    // Paginación: filas que faltan para el final al pedir la siguiente página
+    private static final int MARGEN_PAGINA = 5;
+    private boolean cargandoAnteriores = false;
+
+    private int idUsuario;
 
     // Lanzador para solicitar permiso
     private final ActivityResultLauncher<String> requestPermissionLauncher =
@@ -55,6 +57,14 @@ public class NotificacionesActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_notificaciones);
 
+        // Mismo usuario que el worker de segundo plano (comparten almacén)
+        idUsuario = SesionManager.obtenerIdUsuario(this);
+
+        // Sondeo cada 5 s mientras la pantalla está delante (la primera
+        // petición sale al entrar)
+        Refrescos.getInstance().registrar(this, "notificaciones", 5000,
+                this::cargarNotificacionesDesdeServidor);
+
         ImageView btnBack = findViewById(R.id.btnBackNotificaciones);
         btnBack.setOnClickListener(v -> finish());
 
@@ -83,6 +93,7 @@ public class NotificacionesActivity extends AppCompatActivity {
                         listaNuevas.remove(target);
                         target.setLeida(true);
                         listaLeidas.add(0, target);
+                        idsLeidas.add(target.getIdNotificacion());
 
                         // Marcar en backend
                         NotificacionesManager.getInstance(NotificacionesActivity.this)
@@ -130,6 +141,20 @@ public class NotificacionesActivity extends AppCompatActivity {
 
         recyclerNotificaciones.setAdapter(adapter);
 
+        // Al acercarse al final, pedir la siguiente página de antiguas
+        recyclerNotificaciones.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) return;
+
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                if (lm != null
+                        && lm.findLastVisibleItemPosition() >= adapter.getItemCount() - MARGEN_PAGINA) {
+                    cargarAnteriores();
+                }
+            }
+        });
+
         ImageView btnBorrarTodas = findViewById(R.id.btnBorrarTodas);
         btnBorrarTodas.setOnClickListener(v -> borrarTodasNotificaciones());
 
@@ -147,18 +172,9 @@ public class NotificacionesActivity extends AppCompatActivity {
         }
     }
 
-    @Override
-    protected void onResume() {
-        super.onResume();
-        cargarNotificacionesDesdeServidor();
-        // Iniciar polling (refresco automático cada 5s)
-        handler.postDelayed(refrescoPeriodico, 5000);
-    }
-
     @Override
     protected void onPause() {
         super.onPause();
-        handler.removeCallbacks(refrescoPeriodico);
         guardarLeidasEnPrefs();
     }
 
@@ -166,7 +182,7 @@ public class NotificacionesActivity extends AppCompatActivity {
     //     Cargar desde backend con lista negra
     // ─────────────────────────────────────────────
 
-    private void cargarNotificacionesDesdeServidor() {
+    private void cargarNotificacionesDesdeServidor(PlanificadorRefrescos.Fin fin) {
 
         NotificacionesManager.getInstance(this)
                 .refrescarNotificaciones(
@@ -179,35 +195,56 @@ public class NotificacionesActivity extends AppCompatActivity {
                                     List<NotificacionAtmos> nuevas,
                                     boolean hayAlgoNuevo
                             ) {
+                                pintarSiCambio(nuevas, hayAlgoNuevo);
+                                fin.hecho(true);
+                            }
 
-                                listaNuevas.clear();
+                            @Override
+                            public void onError(String msg) {
+                                fin.hecho(false);
+                            }
+                        }
+                );
+    }
 
-                                for (NotificacionAtmos n : nuevas) {
+    private void cargarAnteriores() {
+        NotificacionesManager manager = NotificacionesManager.getInstance(this);
+        if (cargandoAnteriores || !manager.hayMasAntiguas()) return;
 
-                                    // 🛑 Si está en lista negra → no aparece JAMÁS
-                                    if (listaNegraBorrados.contains(n.getIdNotificacion())) {
-                                        continue;
-                                    }
+        cargandoAnteriores = true;
+        manager.cargarAnteriores(this, idUsuario, new NotificacionesManager.Listener() {
+            @Override
+            public void onResultado(List<NotificacionAtmos> lista, boolean hayNuevas) {
+                cargandoAnteriores = false;
+                pintarSiCambio(lista, false);
+            }
 
-                                    boolean yaLeida = false;
+            @Override
+            public void onError(String msg) {
+                cargandoAnteriores = false;
+            }
+        });
+    }
 
-                                    for (NotificacionAtmos l : listaLeidas) {
-                                        if (l.getIdNotificacion() == n.getIdNotificacion()) {
-                                            yaLeida = true;
-                                            break;
-                                        }
-                                    }
+    private void pintarSiCambio(List<NotificacionAtmos> nuevas, boolean hayAlgoNuevo) {
 
-                                    if (!yaLeida) listaNuevas.add(n);
-                                }
+        // Sondeo sin novedades: no se toca el adapter
+        if (!hayAlgoNuevo && nuevas == ultimaPintada) return;
+        ultimaPintada = nuevas;
 
-                                adapter.setNotificaciones(listaNuevas, listaLeidas);
-                            }
+        listaNuevas.clear();
 
-                            @Override
-                            public void onError(String msg) { }
-                        }
-                );
+        for (NotificacionAtmos n : nuevas) {
+
+            // 🛑 Si está en lista negra → no aparece JAMÁS
+            if (listaNegraBorrados.contains(n.getIdNotificacion())) {
+                continue;
+            }
+
+            if (!idsLeidas.contains(n.getIdNotificacion())) listaNuevas.add(n);
+        }
+
+        adapter.setNotificaciones(listaNuevas, listaLeidas);
     }
 
     /// -------------------------------------------------------------------------
@@ -241,6 +278,7 @@ public class NotificacionesActivity extends AppCompatActivity {
         String json = prefs.getString("leidas_json", "[]");
 
         listaLeidas.clear();
+        idsLeidas.clear();
 
         try {
             JSONArray arr = new JSONArray(json);
@@ -259,6 +297,7 @@ public class NotificacionesActivity extends AppCompatActivity {
                                 true
                         )
                 );
+                idsLeidas.add(o.optInt("id", -1));
             }
         } catch (Exception ignored) {}
     }
@@ -270,6 +309,7 @@ public class NotificacionesActivity extends AppCompatActivity {
     private void borrarTodasNotificaciones() {
         listaNuevas.clear();
         listaLeidas.clear();
+        idsLeidas.clear();
         listaNegraBorrados.clear();
         adapter.setNotificaciones(listaNuevas, listaLeidas);
     }
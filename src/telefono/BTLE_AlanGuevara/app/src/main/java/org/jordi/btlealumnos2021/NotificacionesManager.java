@@ -2,24 +2,27 @@ package org.jordi.btlealumnos2021;
 
 import android.content.Context;
 
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
 import com.android.volley.toolbox.JsonObjectRequest;
 import com.android.volley.toolbox.Volley;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.TimeZone;
 
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Build;
@@ -30,7 +33,8 @@ public class NotificacionesManager {
     private static NotificacionesManager instancia;
     private final RequestQueue queue;
 
-    private List<NotificacionAtmos> ultimaLista = new ArrayList<>();
+    // Copia local + cursor since_id (ver AlmacenNotificaciones)
+    private final AlmacenNotificaciones almacen = new AlmacenNotificaciones();
 
     private static final String URL_NOTIFICACIONES =
             "https://nagufor.upv.edu.es/notificacionesUsuario";
@@ -41,6 +45,24 @@ public class NotificacionesManager {
     private static final String URL_BORRAR_TODAS =
             "https://nagufor.upv.edu.es/borrarNotificacionesUsuario";
 
+    // Canal y grupo de las alertas del sistema
+    private static final String CANAL = "atmos_channel_id";
+    private static final String GRUPO_ALERTAS = "atmos_alertas";
+    private static final int ID_RESUMEN = -1;
+    private static final int ID_ALERTAS_LOCALES = -1000;
+    private static final int MAX_LINEAS_RESUMEN = 5;
+
+    // Notificaciones antiguas por página al hacer scroll
+    private static final int TAM_PAGINA = 50;
+
+    // Mayor id ya avisado con una alerta del sistema (sobrevive al proceso)
+    private static final String PREFS_AVISOS = "notis";
+    private static final String KEY_ULTIMO_AVISADO = "ultimo_id_avisado";
+    // Última alerta de nivel mostrada por gas y origen (+ id del gas), para
+    // no repetir con la del otro origen (ver MotorAlertas.gasDeAlerta)
+    private static final String KEY_ALERTA_LOCAL = "alerta_local_";
+    private static final String KEY_ALERTA_SERVIDOR = "alerta_servidor_";
+
     public interface Listener {
         void onResultado(List<NotificacionAtmos> lista, boolean hayNuevas);
         void onError(String msg);
@@ -57,96 +79,184 @@ public class NotificacionesManager {
     }
 
     // ─────────────────────────────────────────────────────────────
-    //     Conversión de UTC → Local (HH:mm)
+    //   Obtener notificaciones del backend
     // ─────────────────────────────────────────────────────────────
 
-    private String convertirUtcALocal(String fechaUtc) {
-        try {
-            SimpleDateFormat formatoUtc =
-                    new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-            formatoUtc.setTimeZone(TimeZone.getTimeZone("UTC"));
+    /**
+     * @brief Sincroniza con el backend pidiendo solo lo nuevo.
+     *
+     * Manda since_id con el mayor id que ya se tiene; si no hay nada nuevo
+     * la respuesta es una lista vacía y no se reconstruye nada. Si el
+     * servidor contesta has_more (más nuevas de las que caben en una
+     * respuesta, que llegan de la más antigua a la más reciente) se vuelve
+     * a pedir desde el nuevo cursor hasta tenerlas todas. El listener
+     * siempre recibe la lista completa del almacén local.
+     *
+     * hayNuevas solo es true si alguna no se había avisado nunca (id mayor
+     * que KEY_ULTIMO_AVISADO, que sobrevive al proceso): en un proceso
+     * recién arrancado el almacén está vacío y la primera página llega
+     * entera, pero eso no son notificaciones nuevas.
+     */
+    public void refrescarNotificaciones(Context ctx, int idUsuario, Listener listener) {
+        almacen.usarUsuario(idUsuario);
+        sincronizar(ctx, idUsuario, listener, new ArrayList<>());
+    }
 
-            Date date = formatoUtc.parse(fechaUtc);
+    private void sincronizar(Context ctx, int idUsuario, Listener listener,
+                             List<NotificacionAtmos> acumuladas) {
 
-            SimpleDateFormat formatoLocal =
-                    new SimpleDateFormat("HH:mm");
-            formatoLocal.setTimeZone(TimeZone.getDefault());
+        int desde = almacen.getUltimoId();
+        String url = URL_NOTIFICACIONES + "?id_usuario=" + idUsuario
+                + "&since_id=" + desde;
 
-            return formatoLocal.format(date);
+        pedirPagina(url, listener, pagina -> {
+            acumuladas.addAll(almacen.fusionar(pagina.notificaciones, pagina.ultimoId));
 
-        } catch (Exception e) {
-            return fechaUtc;
+            // Quedan más: seguir desde el cursor (si ha avanzado)
+            if (pagina.hayMas && almacen.getUltimoId() > desde) {
+                sincronizar(ctx, idUsuario, listener, acumuladas);
+                return;
+            }
+
+            // Si hay nuevas, lanzar alerta de sistema (agrupada si son varias)
+            boolean hayNuevas = !acumuladas.isEmpty() && avisarNuevas(ctx, acumuladas);
+
+            if (listener != null) listener.onResultado(almacen.getLista(), hayNuevas);
+        });
+    }
+
+    /**
+     * @brief Carga la siguiente página de notificaciones más antiguas.
+     *
+     * Se llama al llegar al final de la lista. No lanza alertas del sistema;
+     * el listener recibe la lista completa con hayNuevas = false.
+     */
+    public void cargarAnteriores(Context ctx, int idUsuario, Listener listener) {
+
+        almacen.usarUsuario(idUsuario);
+
+        int antesId = almacen.getIdMasAntiguo();
+        if (antesId <= 0 || !almacen.hayMasAntiguas()) {
+            if (listener != null) listener.onResultado(almacen.getLista(), false);
+            return;
         }
+
+        String url = URL_NOTIFICACIONES + "?id_usuario=" + idUsuario
+                + "&antes_id=" + antesId + "&limite=" + TAM_PAGINA;
+
+        pedirPagina(url, listener, pagina -> {
+            almacen.fusionarAnteriores(pagina.notificaciones, TAM_PAGINA);
+
+            if (listener != null) listener.onResultado(almacen.getLista(), false);
+        });
     }
 
-    // ─────────────────────────────────────────────────────────────
-    //   Obtener notificaciones del backend
-    // ─────────────────────────────────────────────────────────────
+    /**
+     * @brief true si quedan notificaciones antiguas por cargar.
+     */
+    public boolean hayMasAntiguas() {
+        return almacen.hayMasAntiguas();
+    }
 
-    public void refrescarNotificaciones(Context ctx, int idUsuario, Listener listener) {
+    /**
+     * @brief Respuesta de /notificacionesUsuario ya convertida a objetos.
+     */
+    private static final class Pagina {
+        final int ultimoId;
+        final boolean hayMas;
+        final List<NotificacionAtmos> notificaciones;
+
+        Pagina(int ultimoId, boolean hayMas, List<NotificacionAtmos> notificaciones) {
+            this.ultimoId = ultimoId;
+            this.hayMas = hayMas;
+            this.notificaciones = notificaciones;
+        }
+    }
 
-        String url = URL_NOTIFICACIONES + "?id_usuario=" + idUsuario;
+    /**
+     * @brief GET de una página de notificaciones.
+     *
+     * El JSON se parsea y las fechas se formatean en parseNetworkResponse,
+     * que Volley ejecuta en su hilo de red: al hilo principal solo llega la
+     * lista ya construida.
+     */
+    private void pedirPagina(String url, Listener listener, Response.Listener<Pagina> alRecibir) {
 
-        JsonObjectRequest req = new JsonObjectRequest(
+        Request<Pagina> req = new Request<Pagina>(
                 Request.Method.GET,
                 url,
-                null,
-                response -> {
-                    try {
-                        if (!"ok".equals(response.optString("status"))) {
-                            if (listener != null) listener.onError("Estado no OK");
-                            return;
-                        }
-
-                        JSONArray arr = response.optJSONArray("notificaciones");
-                        List<NotificacionAtmos> nuevaLista = new ArrayList<>();
-
-                        if (arr != null) {
-                            for (int i = 0; i < arr.length(); i++) {
-
-                                JSONObject o = arr.getJSONObject(i);
-
-                                int id = o.optInt("id_notificacion", -1);
-                                String tipo = o.optString("tipo", "");
-                                String titulo = o.optString("titulo", "");
-                                String texto = o.optString("texto", "");
-                                String fechaUtc = o.optString("fecha_hora", "");
-                                boolean leido = o.optBoolean("leido", false);
-
-                                // ✔ conversión REAL UTC → hora local
-                                String horaLocal = convertirUtcALocal(fechaUtc);
-                                long timestamp = parsearTimestamp(fechaUtc);
-
-                                nuevaLista.add(
-                                        new NotificacionAtmos(
-                                                id, tipo, titulo, texto, horaLocal, timestamp, leido
-                                        )
-                                );
-                            }
-                        }
-
-                        boolean hayNuevas = hayNovedades(nuevaLista, ultimaLista);
-                        ultimaLista = nuevaLista;
-
-                        if (hayNuevas && !nuevaLista.isEmpty()) {
-                             // Si hay nuevas (y la lista no está vacía), lanzar alerta de sistema
-                             mostrarNotificacionSistema(ctx, nuevaLista.get(0));
-                        }
-
-                        if (listener != null) listener.onResultado(nuevaLista, hayNuevas);
-
-                    } catch (Exception e) {
-                        if (listener != null) listener.onError("Error procesando JSON");
-                    }
-                },
                 error -> {
-                    if (listener != null) listener.onError("Error de red");
+                    if (listener != null) {
+                        listener.onError(error instanceof ParseError
+                                ? "Error procesando JSON" : "Error de red");
+                    }
+                }) {
+
+            @Override
+            protected Response<Pagina> parseNetworkResponse(NetworkResponse response) {
+                try {
+                    String cuerpo = new String(response.data,
+                            HttpHeaderParser.parseCharset(response.headers, "utf-8"));
+                    JSONObject json = new JSONObject(cuerpo);
+
+                    if (!"ok".equals(json.optString("status"))) {
+                        return Response.error(new ParseError(new JSONException("Estado no OK")));
+                    }
+
+                    return Response.success(new Pagina(
+                            json.optInt("ultimo_id", 0),
+                            json.optBoolean("has_more", false),
+                            parsearNotificaciones(json.optJSONArray("notificaciones"))
+                    ), null);
+
+                } catch (Exception e) {
+                    return Response.error(new ParseError(e));
                 }
-        );
+            }
+
+            @Override
+            protected void deliverResponse(Pagina pagina) {
+                alRecibir.onResponse(pagina);
+            }
+        };
 
+        // Cada petición depende del cursor: la caché HTTP de Volley no aporta nada
+        req.setShouldCache(false);
         queue.add(req);
     }
 
+    private static List<NotificacionAtmos> parsearNotificaciones(JSONArray arr) throws JSONException {
+        List<NotificacionAtmos> recibidas = new ArrayList<>();
+
+        if (arr != null) {
+            for (int i = 0; i < arr.length(); i++) {
+
+                JSONObject o = arr.getJSONObject(i);
+
+                int id = o.optInt("id_notificacion", -1);
+                String tipo = o.optString("tipo", "");
+                String titulo = o.optString("titulo", "");
+                String texto = o.optString("texto", "");
+                String fechaUtc = o.optString("fecha_hora", "");
+                boolean leido = o.optBoolean("leido", false);
+
+                // ✔ conversión REAL UTC → hora local (una sola vez por notificación)
+                long timestamp = FormatosFecha.parsearIsoUtc(fechaUtc);
+                String horaLocal = timestamp > 0
+                        ? FormatosFecha.horaLocal(timestamp)
+                        : fechaUtc;
+
+                recibidas.add(
+                        new NotificacionAtmos(
+                                id, tipo, titulo, texto, horaLocal, timestamp, leido
+                        )
+                );
+            }
+        }
+
+        return recibidas;
+    }
+
     // ─────────────────────────────────────────────────────────────
     //   Marcar como leída
     // ─────────────────────────────────────────────────────────────
@@ -175,6 +285,7 @@ public class NotificacionesManager {
     // ─────────────────────────────────────────────────────────────
 
     public void borrarNotificacionBackend(Context ctx, int idUsuario, int idNoti, Runnable onDone) {
+        almacen.olvidar(idNoti);
         try {
             JSONObject body = new JSONObject();
             body.put("id_usuario", idUsuario);
@@ -219,48 +330,17 @@ public class NotificacionesManager {
         }
     }
 
-    // ─────────────────────────────────────────────────────────────
-    //   Detección de novedades
-    // ─────────────────────────────────────────────────────────────
-
-    private boolean hayNovedades(List<NotificacionAtmos> nueva, List<NotificacionAtmos> anterior) {
-
-        if (anterior == null || anterior.size() != nueva.size()) return true;
-
-        for (int i = 0; i < nueva.size(); i++) {
-
-            NotificacionAtmos a = nueva.get(i);
-            NotificacionAtmos b = anterior.get(i);
-
-            if (a.getIdNotificacion() != b.getIdNotificacion()) return true;
-        }
-
-        return false;
-    }
-
     public List<NotificacionAtmos> getUltimaLista() {
-        return ultimaLista;
+        return almacen.getLista();
     }
 
     // ─────────────────────────────────────────────────────────────
     //   System Notification Logic
     // ─────────────────────────────────────────────────────────────
 
-    private long parsearTimestamp(String fechaUtc) {
-        try {
-            SimpleDateFormat formatoUtc =
-                    new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-            formatoUtc.setTimeZone(TimeZone.getTimeZone("UTC"));
-            Date date = formatoUtc.parse(fechaUtc);
-            return date != null ? date.getTime() : 0L;
-        } catch (Exception e) {
-            return 0L;
-        }
-    }
-
     private void crearCanalNotificaciones(Context ctx) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            String channelId = "atmos_channel_id";
+            String channelId = CANAL;
             CharSequence name = "Notificaciones Atmos";
             String description = "Alertas de calidad del aire";
             int importance = NotificationManager.IMPORTANCE_DEFAULT;
@@ -274,26 +354,153 @@ public class NotificacionesManager {
         }
     }
 
+    /**
+     * @brief Lanza las alertas del sistema de las notificaciones nuevas.
+     *
+     * Solo avisa de las no leídas con id mayor que el último ya avisado, que
+     * se guarda en preferencias: tras reiniciarse el proceso el almacén se
+     * carga entero otra vez, pero no se repiten alertas. Si hay varias se
+     * agrupan en una sola notificación (un único sonido).
+     *
+     * @return true si alguna tenía id mayor que el último avisado.
+     */
+    private boolean avisarNuevas(Context ctx, List<NotificacionAtmos> nuevas) {
+        SharedPreferences prefs = ctx.getSharedPreferences(PREFS_AVISOS, Context.MODE_PRIVATE);
+        int ultimoAvisado = prefs.getInt(KEY_ULTIMO_AVISADO, 0);
+
+        List<NotificacionAtmos> pendientes = new ArrayList<>();
+        int mayor = ultimoAvisado;
+        SharedPreferences.Editor editor = prefs.edit();
+        long ahora = System.currentTimeMillis();
+        for (NotificacionAtmos n : nuevas) {
+            int id = n.getIdNotificacion();
+            if (id <= ultimoAvisado) continue;
+            if (id > mayor) mayor = id;
+            if (n.isLeida()) continue;
+
+            // La misma superación ya avisada por MotorAlertas: queda en la
+            // lista, pero sin otra alerta del sistema
+            String gas = MotorAlertas.gasDeAlerta(n.getTipo());
+            if (gas != null) {
+                if (esReciente(prefs.getLong(KEY_ALERTA_LOCAL + gas, 0), ahora)) continue;
+                editor.putLong(KEY_ALERTA_SERVIDOR + gas, ahora);
+            }
+            pendientes.add(n);
+        }
+
+        if (mayor > ultimoAvisado) {
+            editor.putInt(KEY_ULTIMO_AVISADO, mayor);
+        }
+        editor.apply();
+
+        if (pendientes.size() == 1) {
+            mostrarNotificacionSistema(ctx, pendientes.get(0));
+        } else if (pendientes.size() > 1) {
+            mostrarResumenSistema(ctx, pendientes);
+        }
+        return mayor > ultimoAvisado;
+    }
+
+    /**
+     * @brief Alerta del sistema de una regla evaluada en el móvil
+     *        (MotorAlertas), sin pasar por el servidor.
+     *
+     * Usa el mismo canal que las del servidor. El id de la notificación es
+     * fijo por regla (negativo, para no chocar con los del servidor): un
+     * aviso nuevo de la misma regla sustituye al anterior.
+     *
+     * Una alerta de nivel del servidor y la local del mismo gas son la misma
+     * superación: la que llega segunda dentro de
+     * MotorAlertas.VENTANA_REPETIDA_MS no se muestra.
+     */
+    public void mostrarAlertaLocal(Context ctx, String tipo, String titulo, String texto) {
+        try {
+            String gas = MotorAlertas.gasDeAlerta(tipo);
+            if (gas != null) {
+                SharedPreferences prefs = ctx.getSharedPreferences(PREFS_AVISOS, Context.MODE_PRIVATE);
+                long ahora = System.currentTimeMillis();
+                if (esReciente(prefs.getLong(KEY_ALERTA_SERVIDOR + gas, 0), ahora)) return;
+                prefs.edit().putLong(KEY_ALERTA_LOCAL + gas, ahora).apply();
+            }
+
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(ctx, CANAL)
+                    .setSmallIcon(android.R.drawable.ic_dialog_alert)
+                    .setContentTitle(titulo)
+                    .setContentText(texto)
+                    .setStyle(new NotificationCompat.BigTextStyle().bigText(texto))
+                    .setAutoCancel(true)
+                    .setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION))
+                    .setGroup(GRUPO_ALERTAS)
+                    .setContentIntent(intentPantallaNotificaciones(ctx));
+
+            NotificationManager nm = (NotificationManager) ctx.getSystemService(Context.NOTIFICATION_SERVICE);
+            if (nm != null) {
+                nm.notify(ID_ALERTAS_LOCALES - (tipo.hashCode() & 0xffff), builder.build());
+            }
+
+        } catch (Exception ignored) {}
+    }
+
+    private static boolean esReciente(long tMs, long ahora) {
+        return tMs > 0 && ahora - tMs >= 0 && ahora - tMs < MotorAlertas.VENTANA_REPETIDA_MS;
+    }
+
+    private PendingIntent intentPantallaNotificaciones(Context ctx) {
+        Intent intent = new Intent(ctx, NotificacionesActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
+
+        return PendingIntent.getActivity(
+                ctx, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private void mostrarResumenSistema(Context ctx, List<NotificacionAtmos> notis) {
+        try {
+            NotificationCompat.InboxStyle estilo = new NotificationCompat.InboxStyle();
+            int lineas = Math.min(notis.size(), MAX_LINEAS_RESUMEN);
+            for (int i = 0; i < lineas; i++) {
+                estilo.addLine(notis.get(i).getTitulo());
+            }
+            if (notis.size() > lineas) {
+                estilo.setSummaryText("+" + (notis.size() - lineas) + " más");
+            }
+
+            String titulo = notis.size() + " alertas nuevas";
+            estilo.setBigContentTitle(titulo);
+
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(ctx, CANAL)
+                    .setSmallIcon(android.R.drawable.ic_dialog_info)
+                    .setContentTitle(titulo)
+                    .setContentText(notis.get(0).getTitulo())
+                    .setStyle(estilo)
+                    .setNumber(notis.size())
+                    .setGroup(GRUPO_ALERTAS)
+                    .setGroupSummary(true)
+                    .setAutoCancel(true)
+                    .setSound(RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION))
+                    .setContentIntent(intentPantallaNotificaciones(ctx));
+
+            NotificationManager nm = (NotificationManager) ctx.getSystemService(Context.NOTIFICATION_SERVICE);
+            if (nm != null) {
+                nm.notify(ID_RESUMEN, builder.build());
+            }
+
+        } catch (Exception ignored) {}
+    }
+
     private void mostrarNotificacionSistema(Context ctx, NotificacionAtmos noti) {
         try {
-            String channelId = "atmos_channel_id";
             Uri soundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
 
-            Intent intent = new Intent(ctx, NotificacionesActivity.class);
-            intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
-            
-            PendingIntent pendingIntent = PendingIntent.getActivity(
-                    ctx, 0, intent,
-                    PendingIntent.FLAG_ONE_SHOT | PendingIntent.FLAG_IMMUTABLE
-            );
-
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(ctx, channelId)
+            NotificationCompat.Builder builder = new NotificationCompat.Builder(ctx, CANAL)
                     .setSmallIcon(android.R.drawable.ic_dialog_info) // Usa icono default si no hay uno específico
                     .setContentTitle(noti.getTitulo())
                     .setContentText(noti.getTexto())
                     .setAutoCancel(true)
                     .setSound(soundUri)
-                    .setContentIntent(pendingIntent);
+                    .setGroup(GRUPO_ALERTAS)
+                    .setContentIntent(intentPantallaNotificaciones(ctx));
 
             NotificationManager nm = (NotificationManager) ctx.getSystemService(Context.NOTIFICATION_SERVICE);
             if (nm != null) {
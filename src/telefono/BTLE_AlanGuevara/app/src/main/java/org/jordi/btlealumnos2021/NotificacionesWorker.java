@@ -0,0 +1,188 @@
+package org.jordi.btlealumnos2021;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @brief Consulta las notificaciones en segundo plano con WorkManager.
+ *
+ * Sin esto las alertas del sistema solo salían con NotificacionesActivity
+ * abierta. El worker usa el mismo NotificacionesManager (mismo almacén y
+ * cursor since_id), así que las alertas no se repiten entre la pantalla y
+ * el segundo plano.
+ *
+ * En vez de un trabajo periódico fijo se encadenan trabajos de una sola
+ * vez con el retardo que decide PlanificadorNotificaciones (intervalo
+ * adaptativo y máximo de despertares por día). Solo se ejecuta con red.
+ *
+ * @date 19/10/2026
+ */
+public class NotificacionesWorker extends Worker {
+
+    private static final String TAG = "NotificacionesWorker";
+
+    private static final String NOMBRE_TRABAJO = "atmos_notificaciones";
+
+    // Estado del planificador entre ejecuciones
+    private static final String PREFS = "notis_fondo";
+    private static final String KEY_INTERVALO = "intervalo_ms";
+    private static final String KEY_DIA = "dia";
+    private static final String KEY_DESPERTARES = "despertares_hoy";
+
+    // Tiempo máximo esperando la respuesta del backend
+    private static final long ESPERA_RED_MS = 30_000;
+
+    public NotificacionesWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // ---------------------------------------------------------------------
+    // Programación
+    // ---------------------------------------------------------------------
+
+    /**
+     * @brief Arranca la consulta en segundo plano si no estaba ya programada.
+     *
+     * Se llama al entrar en la app con sesión iniciada.
+     */
+    public static void iniciar(Context ctx) {
+        PlanificadorNotificaciones p = cargar(ctx);
+        p.reiniciarIntervalo();
+        guardar(ctx, p);
+
+        programar(ctx, p.getIntervaloMs(), ExistingWorkPolicy.KEEP);
+    }
+
+    /**
+     * @brief Deja de consultar (al cerrar sesión).
+     */
+    public static void cancelar(Context ctx) {
+        WorkManager.getInstance(ctx.getApplicationContext()).cancelUniqueWork(NOMBRE_TRABAJO);
+    }
+
+    /**
+     * @brief Número de veces que se ha despertado la app hoy para consultar.
+     */
+    public static int getDespertaresHoy(Context ctx) {
+        PlanificadorNotificaciones p = cargar(ctx);
+        long ahora = System.currentTimeMillis();
+        long hoy = PlanificadorNotificaciones.diaDe(ahora, TimeZone.getDefault().getOffset(ahora));
+        return p.getDia() == hoy ? p.getDespertaresHoy() : 0;
+    }
+
+    private static void programar(Context ctx, long retardoMs, ExistingWorkPolicy politica) {
+        Constraints restricciones = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+
+        OneTimeWorkRequest req = new OneTimeWorkRequest.Builder(NotificacionesWorker.class)
+                .setInitialDelay(retardoMs, TimeUnit.MILLISECONDS)
+                .setConstraints(restricciones)
+                .build();
+
+        WorkManager.getInstance(ctx.getApplicationContext())
+                .enqueueUniqueWork(NOMBRE_TRABAJO, politica, req);
+    }
+
+    // ---------------------------------------------------------------------
+    // Trabajo
+    // ---------------------------------------------------------------------
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context ctx = getApplicationContext();
+
+        int idUsuario = SesionManager.obtenerIdUsuario(ctx);
+        if (idUsuario < 0) {
+            // Sin sesión no se vuelve a programar
+            return Result.success();
+        }
+
+        long ahora = System.currentTimeMillis();
+        long desfase = TimeZone.getDefault().getOffset(ahora);
+
+        PlanificadorNotificaciones p = cargar(ctx);
+
+        boolean huboNuevas = false;
+        boolean falloRed = false;
+
+        if (p.registrarDespertar(ahora, desfase)) {
+            final boolean[] resultado = new boolean[2]; // {hayNuevas, error}
+            CountDownLatch fin = new CountDownLatch(1);
+
+            // Las respuestas de Volley llegan al hilo principal; aquí solo esperamos
+            NotificacionesManager.getInstance(ctx).refrescarNotificaciones(ctx, idUsuario,
+                    new NotificacionesManager.Listener() {
+                        @Override
+                        public void onResultado(List<NotificacionAtmos> lista, boolean hayNuevas) {
+                            resultado[0] = hayNuevas;
+                            fin.countDown();
+                        }
+
+                        @Override
+                        public void onError(String msg) {
+                            resultado[1] = true;
+                            fin.countDown();
+                        }
+                    });
+
+            try {
+                falloRed = !fin.await(ESPERA_RED_MS, TimeUnit.MILLISECONDS) || resultado[1];
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                falloRed = true;
+            }
+            // Nuevas de verdad (por encima del último id avisado), no la
+            // primera página que se carga en un proceso recién arrancado
+            huboNuevas = resultado[0];
+        }
+
+        long retardo = p.siguienteRetardo(huboNuevas, falloRed, ahora, desfase);
+        guardar(ctx, p);
+
+        Log.d(TAG, "Despertares hoy: " + p.getDespertaresHoy()
+                + " | nuevas=" + huboNuevas + " | fallo=" + falloRed
+                + " | siguiente en " + (retardo / 60_000) + " min");
+
+        // APPEND: este trabajo aún está en marcha y REPLACE lo cancelaría
+        programar(ctx, retardo, ExistingWorkPolicy.APPEND_OR_REPLACE);
+
+        return Result.success();
+    }
+
+    // ---------------------------------------------------------------------
+    // Persistencia del planificador
+    // ---------------------------------------------------------------------
+
+    private static PlanificadorNotificaciones cargar(Context ctx) {
+        SharedPreferences prefs = ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        return new PlanificadorNotificaciones(
+                prefs.getLong(KEY_INTERVALO, PlanificadorNotificaciones.INTERVALO_MIN_MS),
+                prefs.getLong(KEY_DIA, -1),
+                prefs.getInt(KEY_DESPERTARES, 0));
+    }
+
+    private static void guardar(Context ctx, PlanificadorNotificaciones p) {
+        ctx.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit()
+                .putLong(KEY_INTERVALO, p.getIntervaloMs())
+                .putLong(KEY_DIA, p.getDia())
+                .putInt(KEY_DESPERTARES, p.getDespertaresHoy())
+                .apply();
+    }
+}
@@ -0,0 +1,162 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Elige cómo pedir el GPS del recorrido según lo que hace el usuario.
+ *
+ * ModuloRecorrido pedía siempre alta precisión cada 2,1 s, también con el
+ * móvil encima de la mesa. Ahora hay tres modos:
+ *  - QUIETO: el acelerómetro (DetectorQuietud) lleva QUIETO_MS sin
+ *    movimiento → localización pasiva cada INTERVALO_QUIETO_MS (solo
+ *    llegan las que pidan otras apps; el GPS no se enciende por nosotros).
+ *  - ANDANDO: alta precisión cada 5 s. Con el filtro de Kalman
+ *    (FiltroKalmanRecorrido) la distancia es la misma que a 1–2 s; con
+ *    los umbrales de FiltroRecorrido hacía falta una cada 2,1 s.
+ *  - RAPIDO: la velocidad del GPS pasa de VELOCIDAD_RAPIDO (bici) → cada
+ *    2 s, para no recortar las curvas.
+ *
+ * Se sale de QUIETO con la primera ventana con movimiento, o si llega una
+ * localización (pasiva) con velocidad de andar. Para volver de RAPIDO a
+ * ANDANDO hay que bajar de VELOCIDAD_LENTO (histéresis).
+ *
+ * Lleva el tiempo pasado en cada modo, para las métricas.
+ *
+ * El módulo traduce el modo a LocationRequest.
+ *
+ * @date 19/10/2026
+ */
+public final class PlanificadorGps {
+
+    public static final int QUIETO = 0;
+    public static final int ANDANDO = 1;
+    public static final int RAPIDO = 2;
+
+    private static final String[] NOMBRES = {"quieto", "andando", "rapido"};
+
+    /** Tiempo sin movimiento para pasar a QUIETO (ms). */
+    public static final long QUIETO_MS = 30_000;
+
+    /** Velocidad de una localización que saca de QUIETO (m/s). */
+    public static final float VELOCIDAD_DESPERTAR = 1.0f;
+    /** Velocidad para pasar a RAPIDO (m/s). */
+    public static final float VELOCIDAD_RAPIDO = 2.5f;
+    /** Velocidad para volver de RAPIDO a ANDANDO (m/s). */
+    public static final float VELOCIDAD_LENTO = 2.0f;
+
+    public static final long INTERVALO_QUIETO_MS = 60_000;
+    public static final long INTERVALO_ANDANDO_MS = 5000;
+    public static final long RAPIDO_ANDANDO_MS = 3000;
+    public static final long INTERVALO_RAPIDO_MS = 2000;
+    public static final long RAPIDO_RAPIDO_MS = 1000;
+
+    private int modo = ANDANDO;
+    private long quietoDesdeMs = -1;
+
+    private final long[] msEnModo = new long[3];
+    private long desdeMs = -1;
+    private int cambios = 0;
+
+    /**
+     * @brief Resultado de una ventana del acelerómetro.
+     *
+     * @param tMs Instante (ms, reloj monótono).
+     * @return true si cambia el modo.
+     */
+    public boolean alMovimiento(boolean quieto, long tMs) {
+        if (quieto) {
+            if (quietoDesdeMs < 0) quietoDesdeMs = tMs;
+            if (modo != QUIETO && tMs - quietoDesdeMs >= QUIETO_MS) {
+                return cambiar(QUIETO, tMs);
+            }
+            return false;
+        }
+
+        quietoDesdeMs = -1;
+        return modo == QUIETO && cambiar(ANDANDO, tMs);
+    }
+
+    /**
+     * @brief Velocidad de una localización recibida.
+     *
+     * @return true si cambia el modo.
+     */
+    public boolean alLocalizacion(float velocidad, long tMs) {
+        switch (modo) {
+            case QUIETO:
+                if (velocidad >= VELOCIDAD_DESPERTAR) {
+                    quietoDesdeMs = -1;
+                    return cambiar(ANDANDO, tMs);
+                }
+                return false;
+            case ANDANDO:
+                return velocidad > VELOCIDAD_RAPIDO && cambiar(RAPIDO, tMs);
+            default:
+                return velocidad < VELOCIDAD_LENTO && cambiar(ANDANDO, tMs);
+        }
+    }
+
+    public int getModo() {
+        return modo;
+    }
+
+    public static String nombre(int modo) {
+        return NOMBRES[modo];
+    }
+
+    /** Intervalo deseado del modo actual (ms). */
+    public long getIntervaloMs() {
+        switch (modo) {
+            case QUIETO:
+                return INTERVALO_QUIETO_MS;
+            case RAPIDO:
+                return INTERVALO_RAPIDO_MS;
+            default:
+                return INTERVALO_ANDANDO_MS;
+        }
+    }
+
+    /** Intervalo mínimo aceptado del modo actual (ms). */
+    public long getRapidoMs() {
+        switch (modo) {
+            case QUIETO:
+                return INTERVALO_QUIETO_MS;
+            case RAPIDO:
+                return RAPIDO_RAPIDO_MS;
+            default:
+                return RAPIDO_ANDANDO_MS;
+        }
+    }
+
+    /** true si el modo actual enciende el GPS (alta precisión). */
+    public boolean usaGps() {
+        return modo != QUIETO;
+    }
+
+    /**
+     * @brief Tiempo pasado en un modo hasta tMs (ms).
+     */
+    public long getMsEnModo(int m, long tMs) {
+        long ms = msEnModo[m];
+        if (m == modo && desdeMs >= 0 && tMs > desdeMs) ms += tMs - desdeMs;
+        return ms;
+    }
+
+    /** Número de cambios de modo. */
+    public int getCambios() {
+        return cambios;
+    }
+
+    /**
+     * @brief Empieza a contar el tiempo en el modo actual (al arrancar).
+     */
+    public void empezar(long tMs) {
+        desdeMs = tMs;
+    }
+
+    private boolean cambiar(int nuevo, long tMs) {
+        if (desdeMs >= 0 && tMs > desdeMs) msEnModo[modo] += tMs - desdeMs;
+        desdeMs = tMs;
+        modo = nuevo;
+        cambios++;
+        return true;
+    }
+}
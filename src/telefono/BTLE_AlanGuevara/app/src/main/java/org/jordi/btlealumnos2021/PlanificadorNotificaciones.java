@@ -0,0 +1,112 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Decide cada cuánto se despierta la app en segundo plano para
+ *        consultar notificaciones, y cuenta los despertares del día.
+ *
+ * Intervalo adaptativo:
+ *  - Si en la última consulta llegaron alertas nuevas, la siguiente se hace
+ *    al intervalo mínimo (la calidad del aire está cambiando).
+ *  - Si no llegó nada, el intervalo se duplica hasta el máximo.
+ *  - Si falló la red se reintenta con el mismo intervalo.
+ *
+ * Presupuesto diario: como mucho {@link #MAX_DESPERTARES_DIA} despertares
+ * por día (hora local). Al agotarse, la siguiente consulta se deja para el
+ * comienzo del día siguiente, así el gasto de batería está acotado aunque
+ * lleguen alertas sin parar.
+ *
+ * El estado se guarda fuera (SharedPreferences) con los getters y el
+ * constructor completo.
+ *
+ * @date 19/10/2026
+ */
+public class PlanificadorNotificaciones {
+
+    // WorkManager no permite menos de 15 min entre trabajos periódicos
+    public static final long INTERVALO_MIN_MS = 15 * 60_000L;
+    public static final long INTERVALO_MAX_MS = 2 * 3_600_000L;
+    public static final int MAX_DESPERTARES_DIA = 48;
+
+    private static final long DIA_MS = 24 * 3_600_000L;
+
+    private long intervaloMs;
+    private long dia;
+    private int despertaresHoy;
+
+    public PlanificadorNotificaciones() {
+        this(INTERVALO_MIN_MS, -1, 0);
+    }
+
+    /**
+     * @param intervaloMs    Último intervalo usado.
+     * @param dia            Día local del contador (ver {@link #diaDe(long, long)}).
+     * @param despertaresHoy Despertares ya contados ese día.
+     */
+    public PlanificadorNotificaciones(long intervaloMs, long dia, int despertaresHoy) {
+        this.intervaloMs = Math.max(INTERVALO_MIN_MS, Math.min(INTERVALO_MAX_MS, intervaloMs));
+        this.dia = dia;
+        this.despertaresHoy = despertaresHoy;
+    }
+
+    /**
+     * @brief Día local al que pertenece un instante.
+     *
+     * @param ahora         Instante en ms (UTC).
+     * @param desfaseZonaMs Desfase de la zona local en ese instante
+     *                      (TimeZone.getDefault().getOffset(ahora)).
+     */
+    public static long diaDe(long ahora, long desfaseZonaMs) {
+        return Math.floorDiv(ahora + desfaseZonaMs, DIA_MS);
+    }
+
+    /**
+     * @brief Anota un despertar.
+     *
+     * @return false si ya se había agotado el presupuesto del día (en ese
+     *         caso no se debería consultar el backend).
+     */
+    public boolean registrarDespertar(long ahora, long desfaseZonaMs) {
+        long hoy = diaDe(ahora, desfaseZonaMs);
+        if (hoy != dia) {
+            dia = hoy;
+            despertaresHoy = 0;
+        }
+        if (despertaresHoy >= MAX_DESPERTARES_DIA) return false;
+
+        despertaresHoy++;
+        return true;
+    }
+
+    /**
+     * @brief Retardo hasta la próxima consulta.
+     *
+     * @param huboNuevas    Si la consulta que acaba de hacerse trajo alertas.
+     * @param falloRed      Si la consulta falló.
+     * @param ahora         Instante actual en ms.
+     * @param desfaseZonaMs Desfase de la zona local.
+     */
+    public long siguienteRetardo(boolean huboNuevas, boolean falloRed, long ahora, long desfaseZonaMs) {
+        if (huboNuevas) {
+            intervaloMs = INTERVALO_MIN_MS;
+        } else if (!falloRed) {
+            intervaloMs = Math.min(INTERVALO_MAX_MS, intervaloMs * 2);
+        }
+
+        if (diaDe(ahora, desfaseZonaMs) == dia && despertaresHoy >= MAX_DESPERTARES_DIA) {
+            long inicioManana = (dia + 1) * DIA_MS - desfaseZonaMs;
+            return Math.max(intervaloMs, inicioManana - ahora);
+        }
+        return intervaloMs;
+    }
+
+    /**
+     * @brief Vuelve al intervalo mínimo (p. ej. al abrir la app).
+     */
+    public void reiniciarIntervalo() {
+        intervaloMs = INTERVALO_MIN_MS;
+    }
+
+    public long getIntervaloMs() { return intervaloMs; }
+    public long getDia() { return dia; }
+    public int getDespertaresHoy() { return despertaresHoy; }
+}
@@ -0,0 +1,346 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @brief Planificador único de los refrescos periódicos de las pantallas.
+ *
+ * Antes cada pantalla tenía su bucle de Handler.postDelayed: los de
+ * UserPageActivity no se paraban nunca (cada visita, o cada cambio de gas,
+ * añadía dos más) y seguían pidiendo al servidor con la app cerrada.
+ * Ahora las pantallas registran tareas con una clave y un intervalo
+ * (Refrescos lo hace según su ciclo de vida) y este planificador decide
+ * cuándo ejecutarlas:
+ *  - Sin duplicados: dos pantallas que registran la misma clave comparten
+ *    una sola tarea, con el menor de sus intervalos. Se ejecuta la acción
+ *    del último que la registró (la pantalla que está delante) y, cuando
+ *    se va, la del anterior.
+ *  - En segundo plano no se ejecuta nada; al volver, lo vencido sale ya.
+ *  - No se solapan: la siguiente ejecución se cuenta desde que termina la
+ *    anterior (Fin.hecho), más un ±JITTER aleatorio para que las tareas
+ *    no se alineen.
+ *  - Con errores la espera se dobla en cada fallo seguido, hasta
+ *    MAX_ESPERA_MS; el primer acierto vuelve al intervalo. Una ejecución
+ *    que no termina en max(2 × intervalo, MIN_TIEMPO_LIMITE_MS) cuenta
+ *    como error.
+ *
+ * Lleva, por tarea, las ejecuciones, los errores y la tasa por minuto
+ * (ventana deslizante aproximada con dos contadores), que MetricasActivity
+ * enseña con informe().
+ *
+ * El reloj y el aviso de cambios se inyectan.
+ * No es thread-safe: se usa desde el hilo principal.
+ *
+ * @date 19/10/2026
+ */
+public final class PlanificadorRefrescos {
+
+    /** Variación aleatoria de cada espera (fracción del intervalo). */
+    public static final double JITTER = 0.1;
+    /** Espera máxima tras errores seguidos (ms). */
+    public static final long MAX_ESPERA_MS = 60_000;
+    /** Tiempo mínimo que se espera a que una ejecución termine (ms). */
+    public static final long MIN_TIEMPO_LIMITE_MS = 15_000;
+    /** Ventana de la tasa de ejecuciones (ms). */
+    public static final long VENTANA_TASA_MS = 60_000;
+
+    /**
+     * @brief Fuente de tiempo (ms, monótona).
+     */
+    public interface Reloj {
+        long ahoraMs();
+    }
+
+    /**
+     * @brief Avisa al terminar una ejecución.
+     */
+    public interface Fin {
+        void hecho(boolean ok);
+    }
+
+    /**
+     * @brief Refresco de una pantalla. Tiene que llamar a fin.hecho() al
+     *        terminar (también si falla), desde el hilo principal.
+     */
+    public interface Accion {
+        void ejecutar(Fin fin);
+    }
+
+    /** Quién ha pedido una tarea y cómo. */
+    private static final class Suscripcion {
+        final Object propietario;
+        final long intervaloMs;
+        final Accion accion;
+
+        Suscripcion(Object propietario, long intervaloMs, Accion accion) {
+            this.propietario = propietario;
+            this.intervaloMs = intervaloMs;
+            this.accion = accion;
+        }
+    }
+
+    /** Una tarea (una clave) con sus suscripciones y su estado. */
+    private static final class Tarea {
+        final String clave;
+        final List<Suscripcion> suscripciones = new ArrayList<>();
+
+        long proximaMs;
+        boolean enCurso = false;
+        long inicioMs;
+        int turno = 0;
+        int fallosSeguidos = 0;
+
+        long ejecuciones = 0;
+        long errores = 0;
+        long ultimaDuracionMs = -1;
+
+        // Tasa: ejecuciones en la ventana actual y en la anterior
+        long ventanaMs;
+        int enVentana = 0;
+        int enAnterior = 0;
+
+        Tarea(String clave, long ahoraMs) {
+            this.clave = clave;
+            this.proximaMs = ahoraMs;
+            this.ventanaMs = ahoraMs;
+        }
+
+        long intervaloMs() {
+            long min = Long.MAX_VALUE;
+            for (Suscripcion s : suscripciones) min = Math.min(min, s.intervaloMs);
+            return min;
+        }
+
+        Accion accion() {
+            return suscripciones.get(suscripciones.size() - 1).accion;
+        }
+
+        long limiteMs() {
+            return inicioMs + Math.max(2 * intervaloMs(), MIN_TIEMPO_LIMITE_MS);
+        }
+
+        void contar(long ahoraMs) {
+            long pasado = ahoraMs - ventanaMs;
+            if (pasado >= VENTANA_TASA_MS) {
+                enAnterior = pasado < 2 * VENTANA_TASA_MS ? enVentana : 0;
+                enVentana = 0;
+                ventanaMs += pasado - pasado % VENTANA_TASA_MS;
+            }
+            enVentana++;
+        }
+
+        double tasaPorMinuto(long ahoraMs) {
+            long pasado = ahoraMs - ventanaMs;
+            if (pasado >= 2 * VENTANA_TASA_MS) return 0;
+            if (pasado >= VENTANA_TASA_MS) {
+                double f = (double) (pasado - VENTANA_TASA_MS) / VENTANA_TASA_MS;
+                return enVentana * (1 - f) * 60_000.0 / VENTANA_TASA_MS;
+            }
+            double f = (double) pasado / VENTANA_TASA_MS;
+            return (enAnterior * (1 - f) + enVentana) * 60_000.0 / VENTANA_TASA_MS;
+        }
+    }
+
+    private final Reloj reloj;
+    private final Random random;
+    private final Runnable alCambiar;
+
+    private final Map<String, Tarea> tareas = new LinkedHashMap<>();
+    private boolean primerPlano = true;
+
+    /**
+     * @param alCambiar Se llama cuando termina una ejecución (puede cambiar
+     *                  proximaMs()); puede ser null.
+     */
+    public PlanificadorRefrescos(Reloj reloj, Random random, Runnable alCambiar) {
+        this.reloj = reloj;
+        this.random = random;
+        this.alCambiar = alCambiar;
+    }
+
+    /**
+     * @brief Registra (o actualiza) la suscripción de un propietario a una
+     *        tarea.
+     *
+     * @return true si la tarea es nueva; false si ya existía (se comparte).
+     */
+    public boolean registrar(String clave, long intervaloMs, Object propietario, Accion accion) {
+        long ahora = reloj.ahoraMs();
+        Tarea t = tareas.get(clave);
+        boolean nueva = t == null;
+        if (nueva) {
+            t = new Tarea(clave, ahora);
+            tareas.put(clave, t);
+        }
+
+        quitar(t, propietario);
+        t.suscripciones.add(new Suscripcion(propietario, intervaloMs, accion));
+
+        // Un intervalo más corto adelanta la siguiente ejecución
+        if (!t.enCurso) t.proximaMs = Math.min(t.proximaMs, ahora + intervaloMs);
+        return nueva;
+    }
+
+    /**
+     * @brief Quita la suscripción de un propietario; la tarea desaparece
+     *        con la última.
+     */
+    public void cancelar(String clave, Object propietario) {
+        Tarea t = tareas.get(clave);
+        if (t == null) return;
+        quitar(t, propietario);
+        if (t.suscripciones.isEmpty()) tareas.remove(clave);
+    }
+
+    /**
+     * @brief Quita todas las suscripciones de un propietario.
+     */
+    public void cancelarTodas(Object propietario) {
+        for (String clave : new ArrayList<>(tareas.keySet())) cancelar(clave, propietario);
+    }
+
+    /**
+     * @brief La app pasa a primer o a segundo plano (en segundo plano no se
+     *        ejecuta nada).
+     */
+    public void setPrimerPlano(boolean primerPlano) {
+        this.primerPlano = primerPlano;
+    }
+
+    public boolean isPrimerPlano() {
+        return primerPlano;
+    }
+
+    /**
+     * @brief Ejecuta las tareas vencidas y da por fallidas las que llevan
+     *        demasiado tiempo en curso.
+     *
+     * @return Número de tareas lanzadas.
+     */
+    public int ejecutarVencidas() {
+        if (!primerPlano) return 0;
+
+        int lanzadas = 0;
+        for (Tarea t : new ArrayList<>(tareas.values())) {
+            long ahora = reloj.ahoraMs();
+            if (t.enCurso && ahora >= t.limiteMs()) terminar(t, t.turno, false);
+
+            if (t.enCurso || t.proximaMs > ahora || tareas.get(t.clave) != t) continue;
+
+            t.enCurso = true;
+            t.inicioMs = ahora;
+            t.ejecuciones++;
+            t.contar(ahora);
+            final Tarea tarea = t;
+            final int turno = ++t.turno;
+            lanzadas++;
+            t.accion().ejecutar(ok -> {
+                terminar(tarea, turno, ok);
+                if (alCambiar != null) alCambiar.run();
+            });
+        }
+        return lanzadas;
+    }
+
+    /**
+     * @brief Instante (del Reloj) en el que hay que volver a llamar a
+     *        ejecutarVencidas(), o Long.MAX_VALUE si no hace falta.
+     */
+    public long proximaMs() {
+        if (!primerPlano) return Long.MAX_VALUE;
+        long min = Long.MAX_VALUE;
+        for (Tarea t : tareas.values()) {
+            min = Math.min(min, t.enCurso ? t.limiteMs() : t.proximaMs);
+        }
+        return min;
+    }
+
+    public int getNumTareas() {
+        return tareas.size();
+    }
+
+    /** Suscripciones de una tarea (0 si no existe). */
+    public int getSuscripciones(String clave) {
+        Tarea t = tareas.get(clave);
+        return t == null ? 0 : t.suscripciones.size();
+    }
+
+    public long getEjecuciones(String clave) {
+        Tarea t = tareas.get(clave);
+        return t == null ? 0 : t.ejecuciones;
+    }
+
+    /** Ejecuciones de una tarea en el último minuto (aproximado). */
+    public double getTasaPorMinuto(String clave) {
+        Tarea t = tareas.get(clave);
+        return t == null ? 0 : t.tasaPorMinuto(reloj.ahoraMs());
+    }
+
+    /**
+     * @brief Informe legible de las tareas activas, para la pantalla de
+     *        depuración.
+     */
+    public String informe() {
+        long ahora = reloj.ahoraMs();
+        StringBuilder sb = new StringBuilder();
+        double total = 0;
+        for (Tarea t : tareas.values()) total += t.tasaPorMinuto(ahora);
+
+        sb.append(String.format(Locale.US, "Refrescos: %d tareas, %.1f/min, %s%n",
+                tareas.size(), total, primerPlano ? "primer plano" : "pausados"));
+
+        for (Tarea t : tareas.values()) {
+            sb.append(String.format(Locale.US,
+                    "  %s cada %.1f s ×%d: %.1f/min, %d ejec, %d err",
+                    t.clave, t.intervaloMs() / 1000.0, t.suscripciones.size(),
+                    t.tasaPorMinuto(ahora), t.ejecuciones, t.errores));
+            if (t.ultimaDuracionMs >= 0) sb.append(", ").append(t.ultimaDuracionMs).append(" ms");
+            if (t.fallosSeguidos > 0) sb.append(", ").append(t.fallosSeguidos).append(" fallos seguidos");
+            if (t.enCurso) {
+                sb.append(", en curso");
+            } else {
+                sb.append(String.format(Locale.US, ", próxima en %.1f s",
+                        Math.max(0, t.proximaMs - ahora) / 1000.0));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    // -------------------------------------------------------------
+
+    private void terminar(Tarea t, int turno, boolean ok) {
+        // Respuesta de una ejecución ya dada por perdida, o de una tarea cancelada
+        if (!t.enCurso || turno != t.turno || tareas.get(t.clave) != t) return;
+
+        long ahora = reloj.ahoraMs();
+        t.enCurso = false;
+        t.ultimaDuracionMs = ahora - t.inicioMs;
+
+        long intervalo = t.intervaloMs();
+        long espera;
+        if (ok) {
+            t.fallosSeguidos = 0;
+            espera = intervalo;
+        } else {
+            t.fallosSeguidos++;
+            t.errores++;
+            long tope = Math.max(intervalo, MAX_ESPERA_MS);
+            espera = Math.min(tope, intervalo << Math.min(t.fallosSeguidos, 16));
+        }
+
+        espera = Math.round(espera * (1 + JITTER * (2 * random.nextDouble() - 1)));
+        t.proximaMs = ahora + espera;
+    }
+
+    private static void quitar(Tarea t, Object propietario) {
+        for (int i = t.suscripciones.size() - 1; i >= 0; i--) {
+            if (t.suscripciones.get(i).propietario == propietario) t.suscripciones.remove(i);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @brief Codificación compacta de un tramo del recorrido (lat, lon, tiempo).
+ *
+ * Es el formato "encoded polyline" de Google ampliado con una tercera
+ * dimensión: por cada punto se escriben las diferencias con el anterior
+ * de la latitud y la longitud (en 1e-5 grados, ~1 m) y del tiempo (en
+ * segundos). Cada diferencia va en zigzag y en grupos de 5 bits como
+ * caracteres ASCII imprimibles, así que cabe tal cual en un JSON: un
+ * paso de unos metros ocupa 3–6 caracteres, frente a los ~40 de
+ * {"lat":..,"lon":..,"t":..}.
+ *
+ * El primer punto lleva la diferencia respecto a (0, 0, inicio del tramo).
+ * El servidor guarda cada tramo tal cual (POST /recorrido/tramo).
+ *
+ * @date 19/10/2026
+ */
+public final class PolilineaCodificada {
+
+    /** Unidades por grado. */
+    public static final double ESCALA = 1e5;
+
+    private PolilineaCodificada() { }
+
+    /**
+     * @brief Punto decodificado.
+     */
+    public static final class Punto {
+        public final double lat;
+        public final double lon;
+        public final long tMs;
+
+        public Punto(double lat, double lon, long tMs) {
+            this.lat = lat;
+            this.lon = lon;
+            this.tMs = tMs;
+        }
+    }
+
+    /**
+     * @brief Va escribiendo puntos en un StringBuilder (un tramo).
+     */
+    public static final class Escritor {
+        private final StringBuilder sb = new StringBuilder();
+        private final long inicioMs;
+        private long lat, lon, seg;
+        private int puntos = 0;
+
+        /** @param inicioMs Instante de referencia del tramo (ms). */
+        public Escritor(long inicioMs) {
+            this.inicioMs = inicioMs;
+        }
+
+        public void anadir(double latGrados, double lonGrados, long tMs) {
+            long la = Math.round(latGrados * ESCALA);
+            long lo = Math.round(lonGrados * ESCALA);
+            long s = Math.max(0, (tMs - inicioMs) / 1000);
+            escribir(sb, la - lat);
+            escribir(sb, lo - lon);
+            escribir(sb, s - seg);
+            lat = la;
+            lon = lo;
+            seg = s;
+            puntos++;
+        }
+
+        public int getPuntos() {
+            return puntos;
+        }
+
+        public long getInicioMs() {
+            return inicioMs;
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+
+    /**
+     * @brief Decodifica un tramo.
+     *
+     * @param inicioMs Instante de referencia con el que se escribió.
+     * @throws IllegalArgumentException si la cadena está cortada o no es válida.
+     */
+    public static List<Punto> decodificar(String texto, long inicioMs) {
+        List<Punto> res = new ArrayList<>();
+        int[] pos = {0};
+        long lat = 0, lon = 0, seg = 0;
+        while (pos[0] < texto.length()) {
+            lat += leer(texto, pos);
+            lon += leer(texto, pos);
+            seg += leer(texto, pos);
+            res.add(new Punto(lat / ESCALA, lon / ESCALA, inicioMs + seg * 1000));
+        }
+        return res;
+    }
+
+    private static void escribir(StringBuilder sb, long v) {
+        long z = v < 0 ? ~(v << 1) : (v << 1);
+        while (z >= 0x20) {
+            sb.append((char) ((0x20 | (z & 0x1f)) + 63));
+            z >>= 5;
+        }
+        sb.append((char) (z + 63));
+    }
+
+    private static long leer(String texto, int[] pos) {
+        long z = 0;
+        int desplazamiento = 0;
+        int b;
+        do {
+            if (pos[0] >= texto.length() || desplazamiento > 60) {
+                throw new IllegalArgumentException("Polilínea cortada en " + pos[0]);
+            }
+            b = texto.charAt(pos[0]++) - 63;
+            if (b < 0 || b > 63) {
+                throw new IllegalArgumentException("Carácter no válido en " + (pos[0] - 1));
+            }
+            z |= (long) (b & 0x1f) << desplazamiento;
+            desplazamiento += 5;
+        } while (b >= 0x20);
+        return (z & 1) != 0 ? ~(z >> 1) : (z >> 1);
+    }
+}
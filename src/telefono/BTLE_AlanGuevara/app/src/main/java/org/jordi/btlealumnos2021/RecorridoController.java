@@ -103,7 +103,7 @@ public class RecorridoController {
 
         // ------------------------------------------------------------------
         // Receiver para recibir ACTUALIZACIONES EN TIEMPO REAL del recorrido
-        // desde el ServicioRecorridoGPS mientras el usuario camina.
+        // desde el ModuloRecorrido mientras el usuario camina.
         // ------------------------------------------------------------------
         recorridoReceiver = new BroadcastReceiver() {
             @Override
@@ -132,13 +132,13 @@ public class RecorridoController {
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
             context.registerReceiver(
                     recorridoReceiver,
-                    new IntentFilter(ServicioRecorridoGPS.ACTION_RECorrido_UPDATE),
+                    new IntentFilter(ModuloRecorrido.ACTION_RECorrido_UPDATE),
                     Context.RECEIVER_NOT_EXPORTED // ← OBLIGATORIO desde Android 13
             );
         } else {
             context.registerReceiver(
                     recorridoReceiver,
-                    new IntentFilter(ServicioRecorridoGPS.ACTION_RECorrido_UPDATE)
+                    new IntentFilter(ModuloRecorrido.ACTION_RECorrido_UPDATE)
             );
         }
 
@@ -162,19 +162,19 @@ public class RecorridoController {
         if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.TIRAMISU) {
             context.registerReceiver(
                     stopReceiver,
-                    new IntentFilter(ServicioRecorridoGPS.ACTION_SERVICIO_DETENIDO),
+                    new IntentFilter(ModuloRecorrido.ACTION_SERVICIO_DETENIDO),
                     Context.RECEIVER_NOT_EXPORTED // ← OBLIGATORIO desde Android 13
             );
         } else {
             context.registerReceiver(
                     stopReceiver,
-                    new IntentFilter(ServicioRecorridoGPS.ACTION_SERVICIO_DETENIDO)
+                    new IntentFilter(ModuloRecorrido.ACTION_SERVICIO_DETENIDO)
             );
         }
 
 
         // Sincronizar botones con el estado real del servicio
-        if (ServicioRecorridoGPS.isRunning()) {
+        if (ModuloRecorrido.isRunning()) {
             btnIniciar.setVisibility(View.GONE);
             btnDetener.setVisibility(View.VISIBLE);
         } else {
@@ -187,15 +187,15 @@ public class RecorridoController {
      * @brief Inicia el servicio de recorrido GPS.
      *
      * Actualiza el estado de la interfaz y lanza el servicio
-     * {@link ServicioRecorridoGPS} como servicio en primer plano.
+     * módulo {@link ModuloRecorrido} en el servicio en primer plano de
+     * los sensores.
      */
     private void iniciarRecorrido() {
 
         btnIniciar.setVisibility(View.GONE);
         btnDetener.setVisibility(View.VISIBLE);
 
-        Intent intent = new Intent(context, ServicioRecorridoGPS.class);
-        context.startForegroundService(intent);
+        ServicioSensores.iniciarModulo(context, ServicioSensores.MODULO_RECORRIDO);
     }
 
     /**
@@ -209,8 +209,7 @@ public class RecorridoController {
         btnDetener.setVisibility(View.GONE);
         btnIniciar.setVisibility(View.VISIBLE);
 
-        Intent intent = new Intent(context, ServicioRecorridoGPS.class);
-        context.stopService(intent);
+        ServicioSensores.detenerModulo(context, ServicioSensores.MODULO_RECORRIDO);
 
         // Recarga de los datos tras finalizar el recorrido
         cargarRecorrido();
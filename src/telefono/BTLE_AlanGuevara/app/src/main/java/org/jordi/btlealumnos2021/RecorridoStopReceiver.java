@@ -11,7 +11,7 @@ import android.util.Log;
  *
  * Este BroadcastReceiver se activa al recibir una acción específica enviada
  * normalmente desde una notificación persistente. Su función principal es
- * detener el servicio {@link ServicioRecorridoGPS}, finalizando así la captura
+ * detener el módulo {@link ModuloRecorrido}, finalizando así la captura
  * o seguimiento de la ubicación del usuario.
  *
  * Se utiliza como mecanismo de control externo del servicio, permitiendo
@@ -53,9 +53,10 @@ public class RecorridoStopReceiver extends BroadcastReceiver {
 
             Log.d(TAG, "Deteniendo servicio GPS");
 
-            // Detención explícita del servicio de recorrido GPS
-            context.stopService(
-                    new Intent(context, ServicioRecorridoGPS.class)
+            // Detención explícita del módulo de recorrido GPS
+            ServicioSensores.detenerModulo(
+                    context,
+                    ServicioSensores.MODULO_RECORRIDO
             );
         }
     }
@@ -0,0 +1,108 @@
+package org.jordi.btlealumnos2021;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.Random;
+
+/**
+ * @brief Refrescos periódicos de todas las pantallas, atados a su ciclo
+ *        de vida (ver PlanificadorRefrescos).
+ *
+ * Una pantalla llama a registrar() una vez (en onCreate) por cada cosa
+ * que quiere refrescar. La tarea se activa en ON_RESUME, se quita en
+ * ON_PAUSE y el observador se borra en ON_DESTROY: no quedan bucles vivos
+ * cuando la pantalla se va. AtmosApp avisa con setPrimerPlano() cuando la
+ * app entera pasa a segundo plano.
+ *
+ * Un solo Handler del hilo principal se programa para la próxima tarea
+ * que vence. Cada ejecución suma en Metricas "sondeo.<clave>" y el número
+ * de tareas va al indicador "refrescos.tareas".
+ *
+ * @date 19/10/2026
+ */
+public final class Refrescos {
+
+    private static Refrescos instancia;
+
+    public static synchronized Refrescos getInstance() {
+        if (instancia == null) instancia = new Refrescos();
+        return instancia;
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final PlanificadorRefrescos planificador = new PlanificadorRefrescos(
+            SystemClock::uptimeMillis, new Random(), this::reprogramar);
+
+    private final Runnable tick = () -> {
+        planificador.ejecutarVencidas();
+        reprogramar();
+    };
+
+    private Refrescos() { }
+
+    /**
+     * @brief Registra un refresco de una pantalla mientras esté delante.
+     *
+     * @param clave       Qué se refresca; dos pantallas con la misma clave
+     *                    comparten la tarea.
+     * @param intervaloMs Tiempo entre el fin de una ejecución y la siguiente.
+     * @param accion      Tiene que llamar a fin.hecho() al terminar.
+     */
+    public void registrar(LifecycleOwner pantalla, String clave, long intervaloMs,
+                          PlanificadorRefrescos.Accion accion) {
+        PlanificadorRefrescos.Accion contada = fin -> {
+            Metricas.getInstance().contador("sondeo." + clave).incrementar();
+            accion.ejecutar(fin);
+        };
+
+        pantalla.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner fuente, @NonNull Lifecycle.Event evento) {
+                switch (evento) {
+                    case ON_RESUME:
+                        planificador.registrar(clave, intervaloMs, pantalla, contada);
+                        reprogramar();
+                        break;
+                    case ON_PAUSE:
+                        planificador.cancelar(clave, pantalla);
+                        reprogramar();
+                        break;
+                    case ON_DESTROY:
+                        fuente.getLifecycle().removeObserver(this);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+    }
+
+    /**
+     * @brief La app pasa a primer o segundo plano (lo llama AtmosApp).
+     */
+    public void setPrimerPlano(boolean primerPlano) {
+        planificador.setPrimerPlano(primerPlano);
+        reprogramar();
+    }
+
+    /**
+     * @brief Tareas activas y tasas, para MetricasActivity.
+     */
+    public String informe() {
+        return planificador.informe();
+    }
+
+    private void reprogramar() {
+        Metricas.getInstance().indicador("refrescos.tareas").fijar(planificador.getNumTareas());
+        handler.removeCallbacks(tick);
+        long proxima = planificador.proximaMs();
+        if (proxima != Long.MAX_VALUE) handler.postAtTime(tick, proxima);
+    }
+}
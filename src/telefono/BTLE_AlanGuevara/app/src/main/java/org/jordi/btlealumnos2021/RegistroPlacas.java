@@ -0,0 +1,289 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @brief Placas que escucha ModuloBeacons, con el estado propio
+ *        de cada una.
+ *
+ * Antes el servicio solo aceptaba la placa vinculada al usuario. Ahora puede
+ * seguir N placas a la vez (un usuario con varias placas, o un móvil fijo
+ * junto a varias): cada Placa tiene su SecuenciaContador, su presencia
+ * (encendida/apagada), su CompresorMedidas y un Canal por gas (11..14).
+ *
+ * La búsqueda se hace con los 16 bytes del UUID del anuncio, sin crear el
+ * String: se empaquetan en dos long (quitando los espacios de los lados,
+ * como MedidaBeacon) y se consulta un HashMap con una clave reutilizada.
+ * Coste por anuncio O(1) y sin reservar memoria; los anuncios de placas
+ * ajenas se descartan antes de decodificarlos.
+ *
+ * No es thread-safe: se usa desde el hilo principal (el ScanCallback y la
+ * reproducción de trazas entregan ahí).
+ *
+ * @date 19/10/2026
+ */
+public final class RegistroPlacas {
+
+    /** Tiempo sin anuncios tras el que una placa se da por apagada (ms). */
+    public static final long AUSENCIA_MS = 5000;
+
+    private static final int GAS_MIN = ClasificadorCalidad.GAS_NO2;
+    private static final int GAS_MAX = ClasificadorCalidad.GAS_SO2;
+
+    // Posición del UUID dentro del anuncio (ver MedidaBeacon)
+    private static final int INICIO_UUID = 9;
+    private static final int LONGITUD_UUID = 16;
+
+    private static final int PRESENCIA_DESCONOCIDA = -1;
+    private static final int APAGADA = 0;
+    private static final int ENCENDIDA = 1;
+
+    /**
+     * @brief Recibe las medidas que el compresor de una placa decide subir.
+     */
+    public interface Subida {
+        void subir(Placa placa, CompresorMedidas.Muestra m);
+    }
+
+    /**
+     * @brief Recibe los cambios de encendida/apagada de una placa.
+     */
+    public interface CambioPresencia {
+        void cambio(Placa placa, boolean encendida);
+    }
+
+    /**
+     * @brief Estado de un gas de una placa.
+     */
+    public static final class Canal {
+        public final int tipoGas;
+        float ultimoValor;
+        long ultimaMs;
+        long medidas;
+
+        Canal(int tipoGas) {
+            this.tipoGas = tipoGas;
+        }
+
+        public float getUltimoValor() { return ultimoValor; }
+        public long getUltimaMs() { return ultimaMs; }
+        public long getMedidas() { return medidas; }
+    }
+
+    /**
+     * @brief Una placa escuchada y su estado.
+     */
+    public static final class Placa {
+        public final String nombre;
+
+        // true si es la placa vinculada al usuario (ver isVinculada())
+        private boolean vinculada;
+
+        /** Duplicados, pérdidas y desorden del contador de esta placa. */
+        public final SecuenciaContador secuencia = new SecuenciaContador();
+
+        /** Compresión de las medidas de esta placa antes de subirlas. */
+        public final CompresorMedidas compresor;
+
+        private final Canal[] canales = new Canal[GAS_MAX - GAS_MIN + 1];
+        private long ultimoAnuncioMs = 0;
+        private int presencia = PRESENCIA_DESCONOCIDA;
+        private int bateria = TramaAtmos.BATERIA_DESCONOCIDA;
+
+        Placa(String nombre, boolean vinculada, Subida subida) {
+            this.nombre = nombre;
+            this.vinculada = vinculada;
+            this.compresor = new CompresorMedidas(m -> subida.subir(this, m));
+        }
+
+        /** @return true si es la placa vinculada al usuario (la de su pantalla). */
+        public boolean isVinculada() {
+            return vinculada;
+        }
+
+        /**
+         * @brief Apunta una medida nueva en el canal de su gas.
+         *
+         * @return El canal, o null si el gas no es uno de los de Atmos.
+         */
+        public Canal anotarMedida(int tipoGas, float valor, long tMs) {
+            if (tipoGas < GAS_MIN || tipoGas > GAS_MAX) return null;
+
+            Canal c = canales[tipoGas - GAS_MIN];
+            if (c == null) {
+                c = new Canal(tipoGas);
+                canales[tipoGas - GAS_MIN] = c;
+            }
+            c.ultimoValor = valor;
+            c.ultimaMs = tMs;
+            c.medidas++;
+            return c;
+        }
+
+        /** @return El canal de un gas, o null si aún no ha llegado nada. */
+        public Canal canal(int tipoGas) {
+            if (tipoGas < GAS_MIN || tipoGas > GAS_MAX) return null;
+            return canales[tipoGas - GAS_MIN];
+        }
+
+        public long getUltimoAnuncioMs() {
+            return ultimoAnuncioMs;
+        }
+
+        public boolean estaEncendida() {
+            return presencia == ENCENDIDA;
+        }
+
+        /** @return Batería en % (anuncios v2), o TramaAtmos.BATERIA_DESCONOCIDA. */
+        public int getBateria() {
+            return bateria;
+        }
+
+        public void setBateria(int bateria) {
+            this.bateria = bateria;
+        }
+    }
+
+    /** Los 16 bytes del UUID empaquetados (sin los espacios de los lados). */
+    private static final class Clave {
+        long alta;
+        long baja;
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Clave)) return false;
+            Clave c = (Clave) o;
+            return alta == c.alta && baja == c.baja;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = alta * 31 + baja;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private final Subida subida;
+    private final Map<Clave, Placa> placas = new HashMap<>();
+
+    // Clave reutilizada en cada búsqueda
+    private final Clave sonda = new Clave();
+
+    public RegistroPlacas(Subida subida) {
+        this.subida = subida;
+    }
+
+    /**
+     * @brief Empieza a escuchar una placa. Si ya estaba, devuelve la misma,
+     *        marcada como vinculada si ahora lo es (nunca se desmarca).
+     *
+     * @param nombre Nombre de la placa (el texto ASCII de su UUID).
+     */
+    public Placa registrar(String nombre, boolean vinculada) {
+        String limpio = nombre.trim();
+        if (limpio.isEmpty() || limpio.length() > LONGITUD_UUID) {
+            throw new IllegalArgumentException("Nombre de placa no válido: '" + nombre + "'");
+        }
+
+        Clave k = new Clave();
+        byte[] b = new byte[limpio.length()];
+        for (int i = 0; i < b.length; i++) b[i] = (byte) limpio.charAt(i);
+        empaquetar(b, 0, b.length, k);
+
+        Placa p = placas.get(k);
+        if (p == null) {
+            p = new Placa(limpio, vinculada, subida);
+            placas.put(k, p);
+        } else if (vinculada) {
+            // Ya estaba como adicional (p. ej. la lista de adb la incluía)
+            p.vinculada = true;
+        }
+        return p;
+    }
+
+    /**
+     * @brief Placa a la que pertenece un anuncio.
+     *
+     * @param anuncio Bytes crudos del ScanRecord.
+     * @return La placa, o null si no se escucha (o el anuncio es corto).
+     */
+    public Placa buscar(byte[] anuncio) {
+        if (anuncio == null || anuncio.length < MedidaBeacon.LONGITUD_MINIMA) return null;
+        return buscar(anuncio, INICIO_UUID);
+    }
+
+    /**
+     * @brief Placa cuyo id (16 bytes) empieza en inicioId dentro del anuncio
+     *        (TramaAtmos.getInicioId(), para los anuncios v2).
+     *
+     * @return La placa, o null si no se escucha (o el anuncio es corto).
+     */
+    public Placa buscar(byte[] anuncio, int inicioId) {
+        if (anuncio == null || inicioId < 0 || inicioId + LONGITUD_UUID > anuncio.length) return null;
+        if (placas.isEmpty()) return null;
+
+        // Quitar espacios (y ceros) de los lados, como String.trim()
+        int ini = inicioId;
+        int fin = inicioId + LONGITUD_UUID;
+        while (ini < fin && (anuncio[ini] & 0xFF) <= ' ') ini++;
+        while (fin > ini && (anuncio[fin - 1] & 0xFF) <= ' ') fin--;
+
+        empaquetar(anuncio, ini, fin - ini, sonda);
+        return placas.get(sonda);
+    }
+
+    /**
+     * @brief Apunta que ha llegado un anuncio de la placa.
+     *
+     * @return true si la placa acaba de pasar a encendida.
+     */
+    public boolean anotarAnuncio(Placa p, long ahoraMs) {
+        p.ultimoAnuncioMs = ahoraMs;
+        if (p.presencia == ENCENDIDA) return false;
+        p.presencia = ENCENDIDA;
+        return true;
+    }
+
+    /**
+     * @brief Marca como apagadas las placas que llevan AUSENCIA_MS sin
+     *        anuncios (también las que aún no han enviado ninguno).
+     *
+     * @param cambios Recibe cada placa que cambia a apagada.
+     */
+    public void revisarPresencia(long ahoraMs, CambioPresencia cambios) {
+        for (Placa p : placas.values()) {
+            if (p.presencia == APAGADA) continue;
+            if (p.presencia == ENCENDIDA && ahoraMs - p.ultimoAnuncioMs <= AUSENCIA_MS) continue;
+
+            p.presencia = APAGADA;
+            cambios.cambio(p, false);
+        }
+    }
+
+    /** @return Todas las placas escuchadas. */
+    public List<Placa> placas() {
+        return new ArrayList<>(placas.values());
+    }
+
+    public int size() {
+        return placas.size();
+    }
+
+    /**
+     * Mete n ≤ 16 bytes en dos long (8 + 8), rellenando con ceros.
+     */
+    private static void empaquetar(byte[] b, int desde, int n, Clave k) {
+        long alta = 0, baja = 0;
+        for (int i = 0; i < 8; i++) {
+            alta = (alta << 8) | (i < n ? b[desde + i] & 0xFF : 0);
+        }
+        for (int i = 8; i < 16; i++) {
+            baja = (baja << 8) | (i < n ? b[desde + i] & 0xFF : 0);
+        }
+        k.alta = alta;
+        k.baja = baja;
+    }
+}
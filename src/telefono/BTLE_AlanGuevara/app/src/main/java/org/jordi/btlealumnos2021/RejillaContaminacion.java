@@ -0,0 +1,157 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @brief Cálculo de la cuadrícula del mapa de calor de ContaminacionOverlay.
+ *
+ * El overlay proyecta el centro de cada celda a coordenadas geográficas y
+ * esta clase decide la categoría de cada celda: de los puntos que quedan a
+ * menos de RADIO grados, se queda con el PEOR nivel (menos 0.05) y lo
+ * clasifica con ClasificadorCalidad. Las celdas sin ningún punto cerca
+ * quedan como SIN_COBERTURA y no se pintan.
+ *
+ * Antes se calculaba también un peso IDW (1/d^EXP) por punto que luego solo
+ * se usaba para saber si había alguno dentro del radio; ahora se compara la
+ * distancia al cuadrado con RADIO² y se evita la raíz y la potencia.
+ *
+ * También cuenta las celdas de cada categoría para el índice de calidad
+ * (porcentajes y categoría dominante).
+ *
+ * @date 19/10/2026
+ */
+public final class RejillaContaminacion {
+
+    /**
+     * @brief Punto de muestreo: latitud, longitud y nivel normalizado (0..1).
+     */
+    public static class Punto {
+        public double lat;
+        public double lon;
+        public double nivel;
+
+        public Punto(double lat, double lon, double nivel) {
+            this.lat = lat;
+            this.lon = lon;
+            this.nivel = nivel;
+        }
+    }
+
+    /** Número de divisiones por eje del lienzo. */
+    public static final int GRID = 55;
+
+    /** Radio de influencia geográfico (grados, ≈1–1.2 km según latitud). */
+    public static final double RADIO = 0.013;
+
+    private static final double RADIO2 = RADIO * RADIO;
+
+    /** Celda sin ningún punto dentro del radio. */
+    public static final int SIN_COBERTURA = -1;
+
+    private final int[] categorias = new int[GRID * GRID];
+    private final int[] cuentas = new int[ClasificadorCalidad.NUM_CATEGORIAS];
+    private int totalCeldas = 0;
+
+    // Copia de los puntos en arrays planos (se rehacen solo si cambia el número)
+    private double[] pLat = new double[0];
+    private double[] pLon = new double[0];
+    private double[] pNivel = new double[0];
+
+    /**
+     * @brief Calcula la categoría de cada celda.
+     *
+     * @param lat    Latitud del centro de cada celda (GRID*GRID, índice ix*GRID+iy).
+     * @param lon    Longitud del centro de cada celda.
+     * @param puntos Puntos de contaminación.
+     * @return Número de celdas con cobertura.
+     */
+    public int calcular(double[] lat, double[] lon, List<? extends Punto> puntos) {
+        int n = puntos.size();
+        if (pLat.length != n) {
+            pLat = new double[n];
+            pLon = new double[n];
+            pNivel = new double[n];
+        }
+        for (int i = 0; i < n; i++) {
+            Punto p = puntos.get(i);
+            pLat[i] = p.lat;
+            pLon[i] = p.lon;
+            pNivel[i] = p.nivel;
+        }
+
+        Arrays.fill(cuentas, 0);
+        totalCeldas = 0;
+
+        for (int c = 0; c < categorias.length; c++) {
+            double la = lat[c];
+            double lo = lon[c];
+
+            boolean cubierta = false;
+            double maxNivel = 0; // PEOR nivel de los puntos cercanos
+
+            for (int i = 0; i < n; i++) {
+                double dx = lo - pLon[i];
+                double dy = la - pLat[i];
+                if (dx * dx + dy * dy > RADIO2) continue;
+
+                cubierta = true;
+                double nivel = pNivel[i] - 0.05;
+                if (nivel > maxNivel) maxNivel = nivel;
+            }
+
+            if (!cubierta) {
+                categorias[c] = SIN_COBERTURA;
+                continue;
+            }
+
+            // Sin datos cuenta y se pinta como buena
+            int categoria = Math.max(
+                    ClasificadorCalidad.BUENA,
+                    ClasificadorCalidad.categoriaDeNivel(maxNivel)
+            );
+            categorias[c] = categoria;
+            cuentas[categoria]++;
+            totalCeldas++;
+        }
+        return totalCeldas;
+    }
+
+    /** Categoría de la celda (o SIN_COBERTURA). */
+    public int getCategoria(int celda) {
+        return categorias[celda];
+    }
+
+    public int getTotalCeldas() {
+        return totalCeldas;
+    }
+
+    /** Porcentaje (truncado) de celdas cubiertas con esa categoría. */
+    public int porcentaje(int categoria) {
+        if (totalCeldas == 0) return 0;
+        return (int) ((cuentas[categoria] * 100f) / totalCeldas);
+    }
+
+    /**
+     * @brief Categoría predominante: "buena", "moderada", "insalubre" o "mala".
+     *
+     * En caso de empate gana la menos grave.
+     */
+    public String dominante() {
+        String dominante = "buena";
+        int max = porcentaje(ClasificadorCalidad.BUENA);
+
+        if (porcentaje(ClasificadorCalidad.MODERADA) > max) {
+            dominante = "moderada";
+            max = porcentaje(ClasificadorCalidad.MODERADA);
+        }
+        if (porcentaje(ClasificadorCalidad.INSALUBRE) > max) {
+            dominante = "insalubre";
+            max = porcentaje(ClasificadorCalidad.INSALUBRE);
+        }
+        if (porcentaje(ClasificadorCalidad.MALA) > max) {
+            dominante = "mala";
+        }
+        return dominante;
+    }
+}
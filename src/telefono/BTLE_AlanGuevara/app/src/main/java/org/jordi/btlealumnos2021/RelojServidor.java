@@ -0,0 +1,227 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @brief Convierte el reloj monótono del móvil (elapsedRealtime) a la hora
+ *        del servidor, corrigiendo la deriva.
+ *
+ * Cada medida se fecha con el instante del escaneo (ScanResult da
+ * elapsedRealtimeNanos), que no salta si el usuario cambia la hora ni con
+ * NTP. Para subirla se pasa a hora del servidor:
+ * <pre>
+ *   hora = monótono + desfase(monótono)
+ *   desfase(x) = b + a·(x − xRef)     (a = deriva del reloj del móvil)
+ * </pre>
+ * Cada sincronización (GET /hora, como NTP) da un punto: se anotan los
+ * instantes monótonos de envío y de respuesta y la hora del servidor, y
+ * desfase = servidor − (envío + respuesta) / 2, con un error de como mucho
+ * la mitad del tiempo de ida y vuelta (RTT). Con varios puntos separados
+ * al menos MIN_TRAMO_DERIVA_MS, a y b salen de una recta de mínimos
+ * cuadrados; con uno solo la deriva es 0.
+ *
+ * Basta sincronizar cada INTERVALO_MS (unas pocas veces al día): con una
+ * deriva típica de 10..50 ppm el error tras 6 h es de menos de 1 s, y la
+ * corrección de deriva lo reduce aún más. Sin ninguna sincronización se
+ * usa la hora del propio móvil.
+ *
+ * Es thread-safe (métodos sincronizados). El llamante pasa los instantes.
+ *
+ * @date 19/10/2026
+ */
+public final class RelojServidor {
+
+    /** Tiempo entre sincronizaciones (ms). */
+    public static final long INTERVALO_MS = 6 * 3_600_000L;
+
+    /** Espera antes de reintentar una sincronización fallida (ms). */
+    public static final long REINTENTO_MS = 15 * 60_000L;
+
+    /** Puntos que se guardan para estimar la deriva. */
+    public static final int MAX_PUNTOS = 8;
+
+    /** Separación mínima entre el primer y el último punto para estimar la deriva (ms). */
+    public static final long MIN_TRAMO_DERIVA_MS = 3_600_000L;
+
+    /** RTT a partir del cual un punto se descarta (error > RTT/2). */
+    public static final long MAX_RTT_MS = 5_000;
+
+    /** Deriva máxima creíble (±500 ppm); más es un error de medida. */
+    private static final double MAX_DERIVA = 500e-6;
+
+    private static final RelojServidor instancia = new RelojServidor();
+
+    public static RelojServidor getInstance() {
+        return instancia;
+    }
+
+    /** Un punto de sincronización. */
+    private static final class Punto {
+        final long monotonoMs;
+        final double desfaseMs;
+        final long rttMs;
+
+        Punto(long monotonoMs, double desfaseMs, long rttMs) {
+            this.monotonoMs = monotonoMs;
+            this.desfaseMs = desfaseMs;
+            this.rttMs = rttMs;
+        }
+    }
+
+    private final List<Punto> puntos = new ArrayList<>();
+
+    // Recta ajustada: desfase(x) = base + deriva·(x − referencia)
+    private long referencia;
+    private double base;
+    private double deriva;
+
+    private long ultimoIntentoMs = Long.MIN_VALUE;
+
+    RelojServidor() { }
+
+    /**
+     * @brief Anota una sincronización.
+     *
+     * @param envioMs     Instante monótono al enviar la petición.
+     * @param respuestaMs Instante monótono al recibir la respuesta.
+     * @param servidorMs  Hora que ha dado el servidor (ms desde 1970).
+     * @return false si se descarta (RTT negativo o demasiado grande).
+     */
+    public synchronized boolean anotarSincronizacion(long envioMs, long respuestaMs, long servidorMs) {
+        long rtt = respuestaMs - envioMs;
+        if (rtt < 0 || rtt > MAX_RTT_MS) return false;
+
+        double medio = envioMs + rtt / 2.0;
+        puntos.add(new Punto(Math.round(medio), servidorMs - medio, rtt));
+        if (puntos.size() > MAX_PUNTOS) puntos.remove(0);
+
+        ajustar();
+        return true;
+    }
+
+    /**
+     * @brief Hora del servidor que corresponde a un instante monótono.
+     *
+     * @param monotonoMs  elapsedRealtime (ms) del instante.
+     * @param desfaseLocalMs currentTimeMillis − elapsedRealtime del móvil,
+     *                       que se usa si aún no se ha sincronizado.
+     */
+    public synchronized long aHoraServidor(long monotonoMs, long desfaseLocalMs) {
+        if (puntos.isEmpty()) return monotonoMs + desfaseLocalMs;
+        return monotonoMs + Math.round(base + deriva * (monotonoMs - referencia));
+    }
+
+    /**
+     * @brief Indica si toca sincronizar: nunca se ha hecho o ha pasado
+     *        INTERVALO_MS desde la última, y no se ha intentado hace
+     *        menos de REINTENTO_MS.
+     */
+    public synchronized boolean necesitaSincronizar(long monotonoMs) {
+        if (ultimoIntentoMs != Long.MIN_VALUE && monotonoMs - ultimoIntentoMs < REINTENTO_MS) {
+            return false;
+        }
+        if (puntos.isEmpty()) return true;
+        return monotonoMs - puntos.get(puntos.size() - 1).monotonoMs >= INTERVALO_MS;
+    }
+
+    /**
+     * @brief Apunta que se empieza una sincronización (para no repetirla
+     *        antes de REINTENTO_MS aunque falle).
+     */
+    public synchronized void anotarIntento(long monotonoMs) {
+        ultimoIntentoMs = monotonoMs;
+    }
+
+    public synchronized boolean estaSincronizado() {
+        return !puntos.isEmpty();
+    }
+
+    /** @return Deriva estimada del reloj del móvil, en partes por millón. */
+    public synchronized double getDerivaPpm() {
+        return deriva * 1e6;
+    }
+
+    /**
+     * @brief Puntos en texto, para guardarlos (solo valen hasta el próximo
+     *        reinicio del móvil: el reloj monótono empieza de cero).
+     */
+    public synchronized String exportar() {
+        StringBuilder sb = new StringBuilder();
+        for (Punto p : puntos) {
+            if (sb.length() > 0) sb.append(';');
+            sb.append(p.monotonoMs).append(',').append(p.desfaseMs).append(',').append(p.rttMs);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @brief Recupera los puntos de exportar(). Si el texto no es válido
+     *        no cambia nada.
+     */
+    public synchronized void importar(String texto) {
+        if (texto == null || texto.isEmpty()) return;
+
+        List<Punto> leidos = new ArrayList<>();
+        try {
+            for (String p : texto.split(";")) {
+                String[] c = p.split(",");
+                leidos.add(new Punto(Long.parseLong(c[0]), Double.parseDouble(c[1]), Long.parseLong(c[2])));
+            }
+        } catch (RuntimeException e) {
+            return;
+        }
+
+        puntos.clear();
+        for (int i = Math.max(0, leidos.size() - MAX_PUNTOS); i < leidos.size(); i++) {
+            puntos.add(leidos.get(i));
+        }
+        ajustar();
+    }
+
+    synchronized void reiniciar() {
+        puntos.clear();
+        ultimoIntentoMs = Long.MIN_VALUE;
+        base = 0;
+        deriva = 0;
+    }
+
+    // -------------------------------------------------------------
+
+    /**
+     * Recta de mínimos cuadrados sobre los puntos, centrada en el último.
+     * Cada punto pesa 1/RTT: los de RTT pequeño tienen menos error.
+     */
+    private void ajustar() {
+        if (puntos.isEmpty()) return;
+
+        Punto ultimo = puntos.get(puntos.size() - 1);
+        referencia = ultimo.monotonoMs;
+
+        if (puntos.size() < 2 || ultimo.monotonoMs - puntos.get(0).monotonoMs < MIN_TRAMO_DERIVA_MS) {
+            base = ultimo.desfaseMs;
+            deriva = 0;
+            return;
+        }
+
+        double sw = 0, sx = 0, sy = 0;
+        for (Punto p : puntos) {
+            double w = 1.0 / Math.max(1, p.rttMs);
+            sw += w;
+            sx += w * (p.monotonoMs - referencia);
+            sy += w * p.desfaseMs;
+        }
+        double mx = sx / sw, my = sy / sw;
+
+        double sxx = 0, sxy = 0;
+        for (Punto p : puntos) {
+            double w = 1.0 / Math.max(1, p.rttMs);
+            double dx = (p.monotonoMs - referencia) - mx;
+            sxx += w * dx * dx;
+            sxy += w * dx * (p.desfaseMs - my);
+        }
+
+        deriva = Math.max(-MAX_DERIVA, Math.min(MAX_DERIVA, sxy / sxx));
+        base = my - deriva * mx;
+    }
+}
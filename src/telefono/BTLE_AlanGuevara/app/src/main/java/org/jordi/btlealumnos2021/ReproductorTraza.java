@@ -0,0 +1,115 @@
+package org.jordi.btlealumnos2021;
+
+import java.io.IOException;
+
+/**
+ * @brief Reproduce una traza de sensores respetando sus tiempos.
+ *
+ * Entrega cada evento al Destino cuando toca según los tiempos grabados,
+ * divididos por la velocidad: 1 = tiempo real, 10 = diez veces más rápido,
+ * 0 = sin esperas (todo lo rápido que pueda procesarse).
+ *
+ * Los tiempos se calculan siempre desde el inicio de la reproducción, no
+ * desde el evento anterior, así que los retrasos del Destino no se
+ * acumulan: si va por detrás, los eventos siguientes salen sin esperar.
+ *
+ * Cada evento lleva su instante grabado escalado por la velocidad (desde
+ * el inicio de la reproducción), no la hora a la que se entrega: el
+ * Destino lo fecha con él y los intervalos entre eventos son los de la
+ * traza aunque la entrega se retrase. Sin esperas (velocidad 0) se
+ * mantienen los intervalos grabados.
+ *
+ * Se ejecuta en el hilo que llama a reproducir(); detener() lo corta
+ * desde otro hilo.
+ *
+ * @date 19/10/2026
+ */
+public class ReproductorTraza {
+
+    /**
+     * @brief Recibe los eventos reproducidos.
+     */
+    public interface Destino {
+        /** @param tNanos Instante del evento desde el inicio de la reproducción (ns). */
+        void onAnuncio(byte[] bytes, int rssi, long tNanos);
+        void onLocalizacion(double lat, double lon, float precision, float velocidad, long tNanos);
+    }
+
+    /**
+     * @brief Resumen de una reproducción.
+     */
+    public static final class Resumen {
+        public int anuncios;
+        public int localizaciones;
+        /** Duración de la traza original (ns). */
+        public long duracionTrazaNanos;
+        /** Lo que ha tardado la reproducción (ns). */
+        public long duracionRealNanos;
+        /** Mayor retraso de un evento respecto a su hora prevista (ns). */
+        public long maximoRetrasoNanos;
+        public boolean detenida;
+    }
+
+    private final double velocidad;
+    private volatile boolean detener = false;
+
+    /**
+     * @param velocidad Factor de aceleración (1 = tiempo real, 0 = sin esperas).
+     */
+    public ReproductorTraza(double velocidad) {
+        if (velocidad < 0) throw new IllegalArgumentException("velocidad < 0");
+        this.velocidad = velocidad;
+    }
+
+    public void detener() {
+        detener = true;
+    }
+
+    /**
+     * @brief Reproduce la traza entera (o hasta detener()).
+     */
+    public Resumen reproducir(TrazaSensores.Lector lector, Destino destino)
+            throws IOException, InterruptedException {
+
+        Resumen r = new Resumen();
+        long inicio = ahoraNanos();
+
+        TrazaSensores.Evento e;
+        while (!detener && (e = lector.siguiente()) != null) {
+
+            long t = velocidad > 0 ? (long) (e.tNanos / velocidad) : e.tNanos;
+            if (velocidad > 0) {
+                long previsto = inicio + t;
+                long falta = previsto - ahoraNanos();
+                if (falta > 0) {
+                    dormir(falta);
+                } else {
+                    r.maximoRetrasoNanos = Math.max(r.maximoRetrasoNanos, -falta);
+                }
+            }
+
+            if (e.tipo == TrazaSensores.ANUNCIO) {
+                destino.onAnuncio(e.bytes, e.rssi, t);
+                r.anuncios++;
+            } else {
+                destino.onLocalizacion(e.lat, e.lon, e.precision, e.velocidad, t);
+                r.localizaciones++;
+            }
+            r.duracionTrazaNanos = e.tNanos;
+        }
+
+        r.detenida = detener;
+        r.duracionRealNanos = ahoraNanos() - inicio;
+        return r;
+    }
+
+    // Puntos de extensión para las pruebas (reloj simulado)
+
+    protected long ahoraNanos() {
+        return System.nanoTime();
+    }
+
+    protected void dormir(long nanos) throws InterruptedException {
+        Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+    }
+}
@@ -0,0 +1,168 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Seguimiento del contador de 8 bits de la placa (byte bajo del
+ *        major): duplicados, huecos, desorden y tasa de entrega.
+ *
+ * Comparar solo con el contador anterior no ve las medidas que se pierden
+ * entre ventanas de escaneo y, si se pierden justo 256, descarta una
+ * medida real. Aquí se hace como en RTP (RFC 3550, A.1):
+ *  - El contador se extiende a una secuencia de 64 bits contando las
+ *    vueltas: un avance de 1..127 es hacia delante (con d − 1 perdidas por
+ *    el camino) y uno de 128..255 es un paquete atrasado.
+ *  - Una ventana de 64 bits recuerda qué secuencias recientes han llegado:
+ *    un atrasado que no estaba es una medida desordenada (recupera una de
+ *    las perdidas); si estaba, es un duplicado.
+ *  - Tras SILENCIO_MS sin anuncios no se puede saber cuántas vueltas ha
+ *    dado el contador: se resincroniza y el primero que llega es nuevo,
+ *    aunque coincida con el último (el caso de las 256 perdidas).
+ *  - Si la placa se reinicia, el contador vuelve a empezar sin silencio.
+ *    Como en RTP (bad_seq), un contador fuera de la ventana se descarta
+ *    pero se recuerda: si el siguiente va justo detrás de él, la placa ha
+ *    vuelto a empezar y se resincroniza ahí.
+ *
+ * Tasa de entrega (PDR) = nuevas / (nuevas + perdidas).
+ *
+ * No es thread-safe (se usa desde el hilo principal, una por placa).
+ *
+ * @date 19/10/2026
+ */
+public final class SecuenciaContador {
+
+    /** Medida nueva en orden. */
+    public static final int NUEVA = 0;
+    /** Anuncio repetido de una medida ya recibida. */
+    public static final int DUPLICADA = 1;
+    /** Medida nueva que llega después de otra posterior. */
+    public static final int DESORDENADA = 2;
+    /** Primera medida o primera tras un silencio largo. */
+    public static final int RESINCRONIZADA = 3;
+    /** Atrasada más allá de la ventana: no se sabe si es nueva; se descarta. */
+    public static final int ANTIGUA = 4;
+
+    /** Secuencias recientes que se recuerdan. */
+    public static final int VENTANA = 64;
+
+    /** Silencio a partir del cual se resincroniza (ms). */
+    public static final long SILENCIO_MS = 30_000;
+
+    private static final int MODULO = 256;
+
+    private boolean iniciado = false;
+    private long maximo;       // secuencia extendida más alta recibida
+    private long recibidas;    // bit i = ha llegado la secuencia maximo − i
+    private long ultimoMs;
+    private int probable = -1;   // contador que confirmaría un reinicio (-1 = ninguno)
+
+    private long nuevas = 0;
+    private long duplicadas = 0;
+    private long perdidas = 0;
+    private long desordenadas = 0;
+    private long antiguas = 0;
+    private long resincronizaciones = 0;
+
+    /**
+     * @brief Clasifica un anuncio.
+     *
+     * @param contador Contador del anuncio (0..255).
+     * @param tMs      Instante del anuncio (ms).
+     * @return NUEVA, DUPLICADA, DESORDENADA, RESINCRONIZADA o ANTIGUA.
+     */
+    public int registrar(int contador, long tMs) {
+        contador &= 0xFF;
+
+        if (!iniciado || tMs - ultimoMs > SILENCIO_MS) return resincronizar(contador, tMs);
+        ultimoMs = tMs;
+
+        int d = (contador - (int) (maximo & (MODULO - 1))) & (MODULO - 1);
+
+        if (d == 0) {
+            duplicadas++;
+            return DUPLICADA;
+        }
+
+        if (d < MODULO / 2) {
+            // Hacia delante: las d − 1 intermedias se dan por perdidas
+            perdidas += d - 1;
+            maximo += d;
+            recibidas = d >= VENTANA ? 1 : (recibidas << d) | 1;
+            nuevas++;
+            return NUEVA;
+        }
+
+        int atras = MODULO - d;
+        if (atras >= VENTANA) {
+            // Dos seguidos fuera de la ventana: la placa se ha reiniciado
+            if (contador == probable) return resincronizar(contador, tMs);
+            probable = (contador + 1) & (MODULO - 1);
+            antiguas++;
+            return ANTIGUA;
+        }
+
+        long bit = 1L << atras;
+        if ((recibidas & bit) != 0) {
+            duplicadas++;
+            return DUPLICADA;
+        }
+
+        // Llega tarde una que se había contado como perdida
+        recibidas |= bit;
+        perdidas--;
+        desordenadas++;
+        nuevas++;
+        return DESORDENADA;
+    }
+
+    private int resincronizar(int contador, long tMs) {
+        // La secuencia sigue en la vuelta siguiente (solo importa el orden)
+        maximo = iniciado ? (maximo | (MODULO - 1)) + 1 + contador : contador;
+        // Las anteriores no se han contado como perdidas: un atrasado
+        // no puede recuperar ninguna (se toma como duplicado)
+        recibidas = ~0L;
+        ultimoMs = tMs;
+        iniciado = true;
+        probable = -1;
+        nuevas++;
+        resincronizaciones++;
+        return RESINCRONIZADA;
+    }
+
+    /**
+     * @return true si el resultado de registrar() es una medida nueva.
+     */
+    public static boolean esNueva(int resultado) {
+        return resultado == NUEVA || resultado == DESORDENADA || resultado == RESINCRONIZADA;
+    }
+
+    public long getNuevas() {
+        return nuevas;
+    }
+
+    public long getDuplicadas() {
+        return duplicadas;
+    }
+
+    public long getPerdidas() {
+        return perdidas;
+    }
+
+    public long getDesordenadas() {
+        return desordenadas;
+    }
+
+    public long getAntiguas() {
+        return antiguas;
+    }
+
+    public long getResincronizaciones() {
+        return resincronizaciones;
+    }
+
+    /**
+     * @return Fracción de medidas recibidas (1 si aún no hay datos).
+     */
+    public double getTasaEntrega() {
+        long esperadas = nuevas + perdidas;
+        return esperadas == 0 ? 1 : (double) nuevas / esperadas;
+    }
+}
@@ -0,0 +1,113 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Serie de datos ya preparada para pintar la gráfica de calidad del aire.
+ *
+ * Guarda las etiquetas y los valores reales de un periodo (7 días u 8 horas)
+ * y, en el momento de crearse, precalcula una sola vez en arrays primitivos:
+ *  - La altura de cada barra (categoría 1..4).
+ *  - El color de cada barra.
+ *  - El promedio del periodo.
+ *
+ * Es inmutable: cuando llega un valor nuevo del backend se crea otra serie
+ * con {@link #conUltimoBucket(String, float, boolean)}, de forma que la que
+ * está pintada en pantalla nunca cambia por debajo.
+ *
+ * @date 19/10/2026
+ */
+public class SerieGrafica {
+
+    // Color (ARGB) de cada categoría de ClasificadorCalidad. Mismos que usaba GraficaHelper.
+    private static final int[] COLOR_CATEGORIA = {
+            0xFF888888, // Sin datos (Color.GRAY)
+            0xFF4CAF50, // Buena      rgb(76, 175, 80)
+            0xFFFFEB3B, // Moderada   rgb(255, 235, 59)
+            0xFFFF9800, // Insalubre  rgb(255, 152, 0)
+            0xFFF44336  // Mala       rgb(244, 67, 54)
+    };
+
+    private final int tipoGas;
+    private final String[] labels;
+    private final float[] valores;
+
+    // Precalculados en el constructor
+    private final float[] alturas;
+    private final int[] colores;
+    private final double promedio;
+
+    /**
+     * @brief Crea una serie y precalcula alturas, colores y promedio.
+     *
+     * Los arrays recibidos pasan a ser propiedad de la serie; no deben
+     * modificarse después desde fuera.
+     *
+     * @param tipoGas Código del gas (11, 12, 13, 14).
+     * @param labels  Etiquetas del eje X (días u horas).
+     * @param valores Valores reales de contaminación, uno por etiqueta.
+     */
+    public SerieGrafica(int tipoGas, String[] labels, float[] valores) {
+        this.tipoGas = tipoGas;
+        this.labels = labels;
+        this.valores = valores;
+
+        int n = valores.length;
+        this.alturas = new float[n];
+        this.colores = new int[n];
+
+        // Categoría de todas las barras de una sola pasada
+        int[] categorias = ClasificadorCalidad.clasificar(valores, tipoGas);
+
+        double suma = 0;
+        for (int i = 0; i < n; i++) {
+            alturas[i] = categorias[i];
+            colores[i] = COLOR_CATEGORIA[categorias[i]];
+            suma += valores[i];
+        }
+
+        // Mismo cálculo que el backend: media de todos los buckets (incluidos los 0)
+        this.promedio = n > 0 ? suma / n : 0;
+    }
+
+    /**
+     * @brief Devuelve una nueva serie con el último bucket actualizado.
+     *
+     * Si el bucket sigue siendo el mismo (mismo día u hora) solo se sustituye
+     * el último valor. Si ha empezado un bucket nuevo, la serie se desplaza
+     * una posición a la izquierda y el valor nuevo entra por la derecha.
+     *
+     * @param label      Etiqueta del bucket más reciente.
+     * @param valor      Valor del bucket más reciente.
+     * @param desplazar  true si el bucket es nuevo (hay que desplazar la serie).
+     * @return Serie nueva con los datos actualizados.
+     */
+    public SerieGrafica conUltimoBucket(String label, float valor, boolean desplazar) {
+        int n = valores.length;
+        if (n == 0) {
+            return new SerieGrafica(tipoGas, new String[]{label}, new float[]{valor});
+        }
+
+        String[] nuevasLabels = new String[n];
+        float[] nuevosValores = new float[n];
+
+        if (desplazar) {
+            System.arraycopy(labels, 1, nuevasLabels, 0, n - 1);
+            System.arraycopy(valores, 1, nuevosValores, 0, n - 1);
+        } else {
+            System.arraycopy(labels, 0, nuevasLabels, 0, n - 1);
+            System.arraycopy(valores, 0, nuevosValores, 0, n - 1);
+        }
+
+        nuevasLabels[n - 1] = label;
+        nuevosValores[n - 1] = valor;
+
+        return new SerieGrafica(tipoGas, nuevasLabels, nuevosValores);
+    }
+
+    public int getTipoGas() { return tipoGas; }
+    public int size() { return valores.length; }
+    public String[] getLabels() { return labels; }
+    public float[] getValores() { return valores; }
+    public float[] getAlturas() { return alturas; }
+    public int[] getColores() { return colores; }
+    public double getPromedio() { return promedio; }
+}
@@ -0,0 +1,443 @@
+package org.jordi.btlealumnos2021;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+
+import com.android.volley.RequestQueue;
+import com.android.volley.toolbox.Volley;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * @class ServicioSensores
+ * @brief Único servicio en primer plano de los sensores: aloja los módulos
+ *        de escaneo de beacons (ModuloBeacons) y de recorrido GPS
+ *        (ModuloRecorrido) y les da recursos compartidos.
+ *
+ * @details
+ * Antes eran dos servicios (ServicioDeteccionBeacons y ServicioRecorridoGPS),
+ * cada uno con su canal y su notificación, su cliente de localización, sus
+ * colas de Volley y sus hilos. Con los dos en marcha se pagaba dos veces
+ * por la localización y la red. Ahora hay un servicio y:
+ *  - Una notificación, con los módulos activos.
+ *  - Una suscripción de localización (LocalizacionCompartida).
+ *  - Un ejecutor de 2 hilos para el trabajo en segundo plano.
+ *  - Una bandeja de salida para las subidas (BandejaSubidas), que se
+ *    reintenta en el Handler principal, con esperas crecientes, si ha
+ *    fallado.
+ *  - Una cola de Volley para las consultas.
+ *
+ * Cada módulo se arranca y se para por separado (iniciarModulo /
+ * detenerModulo); sin módulos activos el servicio se para. Los activos se
+ * guardan para volver a arrancarlos si el sistema reinicia el servicio
+ * (START_STICKY).
+ *
+ * Cada VENTANA_MS se publica en Metricas el consumo de cada módulo y del
+ * total (ConsumoModulos): despertares y ms de CPU por minuto frente a su
+ * presupuesto, y la CPU total del proceso.
+ *
+ * @date 19/10/2026
+ */
+public class ServicioSensores extends Service {
+
+    private static final String TAG = "ServicioSensores";
+    private static final String CANAL_ID = "CANAL_SENSORES_ATMOS";
+    private static final int NOTIF_ID = 1;
+
+    // Canales de los servicios anteriores (se borran al crear el nuevo)
+    private static final String[] CANALES_ANTIGUOS = {"CANAL_BEACON_ATMOS", "canal_recorrido"};
+
+    public static final String MODULO_BEACONS = "beacons";
+    public static final String MODULO_RECORRIDO = "recorrido";
+
+    private static final String ACCION_INICIAR = "org.jordi.btlealumnos2021.SENSORES_INICIAR";
+    private static final String ACCION_DETENER = "org.jordi.btlealumnos2021.SENSORES_DETENER";
+    private static final String EXTRA_MODULO = "modulo";
+
+    // Módulos activos, para rearrancarlos tras un reinicio del servicio
+    private static final String PREFS = "ATMOS_SENSORES";
+    private static final String CLAVE_ACTIVOS = "activos";
+
+    /** Cada cuánto se publica el consumo (ms). */
+    private static final long VENTANA_MS = 60_000;
+
+    /** Nombre del propio servicio en ConsumoModulos. */
+    private static final String CONSUMO_SERVICIO = "servicio";
+
+    /**
+     * @brief Un módulo del servicio. Se usa desde el hilo principal.
+     */
+    public interface Modulo {
+        String getNombre();
+
+        /** Empieza a trabajar con los recursos del servicio. */
+        void iniciar(ServicioSensores servicio);
+
+        /** Deja de trabajar y libera lo suyo (no los recursos compartidos). */
+        void detener();
+
+        /** Despertares por minuto que se esperan como máximo. */
+        double getPresupuestoDespertaresMin();
+
+        /** ms de CPU por minuto que se esperan como máximo. */
+        double getPresupuestoCpuMsMin();
+    }
+
+    // Copia de los módulos activos para consultarla desde fuera (UI)
+    private static volatile Set<String> activosVisibles = Collections.emptySet();
+
+    private final Map<String, Modulo> modulos = new LinkedHashMap<>();
+
+    // Recursos compartidos
+    private final Handler principal = new Handler(Looper.getMainLooper());
+    private final ConsumoModulos consumo = new ConsumoModulos();
+    private ExecutorService trabajadores;
+    private BandejaSubidas bandeja;
+    private RequestQueue cola;
+    private LocalizacionCompartida localizacion;
+
+    private long inicioVentanaMs;
+
+    // ---------------------------------------------------------------------------------------------
+    // Arranque y parada de módulos (desde actividades y receptores)
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * @brief Arranca un módulo (y el servicio si no estaba en marcha).
+     *
+     * @param modulo MODULO_BEACONS o MODULO_RECORRIDO.
+     */
+    public static void iniciarModulo(Context context, String modulo) {
+        Intent i = new Intent(context, ServicioSensores.class)
+                .setAction(ACCION_INICIAR)
+                .putExtra(EXTRA_MODULO, modulo);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(i);
+        } else {
+            context.startService(i);
+        }
+    }
+
+    /**
+     * @brief Para un módulo; si era el último, se para el servicio.
+     */
+    public static void detenerModulo(Context context, String modulo) {
+        if (!moduloActivo(modulo)) return;
+
+        context.startService(new Intent(context, ServicioSensores.class)
+                .setAction(ACCION_DETENER)
+                .putExtra(EXTRA_MODULO, modulo));
+    }
+
+    /**
+     * @brief Para todos los módulos y el servicio (p. ej. al cerrar sesión).
+     */
+    public static void detenerTodo(Context context) {
+        context.getSharedPreferences(PREFS, MODE_PRIVATE).edit().remove(CLAVE_ACTIVOS).apply();
+        context.stopService(new Intent(context, ServicioSensores.class));
+    }
+
+    /**
+     * @brief Indica si un módulo está en marcha (para sincronizar la UI).
+     */
+    public static boolean moduloActivo(String modulo) {
+        return activosVisibles.contains(modulo);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Ciclo de vida
+    // ---------------------------------------------------------------------------------------------
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        Log.d(TAG, "SERVICIO CREADO");
+
+        crearCanalNotificaciones();
+
+        trabajadores = Executors.newFixedThreadPool(2);
+        bandeja = new BandejaSubidas(trabajadores, principal::postDelayed);
+        cola = Volley.newRequestQueue(this);
+        localizacion = new LocalizacionCompartida(this, consumo);
+
+        // Presupuesto de lo compartido (los módulos declaran el suyo)
+        consumo.fijarPresupuesto(LocalizacionCompartida.CONSUMO, 60, 30);
+        consumo.fijarPresupuesto(CONSUMO_SERVICIO, 2, 10);
+
+        inicioVentanaMs = SystemClock.elapsedRealtime();
+        principal.postDelayed(tickConsumo, VENTANA_MS);
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        // Siempre, antes que nada: lo exige startForegroundService()
+        startForeground(NOTIF_ID, crearNotificacion());
+
+        if (intent == null) {
+            // Reinicio del sistema (START_STICKY): los que estaban activos
+            for (String nombre : getSharedPreferences(PREFS, MODE_PRIVATE)
+                    .getStringSet(CLAVE_ACTIVOS, Collections.emptySet())) {
+                iniciar(nombre);
+            }
+        } else if (ACCION_INICIAR.equals(intent.getAction())) {
+            iniciar(intent.getStringExtra(EXTRA_MODULO));
+            guardarActivos();
+        } else if (ACCION_DETENER.equals(intent.getAction())) {
+            detener(intent.getStringExtra(EXTRA_MODULO));
+            guardarActivos();
+        }
+
+        return alCambiarModulos() ? START_STICKY : START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        principal.removeCallbacksAndMessages(null);
+
+        for (Modulo m : new ArrayList<>(modulos.values())) {
+            m.detener();
+        }
+        modulos.clear();
+        activosVisibles = Collections.emptySet();
+
+        localizacion.detener();
+        cola.stop();
+
+        // Último intento con lo que quede en la bandeja (también si estaba
+        // parada por un fallo); después no admite más subidas
+        bandeja.cerrar();
+        trabajadores.shutdown();
+        Log.d(TAG, "Servicio destruido. Subidas pendientes: " + bandeja.getPendientes());
+
+        super.onDestroy();
+    }
+
+    /**
+     * @brief Servicio no enlazado; devuelve siempre null.
+     */
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Para los módulos
+    // ---------------------------------------------------------------------------------------------
+
+    public LocalizacionCompartida getLocalizacion() {
+        return localizacion;
+    }
+
+    public BandejaSubidas getBandeja() {
+        return bandeja;
+    }
+
+    public ExecutorService getTrabajadores() {
+        return trabajadores;
+    }
+
+    public RequestQueue getCola() {
+        return cola;
+    }
+
+    /**
+     * @brief CPU del hilo actual (ns), para anotarDespertar().
+     */
+    public static long inicioDespertar() {
+        return Debug.threadCpuTimeNanos();
+    }
+
+    /**
+     * @brief Anota un despertar de un módulo con la CPU gastada desde cpu0.
+     */
+    public void anotarDespertar(String modulo, long cpu0) {
+        consumo.anotar(modulo, Debug.threadCpuTimeNanos() - cpu0);
+    }
+
+    /**
+     * @brief Un módulo pide pararse (p. ej. sin usuario o sin permisos).
+     *        Se hace en el siguiente ciclo del hilo principal, no dentro
+     *        de su propio iniciar().
+     */
+    public void pararModulo(String nombre) {
+        principal.post(() -> {
+            detener(nombre);
+            guardarActivos();
+            alCambiarModulos();
+        });
+    }
+
+    // ---------------------------------------------------------------------------------------------
+
+    private void iniciar(String nombre) {
+        if (nombre == null || modulos.containsKey(nombre)) return;
+
+        Modulo m;
+        switch (nombre) {
+            case MODULO_BEACONS:
+                m = new ModuloBeacons();
+                break;
+            case MODULO_RECORRIDO:
+                m = new ModuloRecorrido();
+                break;
+            default:
+                Log.w(TAG, "Módulo desconocido: " + nombre);
+                return;
+        }
+
+        modulos.put(nombre, m);
+        activosVisibles = Collections.unmodifiableSet(new HashSet<>(modulos.keySet()));
+        consumo.fijarPresupuesto(nombre, m.getPresupuestoDespertaresMin(), m.getPresupuestoCpuMsMin());
+
+        Log.d(TAG, "Módulo iniciado: " + nombre);
+        m.iniciar(this);
+    }
+
+    private void detener(String nombre) {
+        Modulo m = modulos.remove(nombre);
+        if (m == null) return;
+
+        activosVisibles = Collections.unmodifiableSet(new HashSet<>(modulos.keySet()));
+        m.detener();
+        Log.d(TAG, "Módulo detenido: " + nombre);
+    }
+
+    private void guardarActivos() {
+        getSharedPreferences(PREFS, MODE_PRIVATE).edit()
+                .putStringSet(CLAVE_ACTIVOS, new HashSet<>(modulos.keySet()))
+                .apply();
+    }
+
+    /**
+     * Actualiza la notificación, o para el servicio si ya no hay módulos.
+     *
+     * @return true si el servicio sigue en marcha.
+     */
+    private boolean alCambiarModulos() {
+        if (modulos.isEmpty()) {
+            stopForeground(true);
+            stopSelf();
+            return false;
+        }
+        getSystemService(NotificationManager.class).notify(NOTIF_ID, crearNotificacion());
+        return true;
+    }
+
+    /**
+     * Cada VENTANA_MS: consumo por módulo y estado de la bandeja a Metricas.
+     */
+    private final Runnable tickConsumo = new Runnable() {
+        @Override
+        public void run() {
+            long cpu0 = inicioDespertar();
+            long ahora = SystemClock.elapsedRealtime();
+
+            consumo.cerrarVentana(ahora - inicioVentanaMs, (nombre, despertaresMin, cpuMsMin, dentro) -> {
+                String sufijo = ConsumoModulos.TOTAL.equals(nombre) ? "" : "." + nombre;
+                Metricas.getInstance().indicador("hub.despertares_min" + sufijo)
+                        .fijar(Math.round(despertaresMin));
+                Metricas.getInstance().indicador("hub.cpu_ms_min" + sufijo)
+                        .fijar(Math.round(cpuMsMin));
+                if (!dentro) {
+                    Metricas.getInstance().contador("hub.fuera_presupuesto" + sufijo).incrementar();
+                    Log.w(TAG, "Fuera de presupuesto: " + nombre + " " + Math.round(despertaresMin)
+                            + " despertares/min, " + Math.round(cpuMsMin) + " ms CPU/min");
+                }
+            });
+            inicioVentanaMs = ahora;
+
+            Metricas.getInstance().indicador("hub.cpu_proceso_ms").fijar(Process.getElapsedCpuTime());
+            Metricas.getInstance().indicador("hub.subidas_pendientes").fijar(bandeja.getPendientes());
+            Metricas.getInstance().indicador("hub.subidas_descartadas").fijar(bandeja.getDescartadas());
+
+            anotarDespertar(CONSUMO_SERVICIO, cpu0);
+            principal.postDelayed(this, VENTANA_MS);
+        }
+    };
+
+    // ---------------------------------------------------------------------------------------------
+    // Notificación
+    // ---------------------------------------------------------------------------------------------
+
+    /**
+     * @brief Crea el canal de notificación (Android 8+) y borra los de los
+     *        servicios anteriores.
+     */
+    private void crearCanalNotificaciones() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager nm = getSystemService(NotificationManager.class);
+            nm.createNotificationChannel(new NotificationChannel(
+                    CANAL_ID,
+                    "Sensores Atmos",
+                    NotificationManager.IMPORTANCE_LOW
+            ));
+            for (String antiguo : CANALES_ANTIGUOS) {
+                nm.deleteNotificationChannel(antiguo);
+            }
+        }
+    }
+
+    /**
+     * @brief Notificación con los módulos activos; con el recorrido en
+     *        marcha lleva el botón "Detener" (RecorridoStopReceiver).
+     */
+    private Notification crearNotificacion() {
+        boolean beacons = modulos.containsKey(MODULO_BEACONS);
+        boolean recorrido = modulos.containsKey(MODULO_RECORRIDO);
+
+        String texto;
+        if (beacons && recorrido) {
+            texto = "Monitorizando el entorno y calculando distancia diaria";
+        } else if (recorrido) {
+            texto = "Calculando distancia diaria";
+        } else {
+            texto = "Monitorizando el entorno…";
+        }
+
+        NotificationCompat.Builder b = new NotificationCompat.Builder(this, CANAL_ID)
+                .setContentTitle("Atmos - Sensores activos")
+                .setContentText(texto)
+                .setSmallIcon(recorrido && !beacons ? R.drawable.ic_walk : R.drawable.escaneobtle)
+                .setOngoing(true)
+                .setCategory(NotificationCompat.CATEGORY_SERVICE);
+
+        if (recorrido) {
+            Intent stopIntent = new Intent(this, RecorridoStopReceiver.class);
+            stopIntent.setAction(RecorridoStopReceiver.ACTION_STOP);
+
+            PendingIntent stopPendingIntent = PendingIntent.getBroadcast(
+                    this,
+                    0,
+                    stopIntent,
+                    PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+            );
+            b.addAction(R.drawable.ic_stop, "Detener recorrido", stopPendingIntent);
+        }
+        return b.build();
+    }
+}
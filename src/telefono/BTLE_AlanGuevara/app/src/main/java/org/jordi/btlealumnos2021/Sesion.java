@@ -0,0 +1,40 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Datos de la sesión del usuario, ya extraídos del JSON.
+ *
+ * Es inmutable: SesionManager la crea una sola vez al leer las preferencias
+ * (o al guardar una sesión nueva) y la comparte entre todos los hilos, así
+ * que consultar el id o el nombre del usuario no vuelve a parsear nada.
+ * Cualquier cambio de sesión crea una instancia nueva.
+ *
+ * @date 19/10/2026
+ */
+public final class Sesion {
+
+    private final int idUsuario;
+    private final String nombre;
+    private final String apellidos;
+    private final String email;
+    private final int estado;
+
+    // JSON original tal como se guardó (para SesionManager.obtenerSesion)
+    private final String json;
+
+    public Sesion(int idUsuario, String nombre, String apellidos,
+                  String email, int estado, String json) {
+        this.idUsuario = idUsuario;
+        this.nombre = nombre;
+        this.apellidos = apellidos;
+        this.email = email;
+        this.estado = estado;
+        this.json = json;
+    }
+
+    public int getIdUsuario() { return idUsuario; }
+    public String getNombre() { return nombre; }
+    public String getApellidos() { return apellidos; }
+    public String getEmail() { return email; }
+    public int getEstado() { return estado; }
+    public String getJson() { return json; }
+}
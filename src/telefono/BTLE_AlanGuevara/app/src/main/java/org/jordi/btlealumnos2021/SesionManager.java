@@ -5,6 +5,9 @@ import android.content.SharedPreferences;
 
 import org.json.JSONObject;
 
+import java.io.File;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * @brief Gestor de sesión local del usuario.
  *
@@ -16,6 +19,12 @@ import org.json.JSONObject;
  * y facilita el acceso a campos individuales (id, nombre,
  * apellidos, email, estado, etc.).
  *
+ * El JSON solo se parsea una vez por proceso: el resultado se guarda en
+ * memoria como un objeto {@link Sesion} inmutable que se sustituye de
+ * golpe al guardar o cerrar sesión. Los getters se llaman en caminos
+ * calientes (cada fix de GPS, arranque de servicios, onCreate de casi
+ * todas las pantallas) y así no tocan SharedPreferences ni crean objetos.
+ *
  * @author Nerea Aguilar Forés
  * @author Alan Guevara Martínez
  * @author Judit Espinoza Cervera
@@ -31,6 +40,33 @@ public class SesionManager {
     // Clave única donde guardaremos el JSON completo
     private static final String KEY_JSON = "usuario_json";
 
+    // Sesión en memoria (null = sin sesión). Solo es válida si cargada == true.
+    private static volatile Sesion actual = null;
+    private static volatile boolean cargada = false;
+
+    private static final CopyOnWriteArrayList<SesionListener> listeners =
+            new CopyOnWriteArrayList<>();
+
+    /**
+     * @brief Aviso de cambio de sesión (inicio, edición de perfil o cierre).
+     *
+     * Se llama en el mismo hilo que guardarSesion/cerrarSesion.
+     */
+    public interface SesionListener {
+        /**
+         * @param nueva Sesión actual, o null si se ha cerrado.
+         */
+        void onSesionCambiada(Sesion nueva);
+    }
+
+    public static void registrarListener(SesionListener l) {
+        listeners.addIfAbsent(l);
+    }
+
+    public static void eliminarListener(SesionListener l) {
+        listeners.remove(l);
+    }
+
 
     /// ============================================================
     /// MÉTODO: guardarSesion
@@ -46,14 +82,21 @@ public class SesionManager {
      * @param userJson Objeto JSON con los datos del usuario
      */
     public static void guardarSesion(Context context, JSONObject userJson) {
+        Sesion nueva;
         try {
+            String json = userJson.toString();
             SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
             prefs.edit()
-                    .putString(KEY_JSON, userJson.toString())  // Guardamos el JSON ENTERO
+                    .putString(KEY_JSON, json)  // Guardamos el JSON ENTERO
                     .apply();
+
+            nueva = desdeJson(userJson, json);
         } catch (Exception e) {
             e.printStackTrace();
+            return;
         }
+
+        cambiar(nueva);
     }
 
 
@@ -71,17 +114,41 @@ public class SesionManager {
      *         o null si no existe sesión
      */
     public static JSONObject obtenerSesion(Context context) {
+        Sesion sesion = obtener(context);
+        if (sesion == null) return null;
         try {
-            SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
-            String json = prefs.getString(KEY_JSON, null);
-            if (json == null) return null;
-            return new JSONObject(json);
+            return new JSONObject(sesion.getJson());
         } catch (Exception e) {
             return null;
         }
     }
 
 
+    /// ============================================================
+    /// MÉTODO: obtener
+    /// ============================================================
+    /**
+     * @brief Sesión actual ya parseada.
+     *
+     * La primera llamada del proceso lee las preferencias; las siguientes
+     * solo leen un campo en memoria.
+     *
+     * @param context Contexto de la aplicación
+     * @return Sesión actual o null si no existe
+     */
+    public static Sesion obtener(Context context) {
+        if (cargada) return actual;
+
+        synchronized (SesionManager.class) {
+            if (!cargada) {
+                actual = leerDePrefs(context);
+                cargada = true;
+            }
+            return actual;
+        }
+    }
+
+
     /// ============================================================
     /// MÉTODOS DE ACCESO A CAMPOS INDIVIDUALES
     /// Compatibles con EditarPerfil y otras pantallas
@@ -94,9 +161,9 @@ public class SesionManager {
      * @return ID del usuario o -1 si no existe sesión
      */
     public static int obtenerIdUsuario(Context context) {
-        JSONObject sesion = obtenerSesion(context);
+        Sesion sesion = obtener(context);
         if (sesion == null) return -1;
-        return sesion.optInt("id_usuario", -1);
+        return sesion.getIdUsuario();
     }
 
     /**
@@ -106,9 +173,9 @@ public class SesionManager {
      * @return Nombre del usuario o cadena vacía
      */
     public static String obtenerNombre(Context context) {
-        JSONObject sesion = obtenerSesion(context);
+        Sesion sesion = obtener(context);
         if (sesion == null) return "";
-        return sesion.optString("nombre", "");
+        return sesion.getNombre();
     }
 
     /**
@@ -118,9 +185,9 @@ public class SesionManager {
      * @return Apellidos del usuario o cadena vacía
      */
     public static String obtenerApellidos(Context context) {
-        JSONObject sesion = obtenerSesion(context);
+        Sesion sesion = obtener(context);
         if (sesion == null) return "";
-        return sesion.optString("apellidos", "");
+        return sesion.getApellidos();
     }
 
     /**
@@ -130,9 +197,9 @@ public class SesionManager {
      * @return Email del usuario o cadena vacía
      */
     public static String obtenerEmail(Context context) {
-        JSONObject sesion = obtenerSesion(context);
+        Sesion sesion = obtener(context);
         if (sesion == null) return "";
-        return sesion.optString("email", "");
+        return sesion.getEmail();
     }
 
     /**
@@ -142,9 +209,9 @@ public class SesionManager {
      * @return Estado del usuario o 0 si no existe
      */
     public static int obtenerEstado(Context context) {
-        JSONObject sesion = obtenerSesion(context);
+        Sesion sesion = obtener(context);
         if (sesion == null) return 0;
-        return sesion.optInt("estado", 0);
+        return sesion.getEstado();
     }
 
 
@@ -158,7 +225,7 @@ public class SesionManager {
      * @return true si hay sesión guardada, false en caso contrario
      */
     public static boolean haySesionActiva(Context context) {
-        return obtenerSesion(context) != null;
+        return obtener(context) != null;
     }
 
 
@@ -176,5 +243,53 @@ public class SesionManager {
     public static void cerrarSesion(Context context) {
         SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
         prefs.edit().clear().apply();
+
+        cambiar(null);
+
+        // Las gráficas en caché pertenecen al usuario que sale
+        CacheGraficas.getInstance().limpiar();
+        CacheHistorico.getInstance(new File(context.getCacheDir(), CacheHistorico.NOMBRE_DIR)).limpiar();
+        AgregadorMedidas.getInstance().reiniciar();
+        ExposicionDiaria.getInstance().reiniciar();
+
+        // Sin sesión no se consultan notificaciones en segundo plano
+        NotificacionesWorker.cancelar(context);
+    }
+
+
+    /// ============================================================
+    /// INTERNOS
+    /// ============================================================
+
+    private static void cambiar(Sesion nueva) {
+        synchronized (SesionManager.class) {
+            actual = nueva;
+            cargada = true;
+        }
+        for (SesionListener l : listeners) {
+            l.onSesionCambiada(nueva);
+        }
+    }
+
+    private static Sesion leerDePrefs(Context context) {
+        try {
+            SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+            String json = prefs.getString(KEY_JSON, null);
+            if (json == null) return null;
+            return desdeJson(new JSONObject(json), json);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static Sesion desdeJson(JSONObject o, String json) {
+        return new Sesion(
+                o.optInt("id_usuario", -1),
+                o.optString("nombre", ""),
+                o.optString("apellidos", ""),
+                o.optString("email", ""),
+                o.optInt("estado", 0),
+                json
+        );
     }
 }
@@ -0,0 +1,166 @@
+package org.jordi.btlealumnos2021;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.util.Log;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @brief Lado Android de RelojServidor: fecha instantes del reloj monótono
+ *        en hora del servidor, sincroniza con GET /hora cuando toca y guarda
+ *        los puntos de sincronización entre arranques de la app.
+ *
+ * Cada sincronización hace INTENTOS peticiones seguidas y se queda con la
+ * de menor tiempo de ida y vuelta (la de menos error, como NTP). Se pide
+ * desde ModuloBeacons; RelojServidor decide si toca (cada 6 h).
+ *
+ * Los puntos se guardan con el número de arranques del móvil
+ * (Settings.Global.BOOT_COUNT): tras reiniciar, el reloj monótono empieza
+ * de cero y los puntos guardados ya no valen.
+ *
+ * @date 19/10/2026
+ */
+public final class SincronizacionHora {
+
+    private static final String TAG = "SincronizacionHora";
+    private static final String PREFS = "ATMOS_RELOJ";
+    private static final String CLAVE_PUNTOS = "puntos";
+    private static final String CLAVE_ARRANQUE = "arranque";
+
+    private static final int INTENTOS = 3;
+    private static final int TIMEOUT_MS = 5000;
+
+    private static final AtomicBoolean enCurso = new AtomicBoolean(false);
+
+    private SincronizacionHora() { }
+
+    /**
+     * @brief Hora del servidor (ms) de un instante elapsedRealtimeNanos,
+     *        p. ej. ScanResult.getTimestampNanos().
+     */
+    public static long aHoraServidor(long elapsedNanos) {
+        long desfaseLocal = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        return RelojServidor.getInstance().aHoraServidor(elapsedNanos / 1_000_000, desfaseLocal);
+    }
+
+    /** @return Hora actual del servidor (ms). */
+    public static long ahora() {
+        return aHoraServidor(SystemClock.elapsedRealtimeNanos());
+    }
+
+    /**
+     * @brief Recupera los puntos guardados si son de este arranque del móvil.
+     */
+    public static void cargar(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        if (prefs.getInt(CLAVE_ARRANQUE, -1) != arranque(context)) return;
+
+        RelojServidor.getInstance().importar(prefs.getString(CLAVE_PUNTOS, ""));
+    }
+
+    /**
+     * @brief Sincroniza en segundo plano si toca (RelojServidor.necesitaSincronizar).
+     *        Se puede llamar a menudo: casi siempre no hace nada.
+     */
+    public static void sincronizarSiToca(Context context) {
+        RelojServidor reloj = RelojServidor.getInstance();
+        long ahora = SystemClock.elapsedRealtime();
+        if (!reloj.necesitaSincronizar(ahora)) return;
+        if (!enCurso.compareAndSet(false, true)) return;
+
+        reloj.anotarIntento(ahora);
+        Context app = context.getApplicationContext();
+
+        new Thread(() -> {
+            try {
+                long mejorEnvio = 0, mejorRespuesta = 0, mejorServidor = 0;
+                long mejorRtt = Long.MAX_VALUE;
+
+                for (int i = 0; i < INTENTOS; i++) {
+                    long[] r = pedirHora();
+                    if (r == null) continue;
+                    if (r[1] - r[0] < mejorRtt) {
+                        mejorRtt = r[1] - r[0];
+                        mejorEnvio = r[0];
+                        mejorRespuesta = r[1];
+                        mejorServidor = r[2];
+                    }
+                }
+
+                if (mejorRtt == Long.MAX_VALUE
+                        || !reloj.anotarSincronizacion(mejorEnvio, mejorRespuesta, mejorServidor)) {
+                    Metricas.getInstance().contador("reloj.sincronizaciones_error").incrementar();
+                    return;
+                }
+
+                Metricas.getInstance().contador("reloj.sincronizaciones_ok").incrementar();
+                Metricas.getInstance().indicador("reloj.rtt_ms").fijar(mejorRtt);
+                Metricas.getInstance().indicador("reloj.deriva_ppm")
+                        .fijar(Math.round(reloj.getDerivaPpm()));
+
+                app.getSharedPreferences(PREFS, Context.MODE_PRIVATE)
+                        .edit()
+                        .putInt(CLAVE_ARRANQUE, arranque(app))
+                        .putString(CLAVE_PUNTOS, reloj.exportar())
+                        .apply();
+
+                Log.d(TAG, "Hora sincronizada: RTT " + mejorRtt + " ms, deriva "
+                        + reloj.getDerivaPpm() + " ppm");
+            } finally {
+                enCurso.set(false);
+            }
+        }).start();
+    }
+
+    /**
+     * @return {envío, respuesta, servidor}: instantes monótonos (ms) y hora
+     *         del servidor, o null si falla.
+     */
+    private static long[] pedirHora() {
+        HttpURLConnection conn = null;
+        try {
+            conn = (HttpURLConnection) new URL(LogicaFake.getServidorSubidas() + "/hora").openConnection();
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setUseCaches(false);
+
+            long envio = SystemClock.elapsedRealtime();
+            int code = conn.getResponseCode();
+            String cuerpo = leer(conn.getInputStream());
+            long respuesta = SystemClock.elapsedRealtime();
+
+            if (code != 200) return null;
+            return new long[]{envio, respuesta, new JSONObject(cuerpo).getLong("ms")};
+
+        } catch (Exception e) {
+            Log.w(TAG, "No se pudo pedir la hora: " + e.getMessage());
+            return null;
+        } finally {
+            if (conn != null) conn.disconnect();
+        }
+    }
+
+    private static String leer(InputStream in) throws java.io.IOException {
+        try (InputStream is = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[256];
+            int n;
+            while ((n = is.read(buf)) != -1) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int arranque(Context context) {
+        return Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT, -1);
+    }
+}
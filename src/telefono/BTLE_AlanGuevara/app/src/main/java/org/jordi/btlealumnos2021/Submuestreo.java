@@ -0,0 +1,163 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Algoritmos de submuestreo de series temporales para las gráficas.
+ *
+ * Trabajan directamente sobre arrays primitivos (instantes en ms y valores)
+ * ordenados por tiempo, sin crear objetos por punto, para poder reducir
+ * cientos de miles de medidas a unos pocos miles antes de pintarlas.
+ *
+ *  - {@link #minMax}: divide el rango en buckets de tiempo (p. ej. uno por
+ *    píxel o por minuto) y conserva el mínimo y el máximo de cada uno, así
+ *    que nunca se pierde un pico de contaminación.
+ *  - {@link #lttb}: Largest-Triangle-Three-Buckets, elige en cada bucket el
+ *    punto que mejor conserva la forma visual de la serie.
+ *
+ * @date 19/10/2026
+ */
+public final class Submuestreo {
+
+    private Submuestreo() { }
+
+    /**
+     * @brief Mínimo y máximo de cada bucket de tiempo.
+     *
+     * El rango [x0, x1) se divide en {@code buckets} tramos iguales. Para cada
+     * tramo con datos se escriben su mínimo y su máximo en orden temporal
+     * (o un solo punto si coinciden). Los puntos fuera del rango se ignoran.
+     *
+     * @param t       Instantes (ms) ordenados.
+     * @param v       Valores.
+     * @param desde   Primer índice a considerar (incluido).
+     * @param hasta   Último índice a considerar (excluido).
+     * @param x0      Inicio del rango de tiempo.
+     * @param x1      Fin del rango de tiempo (excluido).
+     * @param buckets Número de buckets.
+     * @param outT    Salida de instantes (al menos 2 * buckets posiciones).
+     * @param outV    Salida de valores (al menos 2 * buckets posiciones).
+     * @return Número de puntos escritos en la salida.
+     */
+    public static int minMax(long[] t, float[] v, int desde, int hasta,
+                             long x0, long x1, int buckets,
+                             long[] outT, float[] outV) {
+        if (buckets <= 0 || x1 <= x0) return 0;
+
+        double anchoBucket = (double) (x1 - x0) / buckets;
+        int n = 0;
+
+        int i = desde;
+        while (i < hasta && t[i] < x0) i++;
+
+        while (i < hasta && t[i] < x1) {
+            int bucket = (int) ((t[i] - x0) / anchoBucket);
+            if (bucket >= buckets) bucket = buckets - 1;
+
+            int iMin = i, iMax = i;
+            i++;
+
+            while (i < hasta && t[i] < x1 && (int) ((t[i] - x0) / anchoBucket) == bucket) {
+                if (v[i] < v[iMin]) iMin = i;
+                if (v[i] > v[iMax]) iMax = i;
+                i++;
+            }
+
+            int primero = Math.min(iMin, iMax);
+            int segundo = Math.max(iMin, iMax);
+
+            outT[n] = t[primero];
+            outV[n] = v[primero];
+            n++;
+
+            if (segundo != primero) {
+                outT[n] = t[segundo];
+                outV[n] = v[segundo];
+                n++;
+            }
+        }
+
+        return n;
+    }
+
+    /**
+     * @brief Largest-Triangle-Three-Buckets.
+     *
+     * Conserva siempre el primer y el último punto. Si ya hay {@code umbral}
+     * puntos o menos, se copian tal cual.
+     *
+     * @param t      Instantes (ms) ordenados.
+     * @param v      Valores.
+     * @param desde  Primer índice (incluido).
+     * @param hasta  Último índice (excluido).
+     * @param umbral Número máximo de puntos de salida (mínimo 3 para submuestrear).
+     * @param outT   Salida de instantes (al menos min(umbral, hasta - desde) posiciones).
+     * @param outV   Salida de valores.
+     * @return Número de puntos escritos.
+     */
+    public static int lttb(long[] t, float[] v, int desde, int hasta, int umbral,
+                           long[] outT, float[] outV) {
+        int total = hasta - desde;
+
+        if (total <= 0) return 0;
+
+        if (umbral >= total || umbral < 3) {
+            System.arraycopy(t, desde, outT, 0, total);
+            System.arraycopy(v, desde, outV, 0, total);
+            return total;
+        }
+
+        // Los buckets se reparten entre los puntos interiores
+        double cada = (double) (total - 2) / (umbral - 2);
+
+        int n = 0;
+        int a = desde; // punto elegido en el bucket anterior
+
+        outT[n] = t[a];
+        outV[n] = v[a];
+        n++;
+
+        for (int b = 0; b < umbral - 2; b++) {
+
+            // Media del bucket siguiente (el "tercer vértice" del triángulo)
+            int sigIni = desde + (int) ((b + 1) * cada) + 1;
+            int sigFin = Math.min(desde + (int) ((b + 2) * cada) + 1, hasta);
+            if (sigIni >= sigFin) sigIni = sigFin - 1;
+
+            double mediaT = 0, mediaV = 0;
+            for (int j = sigIni; j < sigFin; j++) {
+                mediaT += t[j];
+                mediaV += v[j];
+            }
+            int cuantos = sigFin - sigIni;
+            mediaT /= cuantos;
+            mediaV /= cuantos;
+
+            // Bucket actual
+            int ini = desde + (int) (b * cada) + 1;
+            int fin = desde + (int) ((b + 1) * cada) + 1;
+
+            double ta = t[a], va = v[a];
+            double mejorArea = -1;
+            int elegido = ini;
+
+            for (int j = ini; j < fin; j++) {
+                double area = Math.abs(
+                        (ta - mediaT) * (v[j] - va) - (ta - t[j]) * (mediaV - va));
+                if (area > mejorArea) {
+                    mejorArea = area;
+                    elegido = j;
+                }
+            }
+
+            outT[n] = t[elegido];
+            outV[n] = v[elegido];
+            n++;
+            a = elegido;
+        }
+
+        outT[n] = t[hasta - 1];
+        outV[n] = v[hasta - 1];
+        n++;
+
+        return n;
+    }
+}
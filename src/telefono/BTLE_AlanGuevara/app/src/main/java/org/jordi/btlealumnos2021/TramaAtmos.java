@@ -0,0 +1,240 @@
+package org.jordi.btlealumnos2021;
+
+/**
+ * @brief Decodificador versionado de los anuncios de la placa: formato v2
+ *        (varias medidas por anuncio) con vuelta al iBeacon de siempre.
+ *
+ * v1 (TramaIBeacon / MedidaBeacon): un gas por anuncio, tipo y contador en
+ * el major y valor = minor / 10000 (máximo 3,2767 con signo, resolución
+ * 1e-4). Cuatro gases necesitan cuatro anuncios.
+ *
+ * v2: una estructura AD de datos de fabricante (tipo 0xFF) con el ID de
+ * pruebas 0xFFFF y esta carga (big-endian, como major/minor):
+ * <pre>
+ *   0      'A'  (0x41)  marca Atmos
+ *   1      0x02         versión
+ *   2      contador     8 bits, igual que en v1 (SecuenciaContador)
+ *   3..6   tiempo       ms desde el arranque de la placa (uint32)
+ *   7      batería      0..100 %, 0xFF = desconocida
+ *   8..23  id placa     16 bytes ASCII, igual que el UUID de v1
+ *   24..   medidas      n × [gas (1 byte), valor × 10000 (int24)]
+ * </pre>
+ * Con cuatro gases son 40 bytes más la cabecera AD: no cabe en un anuncio
+ * clásico de 31 bytes, así que v2 va en anuncios extendidos de BLE 5 (el
+ * servicio escanea con setLegacy(false) cuando el móvil los admite). El
+ * valor va de −838,8608 a 838,8607 con la misma resolución de 1e-4.
+ *
+ * decodificar() no reserva memoria: rellena este mismo objeto, que se
+ * reutiliza con cada anuncio. El id de la placa no se copia; se da su
+ * posición dentro del anuncio (inicioId) para RegistroPlacas.buscar().
+ *
+ * No es thread-safe.
+ *
+ * @date 19/10/2026
+ */
+public final class TramaAtmos {
+
+    public static final int VERSION_IBEACON = 1;
+    public static final int VERSION_2 = 2;
+
+    /** Máximo de medidas que se leen de un anuncio. */
+    public static final int MAX_MEDIDAS = 8;
+
+    /** ID de fabricante reservado para pruebas (Bluetooth SIG). */
+    public static final int FABRICANTE_PRUEBAS = 0xFFFF;
+
+    public static final byte MARCA = 'A';
+    public static final int BATERIA_DESCONOCIDA = -1;
+    public static final long TIEMPO_DESCONOCIDO = -1;
+
+    private static final int AD_FABRICANTE = 0xFF;
+
+    // Posiciones dentro de la carga v2 (después del ID de fabricante)
+    private static final int V2_CONTADOR = 2;
+    private static final int V2_TIEMPO = 3;
+    private static final int V2_BATERIA = 7;
+    private static final int V2_ID = 8;
+    private static final int V2_MEDIDAS = 24;
+    private static final int LONGITUD_ID = 16;
+    private static final int BYTES_MEDIDA = 4;
+
+    // Posiciones en el iBeacon (ver MedidaBeacon)
+    private static final int V1_PREFIJO = 5;
+    private static final int V1_ID = 9;
+    private static final int V1_MAJOR = 25;
+    private static final int V1_MINOR = 27;
+
+    // Apple (0x004C, little-endian), tipo iBeacon (0x02) y longitud (0x15)
+    private static final byte[] PREFIJO_IBEACON = {0x4C, 0x00, 0x02, 0x15};
+
+    private int version;
+    private int contador;
+    private long tiempoPlacaMs;
+    private int bateria;
+    private int inicioId;
+    private int medidas;
+    private final int[] gases = new int[MAX_MEDIDAS];
+    private final float[] valores = new float[MAX_MEDIDAS];
+
+    /**
+     * @brief Decodifica los bytes crudos de un anuncio (ScanRecord.getBytes()).
+     *
+     * Busca primero una estructura v2; si no la hay y el anuncio es un
+     * iBeacon (longitud y prefijo 4C 00 02 15), lo lee como v1.
+     *
+     * @return true si se ha decodificado (v1 o v2); false si no es de Atmos
+     *         o está truncado.
+     */
+    public boolean decodificar(byte[] b) {
+        if (b == null) return false;
+        return decodificarV2(b) || decodificarIBeacon(b);
+    }
+
+    private boolean decodificarV2(byte[] b) {
+        int i = 0;
+        while (i < b.length) {
+            int longitud = b[i] & 0xFF;
+            if (longitud == 0) return false;          // relleno: no hay más
+            int fin = i + 1 + longitud;
+            if (fin > b.length) return false;         // estructura truncada
+
+            int tipo = b[i + 1] & 0xFF;
+            int carga = i + 4;                        // tras tipo y fabricante
+            if (tipo == AD_FABRICANTE
+                    && fin - carga >= V2_MEDIDAS
+                    && (b[i + 2] & 0xFF) == (FABRICANTE_PRUEBAS & 0xFF)
+                    && (b[i + 3] & 0xFF) == (FABRICANTE_PRUEBAS >> 8)
+                    && b[carga] == MARCA
+                    && (b[carga + 1] & 0xFF) == VERSION_2) {
+
+                version = VERSION_2;
+                contador = b[carga + V2_CONTADOR] & 0xFF;
+                tiempoPlacaMs = ((long) (b[carga + V2_TIEMPO] & 0xFF) << 24)
+                        | ((b[carga + V2_TIEMPO + 1] & 0xFF) << 16)
+                        | ((b[carga + V2_TIEMPO + 2] & 0xFF) << 8)
+                        | (b[carga + V2_TIEMPO + 3] & 0xFF);
+                int bat = b[carga + V2_BATERIA] & 0xFF;
+                bateria = bat > 100 ? BATERIA_DESCONOCIDA : bat;
+                inicioId = carga + V2_ID;
+
+                medidas = 0;
+                for (int m = carga + V2_MEDIDAS;
+                     m + BYTES_MEDIDA <= fin && medidas < MAX_MEDIDAS;
+                     m += BYTES_MEDIDA) {
+                    // int24 con signo: se sube al byte alto de un int y se baja
+                    int crudo = ((b[m + 1] & 0xFF) << 24)
+                            | ((b[m + 2] & 0xFF) << 16)
+                            | ((b[m + 3] & 0xFF) << 8);
+                    gases[medidas] = b[m] & 0xFF;
+                    valores[medidas] = (crudo >> 8) / 10000f;
+                    medidas++;
+                }
+                return true;
+            }
+            i = fin;
+        }
+        return false;
+    }
+
+    private boolean decodificarIBeacon(byte[] b) {
+        if (b.length < MedidaBeacon.LONGITUD_MINIMA) return false;
+        for (int i = 0; i < PREFIJO_IBEACON.length; i++) {
+            if (b[V1_PREFIJO + i] != PREFIJO_IBEACON[i]) return false;
+        }
+
+        version = VERSION_IBEACON;
+        contador = b[V1_MAJOR + 1] & 0xFF;
+        tiempoPlacaMs = TIEMPO_DESCONOCIDO;
+        bateria = BATERIA_DESCONOCIDA;
+        inicioId = V1_ID;
+
+        medidas = 1;
+        gases[0] = b[V1_MAJOR] & 0xFF;
+        valores[0] = (short) ((b[V1_MINOR] << 8) | (b[V1_MINOR + 1] & 0xFF)) / 10000f;
+        return true;
+    }
+
+    /** @return VERSION_IBEACON o VERSION_2. */
+    public int getVersion() {
+        return version;
+    }
+
+    public int getContador() {
+        return contador;
+    }
+
+    /** @return ms desde el arranque de la placa, o TIEMPO_DESCONOCIDO (v1). */
+    public long getTiempoPlacaMs() {
+        return tiempoPlacaMs;
+    }
+
+    /** @return Batería en %, o BATERIA_DESCONOCIDA. */
+    public int getBateria() {
+        return bateria;
+    }
+
+    /** @return Posición de los 16 bytes del id de la placa en el anuncio. */
+    public int getInicioId() {
+        return inicioId;
+    }
+
+    public int getMedidas() {
+        return medidas;
+    }
+
+    /** @return Tipo de gas de la medida i (0 ≤ i < getMedidas()). */
+    public int getGas(int i) {
+        return gases[i];
+    }
+
+    /** @return Valor de la medida i (0 ≤ i < getMedidas()). */
+    public float getValor(int i) {
+        return valores[i];
+    }
+
+    /**
+     * @brief Codifica un anuncio v2 (estructura de flags + datos de
+     *        fabricante), como lo emitiría la placa. Para pruebas y trazas.
+     */
+    public static byte[] codificarV2(String idPlaca, int contador, long tiempoPlacaMs,
+                                     int bateria, int[] gases, float[] valores) {
+        int n = gases.length;
+        int longitudAd = 3 + V2_MEDIDAS + n * BYTES_MEDIDA;   // tipo + fabricante + carga
+        byte[] b = new byte[3 + 1 + longitudAd];
+
+        // Flags: LE General Discoverable, sin BR/EDR
+        b[0] = 2;
+        b[1] = 0x01;
+        b[2] = 0x06;
+
+        int i = 3;
+        b[i] = (byte) longitudAd;
+        b[i + 1] = (byte) AD_FABRICANTE;
+        b[i + 2] = (byte) (FABRICANTE_PRUEBAS & 0xFF);
+        b[i + 3] = (byte) (FABRICANTE_PRUEBAS >> 8);
+
+        int c = i + 4;
+        b[c] = MARCA;
+        b[c + 1] = VERSION_2;
+        b[c + V2_CONTADOR] = (byte) contador;
+        b[c + V2_TIEMPO] = (byte) (tiempoPlacaMs >>> 24);
+        b[c + V2_TIEMPO + 1] = (byte) (tiempoPlacaMs >>> 16);
+        b[c + V2_TIEMPO + 2] = (byte) (tiempoPlacaMs >>> 8);
+        b[c + V2_TIEMPO + 3] = (byte) tiempoPlacaMs;
+        b[c + V2_BATERIA] = (byte) (bateria < 0 ? 0xFF : bateria);
+
+        for (int k = 0; k < LONGITUD_ID; k++) {
+            b[c + V2_ID + k] = (byte) (k < idPlaca.length() ? idPlaca.charAt(k) : ' ');
+        }
+
+        for (int k = 0; k < n; k++) {
+            int m = c + V2_MEDIDAS + k * BYTES_MEDIDA;
+            int v = Math.round(valores[k] * 10000f);
+            b[m] = (byte) gases[k];
+            b[m + 1] = (byte) (v >> 16);
+            b[m + 2] = (byte) (v >> 8);
+            b[m + 3] = (byte) v;
+        }
+        return b;
+    }
+}
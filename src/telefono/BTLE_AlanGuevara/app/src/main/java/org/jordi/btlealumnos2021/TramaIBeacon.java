@@ -2,7 +2,6 @@
 package org.jordi.btlealumnos2021;
 
 import java.util.Arrays;
-import android.annotation.SuppressLint;
 
 
 /// -----------------------------------------------------------------------------------
@@ -0,0 +1,250 @@
+package org.jordi.btlealumnos2021;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * @brief Formato binario compacto de las trazas de sensores (BLE y GPS).
+ *
+ * Lo escribe GrabadoraTrazas mientras los servicios reciben datos reales y
+ * lo lee ReproductorTraza para volver a inyectarlos en los mismos servicios.
+ *
+ * Formato (big-endian):
+ * <pre>
+ *   cabecera:  "ATRZ" | versión (1 byte) | inicio en hora de pared, ms (8 bytes)
+ *   evento:    tipo (1 byte) | Δt desde el evento anterior en µs (varint)
+ *     ANUNCIO:      rssi (1 byte con signo) | longitud original (1 byte)
+ *                   | longitud útil (1 byte) | bytes útiles
+ *     LOCALIZACION: lat, lon en 1e-7 grados (int32 cada una)
+ *                   | precisión m (float32) | velocidad m/s (float32)
+ * </pre>
+ *
+ * Los ScanRecord llegan con relleno de ceros hasta 62 bytes; solo se guardan
+ * los bytes hasta el último distinto de cero y el lector vuelve a rellenar.
+ * Un anuncio típico ocupa así ~35 bytes y una localización 18.
+ *
+ * @date 19/10/2026
+ */
+public final class TrazaSensores {
+
+    private TrazaSensores() { }
+
+    private static final byte[] MAGIA = {'A', 'T', 'R', 'Z'};
+    private static final int VERSION = 1;
+
+    public static final int ANUNCIO = 1;
+    public static final int LOCALIZACION = 2;
+
+    private static final double ESCALA_GRADOS = 1e7;
+
+    /**
+     * @brief Un evento de la traza.
+     *
+     * tNanos es el instante relativo al primer evento (ns); solo importa la
+     * diferencia entre eventos.
+     */
+    public static final class Evento {
+        public final int tipo;
+        public final long tNanos;
+
+        // ANUNCIO
+        public final byte[] bytes;
+        public final int rssi;
+
+        // LOCALIZACION
+        public final double lat;
+        public final double lon;
+        public final float precision;
+        public final float velocidad;
+
+        private Evento(int tipo, long tNanos, byte[] bytes, int rssi,
+                       double lat, double lon, float precision, float velocidad) {
+            this.tipo = tipo;
+            this.tNanos = tNanos;
+            this.bytes = bytes;
+            this.rssi = rssi;
+            this.lat = lat;
+            this.lon = lon;
+            this.precision = precision;
+            this.velocidad = velocidad;
+        }
+
+        public static Evento anuncio(long tNanos, byte[] bytes, int rssi) {
+            return new Evento(ANUNCIO, tNanos, bytes, rssi, 0, 0, 0, 0);
+        }
+
+        public static Evento localizacion(long tNanos, double lat, double lon,
+                                          float precision, float velocidad) {
+            return new Evento(LOCALIZACION, tNanos, null, 0, lat, lon, precision, velocidad);
+        }
+    }
+
+    // -------------------------------------------------------------
+    // Escritura
+    // -------------------------------------------------------------
+
+    /**
+     * @brief Escribe eventos en orden. No es thread-safe: GrabadoraTrazas
+     *        lo usa desde un único hilo.
+     */
+    public static final class Escritor implements Closeable {
+
+        private final DataOutputStream out;
+        private long ultimoNanos = -1;
+        private int eventos = 0;
+
+        public Escritor(OutputStream destino, long inicioPared) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(destino, 16 * 1024));
+            out.write(MAGIA);
+            out.writeByte(VERSION);
+            out.writeLong(inicioPared);
+        }
+
+        /**
+         * @param tNanos Instante monótono (p. ej. elapsedRealtimeNanos).
+         */
+        public void anuncio(long tNanos, byte[] bytes, int rssi) throws IOException {
+            int util = bytes.length;
+            while (util > 0 && bytes[util - 1] == 0) util--;
+
+            cabeceraEvento(ANUNCIO, tNanos);
+            out.writeByte(Math.max(-128, Math.min(127, rssi)));
+            out.writeByte(Math.min(bytes.length, 255));
+            out.writeByte(Math.min(util, 255));
+            out.write(bytes, 0, Math.min(util, 255));
+        }
+
+        public void localizacion(long tNanos, double lat, double lon,
+                                 float precision, float velocidad) throws IOException {
+            cabeceraEvento(LOCALIZACION, tNanos);
+            out.writeInt((int) Math.round(lat * ESCALA_GRADOS));
+            out.writeInt((int) Math.round(lon * ESCALA_GRADOS));
+            out.writeFloat(precision);
+            out.writeFloat(velocidad);
+        }
+
+        public int getEventos() {
+            return eventos;
+        }
+
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private void cabeceraEvento(int tipo, long tNanos) throws IOException {
+            long deltaMicros = ultimoNanos < 0 ? 0 : Math.max(0, (tNanos - ultimoNanos) / 1000);
+            // Se avanza con lo que se ha escrito para no acumular el redondeo
+            ultimoNanos = ultimoNanos < 0 ? tNanos : ultimoNanos + deltaMicros * 1000;
+
+            out.writeByte(tipo);
+            escribirVarint(out, deltaMicros);
+            eventos++;
+        }
+    }
+
+    // -------------------------------------------------------------
+    // Lectura
+    // -------------------------------------------------------------
+
+    public static final class Lector implements Closeable {
+
+        private final DataInputStream in;
+        private final long inicioPared;
+        private long tNanos = 0;
+
+        public Lector(InputStream origen) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(origen, 16 * 1024));
+
+            byte[] magia = new byte[MAGIA.length];
+            in.readFully(magia);
+            for (int i = 0; i < MAGIA.length; i++) {
+                if (magia[i] != MAGIA[i]) throw new IOException("No es una traza Atmos");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) throw new IOException("Versión de traza no soportada: " + version);
+
+            inicioPared = in.readLong();
+        }
+
+        /** Hora de pared (ms) en que empezó la grabación. */
+        public long getInicioPared() {
+            return inicioPared;
+        }
+
+        /**
+         * @return El siguiente evento, o null al llegar al final (una traza
+         *         cortada a mitad de evento también termina ahí).
+         */
+        public Evento siguiente() throws IOException {
+            int tipo = in.read();
+            if (tipo < 0) return null;
+
+            try {
+                tNanos += leerVarint(in) * 1000;
+
+                switch (tipo) {
+                    case ANUNCIO: {
+                        int rssi = in.readByte();
+                        int longitud = in.readUnsignedByte();
+                        int util = in.readUnsignedByte();
+                        byte[] bytes = new byte[Math.max(longitud, util)];
+                        in.readFully(bytes, 0, util);
+                        return Evento.anuncio(tNanos, bytes, rssi);
+                    }
+                    case LOCALIZACION: {
+                        double lat = in.readInt() / ESCALA_GRADOS;
+                        double lon = in.readInt() / ESCALA_GRADOS;
+                        float precision = in.readFloat();
+                        float velocidad = in.readFloat();
+                        return Evento.localizacion(tNanos, lat, lon, precision, velocidad);
+                    }
+                    default:
+                        throw new IOException("Tipo de evento desconocido: " + tipo);
+                }
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // -------------------------------------------------------------
+    // Varint (7 bits por byte, el bit alto indica que sigue)
+    // -------------------------------------------------------------
+
+    static void escribirVarint(DataOutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long leerVarint(DataInputStream in) throws IOException {
+        long v = 0;
+        int desplazamiento = 0;
+        while (true) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << desplazamiento;
+            if ((b & 0x80) == 0) return v;
+            desplazamiento += 7;
+            if (desplazamiento > 63) throw new IOException("Varint demasiado largo");
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @brief Trazado del recorrido: simplifica las posiciones según llegan y
+ *        las entrega por tramos codificados (PolilineaCodificada).
+ *
+ * Simplificación en streaming (ventana que se abre, la versión
+ * incremental de Douglas–Peucker): desde el último punto guardado (el
+ * ancla) se van acumulando los siguientes mientras todos queden a menos
+ * de TOLERANCIA_M de la recta ancla → último. Cuando uno se sale, el
+ * anterior se guarda y pasa a ser el ancla. En una calle recta se guardan
+ * solo las esquinas. Como mucho se acumulan MAX_PENDIENTES puntos, así
+ * que cada posición cuesta O(MAX_PENDIENTES) y la memoria no crece con la
+ * duración del paseo.
+ *
+ * Los puntos guardados se escriben en el tramo actual; con
+ * MAX_PUNTOS_TRAMO puntos o MAX_DURACION_TRAMO_MS se entrega a la Salida
+ * y el siguiente empieza por su último punto (el trazado sigue unido).
+ * La duración se mira con cada posición, no solo al guardar un punto: en
+ * una recta larga se guarda la última posición para no pasarse. Al pararse
+ * el usuario (no llegan más posiciones al trazado) ModuloRecorrido llama a
+ * entregar().
+ *
+ * acotar() simplifica de una vez un trazado ya decodificado (el del mapa)
+ * hasta un número máximo de puntos.
+ *
+ * @date 19/10/2026
+ */
+public final class TrazadoRecorrido {
+
+    /** Distancia máxima del trazado simplificado a las posiciones (m). */
+    public static final double TOLERANCIA_M = 5;
+    /** Puntos acumulados como mucho antes de guardar uno. */
+    public static final int MAX_PENDIENTES = 50;
+    /** Puntos por tramo. */
+    public static final int MAX_PUNTOS_TRAMO = 100;
+    /** Duración máxima de un tramo (ms): lo que tarda en verse en el mapa. */
+    public static final long MAX_DURACION_TRAMO_MS = 120_000;
+
+    private static final double RADIO_TIERRA_M = 6371008.8;
+
+    /**
+     * @brief Recibe cada tramo terminado.
+     */
+    public interface Salida {
+        void tramo(long inicioMs, String puntos, int n);
+    }
+
+    private final Salida salida;
+    private final double tolerancia;
+
+    // Ancla y puntos pendientes (arrays de tamaño fijo)
+    private boolean hayAncla = false;
+    private double latAncla, lonAncla;
+    private long tAncla;
+    private final double[] latP = new double[MAX_PENDIENTES];
+    private final double[] lonP = new double[MAX_PENDIENTES];
+    private final long[] tP = new long[MAX_PENDIENTES];
+    private int pendientes = 0;
+
+    private PolilineaCodificada.Escritor tramo;
+    private long recibidos = 0;
+    private long guardados = 0;
+
+    public TrazadoRecorrido(Salida salida) {
+        this(salida, TOLERANCIA_M);
+    }
+
+    public TrazadoRecorrido(Salida salida, double tolerancia) {
+        this.salida = salida;
+        this.tolerancia = tolerancia;
+    }
+
+    /**
+     * @brief Añade una posición (ya filtrada) del recorrido.
+     *
+     * @param tMs Instante (ms, hora del servidor).
+     */
+    public void anadir(double lat, double lon, long tMs) {
+        recibidos++;
+
+        if (!hayAncla) {
+            guardar(lat, lon, tMs);
+            return;
+        }
+
+        boolean cabe = pendientes < MAX_PENDIENTES;
+        for (int i = 0; cabe && i < pendientes; i++) {
+            cabe = distanciaASegmento(latP[i], lonP[i], latAncla, lonAncla, lat, lon) <= tolerancia;
+        }
+
+        if (!cabe) {
+            // El último pendiente es el nuevo ancla; el nuevo punto queda pendiente
+            int u = pendientes - 1;
+            guardar(latP[u], lonP[u], tP[u]);
+        }
+
+        latP[pendientes] = lat;
+        lonP[pendientes] = lon;
+        tP[pendientes] = tMs;
+        pendientes++;
+
+        if (tramo != null && tMs - tramo.getInicioMs() >= MAX_DURACION_TRAMO_MS) {
+            entregar();
+        }
+    }
+
+    /**
+     * @brief Guarda la última posición y entrega el tramo abierto, sin
+     *        cortar el trazado: el siguiente empieza por ese punto. No hace
+     *        nada si no hay nada nuevo desde la última entrega.
+     */
+    public void entregar() {
+        if (pendientes > 0) {
+            int u = pendientes - 1;
+            guardar(latP[u], lonP[u], tP[u]);
+        }
+        if (tramo != null && tramo.getPuntos() >= 2) {
+            entregarTramo();
+        }
+    }
+
+    /**
+     * @brief Guarda la última posición y entrega el tramo abierto (al parar
+     *        el recorrido). Lo siguiente empieza un trazado nuevo.
+     */
+    public void cerrar() {
+        if (pendientes > 0) {
+            int u = pendientes - 1;
+            guardar(latP[u], lonP[u], tP[u]);
+        }
+        if (tramo != null && tramo.getPuntos() >= 2) {
+            salida.tramo(tramo.getInicioMs(), tramo.toString(), tramo.getPuntos());
+        }
+        tramo = null;
+        hayAncla = false;
+    }
+
+    /** Posiciones recibidas. */
+    public long getRecibidos() {
+        return recibidos;
+    }
+
+    /** Puntos guardados tras simplificar. */
+    public long getGuardados() {
+        return guardados;
+    }
+
+    private void guardar(double lat, double lon, long tMs) {
+        latAncla = lat;
+        lonAncla = lon;
+        tAncla = tMs;
+        hayAncla = true;
+        pendientes = 0;
+        guardados++;
+
+        if (tramo == null) tramo = new PolilineaCodificada.Escritor(tMs);
+        tramo.anadir(lat, lon, tMs);
+
+        if (tramo.getPuntos() >= MAX_PUNTOS_TRAMO
+                || tMs - tramo.getInicioMs() >= MAX_DURACION_TRAMO_MS) {
+            entregarTramo();
+        }
+    }
+
+    /** Entrega el tramo y empieza el siguiente por el ancla. */
+    private void entregarTramo() {
+        salida.tramo(tramo.getInicioMs(), tramo.toString(), tramo.getPuntos());
+        tramo = new PolilineaCodificada.Escritor(tAncla);
+        tramo.anadir(latAncla, lonAncla, tAncla);
+    }
+
+    // -------------------------------------------------------------
+
+    /**
+     * @brief Simplifica un trazado (Douglas–Peucker) doblando la tolerancia
+     *        hasta que tenga como mucho maxPuntos.
+     *
+     * @return El trazado simplificado (la misma lista si ya cabe).
+     */
+    public static List<PolilineaCodificada.Punto> acotar(
+            List<PolilineaCodificada.Punto> puntos, int maxPuntos) {
+        List<PolilineaCodificada.Punto> res = puntos;
+        double tolerancia = TOLERANCIA_M;
+        while (res.size() > maxPuntos && res.size() > 2) {
+            tolerancia *= 2;
+            res = douglasPeucker(puntos, tolerancia);
+        }
+        return res;
+    }
+
+    /**
+     * @brief Douglas–Peucker con una pila (sin recursión).
+     */
+    static List<PolilineaCodificada.Punto> douglasPeucker(
+            List<PolilineaCodificada.Punto> puntos, double tolerancia) {
+        int n = puntos.size();
+        if (n <= 2) return new ArrayList<>(puntos);
+
+        boolean[] guardar = new boolean[n];
+        guardar[0] = true;
+        guardar[n - 1] = true;
+
+        int[] pila = new int[2 * n];
+        int cima = 0;
+        pila[cima++] = 0;
+        pila[cima++] = n - 1;
+
+        while (cima > 0) {
+            int fin = pila[--cima];
+            int ini = pila[--cima];
+            PolilineaCodificada.Punto a = puntos.get(ini), b = puntos.get(fin);
+
+            double max = -1;
+            int imax = -1;
+            for (int i = ini + 1; i < fin; i++) {
+                PolilineaCodificada.Punto p = puntos.get(i);
+                double d = distanciaASegmento(p.lat, p.lon, a.lat, a.lon, b.lat, b.lon);
+                if (d > max) {
+                    max = d;
+                    imax = i;
+                }
+            }
+            if (imax >= 0 && max > tolerancia) {
+                guardar[imax] = true;
+                pila[cima++] = ini;
+                pila[cima++] = imax;
+                pila[cima++] = imax;
+                pila[cima++] = fin;
+            }
+        }
+
+        List<PolilineaCodificada.Punto> res = new ArrayList<>();
+        for (int i = 0; i < n; i++) if (guardar[i]) res.add(puntos.get(i));
+        return res;
+    }
+
+    /**
+     * @brief Distancia (m) del punto p al segmento a–b, en el plano
+     *        tangente en a (a estas distancias el error es despreciable).
+     */
+    static double distanciaASegmento(double latP, double lonP,
+                                     double latA, double lonA,
+                                     double latB, double lonB) {
+        double k = Math.toRadians(1) * RADIO_TIERRA_M;
+        double cos = Math.cos(Math.toRadians(latA));
+        double px = (lonP - lonA) * cos * k, py = (latP - latA) * k;
+        double bx = (lonB - lonA) * cos * k, by = (latB - latA) * k;
+
+        double l2 = bx * bx + by * by;
+        double u = l2 == 0 ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / l2));
+        double dx = px - u * bx, dy = py - u * by;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -59,9 +59,24 @@ public class UserPageActivity extends FuncionesBaseActivity {
     // tipo de gas seleccionado en el spinner
     private int tipoSeleccionado = 13;
 
+    // Instante de la última medición según el servidor (ms)
+    private long ultimaServidorMs = 0;
+
     // Instancia a la clase recorrido para no añadir más lineas de código aquí
     private RecorridoController recorridoController;
 
+    // Dosis de exposición de hoy, junto a la distancia del recorrido
+    private TextView tvExposicionHoy;
+
+    // Icono de cada categoría de ClasificadorCalidad (0 = sin datos)
+    private static final int[] ICONO_CATEGORIA = {
+            R.drawable.ic_estado_sin_datos,
+            R.drawable.ic_estado_bueno,
+            R.drawable.ic_estado_moderado,
+            R.drawable.ic_estado_insalubre,
+            R.drawable.ic_estado_malo
+    };
+
     /**
      * @brief Inicializa la actividad y configura la interfaz.
      *
@@ -81,6 +96,12 @@ public class UserPageActivity extends FuncionesBaseActivity {
 
         queue = Volley.newRequestQueue(this);
 
+        // Umbrales de calidad del aire actualizados (solo la primera vez)
+        LogicaFake.cargarUmbralesRemotos(queue);
+
+        // Alertas del sistema aunque la pantalla de notificaciones esté cerrada
+        NotificacionesWorker.iniciar(this);
+
         int idUsuario = SesionManager.obtenerIdUsuario(this);
 
         nombre = SesionManager.obtenerNombre(this);
@@ -108,6 +129,7 @@ public class UserPageActivity extends FuncionesBaseActivity {
         Button btnDetener = findViewById(R.id.btnDetenerRecorrido);
         TextView tvRecorridoHoy = findViewById(R.id.tvRecorridoHoy);
         TextView tvRecorridoAyer = findViewById(R.id.tvRecorridoAyer);
+        tvExposicionHoy = findViewById(R.id.tvExposicionHoy);
 
         // Constructor de la clase RecorridoController
         recorridoController = new RecorridoController(
@@ -147,6 +169,13 @@ public class UserPageActivity extends FuncionesBaseActivity {
         // ACTIVAR TOOLTIP DE LA CARITA
         activarMensajeCarita(iconEstadoCalidad, txtEstadoCalidad);
 
+        // Histórico completo del gas seleccionado
+        findViewById(R.id.txtVerHistorico).setOnClickListener(v -> {
+            Intent intent = new Intent(UserPageActivity.this, HistoricoActivity.class);
+            intent.putExtra(HistoricoActivity.EXTRA_TIPO_GAS, tipoSeleccionado());
+            startActivity(intent);
+        });
+
         // ---------------------------------------------------------------
         // SPINNER
         // ---------------------------------------------------------------
@@ -187,33 +216,10 @@ public class UserPageActivity extends FuncionesBaseActivity {
                 int idUsuario = SesionManager.obtenerIdUsuario(UserPageActivity.this);
 
                 // Estado del sensor
-                actualizarEstadoSensor(idUsuario);
+                actualizarEstadoSensor(idUsuario, null);
 
                 // Señal del sensor
-                actualizarEstadoSenal(idUsuario);
-
-                // ======================================================
-                // REFRESCO AUTOMÁTICO DEL ESTADO DEL SENSOR (20s)
-                // ======================================================
-                new android.os.Handler().postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        actualizarEstadoSensor(idUsuario);
-                        new android.os.Handler().postDelayed(this, 2000);
-                    }
-                }, 2000);
-
-                // ======================================================
-                // REFRESCO AUTOMÁTICO DEL ESTADO DE LA SEÑAL (5s)
-                // ======================================================
-                new android.os.Handler().postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        actualizarEstadoSenal(idUsuario);
-                        new android.os.Handler().postDelayed(this, 1000);
-                    }
-                }, 1000);
-
+                actualizarEstadoSenal(idUsuario, null);
             }
 
             @Override
@@ -221,6 +227,18 @@ public class UserPageActivity extends FuncionesBaseActivity {
             }
         });
 
+        // ======================================================
+        // REFRESCO AUTOMÁTICO DEL ESTADO DEL SENSOR Y DE LA SEÑAL
+        //    Solo mientras la pantalla está delante (Refrescos): antes
+        //    cada cambio de gas añadía dos bucles que no se paraban nunca.
+        // ======================================================
+        Refrescos.getInstance().registrar(this, "estado_sensor", 2000, fin -> {
+            actualizarEstadoSensor(SesionManager.obtenerIdUsuario(this), fin);
+            aplicarAgregadosLocales();
+        });
+        Refrescos.getInstance().registrar(this, "senal", 1000,
+                fin -> actualizarEstadoSenal(SesionManager.obtenerIdUsuario(this), fin));
+
         // ---------------------------------------------------------------
         // POPUP información
         // ---------------------------------------------------------------
@@ -413,6 +431,10 @@ public class UserPageActivity extends FuncionesBaseActivity {
                         txtPromedioCalidad.setText(textoCalidadProm);
                         imgPromedioCalidad.setImageResource(iconoCalidadProm);
 
+                        // Lo que se haya medido en este móvil desde entonces
+                        ultimaServidorMs = FormatosFecha.parsearIsoUtc(ultimaFecha);
+                        aplicarAgregadosLocales();
+
                         graficaHelper.recargarGrafica(tipoSeleccionado());
 
                         if (graficaHelper != null) {
@@ -442,6 +464,64 @@ public class UserPageActivity extends FuncionesBaseActivity {
         );
     }
 
+    /**
+     * @brief Actualiza las tarjetas con los agregados calculados en el móvil
+     *        (AgregadorMedidas), sin pedir nada al servidor.
+     *
+     * La última medición se sustituye si la local es más reciente que la
+     * del servidor. El promedio de hoy solo si el agregador lleva recibiendo
+     * desde las 00:00; si no, le faltan medidas y se deja el del servidor.
+     */
+    private void aplicarAgregadosLocales() {
+        if (layoutConSensor.getVisibility() != View.VISIBLE) return;
+
+        AgregadorMedidas agregador = AgregadorMedidas.getInstance();
+        int tipo = tipoSeleccionado();
+        long ahora = System.currentTimeMillis();
+
+        AgregadorMedidas.Ultima ultima = agregador.ultima(tipo);
+        if (ultima != null && ultima.tMs > ultimaServidorMs) {
+            txtUltima.setText(String.format(Locale.US, "%.2f", ultima.valor));
+            txtUltimaFecha.setText(FormatosFecha.fechaHoraLocal(ultima.tMs));
+            txtUltimaCalidad.setText(obtenerTextoCalidad(ultima.valor, tipo));
+            imgUltimaCalidad.setImageResource(obtenerIconoCalidad(ultima.valor, tipo));
+        }
+
+        if (agregador.cubreDesde(agregador.inicioDia(ahora))) {
+            AgregadorMedidas.Resumen hoy = agregador.hoy(tipo, ahora);
+            if (hoy.cuenta > 0) {
+                txtPromedio.setText(String.format(Locale.US, "%.2f", hoy.media));
+                txtPromedioCalidad.setText(obtenerTextoCalidad(hoy.media, tipo));
+                imgPromedioCalidad.setImageResource(obtenerIconoCalidad(hoy.media, tipo));
+            }
+        }
+
+        mostrarExposicion(tipo);
+    }
+
+    /**
+     * @brief Muestra la dosis de exposición de hoy del gas (ExposicionDiaria):
+     *        concentración × horas, la media ponderada y la parte en recorrido.
+     *
+     * Se calcula en el móvil con las medidas de la placa y las posiciones del
+     * recorrido; no pide nada al servidor.
+     */
+    private void mostrarExposicion(int tipo) {
+        ExposicionDiaria.Resumen exp = ExposicionDiaria.getInstance().hoy(tipo, SincronizacionHora.ahora());
+        if (exp.horas <= 0) {
+            tvExposicionHoy.setText("Exposición de hoy: sin datos");
+            return;
+        }
+
+        String texto = String.format(Locale.US, "Exposición de hoy: %.2f ppm·h (media %.2f ppm)",
+                exp.dosis, exp.media);
+        if (exp.horasRecorrido > 0) {
+            texto += String.format(Locale.US, "\nEn recorrido: %.2f ppm·h en %d min",
+                    exp.dosisRecorrido, Math.round(exp.horasRecorrido * 60));
+        }
+        tvExposicionHoy.setText(texto);
+    }
+
     /**
      * @brief Devuelve el texto descriptivo de la calidad del aire.
      *
@@ -454,36 +534,9 @@ public class UserPageActivity extends FuncionesBaseActivity {
     private String obtenerTextoCalidad(double valor, int tipoGas) {
 
         // Si no hay datos o es 0 → Sin datos
-        if (valor <= 0) return "Sin datos";
+        if (valor <= 0) return ClasificadorCalidad.texto(ClasificadorCalidad.SIN_DATOS);
 
-        switch (tipoGas) {
-
-            case 12: // CO
-                if (valor <= 1.7) return "Buena";
-                if (valor <= 4.4) return "Moderada";
-                if (valor <= 8.7) return "Insalubre";
-                return "Mala";
-
-            case 11: // NO2
-                if (valor <= 0.021) return "Buena";
-                if (valor <= 0.053) return "Moderada";
-                if (valor <= 0.106) return "Insalubre";
-                return "Mala";
-
-            case 13: // O3
-                if (valor <= 0.031) return "Buena";
-                if (valor <= 0.061) return "Moderada";
-                if (valor <= 0.092) return "Insalubre";
-                return "Mala";
-
-            case 14: // SO2
-                if (valor <= 0.0076) return "Buena";
-                if (valor <= 0.019) return "Moderada";
-                if (valor <= 0.038) return "Insalubre";
-                return "Mala";
-        }
-
-        return "Sin datos";
+        return ClasificadorCalidad.texto(ClasificadorCalidad.categoria(valor, tipoGas));
     }
 
     /**
@@ -498,39 +551,11 @@ public class UserPageActivity extends FuncionesBaseActivity {
     private int obtenerIconoCalidad(double valor, int tipoGas) {
 
         // Sin datos → icono gris
-        if (valor <= 0) return R.drawable.ic_estado_sin_datos;
-
-        switch (tipoGas) {
+        if (valor <= 0) return ICONO_CATEGORIA[ClasificadorCalidad.SIN_DATOS];
 
-            case 12: // CO
-                if (valor <= 1.7) return R.drawable.ic_estado_bueno;
-                if (valor <= 4.4) return R.drawable.ic_estado_moderado;
-                if (valor <= 8.7) return R.drawable.ic_estado_insalubre;
-                return R.drawable.ic_estado_malo;
-
-            case 11: // NO2
-                if (valor <= 0.021) return R.drawable.ic_estado_bueno;
-                if (valor <= 0.053) return R.drawable.ic_estado_moderado;
-                if (valor <= 0.106) return R.drawable.ic_estado_insalubre;
-                return R.drawable.ic_estado_malo;
-
-            case 13: // O3
-                if (valor <= 0.031) return R.drawable.ic_estado_bueno;
-                if (valor <= 0.061) return R.drawable.ic_estado_moderado;
-                if (valor <= 0.092) return R.drawable.ic_estado_insalubre;
-                return R.drawable.ic_estado_malo;
-
-            case 14: // SO2
-                if (valor <= 0.0076) return R.drawable.ic_estado_bueno;
-                if (valor <= 0.019) return R.drawable.ic_estado_moderado;
-                if (valor <= 0.038) return R.drawable.ic_estado_insalubre;
-                return R.drawable.ic_estado_malo;
-        }
-
-        return R.drawable.ic_estado_sin_datos;
+        return ICONO_CATEGORIA[ClasificadorCalidad.categoria(valor, tipoGas)];
     }
 
-
     /**
      * @brief Formatea una fecha ISO recibida del backend.
      *
@@ -591,13 +616,14 @@ public class UserPageActivity extends FuncionesBaseActivity {
      * @brief Consulta y actualiza el estado del sensor del usuario.
      *
      * @param idUsuario Identificador del usuario.
+     * @param fin       Aviso al terminar la petición (refresco periódico) o null.
      *
      * @author Nerea Aguilar Forés
      * @date 2025-11-21
      */
-    private void actualizarEstadoSensor(int idUsuario) {
+    private void actualizarEstadoSensor(int idUsuario, PlanificadorRefrescos.Fin fin) {
 
-        LogicaFake.estadoPlacaServidor(idUsuario, queue, new LogicaFake.EstadoPlacaCallback() {
+        LogicaFake.EstadoPlacaCallback pintar = new LogicaFake.EstadoPlacaCallback() {
 
             @Override
             public void onActivo() {
@@ -636,6 +662,24 @@ public class UserPageActivity extends FuncionesBaseActivity {
             public void onErrorInesperado() {
                 Log.e("UserPageActivity", "Error inesperado en estadoPlacaServidor()");
             }
+        };
+
+        // Estado precargado durante el arranque (ArranqueApp): se pinta ya
+        // y la petición de abajo lo refresca.
+        ArranqueApp.entregarEstadoPlaca(pintar);
+
+        if (fin == null) {
+            LogicaFake.estadoPlacaServidor(idUsuario, queue, pintar);
+            return;
+        }
+
+        // Refresco periódico: además de pintar, avisa al planificador
+        LogicaFake.estadoPlacaServidor(idUsuario, queue, new LogicaFake.EstadoPlacaCallback() {
+            @Override public void onActivo() { pintar.onActivo(); fin.hecho(true); }
+            @Override public void onInactivo() { pintar.onInactivo(); fin.hecho(true); }
+            @Override public void onSinPlaca() { pintar.onSinPlaca(); fin.hecho(true); }
+            @Override public void onErrorServidor() { pintar.onErrorServidor(); fin.hecho(false); }
+            @Override public void onErrorInesperado() { pintar.onErrorInesperado(); fin.hecho(false); }
         });
     }
 
@@ -643,16 +687,18 @@ public class UserPageActivity extends FuncionesBaseActivity {
      * @brief Consulta y actualiza el estado de la señal del sensor.
      *
      * @param idUsuario Identificador del usuario.
+     * @param fin       Aviso al terminar la petición (refresco periódico) o null.
      *
      * @author Nerea Aguilar Forés
      * @date 2025-11-21
      */
-    private void actualizarEstadoSenal(int idUsuario) {
+    private void actualizarEstadoSenal(int idUsuario, PlanificadorRefrescos.Fin fin) {
 
         LogicaFake.estadoSenalServidor(idUsuario, queue, new LogicaFake.EstadoSenalCallback() {
 
             @Override
             public void onResultado(String nivel, int rssi) {
+                if (fin != null) fin.hecho(true);
 
                 ImageView icono = findViewById(R.id.img_wifi);
                 TextView texto = findViewById(R.id.tv_distancia);
@@ -694,11 +740,13 @@ public class UserPageActivity extends FuncionesBaseActivity {
             @Override
             public void onErrorServidor() {
                 Log.e("UserPageActivity", "Error en estadoSenalServidor()");
+                if (fin != null) fin.hecho(false);
             }
 
             @Override
             public void onErrorInesperado() {
                 Log.e("UserPageActivity", "Error inesperado en estadoSenalServidor()");
+                if (fin != null) fin.hecho(false);
             }
         });
     }
@@ -1,10 +1,8 @@
 package org.jordi.btlealumnos2021;
 
 
-import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.UUID;
-import android.annotation.SuppressLint;
 
 
 /// -----------------------------------------------------------------------------------
@@ -76,15 +74,32 @@ public class Utilidades {
     }
 
     // -------------------------------------------------------------------------------
+    // Big-endian con signo, igual que new BigInteger(bytes).intValue() (se queda con
+    // los 32 bits bajos) pero sin crear objetos: se llama dos veces por cada anuncio BLE.
     // -------------------------------------------------------------------------------
     public static int bytesToInt( byte[] bytes ) {
-        return new BigInteger(bytes).intValue();
+        if ( bytes.length == 0 ) {
+            throw new NumberFormatException( "Zero length BigInteger" );
+        }
+        int res = bytes[ 0 ]; // con signo
+        for ( int i = 1; i < bytes.length; i++ ) {
+            res = (res << 8) | (bytes[ i ] & 0xFF);
+        }
+        return res;
     }
 
     // -------------------------------------------------------------------------------
+    // Igual que new BigInteger(bytes).longValue()
     // -------------------------------------------------------------------------------
     public static long bytesToLong( byte[] bytes ) {
-        return new BigInteger(bytes).longValue();
+        if ( bytes.length == 0 ) {
+            throw new NumberFormatException( "Zero length BigInteger" );
+        }
+        long res = bytes[ 0 ]; // con signo
+        for ( int i = 1; i < bytes.length; i++ ) {
+            res = (res << 8) | (bytes[ i ] & 0xFF);
+        }
+        return res;
     }
 
     // -------------------------------------------------------------------------------
@@ -133,13 +148,17 @@ public class Utilidades {
             return "";
         }
 
-        StringBuilder sb = new StringBuilder();
+        // Tabla en vez de String.format("%02x"), que parsea el patrón en cada byte
+        StringBuilder sb = new StringBuilder( bytes.length * 3 );
         for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
+            sb.append( HEX[ (b >> 4) & 0xF ] );
+            sb.append( HEX[ b & 0xF ] );
             sb.append(':');
         }
         return sb.toString();
     } // ()
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
 } // class
 // -----------------------------------------------------------------------------------
 // -----------------------------------------------------------------------------------
@@ -0,0 +1,108 @@
+package org.jordi.btlealumnos2021;
+
+import static org.jordi.btlealumnos2021.Fixtures.MADRID;
+import static org.jordi.btlealumnos2021.Fixtures.hora;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @brief Pruebas de las ventanas deslizantes de AgregadorMedidas.
+ *
+ * @date 19/10/2026
+ */
+public class AgregadorMedidasTest {
+
+    private static final int GAS = ClasificadorCalidad.GAS_O3;
+
+    @Test
+    public void ventanasDeslizantes() {
+        AgregadorMedidas a = new AgregadorMedidas(MADRID);
+
+        // Una medida por segundo de 08:00 a 10:59:59; el valor es la hora
+        for (long t = hora(8, 0, 0); t < hora(11, 0, 0); t += 1000) {
+            int h = (int) ((t - hora(8, 0, 0)) / AgregadorMedidas.HORA) + 8;
+            a.anadir(GAS, h / 100.0, t);
+        }
+        long ahora = hora(10, 59, 59);
+
+        AgregadorMedidas.Resumen min = a.ventana(GAS, AgregadorMedidas.VENTANA_1MIN, ahora);
+        assertEquals(60, min.cuenta);
+        assertEquals(0.10, min.media, 1e-9);
+
+        AgregadorMedidas.Resumen h1 = a.ventana(GAS, AgregadorMedidas.VENTANA_1H, ahora);
+        assertEquals(3600, h1.cuenta);
+
+        AgregadorMedidas.Resumen h8 = a.ventana(GAS, AgregadorMedidas.VENTANA_8H, ahora);
+        assertEquals(3 * 3600, h8.cuenta);
+        assertEquals(0.09, h8.media, 1e-9);
+        assertEquals(0.08, h8.minimo, 0);
+        assertEquals(0.10, h8.maximo, 0);
+        assertEquals(0.09, h8.cuantil(0.5), 0.005);
+
+        // Media de cada hora de reloj, 0 en las horas sin datos
+        float[] medias = a.mediasHorarias(GAS, 8, ahora);
+        assertArrayEquals(new float[]{0, 0, 0, 0, 0, 0.08f, 0.09f, 0.10f}, medias, 1e-6f);
+
+        // Hora y media después: 1 min y 1 h vacías, 24 h conserva todo
+        long luego = hora(12, 30, 0);
+        assertEquals(0, a.ventana(GAS, AgregadorMedidas.VENTANA_1MIN, luego).cuenta);
+        assertEquals(3 * 3600, a.ventana(GAS, AgregadorMedidas.VENTANA_24H, luego).cuenta);
+        assertTrue(Double.isNaN(a.ventana(GAS, AgregadorMedidas.VENTANA_1H, luego).media));
+    }
+
+    @Test
+    public void losTramosSeReutilizan() {
+        AgregadorMedidas a = new AgregadorMedidas(MADRID);
+
+        // Dos días seguidos: el anillo de 24 h solo conserva el último
+        for (long t = hora(0, 0, 0); t < hora(0, 0, 0) + 48 * AgregadorMedidas.HORA; t += 60_000) {
+            a.anadir(GAS, 0.05, t);
+        }
+        long ahora = hora(0, 0, 0) + 48 * AgregadorMedidas.HORA - 1;
+
+        assertEquals(24 * 60, a.ventana(GAS, AgregadorMedidas.VENTANA_24H, ahora).cuenta);
+        assertEquals(24 * 60, a.hoy(GAS, ahora).cuenta);
+
+        // Una medida antigua que ya no cabe en el anillo se ignora
+        a.anadir(GAS, 9, hora(1, 0, 0));
+        assertEquals(0.05, a.ventana(GAS, AgregadorMedidas.VENTANA_24H, ahora).maximo, 0);
+    }
+
+    @Test
+    public void hoyYCobertura() {
+        AgregadorMedidas a = new AgregadorMedidas(MADRID);
+        assertNull(a.ultima(GAS));
+        assertFalse(a.cubreDesde(hora(0, 0, 0)));
+
+        a.anadir(GAS, 0.02, hora(23, 50, 0) - AgregadorMedidas.HORA * 24); // ayer
+        a.anadir(GAS, 0.04, hora(9, 15, 0));
+        a.anadir(GAS, 0.06, hora(9, 45, 0));
+
+        assertEquals(2, a.hoy(GAS, hora(10, 0, 0)).cuenta);
+        assertEquals(0.05, a.hoy(GAS, hora(10, 0, 0)).media, 1e-9);
+
+        assertEquals(0.06, a.ultima(GAS).valor, 0);
+        assertEquals(hora(9, 45, 0), a.ultima(GAS).tMs);
+
+        assertTrue(a.cubreDesde(a.inicioDia(hora(10, 0, 0))));
+        assertEquals(hora(9, 0, 0), a.inicioHora(hora(9, 45, 0)));
+    }
+
+    @Test
+    public void reiniciarOlvidaAlUsuarioAnterior() {
+        AgregadorMedidas a = new AgregadorMedidas(MADRID);
+        a.anadir(GAS, 0.04, hora(9, 15, 0));
+        a.anadir(GAS, 0.06, hora(9, 45, 0));
+
+        // Cierra sesión y entra otro usuario en el mismo proceso
+        a.reiniciar();
+        assertNull(a.ultima(GAS));
+        assertEquals(0, a.hoy(GAS, hora(10, 0, 0)).cuenta);
+        assertFalse(a.cubreDesde(a.inicioDia(hora(10, 0, 0))));
+    }
+}
@@ -0,0 +1,124 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @brief Pruebas de la sincronización incremental de notificaciones
+ *        (AlmacenNotificaciones) y de FormatosFecha.
+ *
+ * @date 19/10/2026
+ */
+public class AlmacenNotificacionesTest {
+
+    private static NotificacionAtmos noti(int id) {
+        return new NotificacionAtmos(id, "O3_CRITICO", "t" + id, "x", "10:00", id * 1000L, false);
+    }
+
+    @Test
+    public void primeraCargaEsCompletaYAvanzaElCursor() {
+        AlmacenNotificaciones a = new AlmacenNotificaciones();
+        a.usarUsuario(23);
+        assertEquals(0, a.getUltimoId());
+
+        List<NotificacionAtmos> nuevas = a.fusionar(Arrays.asList(noti(5), noti(7), noti(6)), 7);
+
+        assertEquals(3, nuevas.size());
+        assertEquals(7, nuevas.get(0).getIdNotificacion());
+        assertEquals(7, a.getUltimoId());
+        assertEquals(3, a.getLista().size());
+        assertEquals(7, a.getLista().get(0).getIdNotificacion());
+        assertEquals(5, a.getLista().get(2).getIdNotificacion());
+    }
+
+    @Test
+    public void sondeoSinNovedadesNoReconstruyeLaLista() {
+        AlmacenNotificaciones a = new AlmacenNotificaciones();
+        a.fusionar(Arrays.asList(noti(1), noti(2)), 2);
+        List<NotificacionAtmos> antes = a.getLista();
+
+        List<NotificacionAtmos> nuevas = a.fusionar(Collections.<NotificacionAtmos>emptyList(), 2);
+
+        assertTrue(nuevas.isEmpty());
+        assertSame(antes, a.getLista());
+        assertEquals(2, a.getUltimoId());
+    }
+
+    @Test
+    public void losRepetidosNoCuentanComoNuevos() {
+        AlmacenNotificaciones a = new AlmacenNotificaciones();
+        a.fusionar(Arrays.asList(noti(1), noti(2)), 2);
+
+        // Dos sondeos solapados pueden devolver la misma notificación
+        List<NotificacionAtmos> nuevas = a.fusionar(Arrays.asList(noti(2), noti(3)), 3);
+
+        assertEquals(1, nuevas.size());
+        assertEquals(3, nuevas.get(0).getIdNotificacion());
+        assertEquals(3, a.getLista().size());
+    }
+
+    @Test
+    public void olvidarNoHaceRetrocederElCursor() {
+        AlmacenNotificaciones a = new AlmacenNotificaciones();
+        a.fusionar(Arrays.asList(noti(1), noti(2)), 2);
+
+        a.olvidar(2);
+
+        assertEquals(1, a.getLista().size());
+        assertEquals(2, a.getUltimoId());
+    }
+
+    @Test
+    public void cambiarDeUsuarioVaciaElAlmacen() {
+        AlmacenNotificaciones a = new AlmacenNotificaciones();
+        a.usarUsuario(23);
+        a.fusionar(Arrays.asList(noti(1)), 1);
+
+        a.usarUsuario(23);
+        assertEquals(1, a.getUltimoId());
+
+        a.usarUsuario(24);
+        assertEquals(0, a.getUltimoId());
+        assertTrue(a.getLista().isEmpty());
+    }
+
+    @Test
+    public void paginasAntiguasSeFusionanSinContarComoNuevas() {
+        AlmacenNotificaciones a = new AlmacenNotificaciones();
+
+        List<NotificacionAtmos> primera = new ArrayList<>();
+        for (int id = 200; id > 200 - AlmacenNotificaciones.PAGINA_INICIAL; id--) primera.add(noti(id));
+        a.fusionar(primera, 200);
+
+        assertTrue(a.hayMasAntiguas());
+        assertEquals(101, a.getIdMasAntiguo());
+
+        int anadidas = a.fusionarAnteriores(Arrays.asList(noti(100), noti(99)), 50);
+
+        assertEquals(2, anadidas);
+        assertEquals(99, a.getIdMasAntiguo());
+        assertEquals(200, a.getUltimoId());
+        assertEquals(102, a.getLista().size());
+        assertEquals(99, a.getLista().get(101).getIdNotificacion());
+
+        // Página incompleta: ya no quedan más
+        assertFalse(a.hayMasAntiguas());
+    }
+
+    @Test
+    public void parseaFechasIsoDelBackend() {
+        assertEquals(1763662800000L, FormatosFecha.parsearIsoUtc("2025-11-20T18:20:00.000Z"));
+        assertEquals(0L, FormatosFecha.parsearIsoUtc("no es una fecha"));
+        assertEquals(0L, FormatosFecha.parsearIsoUtc(""));
+        assertEquals(5, FormatosFecha.horaLocal(1763662800000L).length());
+    }
+}
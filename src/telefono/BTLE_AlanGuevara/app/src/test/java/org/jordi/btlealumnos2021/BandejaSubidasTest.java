@@ -0,0 +1,265 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @brief Pruebas de la bandeja de subidas: orden, parada tras un fallo,
+ *        esperas y reintentos, límite de pendientes y cierre.
+ *
+ * @date 19/10/2026
+ */
+public class BandejaSubidasTest {
+
+    /** Ejecutor y temporizador que guardan las tareas para lanzarlas a mano. */
+    private static final class EjecutorManual
+            implements java.util.concurrent.Executor, BandejaSubidas.Temporizador {
+        final List<Runnable> tareas = new ArrayList<>();
+        final List<Runnable> programadas = new ArrayList<>();
+        final List<Long> retrasos = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable r) {
+            tareas.add(r);
+        }
+
+        @Override
+        public void programar(Runnable tarea, long retrasoMs) {
+            programadas.add(tarea);
+            retrasos.add(retrasoMs);
+        }
+
+        void ejecutarTodo() {
+            while (!tareas.isEmpty()) tareas.remove(0).run();
+        }
+
+        /** Deja pasar las esperas programadas hasta ahora y lo que lancen. */
+        void pasarEsperas() {
+            List<Runnable> vencidas = new ArrayList<>(programadas);
+            programadas.clear();
+            for (Runnable r : vencidas) r.run();
+            ejecutarTodo();
+        }
+    }
+
+    @Test
+    public void enviaEnOrdenConUnaSolaTarea() {
+        EjecutorManual ejecutor = new EjecutorManual();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, ejecutor);
+        List<Integer> enviadas = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            final int n = i;
+            bandeja.anadir("medida", seq -> enviadas.add(n));
+        }
+
+        // Una sola tarea para las cinco subidas
+        assertEquals(1, ejecutor.tareas.size());
+        ejecutor.ejecutarTodo();
+
+        assertEquals(java.util.Arrays.asList(0, 1, 2, 3, 4), enviadas);
+        assertEquals(5, bandeja.getEnviadas());
+        assertEquals(0, bandeja.getPendientes());
+    }
+
+    @Test
+    public void seParaTrasUnFalloYReintenta() {
+        EjecutorManual ejecutor = new EjecutorManual();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, ejecutor);
+        boolean[] red = {false};
+        List<String> enviadas = new ArrayList<>();
+
+        bandeja.anadir("medida", seq -> red[0] && enviadas.add("a"));
+        bandeja.anadir("medida", seq -> red[0] && enviadas.add("b"));
+        ejecutor.ejecutarTodo();
+
+        // Falla la primera y no se intenta la segunda
+        assertTrue(bandeja.estaParada());
+        assertEquals(2, bandeja.getPendientes());
+        assertEquals(1, bandeja.getFallos());
+
+        // Parada: añadir no lanza nada hasta que pasa la espera
+        bandeja.anadir("estado_placa", seq -> red[0] && enviadas.add("c"));
+        assertTrue(ejecutor.tareas.isEmpty());
+        assertEquals(java.util.Collections.singletonList(BandejaSubidas.RETRASO_MIN_MS),
+                ejecutor.retrasos);
+
+        red[0] = true;
+        ejecutor.pasarEsperas();
+
+        assertFalse(bandeja.estaParada());
+        assertEquals(java.util.Arrays.asList("a", "b", "c"), enviadas);
+        assertEquals("estado_placa", bandeja.getUltimoTipo());
+    }
+
+    @Test
+    public void cadaSubidaConservaSuSecuenciaEnLosReintentos() {
+        EjecutorManual ejecutor = new EjecutorManual();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, ejecutor);
+        boolean[] red = {false};
+        List<Long> intentosA = new ArrayList<>();
+        List<Long> intentosB = new ArrayList<>();
+
+        bandeja.anadir("medida", seq -> intentosA.add(seq) && red[0]);
+        bandeja.anadir("medida", seq -> intentosB.add(seq) && red[0]);
+        ejecutor.ejecutarTodo();
+        ejecutor.pasarEsperas();
+
+        red[0] = true;
+        ejecutor.pasarEsperas();
+
+        // La primera, tres intentos con el mismo número; la segunda, el siguiente
+        assertEquals(3, intentosA.size());
+        assertEquals(1, new java.util.HashSet<>(intentosA).size());
+        assertEquals(java.util.Collections.singletonList(intentosA.get(0) + 1), intentosB);
+    }
+
+    @Test
+    public void laEsperaSeDoblaHastaElMaximoYVuelveAlMinimo() {
+        EjecutorManual ejecutor = new EjecutorManual();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, ejecutor);
+        boolean[] red = {false};
+
+        // Dos subidas: al descartar la primera, la segunda sigue fallando
+        bandeja.anadir("medida", seq -> red[0]);
+        bandeja.anadir("medida", seq -> red[0]);
+        ejecutor.ejecutarTodo();
+        for (int i = 0; i < 8; i++) ejecutor.pasarEsperas();
+
+        assertEquals(java.util.Arrays.asList(1_000L, 2_000L, 4_000L, 8_000L,
+                16_000L, 32_000L, 60_000L, 60_000L, 60_000L), ejecutor.retrasos);
+        assertEquals(1, bandeja.getDescartadas());
+
+        red[0] = true;
+        ejecutor.pasarEsperas();
+        assertFalse(bandeja.estaParada());
+        assertEquals(1, bandeja.getEnviadas());
+
+        // Tras un acierto, el siguiente fallo vuelve a esperar el mínimo
+        red[0] = false;
+        bandeja.anadir("medida", seq -> red[0]);
+        ejecutor.ejecutarTodo();
+        assertEquals(Long.valueOf(BandejaSubidas.RETRASO_MIN_MS),
+                ejecutor.retrasos.get(ejecutor.retrasos.size() - 1));
+    }
+
+    @Test
+    public void reintentarAdelantaLaEspera() {
+        EjecutorManual ejecutor = new EjecutorManual();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, ejecutor);
+        List<Integer> intentos = new ArrayList<>();
+
+        bandeja.anadir("medida", seq -> intentos.add(1) && false);
+        ejecutor.ejecutarTodo();
+        bandeja.reintentar();
+        ejecutor.ejecutarTodo();
+        assertEquals(2, intentos.size());
+
+        // La primera espera ya no vale: solo lanza la del segundo fallo
+        ejecutor.pasarEsperas();
+        assertEquals(3, intentos.size());
+    }
+
+    @Test
+    public void descartaTrasMaxIntentos() {
+        EjecutorManual ejecutor = new EjecutorManual();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, ejecutor);
+        List<String> enviadas = new ArrayList<>();
+
+        bandeja.anadir("medida", seq -> { throw new IllegalStateException("sin red"); });
+        bandeja.anadir("medida", seq -> enviadas.add("b"));
+
+        for (int i = 0; i < BandejaSubidas.MAX_INTENTOS; i++) {
+            bandeja.reintentar();
+            ejecutor.ejecutarTodo();
+        }
+        // La primera se da por perdida; la segunda espera al siguiente reintento
+        assertEquals(1, bandeja.getDescartadas());
+        assertEquals(1, bandeja.getPendientes());
+
+        bandeja.reintentar();
+        ejecutor.ejecutarTodo();
+        assertEquals(java.util.Collections.singletonList("b"), enviadas);
+    }
+
+    @Test
+    public void llenaDescartaLasMasAntiguas() {
+        EjecutorManual ejecutor = new EjecutorManual();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, ejecutor);
+        List<Integer> enviadas = new ArrayList<>();
+
+        for (int i = 0; i < BandejaSubidas.MAX_PENDIENTES + 10; i++) {
+            final int n = i;
+            bandeja.anadir("medida", seq -> enviadas.add(n));
+        }
+        assertEquals(BandejaSubidas.MAX_PENDIENTES, bandeja.getPendientes());
+        assertEquals(10, bandeja.getDescartadas());
+
+        ejecutor.ejecutarTodo();
+        assertEquals(Integer.valueOf(10), enviadas.get(0));
+        assertEquals(BandejaSubidas.MAX_PENDIENTES, enviadas.size());
+    }
+
+    @Test
+    public void alCerrarEnviaLoPendienteAunqueEstuvieraParada() {
+        EjecutorManual ejecutor = new EjecutorManual();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, ejecutor);
+        boolean[] red = {false};
+        List<String> enviadas = new ArrayList<>();
+
+        bandeja.anadir("medida", seq -> red[0] && enviadas.add("a"));
+        bandeja.anadir("medida", seq -> red[0] && enviadas.add("b"));
+        ejecutor.ejecutarTodo();
+        assertTrue(bandeja.estaParada());
+
+        red[0] = true;
+        bandeja.cerrar();
+        ejecutor.ejecutarTodo();
+        assertEquals(java.util.Arrays.asList("a", "b"), enviadas);
+
+        // Cerrada: no admite más ni se reintenta
+        bandeja.anadir("medida", seq -> enviadas.add("c"));
+        bandeja.reintentar();
+        assertTrue(ejecutor.tareas.isEmpty());
+        assertEquals(1, bandeja.getDescartadas());
+        assertEquals(0, bandeja.getPendientes());
+    }
+
+    @Test
+    public void alCerrarSinRedSeDescartaLoPendiente() {
+        EjecutorManual ejecutor = new EjecutorManual();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, ejecutor);
+
+        bandeja.anadir("medida", seq -> false);
+        bandeja.anadir("medida", seq -> false);
+        ejecutor.ejecutarTodo();
+
+        bandeja.cerrar();
+        ejecutor.ejecutarTodo();
+        assertTrue(bandeja.estaCerrada());
+        assertEquals(0, bandeja.getPendientes());
+        assertEquals(2, bandeja.getDescartadas());
+    }
+
+    @Test
+    public void ejecutorParadoNoLanzaExcepcion() {
+        java.util.concurrent.ExecutorService ejecutor =
+                java.util.concurrent.Executors.newSingleThreadExecutor();
+        ejecutor.shutdown();
+        BandejaSubidas bandeja = new BandejaSubidas(ejecutor, (tarea, retrasoMs) -> { });
+
+        // Una respuesta tardía (GPS, red) tras parar el servicio
+        bandeja.anadir("medida", seq -> true);
+        assertTrue(bandeja.estaCerrada());
+        assertEquals(1, bandeja.getDescartadas());
+
+        bandeja.anadir("medida", seq -> true);
+        assertEquals(2, bandeja.getDescartadas());
+    }
+}
@@ -0,0 +1,108 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+/**
+ * @brief Pruebas de ChunkHistorico (resumen LOD y disco) y de CacheHistorico.
+ *
+ * @date 19/10/2026
+ */
+public class CacheHistoricoTest {
+
+    private static final long DIA = ChunkHistorico.DURACION_MS;
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    /**
+     * Chunk con una medida por segundo durante todo el día.
+     */
+    private static ChunkHistorico diaCompleto(long indice) {
+        int n = (int) (DIA / 1000);
+        long[] t = new long[n];
+        float[] v = new float[n];
+        for (int i = 0; i < n; i++) {
+            t[i] = indice * DIA + i * 1000L;
+            v[i] = (i % 97) / 1000f;
+        }
+        return new ChunkHistorico(13, indice, t, v, (indice + 1) * DIA + 1);
+    }
+
+    @Test
+    public void resumenTieneComoMuchoDosPuntosPorMinuto() {
+        ChunkHistorico c = diaCompleto(20000);
+
+        assertTrue(c.isCompleto());
+        assertTrue(c.getResumenT().length <= 2 * 1440);
+        assertEquals(c.getResumenT().length, c.getResumenV().length);
+    }
+
+    @Test
+    public void escribirYLeerDevuelveLoMismo() throws Exception {
+        ChunkHistorico c = diaCompleto(20001);
+        File f = carpeta.newFile("chunk.bin");
+
+        c.escribir(f);
+        ChunkHistorico leido = ChunkHistorico.leer(f);
+
+        assertEquals(c.getIndice(), leido.getIndice());
+        assertEquals(c.getTipoGas(), leido.getTipoGas());
+        assertArrayEquals(c.getT(), leido.getT());
+        assertArrayEquals(c.getV(), leido.getV(), 0f);
+    }
+
+    @Test
+    public void diasTerminadosSeLeenDeDisco() throws Exception {
+        File dir = carpeta.newFolder("historico");
+
+        new CacheHistorico(dir).guardar(7, diaCompleto(20002));
+
+        // Otra instancia (p. ej. tras reiniciar la app) lo encuentra en disco
+        CacheHistorico otra = new CacheHistorico(dir);
+        assertNull(otra.obtenerMemoria(7, 13, 20002, 0));
+        assertNotNull(otra.leerDisco(7, 13, 20002));
+        assertNotNull(otra.obtenerMemoria(7, 13, 20002, 0));
+    }
+
+    @Test
+    public void diaEnCursoNoVaADiscoYCaduca() throws Exception {
+        File dir = carpeta.newFolder("historico");
+        CacheHistorico cache = new CacheHistorico(dir);
+
+        long indice = 20003;
+        long descargado = indice * DIA + 3_600_000; // a mitad del día
+        ChunkHistorico abierto = new ChunkHistorico(13, indice,
+                new long[]{indice * DIA}, new float[]{0.01f}, descargado);
+
+        cache.guardar(7, abierto);
+
+        assertNotNull(cache.obtenerMemoria(7, 13, indice, descargado + 1000));
+        assertNull(cache.obtenerMemoria(7, 13, indice,
+                descargado + CacheHistorico.CADUCIDAD_ABIERTO_MS));
+        assertNull(cache.leerDisco(7, 13, indice));
+    }
+
+    @Test
+    public void alExpulsarSeConservaElResumen() throws Exception {
+        CacheHistorico cache = new CacheHistorico(carpeta.newFolder("historico"));
+
+        // 86 400 puntos por día → a partir del día 12 se supera el millón
+        for (long i = 0; i < 15; i++) {
+            cache.guardar(7, diaCompleto(20100 + i));
+        }
+
+        assertTrue(cache.getPuntosEnMemoria() <= 1_000_000);
+        assertNull(cache.obtenerMemoria(7, 13, 20100, 0));
+        assertNotNull(cache.obtenerResumenMemoria(7, 13, 20100, 0));
+    }
+}
@@ -0,0 +1,139 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * @brief Pruebas del motor de clasificación de la calidad del aire.
+ *
+ * @date 19/10/2026
+ */
+public class ClasificadorCalidadTest {
+
+    static final int MUESTRAS_DIA = 24 * 60 * 60;
+
+    @After
+    public void restablecer() {
+        ClasificadorCalidad.restablecerUmbrales();
+    }
+
+    @Test
+    public void limitesDeCadaGas() {
+        assertEquals(ClasificadorCalidad.BUENA, ClasificadorCalidad.categoria(0.031, 13));
+        assertEquals(ClasificadorCalidad.MODERADA, ClasificadorCalidad.categoria(0.0311, 13));
+        assertEquals(ClasificadorCalidad.INSALUBRE, ClasificadorCalidad.categoria(0.106, 11));
+        assertEquals(ClasificadorCalidad.MALA, ClasificadorCalidad.categoria(8.71, 12));
+        assertEquals(ClasificadorCalidad.MODERADA, ClasificadorCalidad.categoria(0.019, 14));
+
+        assertEquals(ClasificadorCalidad.SIN_DATOS, ClasificadorCalidad.categoria(-1, 11));
+        assertEquals(ClasificadorCalidad.SIN_DATOS, ClasificadorCalidad.categoria(0.01, 99));
+    }
+
+    @Test
+    public void nivelYCategoriaDeNivelSonCoherentes() {
+        assertEquals(0.0, ClasificadorCalidad.nivel(-1, 12), 0);
+        assertEquals(0.1, ClasificadorCalidad.nivel(0.0, 12), 0);
+        assertEquals(0.45, ClasificadorCalidad.nivel(3.0, 12), 0);
+        assertEquals(1.0, ClasificadorCalidad.nivel(20.0, 12), 0);
+
+        for (int c = ClasificadorCalidad.BUENA; c <= ClasificadorCalidad.MALA; c++) {
+            double[] valores = {0.01, 0.03, 0.08, 0.5};
+            double n = ClasificadorCalidad.nivel(valores[c - 1], 11);
+            assertEquals(c, ClasificadorCalidad.categoriaDeNivel(n));
+        }
+    }
+
+    @Test
+    public void loteIgualQueUnoAUno() {
+        Random r = new Random(7);
+        for (int gas = 11; gas <= 14; gas++) {
+            float[] valores = muestrasDia(r, gas);
+            int[] lote = ClasificadorCalidad.clasificar(valores, gas);
+
+            for (int i = 0; i < valores.length; i++) {
+                assertEquals(referencia(valores[i], gas), lote[i]);
+            }
+        }
+    }
+
+    @Test
+    public void conversionUgAPpm() {
+        assertEquals(0.1, ClasificadorCalidad.aPpm(188.0, "µg/m³", 11), 1e-9);
+        assertEquals(1.0, ClasificadorCalidad.aPpm(1145.0, "µg/m³", 12), 1e-9);
+        assertEquals(0.05, ClasificadorCalidad.aPpm(0.05, "ppm", 13), 0);
+        assertEquals(0.05, ClasificadorCalidad.aPpm(0.05, null, 14), 0);
+
+        float[] valores = {2000f, 1000f};
+        ClasificadorCalidad.ugAPpm(valores, 13);
+        assertArrayEquals(new float[]{1f, 0.5f}, valores, 1e-6f);
+    }
+
+    @Test
+    public void umbralesRemotos() {
+        assertEquals(ClasificadorCalidad.MODERADA, ClasificadorCalidad.categoria(0.04, 13));
+
+        assertTrue(ClasificadorCalidad.actualizarUmbrales(13, 0.05, 0.07, 0.1));
+        assertEquals(ClasificadorCalidad.BUENA, ClasificadorCalidad.categoria(0.04, 13));
+        assertEquals(ClasificadorCalidad.BUENA,
+                ClasificadorCalidad.clasificar(new float[]{0.04f}, 13)[0]);
+
+        // Mismos valores o tabla no creciente → no cambia nada
+        assertFalse(ClasificadorCalidad.actualizarUmbrales(13, 0.05, 0.07, 0.1));
+        assertFalse(ClasificadorCalidad.actualizarUmbrales(13, 0.2, 0.1, 0.3));
+        assertArrayEquals(new double[]{0.05, 0.07, 0.1}, ClasificadorCalidad.getUmbrales(13), 0);
+
+        // El resto de gases no se ve afectado
+        assertArrayEquals(new double[]{1.7, 4.4, 8.7}, ClasificadorCalidad.getUmbrales(12), 0);
+    }
+
+    // ---------------------------------------------------------------------
+
+    /**
+     * Un día de muestras que recorre las cuatro categorías del gas
+     * (también para RutaDatosBenchmark).
+     */
+    static float[] muestrasDia(Random r, int gas) {
+        double max = ClasificadorCalidad.getUmbrales(gas)[2] * 1.5;
+        float[] valores = new float[MUESTRAS_DIA];
+        for (int i = 0; i < MUESTRAS_DIA; i++) {
+            valores[i] = (float) (r.nextDouble() * max);
+        }
+        return valores;
+    }
+
+    /**
+     * Cadena de if/else original (GraficaHelper) como referencia.
+     */
+    static int referencia(float v, int tipoGas) {
+        switch (tipoGas) {
+            case 13:
+                if (v <= 0.031f) return 1;
+                if (v <= 0.061f) return 2;
+                if (v <= 0.092f) return 3;
+                return 4;
+            case 11:
+                if (v <= 0.021f) return 1;
+                if (v <= 0.053f) return 2;
+                if (v <= 0.106f) return 3;
+                return 4;
+            case 12:
+                if (v <= 1.7f) return 1;
+                if (v <= 4.4f) return 2;
+                if (v <= 8.7f) return 3;
+                return 4;
+            case 14:
+                if (v <= 0.0076f) return 1;
+                if (v <= 0.019f) return 2;
+                if (v <= 0.038f) return 3;
+                return 4;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,169 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @brief Pruebas de la compresión de medidas: error de reconstrucción
+ *        acotado por la tolerancia, medidas clave y ratio conseguido.
+ *
+ * @date 19/10/2026
+ */
+public class CompresorMedidasTest {
+
+    private static final int GAS = ClasificadorCalidad.GAS_NO2;
+    private static final double LAT = 38.9963612;
+    private static final double LON = -0.1660456;
+
+    /** NO2 de una hora a 1 Hz: deriva lenta, ruido pequeño y un pico. */
+    private static List<CompresorMedidas.Muestra> serie() {
+        Random r = new Random(3);
+        List<CompresorMedidas.Muestra> s = new ArrayList<>();
+        for (int i = 0; i < 3600; i++) {
+            double v = 0.015 + 0.008 * Math.sin(i / 600.0) + (r.nextDouble() - 0.5) * 0.001;
+            if (i >= 1800 && i < 1830) v += 0.05 * Math.sin(Math.PI * (i - 1800) / 30.0);
+            s.add(new CompresorMedidas.Muestra(1_000_000L + i * 1000L, GAS, (float) v, -60, LAT, LON));
+        }
+        return s;
+    }
+
+    /** Interpolación lineal entre las medidas enviadas, como el servidor. */
+    private static double reconstruir(List<CompresorMedidas.Muestra> enviadas, long t) {
+        for (int i = 1; i < enviadas.size(); i++) {
+            CompresorMedidas.Muestra a = enviadas.get(i - 1);
+            CompresorMedidas.Muestra b = enviadas.get(i);
+            if (t <= b.tMs) {
+                if (b.tMs == a.tMs) return b.valor;
+                return a.valor + (b.valor - a.valor) * (t - a.tMs) / (double) (b.tMs - a.tMs);
+            }
+        }
+        return enviadas.get(enviadas.size() - 1).valor;
+    }
+
+    @Test
+    public void errorDentroDeLaTolerancia() {
+        List<CompresorMedidas.Muestra> enviadas = new ArrayList<>();
+        CompresorMedidas c = new CompresorMedidas(enviadas::add);
+
+        List<CompresorMedidas.Muestra> serie = serie();
+        for (CompresorMedidas.Muestra m : serie) c.ofrecer(m);
+        c.vaciar();
+
+        double e = c.getTolerancia(GAS);
+        assertEquals(0.0021, e, 1e-9);
+
+        double peor = 0;
+        for (CompresorMedidas.Muestra m : serie) {
+            peor = Math.max(peor, Math.abs(reconstruir(enviadas, m.tMs) - m.valor));
+        }
+        assertTrue("error máximo " + peor, peor <= e + 1e-6);
+
+        // Varias veces menos datos
+        assertEquals(serie.size(), c.getRecibidas());
+        assertEquals(enviadas.size(), c.getEnviadas());
+        assertTrue("ratio " + c.getRatio(), c.getRatio() >= 3);
+    }
+
+    @Test
+    public void medidaClavePorTiempo() {
+        List<CompresorMedidas.Muestra> enviadas = new ArrayList<>();
+        CompresorMedidas c = new CompresorMedidas(enviadas::add);
+
+        // Valor constante: solo salen las medidas clave
+        for (int i = 0; i <= 600; i++) {
+            c.ofrecer(new CompresorMedidas.Muestra(i * 1000L, GAS, 0.02f, -60, LAT, LON));
+        }
+
+        for (int i = 1; i < enviadas.size(); i++) {
+            assertTrue(enviadas.get(i).tMs - enviadas.get(i - 1).tMs <= CompresorMedidas.KEYFRAME_MS);
+        }
+        assertTrue(enviadas.size() <= 2 * (600_000 / CompresorMedidas.KEYFRAME_MS) + 1);
+        assertTrue(c.getRatio() > 25);
+    }
+
+    @Test
+    public void medidaClavePorDesplazamiento() {
+        List<CompresorMedidas.Muestra> enviadas = new ArrayList<>();
+        CompresorMedidas c = new CompresorMedidas(enviadas::add);
+
+        c.ofrecer(new CompresorMedidas.Muestra(0, GAS, 0.02f, -60, LAT, LON));
+        c.ofrecer(new CompresorMedidas.Muestra(1000, GAS, 0.02f, -60, LAT + 0.0001, LON)); // ~11 m
+        assertEquals(1, enviadas.size());
+
+        c.ofrecer(new CompresorMedidas.Muestra(2000, GAS, 0.02f, -60, LAT + 0.0003, LON)); // ~33 m
+        assertEquals(3, enviadas.size());
+        assertEquals(LAT + 0.0003, enviadas.get(2).lat, 1e-9);
+
+        // Sin GPS (-1, -1) no cuenta como desplazamiento
+        c.ofrecer(new CompresorMedidas.Muestra(3000, GAS, 0.02f, -60, -1, -1));
+        assertEquals(3, enviadas.size());
+    }
+
+    @Test
+    public void gasesIndependientes() {
+        List<CompresorMedidas.Muestra> enviadas = new ArrayList<>();
+        CompresorMedidas c = new CompresorMedidas(enviadas::add);
+        c.setTolerancia(ClasificadorCalidad.GAS_CO, 0.5);
+
+        c.ofrecer(new CompresorMedidas.Muestra(0, GAS, 0.02f, -60, LAT, LON));
+        c.ofrecer(new CompresorMedidas.Muestra(0, ClasificadorCalidad.GAS_CO, 2f, -60, LAT, LON));
+        c.ofrecer(new CompresorMedidas.Muestra(1000, ClasificadorCalidad.GAS_CO, 2.3f, -60, LAT, LON));
+        c.ofrecer(new CompresorMedidas.Muestra(2000, ClasificadorCalidad.GAS_CO, 2.1f, -60, LAT, LON));
+
+        // La primera de cada gas sale siempre; las de CO caben en la tolerancia
+        assertEquals(2, enviadas.size());
+
+        c.vaciar();
+        assertEquals(3, enviadas.size());
+        assertEquals(ClasificadorCalidad.GAS_CO, enviadas.get(2).tipoGas);
+        assertEquals(2000, enviadas.get(2).tMs);
+    }
+
+    @Test
+    public void mediaEnElTiempoComoLaSerieCompleta() {
+        List<CompresorMedidas.Muestra> enviadas = new ArrayList<>();
+        CompresorMedidas c = new CompresorMedidas(enviadas::add);
+
+        List<CompresorMedidas.Muestra> serie = serie();
+        for (CompresorMedidas.Muestra m : serie) c.ofrecer(m);
+        c.vaciar();
+
+        double real = 0;
+        for (CompresorMedidas.Muestra m : serie) real += m.valor;
+        real /= serie.size();
+
+        double porFilas = 0;
+        for (CompresorMedidas.Muestra m : enviadas) porFilas += m.valor;
+        porFilas /= enviadas.size();
+
+        long hueco = 2 * CompresorMedidas.KEYFRAME_MS;
+        double enElTiempo = CompresorMedidas.mediaEnElTiempo(enviadas, hueco);
+
+        // La media de las filas comprimidas se va hacia el pico (un 5 %);
+        // la del tiempo casi no se mueve
+        String msg = "real " + real + ", por filas " + porFilas + ", en el tiempo " + enElTiempo;
+        assertEquals(msg, real, enElTiempo, 1e-4);
+        assertTrue(msg, Math.abs(porFilas - real) > 10 * Math.abs(enElTiempo - real));
+        assertEquals(real, CompresorMedidas.mediaEnElTiempo(serie, hueco), 1e-4);
+    }
+
+    @Test
+    public void mediaEnElTiempoSinContarLosHuecos() {
+        List<CompresorMedidas.Muestra> s = new ArrayList<>();
+        s.add(new CompresorMedidas.Muestra(0, GAS, 0.01f, -60, LAT, LON));
+        s.add(new CompresorMedidas.Muestra(60_000, GAS, 0.01f, -60, LAT, LON));
+        // Una hora apagado y vuelve con otro valor
+        s.add(new CompresorMedidas.Muestra(3_660_000, GAS, 0.03f, -60, LAT, LON));
+        s.add(new CompresorMedidas.Muestra(3_720_000, GAS, 0.03f, -60, LAT, LON));
+
+        assertEquals(0.02, CompresorMedidas.mediaEnElTiempo(s, 120_000), 1e-6);
+        assertEquals(0.03, CompresorMedidas.mediaEnElTiempo(s.subList(2, 3), 120_000), 1e-6);
+        assertTrue(Double.isNaN(CompresorMedidas.mediaEnElTiempo(new ArrayList<>(), 120_000)));
+    }
+}
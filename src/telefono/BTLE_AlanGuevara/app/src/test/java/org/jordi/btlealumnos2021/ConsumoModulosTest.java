@@ -0,0 +1,56 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @brief Pruebas del consumo por módulo: ritmo por minuto, total y presupuesto.
+ *
+ * @date 19/10/2026
+ */
+public class ConsumoModulosTest {
+
+    @Test
+    public void ritmoPorMinutoYPresupuesto() {
+        ConsumoModulos consumo = new ConsumoModulos();
+        consumo.fijarPresupuesto("beacons", 100, 50);
+        consumo.fijarPresupuesto("recorrido", 40, 10);
+
+        // En 2 minutos: beacons 150 despertares de 0,5 ms; recorrido 100 de 0,1 ms
+        for (int i = 0; i < 150; i++) consumo.anotar("beacons", 500_000);
+        for (int i = 0; i < 100; i++) consumo.anotar("recorrido", 100_000);
+        consumo.anotar("recorrido", -1);   // CPU desconocida: solo cuenta
+
+        Map<String, double[]> ritmos = new LinkedHashMap<>();
+        Map<String, Boolean> dentro = new LinkedHashMap<>();
+        consumo.cerrarVentana(120_000, (nombre, despMin, cpuMin, ok) -> {
+            ritmos.put(nombre, new double[]{despMin, cpuMin});
+            dentro.put(nombre, ok);
+        });
+
+        assertEquals(75, ritmos.get("beacons")[0], 1e-9);
+        assertEquals(37.5, ritmos.get("beacons")[1], 1e-9);
+        assertTrue(dentro.get("beacons"));
+
+        assertEquals(50.5, ritmos.get("recorrido")[0], 1e-9);
+        assertFalse(dentro.get("recorrido"));        // 50,5 > 40 despertares/min
+
+        assertEquals(125.5, ritmos.get(ConsumoModulos.TOTAL)[0], 1e-9);
+        assertEquals(42.5, ritmos.get(ConsumoModulos.TOTAL)[1], 1e-9);
+        assertTrue(dentro.get(ConsumoModulos.TOTAL));   // 125,5 ≤ 140 y 42,5 ≤ 60
+
+        // La ventana siguiente empieza de cero; el acumulado sigue
+        consumo.cerrarVentana(60_000, (nombre, despMin, cpuMin, ok) -> {
+            assertEquals(0, despMin, 0);
+            assertTrue(ok);
+        });
+        assertEquals(101, consumo.getDespertares("recorrido"));
+        assertEquals(75, consumo.getCpuMs("beacons"));
+    }
+}
@@ -0,0 +1,53 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @brief Pruebas de la detección de quietud con el acelerómetro.
+ *
+ * @date 19/10/2026
+ */
+public class DetectorQuietudTest {
+
+    // 5 Hz, como lo registra ModuloRecorrido
+    private static final long PERIODO_NS = 200_000_000L;
+
+    @Test
+    public void encimaDeLaMesaEstaQuieto() {
+        DetectorQuietud d = new DetectorQuietud();
+        int cerradas = 0;
+        for (int i = 0; i < 30; i++) {
+            float ruido = (i % 2 == 0 ? 0.02f : -0.02f);
+            if (d.anadir(0.1f, 0.05f, 9.81f + ruido, i * PERIODO_NS)) cerradas++;
+        }
+        // 6 s de muestras: dos ventanas cerradas (la tercera sigue abierta)
+        assertEquals(2, cerradas);
+        assertTrue(d.estaQuieto());
+        assertTrue(d.getUltimaDesviacion() < 0.05);
+    }
+
+    @Test
+    public void andandoSeMueve() {
+        DetectorQuietud d = new DetectorQuietud();
+        boolean cerrada = false;
+        for (int i = 0; i < 11; i++) {
+            // Pasos a ~2 Hz: ±2 m/s² en el eje vertical
+            float paso = (float) (2 * Math.sin(2 * Math.PI * 2 * i * 0.2));
+            cerrada = d.anadir(0.3f, 0.2f, 9.81f + paso, i * PERIODO_NS);
+        }
+        assertTrue(cerrada);
+        assertFalse(d.estaQuieto());
+    }
+
+    @Test
+    public void conPocasMuestrasNoDecide() {
+        DetectorQuietud d = new DetectorQuietud();
+        d.anadir(0, 0, 9.81f, 0);
+        // Siguiente muestra 3 s después: la ventana solo tenía una
+        assertFalse(d.anadir(0, 0, 9.81f, 3 * DetectorQuietud.VENTANA_NS / 2));
+    }
+}
@@ -0,0 +1,85 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @brief Pruebas de precisión del t-digest (DigestoCuantiles).
+ *
+ * @date 19/10/2026
+ */
+public class DigestoCuantilesTest {
+
+    private static double exacto(double[] ordenados, double q) {
+        return ordenados[(int) Math.min(ordenados.length - 1, Math.floor(q * ordenados.length))];
+    }
+
+    @Test
+    public void cuantilesDeUnaDistribucionSesgada() {
+        Random r = new Random(11);
+        DigestoCuantiles d = new DigestoCuantiles(50);
+
+        // Valores tipo NO2 (ppm): log-normal, cola larga a la derecha
+        double[] v = new double[50_000];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = 0.02 * Math.exp(r.nextGaussian() * 0.6);
+            d.anadir(v[i]);
+        }
+        Arrays.sort(v);
+
+        assertEquals(v.length, d.cuenta());
+        assertEquals(v[0], d.minimo(), 0);
+        assertEquals(v[v.length - 1], d.maximo(), 0);
+
+        // Error en rango de cuantil: extremos mucho más precisos que el centro
+        for (double q : new double[]{0.01, 0.5, 0.9, 0.95, 0.99}) {
+            double aprox = d.cuantil(q);
+            int rango = Math.abs(Arrays.binarySearch(v, aprox));
+            double errorQ = Math.abs(rango / (double) v.length - q);
+            assertTrue("q=" + q + " error " + errorQ, errorQ < (q == 0.5 ? 0.01 : 0.003));
+        }
+        assertEquals(exacto(v, 0.99), d.cuantil(0.99), exacto(v, 0.99) * 0.02);
+    }
+
+    @Test
+    public void sumarDigestosEquivaleAUnoSolo() {
+        Random r = new Random(5);
+        DigestoCuantiles total = new DigestoCuantiles(40);
+        DigestoCuantiles a = new DigestoCuantiles(20);
+        DigestoCuantiles b = new DigestoCuantiles(20);
+
+        double[] v = new double[20_000];
+        for (int i = 0; i < v.length; i++) {
+            v[i] = r.nextDouble();
+            (i % 2 == 0 ? a : b).anadir(v[i]);
+        }
+        total.anadir(a);
+        total.anadir(b);
+        Arrays.sort(v);
+
+        assertEquals(v.length, total.cuenta());
+        for (double q : new double[]{0.05, 0.5, 0.95}) {
+            assertEquals("q=" + q, exacto(v, q), total.cuantil(q), 0.02);
+        }
+    }
+
+    @Test
+    public void pocosValores() {
+        DigestoCuantiles d = new DigestoCuantiles(20);
+        assertTrue(Double.isNaN(d.cuantil(0.5)));
+
+        d.anadir(3);
+        assertEquals(3, d.cuantil(0.5), 0);
+
+        d.anadir(1);
+        d.anadir(2);
+        assertEquals(2, d.cuantil(0.5), 1e-9);
+        assertEquals(1, d.cuantil(0), 0);
+        assertEquals(3, d.cuantil(1), 0);
+    }
+}
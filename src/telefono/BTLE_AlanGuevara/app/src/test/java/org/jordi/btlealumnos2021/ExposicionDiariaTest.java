@@ -0,0 +1,171 @@
+package org.jordi.btlealumnos2021;
+
+import static org.jordi.btlealumnos2021.Fixtures.MADRID;
+import static org.jordi.btlealumnos2021.Fixtures.hora;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @brief Pruebas de la dosis de exposición de ExposicionDiaria.
+ *
+ * @date 19/10/2026
+ */
+public class ExposicionDiariaTest {
+
+    private static final int GAS = ClasificadorCalidad.GAS_O3;
+
+    @Test
+    public void dosisConstanteEsValorPorHoras() {
+        ExposicionDiaria e = new ExposicionDiaria(MADRID);
+        for (long t = hora(8, 0, 0); t <= hora(10, 0, 0); t += 1000) {
+            e.medida(GAS, 0.05, t);
+        }
+
+        ExposicionDiaria.Resumen r = e.hoy(GAS, hora(10, 0, 0));
+        assertEquals(2.0, r.horas, 1e-9);
+        assertEquals(0.10, r.dosis, 1e-9);
+        assertEquals(0.05, r.media, 1e-9);
+        // Sin recorrido no hay parte en movimiento ni sitio del máximo
+        assertEquals(0, r.horasRecorrido, 0);
+        assertTrue(Double.isNaN(r.latMaximo));
+    }
+
+    @Test
+    public void ponderaPorTiempoNoPorMedidas() {
+        ExposicionDiaria e = new ExposicionDiaria(MADRID);
+        // Una hora a 0.1 con una medida por minuto...
+        for (long t = hora(8, 0, 0); t <= hora(9, 0, 0); t += 60_000) e.medida(GAS, 0.1, t);
+        // ...y cinco minutos a 0.1 → 0.3 → 0.3 con muchas medidas por segundo
+        long t = hora(9, 0, 0);
+        for (int i = 1; i <= 300; i++) e.medida(GAS, 0.3, t + i * 1000L);
+
+        ExposicionDiaria.Resumen r = e.hoy(GAS, hora(9, 5, 0));
+        // Trapecio del primer segundo (0.1 → 0.3) más el resto a 0.3
+        double esperada = 0.1 * 1 + (0.2 / 3600) + 0.3 * (299 / 3600.0);
+        assertEquals(esperada, r.dosis, 1e-9);
+        assertEquals(65 / 60.0, r.horas, 1e-9);
+        // Una media por medidas daría ~0.28; por tiempo, cerca de 0.1
+        assertTrue(r.media < 0.12);
+    }
+
+    @Test
+    public void huecoLargoNoCuenta() {
+        ExposicionDiaria e = new ExposicionDiaria(MADRID);
+        e.medida(GAS, 1.0, hora(8, 0, 0));
+        e.medida(GAS, 1.0, hora(8, 1, 0));
+        // La placa se aleja 20 min
+        e.medida(GAS, 1.0, hora(8, 21, 0));
+        e.medida(GAS, 1.0, hora(8, 22, 0));
+
+        assertEquals(2 / 60.0, e.hoy(GAS, hora(8, 22, 0)).horas, 1e-9);
+    }
+
+    @Test
+    public void separaLaParteEnRecorrido() {
+        ExposicionDiaria e = new ExposicionDiaria(MADRID);
+        long t0 = hora(12, 0, 0);
+
+        // 10 min quieto en casa (posición cada 30 s), a 0.02
+        for (int s = 0; s <= 600; s += 30) e.posicion(39.0, -0.2, 0, t0 + s * 1000L);
+        for (int s = 0; s <= 600; s += 5) e.medida(GAS, 0.02, t0 + s * 1000L);
+
+        // 10 min andando hacia el norte (1.4 m/s, posición cada 5 s), a 0.08
+        long t1 = t0 + 600_000;
+        for (int s = 5; s <= 600; s += 5) {
+            e.posicion(39.0 + s * 1.4 / 111_195.0, -0.2, 1.4, t1 + s * 1000L);
+            e.medida(GAS, 0.08, t1 + s * 1000L);
+        }
+
+        ExposicionDiaria.Resumen r = e.hoy(GAS, t1 + 600_000);
+        assertEquals(20 / 60.0, r.horas, 1e-9);
+        assertEquals(10 / 60.0, r.horasRecorrido, 1e-9);
+        // El primer paso andando es el trapecio 0.02 → 0.08
+        double esperada = (0.05 * 5 + 0.08 * 595) / 3600;
+        assertEquals(esperada, r.dosisRecorrido, 1e-9);
+        assertEquals(0.02 * 10 / 60 + esperada, r.dosis, 1e-9);
+    }
+
+    @Test
+    public void elMaximoSeSituaInterpolando() {
+        ExposicionDiaria e = new ExposicionDiaria(MADRID);
+        long t = hora(18, 0, 0);
+        e.posicion(39.000, -0.200, 1.5, t);
+        e.posicion(39.001, -0.202, 1.5, t + 10_000);
+
+        e.medida(GAS, 0.04, t + 2_000);
+        e.medida(GAS, 0.30, t + 7_500);   // pico a 3/4 del camino
+        e.medida(GAS, 0.05, t + 9_000);
+
+        ExposicionDiaria.Resumen r = e.hoy(GAS, t + 10_000);
+        assertEquals(0.30, r.maximo, 0);
+        assertEquals(39.00075, r.latMaximo, 1e-9);
+        assertEquals(-0.2015, r.lonMaximo, 1e-9);
+    }
+
+    @Test
+    public void posicionAntiguaNoSeUsa() {
+        ExposicionDiaria e = new ExposicionDiaria(MADRID);
+        long t = hora(18, 0, 0);
+        e.posicion(39.0, -0.2, 1.5, t);
+
+        e.medida(GAS, 0.1, t + 60_000);
+        e.medida(GAS, 0.1, t + 65_000);
+
+        ExposicionDiaria.Resumen r = e.hoy(GAS, t + 65_000);
+        assertEquals(0, r.horasRecorrido, 0);
+        assertTrue(Double.isNaN(r.latMaximo));
+    }
+
+    @Test
+    public void empiezaDeCeroCadaDia() {
+        ExposicionDiaria e = new ExposicionDiaria(MADRID);
+        e.medida(GAS, 0.1, hora(23, 58, 0));
+        e.medida(GAS, 0.1, hora(23, 59, 0));
+        e.medida(ClasificadorCalidad.GAS_NO2, 0.5, hora(23, 59, 0));
+        long manana = hora(23, 59, 0) + 2 * 60_000;
+        e.medida(GAS, 0.1, manana);
+
+        assertEquals(0, e.hoy(GAS, manana).horas, 0);
+        assertEquals(0, e.hoy(ClasificadorCalidad.GAS_NO2, manana).horas, 0);
+        assertEquals(manana, e.getInicioMs());
+
+        // Una medida de ayer que llega tarde no reabre el día anterior
+        e.medida(GAS, 0.1, hora(23, 59, 30));
+        e.medida(GAS, 0.1, manana + 1000);
+        assertEquals(1 / 3600.0, e.hoy(GAS, manana + 1000).horas, 1e-12);
+    }
+
+    @Test
+    public void gasDesconocidoSeIgnora() {
+        ExposicionDiaria e = new ExposicionDiaria(MADRID);
+        e.medida(99, 1.0, hora(8, 0, 0));
+        e.medida(99, 1.0, hora(8, 1, 0));
+        assertEquals(0, e.hoy(99, hora(8, 1, 0)).horas, 0);
+        assertTrue(Double.isNaN(e.hoy(GAS, hora(8, 1, 0)).media));
+    }
+
+    @Test
+    public void reiniciarOlvidaAlUsuarioAnterior() {
+        ExposicionDiaria e = new ExposicionDiaria(MADRID);
+        e.posicion(39.0, -0.2, 1.4, hora(8, 0, 0));
+        e.posicion(39.001, -0.2, 1.4, hora(8, 0, 10));
+        e.medida(GAS, 0.05, hora(8, 0, 0));
+        e.medida(GAS, 0.09, hora(8, 0, 10));
+
+        // Cierra sesión y entra otro usuario en el mismo proceso
+        e.reiniciar();
+        ExposicionDiaria.Resumen r = e.hoy(GAS, hora(8, 1, 0));
+        assertEquals(0, r.dosis, 0);
+        assertEquals(0, r.horasRecorrido, 0);
+        assertTrue(Double.isNaN(r.maximo));
+        assertEquals(-1, e.getInicioMs());
+
+        // Lo siguiente empieza de cero, sin la posición anterior
+        e.medida(GAS, 0.02, hora(8, 2, 0));
+        r = e.hoy(GAS, hora(8, 2, 0));
+        assertEquals(0.02, r.maximo, 1e-9);
+        assertTrue(Double.isNaN(r.latMaximo));
+    }
+}
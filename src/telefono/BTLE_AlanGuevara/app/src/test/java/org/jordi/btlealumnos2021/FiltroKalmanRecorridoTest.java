@@ -0,0 +1,158 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @brief Pruebas del filtro de Kalman del recorrido: reposo, recta con
+ *        ruido a distintas frecuencias, atípicos y el recorrido sintético
+ *        de Fixtures.
+ *
+ * @date 19/10/2026
+ */
+public class FiltroKalmanRecorridoTest {
+
+    // ≈ 1 m de latitud en grados
+    private static final double M = 1 / 111195.0;
+
+    private static final double LAT = 38.99636;
+    private static final double LON = -0.16604;
+
+    /**
+     * Recta hacia el norte a velocidad constante con ruido gaussiano de
+     * desviación "ruido" por eje; una localización cada periodoMs.
+     *
+     * @return {distancia Kalman, distancia con umbrales}
+     */
+    private static double[] recta(double velocidad, double ruido, long periodoMs,
+                                  long duracionMs, boolean conVelocidad) {
+        Random r = new Random(7);
+        FiltroKalmanRecorrido k = new FiltroKalmanRecorrido();
+        FiltroRecorrido u = new FiltroRecorrido();
+        double kalman = 0, umbrales = 0;
+
+        for (long t = 0; t <= duracionMs; t += periodoMs) {
+            double norte = velocidad * t / 1000.0 + ruido * r.nextGaussian();
+            double este = ruido * r.nextGaussian();
+            double lat = LAT + norte * M;
+            double lon = LON + este * M / Math.cos(Math.toRadians(LAT));
+            float v = (float) Math.abs(velocidad + 0.2 * r.nextGaussian());
+
+            kalman += k.procesar(lat, lon, 5, conVelocidad ? v : -1, Float.NaN, t);
+            umbrales += u.procesar(lat, lon, 5, v);
+        }
+        return new double[]{kalman, umbrales};
+    }
+
+    @Test
+    public void laPrimeraSoloInicia() {
+        FiltroKalmanRecorrido k = new FiltroKalmanRecorrido();
+        assertEquals(0, k.procesar(LAT, LON, 5, 0, Float.NaN, 0), 0);
+        assertEquals(FiltroKalmanRecorrido.PRIMERA, k.getMotivo());
+
+        k.procesar(LAT, LON, 80, 0, Float.NaN, 1000);
+        assertEquals(FiltroKalmanRecorrido.POCA_PRECISION, k.getMotivo());
+    }
+
+    @Test
+    public void quietoNoSuma() {
+        double[] d = recta(0, 3, 1000, 600_000, true);
+        assertTrue("quieto: " + d[0], d[0] < 5);
+    }
+
+    @Test
+    public void rectaAUnaLocalizacionPorSegundo() {
+        // 10 min a 1,4 m/s: 840 m
+        double[] d = recta(1.4, 3, 1000, 600_000, true);
+        assertEquals(840, d[0], 840 * 0.05);
+    }
+
+    @Test
+    public void rectaCadaCincoSegundosSinPerderDistancia() {
+        double[] d = recta(1.4, 3, 5000, 600_000, true);
+        assertEquals(840, d[0], 840 * 0.05);
+        // Con umbrales casi todos los pasos (7 m) son "saltos"
+        assertTrue(d[1] < 840 * 0.5);
+
+        // Sin velocidad del GPS, solo con las posiciones
+        double[] s = recta(1.4, 3, 5000, 600_000, false);
+        assertEquals(840, s[0], 840 * 0.10);
+    }
+
+    @Test
+    public void enBiciCadaDosSegundos() {
+        // 5 m/s durante 5 min: 1500 m (con umbrales, 10 m por paso: nada)
+        double[] d = recta(5, 3, 2000, 300_000, true);
+        assertEquals(1500, d[0], 1500 * 0.05);
+    }
+
+    @Test
+    public void ignoraUnSaltoYSeReiniciaSiPersiste() {
+        FiltroKalmanRecorrido k = new FiltroKalmanRecorrido();
+        long t = 0;
+        for (int i = 0; i < 20; i++, t += 1000) {
+            k.procesar(LAT + 1.4 * i * M, LON, 5, 1.4f, 0f, t);
+        }
+
+        // Un salto de 80 m: atípico, no suma
+        assertEquals(0, k.procesar(LAT + 108 * M, LON, 5, 1.4f, 0f, t), 0);
+        assertEquals(FiltroKalmanRecorrido.ATIPICA, k.getMotivo());
+
+        // Y se sigue sumando como si no hubiera llegado
+        double despues = 0;
+        for (int i = 21; i < 30; i++) {
+            t += 1000;
+            despues += k.procesar(LAT + 1.4 * i * M, LON, 5, 1.4f, 0f, t);
+        }
+        assertTrue(despues > 0 && despues < 1.4 * 10);
+
+        // Tres seguidas lejos: el GPS tenía razón, se empieza ahí
+        for (int i = 0; i < FiltroKalmanRecorrido.MAX_ATIPICAS; i++) {
+            t += 1000;
+            k.procesar(LAT + 500 * M, LON, 5, 1.4f, 0f, t);
+        }
+        assertEquals(FiltroKalmanRecorrido.PRIMERA, k.getMotivo());
+        assertEquals(LAT + 500 * M, k.getLatitud(), 1e-9);
+    }
+
+    @Test
+    public void recorridoSinteticoConMenosLocalizaciones() {
+        // recorrido_gps.csv es sintético (10 min a pie con ruido y
+        // atípicos generados), no una captura real
+        List<double[]> puntos = Fixtures.recorrido();
+
+        // Referencia: la velocidad del GPS (Doppler) integrada segundo a segundo
+        double referencia = 0;
+        for (double[] p : puntos) {
+            if (p[3] >= FiltroKalmanRecorrido.VELOCIDAD_MINIMA) referencia += p[3];
+        }
+
+        double umbrales = 0;
+        FiltroRecorrido u = new FiltroRecorrido();
+        for (double[] p : puntos) umbrales += u.procesar(p[0], p[1], (float) p[2], (float) p[3]);
+
+        double[] porPeriodo = new double[4];
+        int[] periodos = {1, 2, 3, 5};
+        for (int j = 0; j < periodos.length; j++) {
+            FiltroKalmanRecorrido k = new FiltroKalmanRecorrido();
+            for (int i = 0; i < puntos.size(); i += periodos[j]) {
+                double[] p = puntos.get(i);
+                porPeriodo[j] += k.procesar(p[0], p[1], (float) p[2], (float) p[3], Float.NaN, i * 1000L);
+            }
+        }
+        String msg = "Doppler " + referencia + " m, umbrales " + umbrales
+                + " m, Kalman 1/2/3/5 s " + java.util.Arrays.toString(porPeriodo);
+
+        // Los umbrales suman el zigzag del ruido (~+50 %); el filtro se queda
+        // a menos del 10 % de la referencia, también con una de cada cinco
+        assertTrue(msg, umbrales > referencia * 1.3);
+        for (double d : porPeriodo) {
+            assertEquals(msg, referencia, d, referencia * 0.10);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @brief Pruebas de los filtros de distancia del recorrido (FiltroRecorrido).
+ *
+ * @date 19/10/2026
+ */
+public class FiltroRecorridoTest {
+
+    // ≈ 1 m de latitud en grados
+    private static final double M = 1 / 111195.0;
+
+    private static final double LAT = 38.99636;
+    private static final double LON = -0.16604;
+
+    @Test
+    public void laPrimeraSoloFijaLaReferencia() {
+        FiltroRecorrido f = new FiltroRecorrido();
+
+        assertEquals(0, f.procesar(LAT, LON, 5, 1.3f), 0);
+        assertEquals(FiltroRecorrido.PRIMERA, f.getMotivo());
+
+        double inc = f.procesar(LAT + 3 * M, LON, 5, 1.3f);
+        assertEquals(FiltroRecorrido.ACEPTADA, f.getMotivo());
+        assertEquals(3.0, inc, 0.01);
+    }
+
+    @Test
+    public void descartaPocaPrecisionSaltosYReposo() {
+        FiltroRecorrido f = new FiltroRecorrido();
+        f.procesar(LAT, LON, 5, 1.3f);
+
+        f.procesar(LAT + 3 * M, LON, 30, 1.3f);
+        assertEquals(FiltroRecorrido.POCA_PRECISION, f.getMotivo());
+
+        f.procesar(LAT + 20 * M, LON, 5, 1.3f);
+        assertEquals(FiltroRecorrido.SALTO, f.getMotivo());
+
+        f.procesar(LAT + 3 * M, LON, 5, 0.1f);
+        assertEquals(FiltroRecorrido.PARADO, f.getMotivo());
+    }
+
+    @Test
+    public void losPasosCortosSeAcumulanHastaElMinimo() {
+        FiltroRecorrido f = new FiltroRecorrido();
+        f.procesar(LAT, LON, 5, 1.3f);
+
+        // 0.6 m: ruido, la referencia no se mueve
+        assertEquals(0, f.procesar(LAT + 0.6 * M, LON, 5, 1.3f), 0);
+        assertEquals(FiltroRecorrido.RUIDO, f.getMotivo());
+
+        // 1.2 m desde la referencia original: se acepta
+        assertEquals(1.2, f.procesar(LAT + 1.2 * M, LON, 5, 1.3f), 0.01);
+    }
+
+    @Test
+    public void trasUnHuecoAdmitePasosMasLargos() {
+        FiltroRecorrido f = new FiltroRecorrido();
+        f.procesar(LAT, LON, 5, 1.3f, 0);
+
+        // 12 m a los 2 s: salto
+        f.procesar(LAT + 12 * M, LON, 5, 1.3f, 2_000);
+        assertEquals(FiltroRecorrido.SALTO, f.getMotivo());
+
+        // 12 m a los 7 s (5 s desde la anterior, hasta 15 m): se acepta
+        assertEquals(12, f.procesar(LAT + 12 * M, LON, 5, 1.3f, 7_000), 0.01);
+
+        // Tras un minuto el máximo se queda en HUECO_MAXIMO_MS (60 m)
+        f.procesar(LAT + 100 * M, LON, 5, 1.3f, 67_000);
+        assertEquals(FiltroRecorrido.SALTO, f.getMotivo());
+    }
+
+    @Test
+    public void recorridoSintetico() {
+        FiltroRecorrido f = new FiltroRecorrido();
+        double total = 0;
+        int aceptadas = 0;
+
+        for (double[] p : Fixtures.recorrido()) {
+            double inc = f.procesar(p[0], p[1], (float) p[2], (float) p[3]);
+            if (f.getMotivo() == FiltroRecorrido.ACEPTADA) aceptadas++;
+            total += inc;
+        }
+
+        // ~10 min a pie con paradas (sintético): cientos de metros, nunca más de 7 m por paso
+        assertTrue(aceptadas > 0);
+        assertTrue(total > 100 && total <= aceptadas * FiltroRecorrido.INCREMENTO_MAXIMO_M);
+    }
+
+    @Test
+    public void haversine() {
+        // Un grado de latitud ≈ 111.2 km
+        assertEquals(111195, FiltroRecorrido.distanciaMetros(0, 0, 1, 0), 10);
+        assertEquals(0, FiltroRecorrido.distanciaMetros(LAT, LON, LAT, LON), 0);
+    }
+}
@@ -0,0 +1,90 @@
+package org.jordi.btlealumnos2021;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * @brief Carga los datos de prueba de src/test/resources.
+ *
+ * Ficheros de texto, una muestra por línea; las líneas que empiezan
+ * por '#' son comentarios.
+ *
+ * @date 19/10/2026
+ */
+final class Fixtures {
+
+    /** Zona de las pruebas que dependen de la hora local. */
+    static final TimeZone MADRID = TimeZone.getTimeZone("Europe/Madrid");
+
+    private Fixtures() { }
+
+    /** 19/10/2026 a la hora local (MADRID) indicada. */
+    static long hora(int h, int min, int seg) {
+        Calendar c = Calendar.getInstance(MADRID);
+        c.clear();
+        c.set(2026, Calendar.OCTOBER, 19, h, min, seg);
+        return c.getTimeInMillis();
+    }
+
+    /** Anuncios iBeacon (bytes crudos). */
+    static List<byte[]> tramas() {
+        List<byte[]> res = new ArrayList<>();
+        for (String l : lineas("tramas_ibeacon.txt")) {
+            byte[] b = new byte[l.length() / 2];
+            for (int i = 0; i < b.length; i++) {
+                b[i] = (byte) Integer.parseInt(l.substring(2 * i, 2 * i + 2), 16);
+            }
+            res.add(b);
+        }
+        return res;
+    }
+
+    /** Puntos del mapa de calor. */
+    static List<RejillaContaminacion.Punto> puntos() {
+        List<RejillaContaminacion.Punto> res = new ArrayList<>();
+        for (double[] c : columnas("puntos_contaminacion.csv")) {
+            res.add(new RejillaContaminacion.Punto(c[0], c[1], c[2]));
+        }
+        return res;
+    }
+
+    /** Recorrido GPS sintético: lat, lon, precisión (m), velocidad (m/s). */
+    static List<double[]> recorrido() {
+        return columnas("recorrido_gps.csv");
+    }
+
+    private static List<double[]> columnas(String fichero) {
+        List<double[]> res = new ArrayList<>();
+        for (String l : lineas(fichero)) {
+            String[] partes = l.split(",");
+            double[] c = new double[partes.length];
+            for (int i = 0; i < partes.length; i++) c[i] = Double.parseDouble(partes[i]);
+            res.add(c);
+        }
+        return res;
+    }
+
+    private static List<String> lineas(String fichero) {
+        InputStream in = Fixtures.class.getClassLoader().getResourceAsStream(fichero);
+        if (in == null) throw new IllegalStateException("No se encuentra " + fichero);
+
+        List<String> res = new ArrayList<>();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String l;
+            while ((l = r.readLine()) != null) {
+                l = l.trim();
+                if (!l.isEmpty() && !l.startsWith("#")) res.add(l);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return res;
+    }
+}
@@ -0,0 +1,51 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @brief Pruebas de IncidenciaVista (textos preformateados de la tarjeta).
+ *
+ * @date 19/10/2026
+ */
+public class IncidenciaVistaTest {
+
+    private static Incidencia incidencia(String respuesta, String fecha, int estado, int leida) {
+        return new Incidencia(7, "Asunto", "Mensaje", respuesta, fecha, estado, leida);
+    }
+
+    @Test
+    public void laFechaSeParseaUnaVez() {
+        IncidenciaVista v = new IncidenciaVista(
+                incidencia(null, "2025-12-29T01:12:24.000Z", 1, 0));
+
+        assertEquals(1766970744000L, v.fechaMs);
+        assertEquals(FormatosFecha.fechaHoraLocal(v.fechaMs), v.fechaTexto);
+        assertEquals("Recibida", v.estadoTexto);
+        assertEquals(7, v.getId());
+    }
+
+    @Test
+    public void unaFechaInvalidaSeMuestraTalCual() {
+        IncidenciaVista v = new IncidenciaVista(incidencia(null, "ayer", 2, 0));
+
+        assertEquals(0L, v.fechaMs);
+        assertEquals("ayer", v.fechaTexto);
+        assertEquals("En proceso", v.estadoTexto);
+    }
+
+    @Test
+    public void respuestaPendienteSoloSiHayRespuestaSinLeer() {
+        assertTrue(new IncidenciaVista(incidencia("Hecho", "", 3, 0)).respuestaPendiente);
+        assertFalse(new IncidenciaVista(incidencia("Hecho", "", 3, 1)).respuestaPendiente);
+
+        // El backend manda "null" como texto cuando no hay respuesta
+        IncidenciaVista sinRespuesta = new IncidenciaVista(incidencia("null", "", 1, 0));
+        assertFalse(sinRespuesta.tieneRespuesta);
+        assertFalse(sinRespuesta.respuestaPendiente);
+        assertFalse(new IncidenciaVista(incidencia("  ", "", 1, 0)).tieneRespuesta);
+    }
+}
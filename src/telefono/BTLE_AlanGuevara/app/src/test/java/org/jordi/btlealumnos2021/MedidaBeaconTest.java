@@ -0,0 +1,100 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @brief Pruebas de la decodificación de anuncios (MedidaBeacon, TramaIBeacon,
+ *        Utilidades) y del filtro de contador repetido.
+ *
+ * @date 19/10/2026
+ */
+public class MedidaBeaconTest {
+
+    @Test
+    public void decodificaIgualQueTramaIBeacon() {
+        List<byte[]> tramas = Fixtures.tramas();
+        assertFalse(tramas.isEmpty());
+
+        for (byte[] bytes : tramas) {
+            TramaIBeacon tib = new TramaIBeacon(bytes);
+            int major = Utilidades.bytesToInt(tib.getMajor());
+            int minor = Utilidades.bytesToInt(tib.getMinor());
+
+            MedidaBeacon m = MedidaBeacon.decodificar(bytes);
+
+            assertEquals(Utilidades.bytesToString(tib.getUUID()).trim(), m.uuid);
+            assertEquals((major >> 8) & 0xFF, m.tipoGas);
+            assertEquals(major & 0xFF, m.contador);
+            assertEquals(minor / 10000f, m.valor, 0f);
+        }
+    }
+
+    @Test
+    public void campos() {
+        MedidaBeacon m = MedidaBeacon.decodificar(Fixtures.tramas().get(0));
+
+        assertEquals("ATMOS-PLACA-0001", m.uuid);
+        assertEquals(ClasificadorCalidad.GAS_NO2, m.tipoGas);
+        assertEquals(1, m.contador);
+    }
+
+    @Test
+    public void anuncioCortoNoSeDecodifica() {
+        assertNull(MedidaBeacon.decodificar(new byte[MedidaBeacon.LONGITUD_MINIMA - 1]));
+        assertNull(MedidaBeacon.decodificar(null));
+    }
+
+    @Test
+    public void bytesToIntCoincideConBigInteger() {
+        Random r = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            byte[] b = new byte[1 + r.nextInt(10)];
+            r.nextBytes(b);
+            assertEquals(new BigInteger(b).intValue(), Utilidades.bytesToInt(b));
+            assertEquals(new BigInteger(b).longValue(), Utilidades.bytesToLong(b));
+        }
+    }
+
+    @Test
+    public void bytesToHexString() {
+        assertEquals("00:7f:80:ff:", Utilidades.bytesToHexString(
+                new byte[]{0x00, 0x7f, (byte) 0x80, (byte) 0xff}));
+        assertEquals("", Utilidades.bytesToHexString(null));
+    }
+
+    @Test
+    public void soloCuentaUnaVezCadaContador() {
+        SecuenciaContador s = new SecuenciaContador();
+        int nuevas = 0;
+        int distintas = 0;
+        int anterior = -1;
+        long t = 0;
+
+        for (byte[] bytes : Fixtures.tramas()) {
+            MedidaBeacon m = MedidaBeacon.decodificar(bytes);
+            if (!"ATMOS-PLACA-0001".equals(m.uuid)) continue;
+
+            if (m.contador != anterior) distintas++;
+            anterior = m.contador;
+
+            t += 100;
+            if (SecuenciaContador.esNueva(s.registrar(m.contador, t))) nuevas++;
+        }
+
+        assertEquals(distintas, nuevas);
+        assertTrue(nuevas < Fixtures.tramas().size());
+
+        // Tras un silencio largo el mismo contador vuelve a ser una medida
+        assertTrue(SecuenciaContador.esNueva(
+                s.registrar(anterior, t + SecuenciaContador.SILENCIO_MS + 1)));
+    }
+}
@@ -0,0 +1,93 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @brief Pruebas del registro de métricas y de la precisión de los
+ *        histogramas log-lineales.
+ *
+ * @date 19/10/2026
+ */
+public class MetricasTest {
+
+    @Test
+    public void contadoresEIndicadores() {
+        Metricas m = new Metricas();
+
+        m.contador("ble.anuncios").incrementar();
+        m.contador("ble.anuncios").sumar(4);
+        m.indicador("ble.rssi").fijar(-71);
+
+        assertSame(m.contador("ble.anuncios"), m.contador("ble.anuncios"));
+        assertEquals(5, m.contador("ble.anuncios").valor());
+        assertEquals(-71, m.indicador("ble.rssi").valor());
+
+        m.reiniciar();
+        assertEquals(0, m.contador("ble.anuncios").valor());
+    }
+
+    @Test
+    public void casillasContiguasYCrecientes() {
+        // Cada casilla empieza donde acaba la anterior
+        for (int i = 1; i < Metricas.Histograma.CASILLAS; i++) {
+            long inicio = Metricas.Histograma.inicioCasilla(i);
+            assertTrue(inicio > Metricas.Histograma.inicioCasilla(i - 1));
+            assertEquals(i, Metricas.Histograma.indice(inicio));
+            assertEquals(i - 1, Metricas.Histograma.indice(inicio - 1));
+        }
+    }
+
+    @Test
+    public void percentilesConErrorAcotado() {
+        Metricas.Histograma h = new Metricas.Histograma();
+        Random r = new Random(7);
+
+        // Latencias log-normales de ~50 µs a varios segundos
+        long[] muestras = new long[100_000];
+        for (int i = 0; i < muestras.length; i++) {
+            muestras[i] = (long) Math.exp(4 + r.nextGaussian() * 2.5);
+            h.registrar(muestras[i]);
+        }
+        Arrays.sort(muestras);
+
+        assertEquals(muestras.length, h.cuenta());
+        assertEquals(muestras[muestras.length - 1], h.maximo());
+
+        for (double p : new double[]{50, 90, 99, 99.9}) {
+            long exacto = muestras[(int) Math.ceil(p / 100 * muestras.length) - 1];
+            long aprox = h.percentil(p);
+            assertEquals("p" + p, exacto, aprox, Math.max(1, exacto * 0.035));
+        }
+    }
+
+    @Test
+    public void valoresExtremos() {
+        Metricas.Histograma h = new Metricas.Histograma();
+        assertEquals(0, h.percentil(50));
+
+        h.registrar(-5);
+        h.registrar(Long.MAX_VALUE);
+        assertEquals(2, h.cuenta());
+        assertEquals(0, h.percentil(50));
+        assertEquals(Long.MAX_VALUE, h.percentil(100));
+    }
+
+    @Test
+    public void jsonContieneTodo() {
+        Metricas m = new Metricas();
+        m.contador("subida.medida_ok").incrementar();
+        m.histograma("subida.medida_us").registrar(12_345);
+
+        String json = m.json();
+        assertTrue(json, json.contains("\"subida.medida_ok\":1"));
+        assertTrue(json, json.contains("\"subida.medida_us\":{\"n\":1"));
+        assertTrue(m.informe().contains("subida.medida_us"));
+    }
+}
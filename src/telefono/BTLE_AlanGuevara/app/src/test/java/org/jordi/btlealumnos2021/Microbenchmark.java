@@ -0,0 +1,71 @@
+package org.jordi.btlealumnos2021;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * @brief Medidor mínimo para los benchmarks de la JVM (RutaDatosBenchmark).
+ *
+ * Calienta el código (para que el JIT lo compile), luego hace varias rondas
+ * de duración fija y se queda con la mediana de ns por operación. El
+ * resultado se imprime con el prefijo "BENCH" (aparece en la salida estándar
+ * del informe de pruebas de Gradle) para poder comparar entre commits.
+ *
+ * Los benchmarks solo se ejecutan con la propiedad PROPIEDAD a true, que
+ * build.gradle fija con -Pbenchmarks.
+ *
+ * @date 19/10/2026
+ */
+final class Microbenchmark {
+
+    /** Propiedad del sistema que activa los benchmarks. */
+    static final String PROPIEDAD = "atmos.benchmarks";
+
+    private static final long CALENTAMIENTO_NS = 300_000_000L;
+    private static final long RONDA_NS = 100_000_000L;
+    private static final int RONDAS = 5;
+
+    /** Evita que el JIT elimine el trabajo de la operación medida. */
+    static volatile long sumidero;
+
+    interface Operacion {
+        /** Ejecuta una operación y devuelve algo que dependa del resultado. */
+        long ejecutar();
+    }
+
+    private Microbenchmark() { }
+
+    /**
+     * @return Mediana de ns por operación.
+     */
+    static double medir(String nombre, Operacion op) {
+        ejecutarDurante(op, CALENTAMIENTO_NS);
+
+        double[] nsPorOp = new double[RONDAS];
+        for (int r = 0; r < RONDAS; r++) {
+            long inicio = System.nanoTime();
+            long ops = ejecutarDurante(op, RONDA_NS);
+            nsPorOp[r] = (System.nanoTime() - inicio) / (double) ops;
+        }
+        Arrays.sort(nsPorOp);
+        double mediana = nsPorOp[RONDAS / 2];
+
+        System.out.println(String.format(Locale.ROOT,
+                "BENCH %-40s %12.1f ns/op  (min %.1f, max %.1f)",
+                nombre, mediana, nsPorOp[0], nsPorOp[RONDAS - 1]));
+        return mediana;
+    }
+
+    private static long ejecutarDurante(Operacion op, long duracionNs) {
+        long fin = System.nanoTime() + duracionNs;
+        long ops = 0;
+        long acc = 0;
+        do {
+            // Lotes de 16 para no medir sobre todo System.nanoTime()
+            for (int i = 0; i < 16; i++) acc += op.ejecutar();
+            ops += 16;
+        } while (System.nanoTime() < fin);
+        sumidero += acc;
+        return ops;
+    }
+}
@@ -0,0 +1,171 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @brief Pruebas de las reglas, la histéresis y los límites de MotorAlertas.
+ *
+ * @date 19/10/2026
+ */
+public class MotorAlertasTest {
+
+    private static final int GAS = ClasificadorCalidad.GAS_O3;
+    private static final long T0 = 1_800_000_000_000L;
+
+    // O3 por defecto: Insalubre hasta 0.092, Moderada hasta 0.061
+    private static final double MALA = 0.10;
+    private static final double INSALUBRE = 0.07;
+
+    private final List<String> avisos = new ArrayList<>();
+    private final MotorAlertas.Salida salida = (regla, valor, t) -> avisos.add(regla.tipo);
+
+    @Before
+    public void umbralesPorDefecto() {
+        ClasificadorCalidad.restablecerUmbrales();
+    }
+
+    @After
+    public void restablecer() {
+        ClasificadorCalidad.restablecerUmbrales();
+    }
+
+    private static MotorAlertas instantanea(long minIntervaloMs) {
+        return new MotorAlertas(Collections.singletonList(
+                new MotorAlertas.Regla("O3_MALA", GAS, 2, 0, minIntervaloMs, "Malo")));
+    }
+
+    @Test
+    public void instantaneaAvisaConLaPrimeraMedidaEncima() {
+        MotorAlertas m = instantanea(0);
+        assertEquals(MotorAlertas.NADA, m.evaluar(GAS, 0.05, T0, salida));
+        assertEquals(MotorAlertas.AVISO, m.evaluar(GAS, MALA, T0 + 1000, salida));
+        assertEquals(Collections.singletonList("O3_MALA"), avisos);
+    }
+
+    @Test
+    public void histeresisEvitaParpadeo() {
+        MotorAlertas m = instantanea(0);
+        double umbral = ClasificadorCalidad.umbral(GAS, 2);
+
+        m.evaluar(GAS, umbral + 0.001, T0, salida);
+        // Ruido alrededor del umbral, sin bajar de la banda
+        for (int i = 1; i <= 20; i++) {
+            double v = umbral + (i % 2 == 0 ? 0.002 : -0.005);
+            m.evaluar(GAS, v, T0 + i * 1000L, salida);
+        }
+        assertEquals(1, avisos.size());
+
+        // Baja de verdad y vuelve a subir: segundo aviso
+        m.evaluar(GAS, umbral * (1 - MotorAlertas.HISTERESIS) - 0.001, T0 + 30_000, salida);
+        m.evaluar(GAS, umbral + 0.001, T0 + 31_000, salida);
+        assertEquals(2, avisos.size());
+    }
+
+    @Test
+    public void sostenidaEsperaLaDuracion() {
+        MotorAlertas m = new MotorAlertas(MotorAlertas.reglasPorDefecto());
+        long t = T0;
+        for (; t < T0 + MotorAlertas.SOSTENIDA_MS; t += 5000) {
+            assertEquals(MotorAlertas.NADA, m.evaluar(GAS, INSALUBRE, t, salida));
+        }
+        assertEquals(MotorAlertas.AVISO, m.evaluar(GAS, INSALUBRE, t, salida));
+        assertEquals(Collections.singletonList("O3_INSALUBRE_SOSTENIDO"), avisos);
+
+        // Sigue encima: no se repite
+        for (int i = 1; i <= 60; i++) m.evaluar(GAS, INSALUBRE, t + i * 5000L, salida);
+        assertEquals(1, avisos.size());
+    }
+
+    @Test
+    public void huecoReiniciaLaCuentaSostenida() {
+        MotorAlertas m = new MotorAlertas(MotorAlertas.reglasPorDefecto());
+        m.evaluar(GAS, INSALUBRE, T0, salida);
+        m.evaluar(GAS, INSALUBRE, T0 + 60_000, salida);
+        // La placa se aleja y vuelve 4 min después, aún alto
+        m.evaluar(GAS, INSALUBRE, T0 + 300_000, salida);
+        assertTrue(avisos.isEmpty());
+
+        // Cinco minutos sin medidas en medio también es un hueco
+        m.evaluar(GAS, INSALUBRE, T0 + 300_000 + MotorAlertas.SOSTENIDA_MS, salida);
+        assertTrue(avisos.isEmpty());
+    }
+
+    @Test
+    public void intervaloMinimoRetieneYLuegoAvisa() {
+        MotorAlertas m = instantanea(15 * 60_000L);
+        m.evaluar(GAS, MALA, T0, salida);
+        m.evaluar(GAS, 0.01, T0 + 60_000, salida);
+
+        // Vuelve a subir a los 2 min: retenida
+        assertEquals(MotorAlertas.RETENIDA, m.evaluar(GAS, MALA, T0 + 120_000, salida));
+        assertEquals(1, avisos.size());
+
+        // Sigue alto cuando pasa el intervalo: sale entonces
+        long t = T0 + 120_000;
+        while (t < T0 + 15 * 60_000L) {
+            t += 30_000;
+            m.evaluar(GAS, MALA, t, salida);
+        }
+        assertEquals(2, avisos.size());
+    }
+
+    @Test
+    public void limiteGlobalPorHora() {
+        MotorAlertas m = instantanea(0);
+        // 20 subidas y bajadas en 40 s: solo las fichas del cubo
+        long t = T0;
+        for (int i = 0; i < 20; i++) {
+            m.evaluar(GAS, MALA, t, salida);
+            m.evaluar(GAS, 0.01, t + 1000, salida);
+            t += 2000;
+        }
+        assertEquals(MotorAlertas.MAX_AVISOS_HORA, avisos.size());
+
+        // Diez minutos después hay una ficha nueva
+        assertEquals(MotorAlertas.AVISO, m.evaluar(GAS, MALA, t + 10 * 60_000L, salida));
+    }
+
+    @Test
+    public void siguenLosUmbralesDelServidor() {
+        MotorAlertas m = instantanea(0);
+        assertEquals(MotorAlertas.NADA, m.evaluar(GAS, 0.08, T0, salida));
+
+        ClasificadorCalidad.actualizarUmbrales(GAS, 0.02, 0.04, 0.06);
+        assertEquals(MotorAlertas.AVISO, m.evaluar(GAS, 0.08, T0 + 1000, salida));
+    }
+
+    @Test
+    public void otrosGasesNoSeMezclan() {
+        MotorAlertas m = new MotorAlertas(MotorAlertas.reglasPorDefecto());
+        // CO en 0.10 ppm es bueno; O3 no ha medido nada
+        assertEquals(MotorAlertas.NADA, m.evaluar(ClasificadorCalidad.GAS_CO, MALA, T0, salida));
+        assertEquals(MotorAlertas.NADA, m.evaluar(99, 100, T0, salida));
+        assertTrue(avisos.isEmpty());
+    }
+
+    @Test
+    public void alertasLocalYDelServidorDelMismoGas() {
+        // Las reglas locales y la del servidor se reconocen por el gas
+        for (MotorAlertas.Regla r : MotorAlertas.reglasPorDefecto()) {
+            assertEquals(r.tipo.substring(0, r.tipo.indexOf('_')), MotorAlertas.gasDeAlerta(r.tipo));
+        }
+        assertEquals("O3", MotorAlertas.gasDeAlerta("O3_CRITICO"));
+
+        // Las que no son de nivel de un gas no se cruzan con ninguna
+        assertNull(MotorAlertas.gasDeAlerta("SENSOR_INACTIVO"));
+        assertNull(MotorAlertas.gasDeAlerta("LECTURAS_ERRONEAS"));
+        assertNull(MotorAlertas.gasDeAlerta("DISTANCIA_SENSOR"));
+        assertNull(MotorAlertas.gasDeAlerta("RESUMEN_DIARIO"));
+        assertNull(MotorAlertas.gasDeAlerta(null));
+    }
+}
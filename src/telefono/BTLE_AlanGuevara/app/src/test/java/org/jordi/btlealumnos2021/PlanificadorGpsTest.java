@@ -0,0 +1,96 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @brief Pruebas del muestreo adaptativo del GPS: paso a pasivo con el
+ *        usuario quieto, vuelta al moverse y modo rápido con histéresis.
+ *
+ * @date 19/10/2026
+ */
+public class PlanificadorGpsTest {
+
+    private static final long VENTANA_MS = DetectorQuietud.VENTANA_NS / 1_000_000;
+
+    @Test
+    public void quietoTreintaSegundosPasaAPasivo() {
+        PlanificadorGps p = new PlanificadorGps();
+        p.empezar(0);
+
+        long t = 0;
+        boolean cambio = false;
+        while (t < PlanificadorGps.QUIETO_MS) {
+            t += VENTANA_MS;
+            assertFalse(cambio);
+            cambio = p.alMovimiento(true, t);
+        }
+        // La primera ventana quieta cierra en 2 s: pasa a QUIETO 30 s después
+        assertFalse(cambio);
+        t += VENTANA_MS;
+        assertTrue(p.alMovimiento(true, t));
+
+        assertEquals(PlanificadorGps.QUIETO, p.getModo());
+        assertFalse(p.usaGps());
+        assertEquals(PlanificadorGps.INTERVALO_QUIETO_MS, p.getIntervaloMs());
+
+        // Una ventana con movimiento lo despierta enseguida
+        assertTrue(p.alMovimiento(false, t + VENTANA_MS));
+        assertEquals(PlanificadorGps.ANDANDO, p.getModo());
+        assertEquals(PlanificadorGps.INTERVALO_ANDANDO_MS, p.getIntervaloMs());
+    }
+
+    @Test
+    public void unaVentanaConMovimientoReiniciaLaEspera() {
+        PlanificadorGps p = new PlanificadorGps();
+        p.alMovimiento(true, 0);
+        p.alMovimiento(false, 20_000);
+        assertFalse(p.alMovimiento(true, 40_000));
+        assertEquals(PlanificadorGps.ANDANDO, p.getModo());
+    }
+
+    @Test
+    public void laVelocidadDeUnaPasivaDespiertaYSubeARapido() {
+        PlanificadorGps p = new PlanificadorGps();
+        p.alMovimiento(true, 0);
+        p.alMovimiento(true, PlanificadorGps.QUIETO_MS);
+        assertEquals(PlanificadorGps.QUIETO, p.getModo());
+
+        assertFalse(p.alLocalizacion(0.3f, 40_000));
+        assertTrue(p.alLocalizacion(1.4f, 41_000));
+        assertEquals(PlanificadorGps.ANDANDO, p.getModo());
+
+        // Bici: más a menudo, para no recortar las curvas
+        assertTrue(p.alLocalizacion(5f, 42_000));
+        assertEquals(PlanificadorGps.RAPIDO, p.getModo());
+        assertEquals(PlanificadorGps.INTERVALO_RAPIDO_MS, p.getIntervaloMs());
+
+        // Histéresis: entre 2 y 2,5 m/s sigue en RAPIDO
+        assertFalse(p.alLocalizacion(2.2f, 43_000));
+        assertTrue(p.alLocalizacion(1.5f, 44_000));
+        assertEquals(PlanificadorGps.ANDANDO, p.getModo());
+    }
+
+    @Test
+    public void unaTardeEnLaMesaApenasEnciendeElGps() {
+        PlanificadorGps p = new PlanificadorGps();
+        p.empezar(0);
+        long t = 0;
+
+        // 10 min andando, 60 min sentado, 10 min andando
+        for (; t < 600_000; t += VENTANA_MS) p.alMovimiento(false, t);
+        for (; t < 4_200_000; t += VENTANA_MS) p.alMovimiento(true, t);
+        for (; t < 4_800_000; t += VENTANA_MS) p.alMovimiento(false, t);
+
+        long gps = p.getMsEnModo(PlanificadorGps.ANDANDO, t) + p.getMsEnModo(PlanificadorGps.RAPIDO, t);
+        long quieto = p.getMsEnModo(PlanificadorGps.QUIETO, t);
+
+        assertEquals(t, gps + quieto);
+        // Solo se pierden los 30 s de espera: el GPS encendido baja del 100 % al ~26 %
+        assertEquals(1_200_000 + PlanificadorGps.QUIETO_MS, gps, VENTANA_MS);
+        assertEquals(2, p.getCambios());
+    }
+}
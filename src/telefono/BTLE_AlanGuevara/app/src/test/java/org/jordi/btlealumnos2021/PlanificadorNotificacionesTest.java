@@ -0,0 +1,78 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @brief Pruebas del intervalo adaptativo y del presupuesto diario de
+ *        despertares de PlanificadorNotificaciones.
+ *
+ * @date 19/10/2026
+ */
+public class PlanificadorNotificacionesTest {
+
+    private static final long MIN = PlanificadorNotificaciones.INTERVALO_MIN_MS;
+    private static final long MAX = PlanificadorNotificaciones.INTERVALO_MAX_MS;
+    private static final long DIA = 24 * 3_600_000L;
+
+    // Mediodía UTC de un día cualquiera
+    private static final long AHORA = 20_000 * DIA + DIA / 2;
+
+    @Test
+    public void sinNovedadesElIntervaloSeDuplicaHastaElMaximo() {
+        PlanificadorNotificaciones p = new PlanificadorNotificaciones();
+        p.registrarDespertar(AHORA, 0);
+
+        assertEquals(2 * MIN, p.siguienteRetardo(false, false, AHORA, 0));
+        assertEquals(4 * MIN, p.siguienteRetardo(false, false, AHORA, 0));
+        for (int i = 0; i < 10; i++) p.siguienteRetardo(false, false, AHORA, 0);
+        assertEquals(MAX, p.getIntervaloMs());
+    }
+
+    @Test
+    public void conNovedadesVuelveAlMinimo() {
+        PlanificadorNotificaciones p = new PlanificadorNotificaciones(MAX, -1, 0);
+        p.registrarDespertar(AHORA, 0);
+
+        assertEquals(MIN, p.siguienteRetardo(true, false, AHORA, 0));
+    }
+
+    @Test
+    public void unFalloDeRedNoCambiaElIntervalo() {
+        PlanificadorNotificaciones p = new PlanificadorNotificaciones(4 * MIN, -1, 0);
+        p.registrarDespertar(AHORA, 0);
+
+        assertEquals(4 * MIN, p.siguienteRetardo(false, true, AHORA, 0));
+    }
+
+    @Test
+    public void elPresupuestoDiarioAplazaHastaManana() {
+        PlanificadorNotificaciones p = new PlanificadorNotificaciones();
+
+        for (int i = 0; i < PlanificadorNotificaciones.MAX_DESPERTARES_DIA; i++) {
+            assertTrue(p.registrarDespertar(AHORA, 0));
+        }
+        assertFalse(p.registrarDespertar(AHORA, 0));
+        assertEquals(PlanificadorNotificaciones.MAX_DESPERTARES_DIA, p.getDespertaresHoy());
+
+        // Aunque haya alertas, no se vuelve a despertar hasta medianoche
+        assertEquals(DIA / 2, p.siguienteRetardo(true, false, AHORA, 0));
+
+        // Al día siguiente el contador empieza de cero
+        assertTrue(p.registrarDespertar(AHORA + DIA, 0));
+        assertEquals(1, p.getDespertaresHoy());
+    }
+
+    @Test
+    public void elDiaSeCuentaEnHoraLocal() {
+        long casiMedianocheUtc = 20_000 * DIA + DIA - 30 * 60_000L;
+        long dosHoras = 2 * 3_600_000L;
+
+        // En UTC+2 ya es el día siguiente
+        assertEquals(20_000, PlanificadorNotificaciones.diaDe(casiMedianocheUtc, 0));
+        assertEquals(20_001, PlanificadorNotificaciones.diaDe(casiMedianocheUtc, dosHoras));
+    }
+}
@@ -0,0 +1,180 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @brief Pruebas del planificador de refrescos de las pantallas.
+ *
+ * @date 19/10/2026
+ */
+public class PlanificadorRefrescosTest {
+
+    private long ahora = 0;
+    private final PlanificadorRefrescos p =
+            new PlanificadorRefrescos(() -> ahora, new Random(7), null);
+
+    /** Avanza el reloj hasta t llamando a ejecutarVencidas() cuando toca. */
+    private void avanzarHasta(long t) {
+        while (true) {
+            long proxima = p.proximaMs();
+            if (proxima > t) break;
+            ahora = Math.max(ahora, proxima);
+            p.ejecutarVencidas();
+        }
+        ahora = t;
+    }
+
+    /** Acción que termina en el acto, con el resultado indicado. */
+    private static PlanificadorRefrescos.Accion inmediata(List<String> log, String nombre, boolean ok) {
+        return fin -> {
+            log.add(nombre);
+            fin.hecho(ok);
+        };
+    }
+
+    @Test
+    public void ejecutaAlRegistrarYLuegoCadaIntervalo() {
+        List<String> log = new ArrayList<>();
+        p.registrar("senal", 1000, "pantalla", inmediata(log, "senal", true));
+
+        avanzarHasta(10_000);
+        // La primera al registrar y luego cada 1 s ± 10 %
+        assertTrue(log.size() >= 10 && log.size() <= 12);
+    }
+
+    @Test
+    public void mismaClaveSeComparteEntrePantallas() {
+        List<String> log = new ArrayList<>();
+        Object a = "usuario", b = "mapa";
+        assertTrue(p.registrar("estado", 4000, a, inmediata(log, "a", true)));
+        assertFalse(p.registrar("estado", 2000, b, inmediata(log, "b", true)));
+        assertEquals(1, p.getNumTareas());
+        assertEquals(2, p.getSuscripciones("estado"));
+
+        avanzarHasta(20_000);
+        // Una sola tarea, con el intervalo menor y la acción de la última pantalla
+        assertFalse(log.contains("a"));
+        assertTrue(log.size() >= 9 && log.size() <= 12);
+
+        // Se va la pantalla de delante: sigue la de detrás, a su ritmo
+        p.cancelar("estado", b);
+        log.clear();
+        avanzarHasta(40_000);
+        assertFalse(log.contains("b"));
+        assertTrue(log.size() >= 4 && log.size() <= 6);
+
+        p.cancelar("estado", a);
+        assertEquals(0, p.getNumTareas());
+        assertEquals(Long.MAX_VALUE, p.proximaMs());
+    }
+
+    @Test
+    public void registrarDosVecesNoDuplica() {
+        List<String> log = new ArrayList<>();
+        Object pantalla = "usuario";
+        for (int i = 0; i < 5; i++) {
+            p.registrar("senal", 1000, pantalla, inmediata(log, "senal", true));
+        }
+        assertEquals(1, p.getSuscripciones("senal"));
+
+        avanzarHasta(10_000);
+        assertTrue(log.size() <= 12);
+    }
+
+    @Test
+    public void enSegundoPlanoNoSeEjecutaNada() {
+        List<String> log = new ArrayList<>();
+        p.registrar("senal", 1000, "pantalla", inmediata(log, "senal", true));
+        avanzarHasta(5_000);
+        int antes = log.size();
+
+        p.setPrimerPlano(false);
+        assertEquals(Long.MAX_VALUE, p.proximaMs());
+        ahora = 60_000;
+        assertEquals(0, p.ejecutarVencidas());
+        assertEquals(antes, log.size());
+
+        // Al volver, lo vencido sale ya
+        p.setPrimerPlano(true);
+        assertEquals(1, p.ejecutarVencidas());
+    }
+
+    @Test
+    public void erroresEsperanCadaVezMas() {
+        List<Long> instantes = new ArrayList<>();
+        p.registrar("estado", 2000, "pantalla", fin -> {
+            instantes.add(ahora);
+            fin.hecho(false);
+        });
+
+        avanzarHasta(300_000);
+        // 0, ~4, ~8, ~16, ~32 s de espera... hasta el tope de 60 s
+        for (int i = 1; i < instantes.size(); i++) {
+            long espera = instantes.get(i) - instantes.get(i - 1);
+            long esperada = Math.min(PlanificadorRefrescos.MAX_ESPERA_MS, 2000L << i);
+            assertEquals(esperada, espera, esperada * PlanificadorRefrescos.JITTER + 1);
+        }
+        assertTrue(instantes.size() < 12);
+    }
+
+    @Test
+    public void unAciertoVuelveAlIntervalo() {
+        boolean[] ok = {false};
+        List<Long> instantes = new ArrayList<>();
+        p.registrar("estado", 2000, "pantalla", fin -> {
+            instantes.add(ahora);
+            fin.hecho(ok[0]);
+        });
+
+        avanzarHasta(20_000);
+        ok[0] = true;
+        avanzarHasta(120_000);
+        int n = instantes.size();
+        long espera = instantes.get(n - 1) - instantes.get(n - 2);
+        assertEquals(2000, espera, 2000 * PlanificadorRefrescos.JITTER + 1);
+    }
+
+    @Test
+    public void noSeSolapanYLaQueNoTerminaCaduca() {
+        List<PlanificadorRefrescos.Fin> pendientes = new ArrayList<>();
+        p.registrar("lenta", 1000, "pantalla", pendientes::add);
+
+        p.ejecutarVencidas();
+        ahora = 5_000;
+        // Sigue en curso: no se lanza otra
+        assertEquals(0, p.ejecutarVencidas());
+        assertEquals(1, pendientes.size());
+
+        // Pasado el tiempo límite cuenta como error y se espera el doble
+        ahora = PlanificadorRefrescos.MIN_TIEMPO_LIMITE_MS;
+        p.ejecutarVencidas();
+        assertEquals(1, pendientes.size());
+        assertTrue(p.informe().contains("1 err"));
+
+        // La respuesta tardía no cambia nada
+        pendientes.get(0).hecho(true);
+        assertTrue(p.informe().contains("1 fallos seguidos"));
+
+        avanzarHasta(PlanificadorRefrescos.MIN_TIEMPO_LIMITE_MS + 3000);
+        assertEquals(2, pendientes.size());
+    }
+
+    @Test
+    public void tasaPorMinuto() {
+        List<String> log = new ArrayList<>();
+        p.registrar("senal", 1000, "pantalla", inmediata(log, "senal", true));
+        avanzarHasta(180_000);
+        assertEquals(60, p.getTasaPorMinuto("senal"), 6);
+
+        assertTrue(p.informe().startsWith("Refrescos: 1 tareas"));
+        assertTrue(p.informe().contains("senal cada 1.0 s ×1"));
+    }
+}
@@ -0,0 +1,57 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * @brief Pruebas de la codificación de tramos: ida y vuelta y tamaño.
+ *
+ * @date 19/10/2026
+ */
+public class PolilineaCodificadaTest {
+
+    private static final long INICIO = 1_760_000_000_000L;
+
+    @Test
+    public void idaYVuelta() {
+        PolilineaCodificada.Escritor e = new PolilineaCodificada.Escritor(INICIO);
+        e.anadir(38.99636, -0.16604, INICIO);
+        e.anadir(38.99641, -0.16598, INICIO + 5_000);
+        e.anadir(-33.86882, 151.20929, INICIO + 3_600_000);   // otro hemisferio
+        e.anadir(38.99636, -0.16604, INICIO + 3_605_400);     // se redondea al segundo
+
+        List<PolilineaCodificada.Punto> p = PolilineaCodificada.decodificar(e.toString(), INICIO);
+        assertEquals(4, p.size());
+        assertEquals(38.99641, p.get(1).lat, 1e-9);
+        assertEquals(-0.16598, p.get(1).lon, 1e-9);
+        assertEquals(INICIO + 5_000, p.get(1).tMs);
+        assertEquals(151.20929, p.get(2).lon, 1e-9);
+        assertEquals(INICIO + 3_605_000, p.get(3).tMs);
+    }
+
+    @Test
+    public void unPasoCortoOcupaPocosCaracteres() {
+        PolilineaCodificada.Escritor e = new PolilineaCodificada.Escritor(INICIO);
+        e.anadir(38.99636, -0.16604, INICIO);
+        int primero = e.toString().length();
+
+        // 100 pasos de ~7 m cada 5 s
+        for (int i = 1; i <= 100; i++) {
+            e.anadir(38.99636 + i * 0.00005, -0.16604 + i * 0.00003, INICIO + i * 5_000L);
+        }
+        double porPunto = (e.toString().length() - primero) / 100.0;
+        assertTrue("caracteres por punto: " + porPunto, porPunto <= 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cortadaEsUnError() {
+        PolilineaCodificada.Escritor e = new PolilineaCodificada.Escritor(INICIO);
+        e.anadir(38.99636, -0.16604, INICIO);
+        String s = e.toString();
+        PolilineaCodificada.decodificar(s.substring(0, s.length() - 2), INICIO);
+    }
+}
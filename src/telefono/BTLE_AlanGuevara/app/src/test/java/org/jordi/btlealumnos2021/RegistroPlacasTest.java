@@ -0,0 +1,122 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @brief Pruebas de RegistroPlacas: búsqueda por los bytes del UUID,
+ *        estado independiente por placa y presencia.
+ *
+ * @date 19/10/2026
+ */
+public class RegistroPlacasTest {
+
+    /** Un anuncio de las fixtures con otro UUID (rellenado con espacios). */
+    private static byte[] anuncio(String uuid, int tipoGas, int contador) {
+        byte[] b = Fixtures.tramas().get(0).clone();
+        for (int i = 0; i < 16; i++) {
+            b[9 + i] = (byte) (i < uuid.length() ? uuid.charAt(i) : ' ');
+        }
+        b[25] = (byte) tipoGas;
+        b[26] = (byte) contador;
+        return b;
+    }
+
+    @Test
+    public void buscaPorUuid() {
+        RegistroPlacas r = new RegistroPlacas((p, m) -> { });
+        RegistroPlacas.Placa a = r.registrar("PLACA-A", true);
+        RegistroPlacas.Placa b = r.registrar(" PLACA-B ", false);
+
+        assertSame(a, r.buscar(anuncio("PLACA-A", 11, 1)));
+        assertSame(b, r.buscar(anuncio("PLACA-B", 11, 1)));
+        assertNull(r.buscar(anuncio("PLACA-C", 11, 1)));
+        assertNull(r.buscar(anuncio("PLACA-AA", 11, 1)));
+        assertNull(r.buscar(new byte[10]));
+
+        // La del fixture, con su UUID de 16 caracteres
+        RegistroPlacas.Placa f = r.registrar("ATMOS-PLACA-0001", false);
+        assertSame(f, r.buscar(Fixtures.tramas().get(0)));
+
+        // Registrar otra vez devuelve la misma
+        assertSame(a, r.registrar("PLACA-A", false));
+        assertEquals(3, r.size());
+    }
+
+    @Test
+    public void adicionalPasaAVinculada() {
+        RegistroPlacas r = new RegistroPlacas((p, m) -> { });
+
+        // ModuloBeacons registra las adicionales antes de saber la vinculada
+        RegistroPlacas.Placa a = r.registrar("PLACA-A", false);
+        assertFalse(a.isVinculada());
+
+        assertSame(a, r.registrar("PLACA-A", true));
+        assertTrue(a.isVinculada());
+
+        // Y no se desmarca al registrarla otra vez como adicional
+        r.registrar("PLACA-A", false);
+        assertTrue(a.isVinculada());
+        assertEquals(1, r.size());
+    }
+
+    @Test
+    public void estadoPorPlaca() {
+        List<String> subidas = new ArrayList<>();
+        RegistroPlacas r = new RegistroPlacas((p, m) -> subidas.add(p.nombre + ":" + m.tipoGas));
+        RegistroPlacas.Placa a = r.registrar("PLACA-A", true);
+        RegistroPlacas.Placa b = r.registrar("PLACA-B", false);
+
+        // El mismo contador en dos placas no es duplicado
+        assertEquals(SecuenciaContador.RESINCRONIZADA, a.secuencia.registrar(7, 0));
+        assertEquals(SecuenciaContador.RESINCRONIZADA, b.secuencia.registrar(7, 0));
+        assertEquals(SecuenciaContador.DUPLICADA, a.secuencia.registrar(7, 10));
+
+        // Canales por gas; los gases desconocidos no tienen canal
+        assertNotNull(a.anotarMedida(ClasificadorCalidad.GAS_CO, 2.5f, 1000));
+        assertNull(a.anotarMedida(99, 1f, 1000));
+        assertEquals(2.5f, a.canal(ClasificadorCalidad.GAS_CO).getUltimoValor(), 0f);
+        assertNull(b.canal(ClasificadorCalidad.GAS_CO));
+
+        // Cada compresor sube con su placa
+        a.compresor.ofrecer(new CompresorMedidas.Muestra(0, 12, 2.5f, -60, -1, -1));
+        b.compresor.ofrecer(new CompresorMedidas.Muestra(0, 11, 0.02f, -60, -1, -1));
+        assertEquals("PLACA-A:12", subidas.get(0));
+        assertEquals("PLACA-B:11", subidas.get(1));
+    }
+
+    @Test
+    public void presencia() {
+        RegistroPlacas r = new RegistroPlacas((p, m) -> { });
+        RegistroPlacas.Placa a = r.registrar("PLACA-A", true);
+        RegistroPlacas.Placa b = r.registrar("PLACA-B", false);
+        List<String> apagadas = new ArrayList<>();
+
+        assertTrue(r.anotarAnuncio(a, 1000));
+        assertFalse(r.anotarAnuncio(a, 1500));
+
+        // B nunca ha enviado nada: se da por apagada en la primera revisión
+        r.revisarPresencia(2000, (p, enc) -> apagadas.add(p.nombre));
+        assertEquals(1, apagadas.size());
+        assertEquals("PLACA-B", apagadas.get(0));
+        assertTrue(a.estaEncendida());
+        assertFalse(b.estaEncendida());
+
+        // Solo se avisa una vez del cambio
+        r.revisarPresencia(1500 + RegistroPlacas.AUSENCIA_MS + 1, (p, enc) -> apagadas.add(p.nombre));
+        r.revisarPresencia(1500 + RegistroPlacas.AUSENCIA_MS + 2000, (p, enc) -> apagadas.add(p.nombre));
+        assertEquals(2, apagadas.size());
+        assertEquals("PLACA-A", apagadas.get(1));
+
+        assertTrue(r.anotarAnuncio(a, 10_000));
+    }
+}
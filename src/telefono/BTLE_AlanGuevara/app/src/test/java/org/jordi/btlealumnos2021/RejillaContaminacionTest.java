@@ -0,0 +1,99 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @brief Pruebas del cálculo de la cuadrícula del mapa de calor.
+ *
+ * @date 19/10/2026
+ */
+public class RejillaContaminacionTest {
+
+    private static final int N = RejillaContaminacion.GRID * RejillaContaminacion.GRID;
+
+    /** Cuadrícula uniforme sobre una caja (como la proyección de un mapa pequeño). */
+    static void centros(double latMin, double lonMin, double latMax, double lonMax,
+                        double[] lat, double[] lon) {
+        int g = RejillaContaminacion.GRID;
+        for (int ix = 0; ix < g; ix++) {
+            for (int iy = 0; iy < g; iy++) {
+                lon[ix * g + iy] = lonMin + (lonMax - lonMin) * (ix + 0.5) / g;
+                lat[ix * g + iy] = latMax - (latMax - latMin) * (iy + 0.5) / g;
+            }
+        }
+    }
+
+    @Test
+    public void sinPuntosCercaNoHayCobertura() {
+        double[] lat = new double[N];
+        double[] lon = new double[N];
+        centros(38.9, -0.2, 39.0, -0.1, lat, lon);
+
+        RejillaContaminacion r = new RejillaContaminacion();
+        int total = r.calcular(lat, lon, Collections.singletonList(
+                new RejillaContaminacion.Punto(45, 5, 1.0)));
+
+        assertEquals(0, total);
+        assertEquals(RejillaContaminacion.SIN_COBERTURA, r.getCategoria(0));
+        assertEquals(0, r.porcentaje(ClasificadorCalidad.BUENA));
+    }
+
+    @Test
+    public void seQuedaConElPeorNivel() {
+        double[] lat = new double[N];
+        double[] lon = new double[N];
+        Arrays.fill(lat, 39.0);
+        Arrays.fill(lon, -0.1);
+
+        List<RejillaContaminacion.Punto> puntos = Arrays.asList(
+                new RejillaContaminacion.Punto(39.0, -0.1, 0.1),
+                new RejillaContaminacion.Punto(39.001, -0.1, 0.75),  // dentro del radio
+                new RejillaContaminacion.Punto(39.1, -0.1, 1.0));    // fuera
+
+        RejillaContaminacion r = new RejillaContaminacion();
+        assertEquals(N, r.calcular(lat, lon, puntos));
+
+        // 0.75 - 0.05 = 0.70 → Insalubre
+        assertEquals(ClasificadorCalidad.INSALUBRE, r.getCategoria(0));
+        assertEquals(100, r.porcentaje(ClasificadorCalidad.INSALUBRE));
+        assertEquals("insalubre", r.dominante());
+    }
+
+    @Test
+    public void elNivelMasBajoSePintaComoBuena() {
+        double[] lat = new double[N];
+        double[] lon = new double[N];
+        Arrays.fill(lat, 39.0);
+        Arrays.fill(lon, -0.1);
+
+        RejillaContaminacion r = new RejillaContaminacion();
+        r.calcular(lat, lon, Collections.singletonList(new RejillaContaminacion.Punto(39.0, -0.1, 0.0)));
+
+        assertEquals(ClasificadorCalidad.BUENA, r.getCategoria(0));
+    }
+
+    @Test
+    public void porcentajesDeLosPuntosGrabados() {
+        double[] lat = new double[N];
+        double[] lon = new double[N];
+        centros(38.975, -0.195, 39.015, -0.135, lat, lon);
+
+        RejillaContaminacion r = new RejillaContaminacion();
+        int total = r.calcular(lat, lon, Fixtures.puntos());
+
+        assertTrue(total > N / 2);
+        int suma = r.porcentaje(ClasificadorCalidad.BUENA)
+                + r.porcentaje(ClasificadorCalidad.MODERADA)
+                + r.porcentaje(ClasificadorCalidad.INSALUBRE)
+                + r.porcentaje(ClasificadorCalidad.MALA);
+        // Porcentajes truncados: como mucho se pierde 1 punto por categoría
+        assertTrue(suma > 96 && suma <= 100);
+    }
+}
@@ -0,0 +1,94 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * @brief Pruebas de RelojServidor: desfase, deriva, cuándo sincronizar y
+ *        guardar/recuperar los puntos.
+ *
+ * @date 19/10/2026
+ */
+public class RelojServidorTest {
+
+    private static final long HORA = 3_600_000L;
+
+    /** Hora real del servidor cuando el reloj monótono del móvil marca m. */
+    private static double servidor(long m, double derivaPpm) {
+        // El reloj del móvil adelanta derivaPpm: el tiempo real avanza menos
+        return 1_790_000_000_000.0 + m / (1 + derivaPpm * 1e-6);
+    }
+
+    @Test
+    public void corrigeLaDeriva() {
+        RelojServidor r = new RelojServidor();
+        Random rnd = new Random(43);
+        double ppm = 40;
+
+        // Una sincronización cada 6 h durante dos días, RTT de 50..400 ms
+        for (long m = 0; m <= 48 * HORA; m += RelojServidor.INTERVALO_MS) {
+            long rtt = 50 + rnd.nextInt(350);
+            long llegada = m + rnd.nextInt((int) rtt);   // el servidor responde en algún momento
+            assertTrue(r.anotarSincronizacion(m, m + rtt, Math.round(servidor(llegada, ppm))));
+        }
+
+        assertEquals(-ppm, r.getDerivaPpm(), 5);
+
+        // 6 h después de la última: sin corregir la deriva serían ~860 ms
+        long despues = 54 * HORA;
+        assertEquals(servidor(despues, ppm), r.aHoraServidor(despues, 0), 150);
+    }
+
+    @Test
+    public void sinSincronizarUsaElRelojLocal() {
+        RelojServidor r = new RelojServidor();
+        assertFalse(r.estaSincronizado());
+        assertEquals(1_000 + 5_000, r.aHoraServidor(1_000, 5_000));
+
+        // Un solo punto: desfase fijo, sin deriva
+        r.anotarSincronizacion(10_000, 10_100, 1_790_000_000_050L);
+        assertEquals(1_790_000_000_050L + (1_000_000 - 10_050), r.aHoraServidor(1_000_000, 5_000));
+        assertEquals(0, r.getDerivaPpm(), 0);
+
+        // RTT imposible o demasiado grande
+        assertFalse(r.anotarSincronizacion(20_000, 19_000, 0));
+        assertFalse(r.anotarSincronizacion(20_000, 20_000 + RelojServidor.MAX_RTT_MS + 1, 0));
+    }
+
+    @Test
+    public void cuandoSincronizar() {
+        RelojServidor r = new RelojServidor();
+        assertTrue(r.necesitaSincronizar(0));
+
+        // Un intento fallido no se repite enseguida
+        r.anotarIntento(0);
+        assertFalse(r.necesitaSincronizar(60_000));
+        assertTrue(r.necesitaSincronizar(RelojServidor.REINTENTO_MS));
+
+        r.anotarIntento(RelojServidor.REINTENTO_MS);
+        r.anotarSincronizacion(RelojServidor.REINTENTO_MS, RelojServidor.REINTENTO_MS + 100, 1_790_000_000_000L);
+        assertFalse(r.necesitaSincronizar(2 * HORA));
+        assertTrue(r.necesitaSincronizar(RelojServidor.REINTENTO_MS + RelojServidor.INTERVALO_MS + 50));
+    }
+
+    @Test
+    public void exportarEImportar() {
+        RelojServidor r = new RelojServidor();
+        for (long m = 0; m <= 24 * HORA; m += 6 * HORA) {
+            r.anotarSincronizacion(m, m + 100, Math.round(servidor(m + 50, 30)));
+        }
+
+        RelojServidor copia = new RelojServidor();
+        copia.importar(r.exportar());
+        assertEquals(r.aHoraServidor(30 * HORA, 0), copia.aHoraServidor(30 * HORA, 0));
+
+        // Texto roto: no cambia nada
+        copia.importar("1,2;x");
+        assertEquals(r.aHoraServidor(30 * HORA, 0), copia.aHoraServidor(30 * HORA, 0));
+    }
+}
@@ -0,0 +1,128 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @brief Benchmarks de la ruta de datos en la JVM, sobre los mismos datos
+ *        grabados que las pruebas (src/test/resources).
+ *
+ * Cubre la decodificación de anuncios iBeacon (TramaIBeacon + Utilidades
+ * frente a MedidaBeacon y TramaAtmos), las conversiones de Utilidades, el cálculo de la
+ * cuadrícula de ContaminacionOverlay, el filtro del recorrido GPS y la
+ * clasificación de la calidad del aire de un día de muestras.
+ *
+ * No comprueba tiempos (dependen de la máquina); solo imprime las líneas
+ * "BENCH" para comparar antes y después de un cambio. Tardan varios
+ * segundos, así que en las pruebas normales se saltan; se lanzan con:
+ *   ./gradlew :app:testDebugUnitTest --tests '*RutaDatosBenchmark' -Pbenchmarks
+ *
+ * @date 19/10/2026
+ */
+public class RutaDatosBenchmark {
+
+    @Before
+    public void soloSiSePiden() {
+        assumeTrue("Benchmarks desactivados (-Pbenchmarks)",
+                Boolean.getBoolean(Microbenchmark.PROPIEDAD));
+    }
+
+    @Test
+    public void decodificacionDeAnuncios() {
+        final byte[][] tramas = Fixtures.tramas().toArray(new byte[0][]);
+        final int[] i = {0};
+
+        double antes = Microbenchmark.medir("TramaIBeacon + Utilidades", () -> {
+            byte[] b = tramas[i[0]++ % tramas.length];
+            TramaIBeacon tib = new TramaIBeacon(b);
+            String uuid = Utilidades.bytesToString(tib.getUUID()).trim();
+            int major = Utilidades.bytesToInt(tib.getMajor());
+            int minor = Utilidades.bytesToInt(tib.getMinor());
+            return uuid.length() + major + minor;
+        });
+
+        double ahora = Microbenchmark.medir("MedidaBeacon.decodificar", () -> {
+            MedidaBeacon m = MedidaBeacon.decodificar(tramas[i[0]++ % tramas.length]);
+            return m.uuid.length() + m.tipoGas + m.contador;
+        });
+
+        final TramaAtmos trama = new TramaAtmos();
+        double reutilizada = Microbenchmark.medir("TramaAtmos.decodificar", () -> {
+            trama.decodificar(tramas[i[0]++ % tramas.length]);
+            return trama.getGas(0) + trama.getContador();
+        });
+
+        assertTrue(antes > 0 && ahora > 0 && reutilizada > 0);
+    }
+
+    @Test
+    public void conversionesDeUtilidades() {
+        final byte[][] tramas = Fixtures.tramas().toArray(new byte[0][]);
+        final byte[] dos = {(byte) 0x9c, 0x40};
+        final byte[] ocho = {1, 2, 3, 4, 5, 6, 7, 8};
+        final int[] i = {0};
+
+        Microbenchmark.medir("Utilidades.bytesToInt (2 bytes)", () -> Utilidades.bytesToInt(dos));
+        Microbenchmark.medir("Utilidades.bytesToLong (8 bytes)", () -> Utilidades.bytesToLong(ocho));
+        Microbenchmark.medir("Utilidades.bytesToHexString (62 bytes)",
+                () -> Utilidades.bytesToHexString(tramas[i[0]++ % tramas.length]).length());
+    }
+
+    @Test
+    public void cuadriculaDelMapaDeCalor() {
+        int n = RejillaContaminacion.GRID * RejillaContaminacion.GRID;
+        final double[] lat = new double[n];
+        final double[] lon = new double[n];
+        RejillaContaminacionTest.centros(38.975, -0.195, 39.015, -0.135, lat, lon);
+
+        final List<RejillaContaminacion.Punto> puntos = Fixtures.puntos();
+        final RejillaContaminacion rejilla = new RejillaContaminacion();
+
+        Microbenchmark.medir("RejillaContaminacion.calcular (" + puntos.size() + " ptos)",
+                () -> rejilla.calcular(lat, lon, puntos));
+    }
+
+    @Test
+    public void filtroDelRecorrido() {
+        final List<double[]> recorrido = Fixtures.recorrido();
+
+        Microbenchmark.medir("FiltroRecorrido (" + recorrido.size() + " locs)", () -> {
+            FiltroRecorrido f = new FiltroRecorrido();
+            double total = 0;
+            for (double[] p : recorrido) total += f.procesar(p[0], p[1], (float) p[2], (float) p[3]);
+            return (long) total;
+        });
+    }
+
+    @Test
+    public void clasificacionDeUnDia() {
+        // Un día de muestras (1 Hz) de cada gas; cada operación clasifica uno
+        Random r = new Random(42);
+        final float[][] dia = new float[4][];
+        for (int g = 0; g < 4; g++) dia[g] = ClasificadorCalidadTest.muestrasDia(r, 11 + g);
+        final int[] salida = new int[ClasificadorCalidadTest.MUESTRAS_DIA];
+        final int[] i = {0};
+
+        double lote = Microbenchmark.medir("ClasificadorCalidad lote (86400 muestras)", () -> {
+            int g = i[0]++ & 3;
+            ClasificadorCalidad.clasificar(dia[g], 11 + g, salida);
+            return salida[i[0] % salida.length];
+        });
+
+        // La cadena de if/else que había repetida en cada pantalla
+        double cadena = Microbenchmark.medir("if/else pantallas (86400 muestras)", () -> {
+            int g = i[0]++ & 3;
+            long suma = 0;
+            for (float v : dia[g]) suma += ClasificadorCalidadTest.referencia(v, 11 + g);
+            return suma;
+        });
+
+        assertTrue(lote > 0 && cadena > 0);
+    }
+}
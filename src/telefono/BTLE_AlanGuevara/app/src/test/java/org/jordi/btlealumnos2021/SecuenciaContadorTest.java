@@ -0,0 +1,146 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * @brief Pruebas del seguimiento del contador de 8 bits: vueltas, huecos,
+ *        desorden, duplicados y resincronización.
+ *
+ * @date 19/10/2026
+ */
+public class SecuenciaContadorTest {
+
+    @Test
+    public void vueltasSinPerdidas() {
+        SecuenciaContador s = new SecuenciaContador();
+        long t = 0;
+
+        // 600 medidas (más de dos vueltas), cada una repetida 3 veces
+        for (int i = 0; i < 600; i++) {
+            int r = s.registrar(i & 0xFF, t += 100);
+            assertTrue(SecuenciaContador.esNueva(r));
+            assertEquals(SecuenciaContador.DUPLICADA, s.registrar(i & 0xFF, t += 10));
+            assertEquals(SecuenciaContador.DUPLICADA, s.registrar(i & 0xFF, t += 10));
+        }
+
+        assertEquals(600, s.getNuevas());
+        assertEquals(1200, s.getDuplicadas());
+        assertEquals(0, s.getPerdidas());
+        assertEquals(1.0, s.getTasaEntrega(), 0);
+    }
+
+    @Test
+    public void huecosYDesorden() {
+        SecuenciaContador s = new SecuenciaContador();
+
+        s.registrar(250, 0);
+        assertEquals(SecuenciaContador.NUEVA, s.registrar(253, 100));   // 251 y 252 perdidas
+        assertEquals(2, s.getPerdidas());
+
+        assertEquals(SecuenciaContador.NUEVA, s.registrar(2, 200));     // da la vuelta: 254, 255, 0, 1 perdidas
+        assertEquals(6, s.getPerdidas());
+
+        assertEquals(SecuenciaContador.DESORDENADA, s.registrar(252, 300));
+        assertEquals(SecuenciaContador.DUPLICADA, s.registrar(252, 400));
+        assertEquals(SecuenciaContador.DESORDENADA, s.registrar(0, 500));
+        assertEquals(4, s.getPerdidas());
+        assertEquals(2, s.getDesordenadas());
+
+        // Fuera de la ventana
+        for (int c = 3; c < 3 + SecuenciaContador.VENTANA; c++) s.registrar(c, 600);
+        assertEquals(SecuenciaContador.ANTIGUA, s.registrar(1, 700));
+        assertEquals(4, s.getPerdidas());
+
+        assertEquals(5 + SecuenciaContador.VENTANA, s.getNuevas());
+        assertEquals((5.0 + SecuenciaContador.VENTANA) / (9 + SecuenciaContador.VENTANA),
+                s.getTasaEntrega(), 1e-12);
+    }
+
+    @Test
+    public void vueltaCompletaTrasSilencio() {
+        SecuenciaContador s = new SecuenciaContador();
+        s.registrar(7, 0);
+
+        // El mismo contador poco después es un duplicado...
+        assertEquals(SecuenciaContador.DUPLICADA, s.registrar(7, 1000));
+
+        // ...pero tras un silencio largo es una medida nueva (comparando solo con el anterior se perdía)
+        assertEquals(SecuenciaContador.RESINCRONIZADA,
+                s.registrar(7, 1000 + SecuenciaContador.SILENCIO_MS + 1));
+        assertEquals(SecuenciaContador.NUEVA, s.registrar(8, 1000 + SecuenciaContador.SILENCIO_MS + 500));
+        assertEquals(2, s.getResincronizaciones());
+        assertEquals(0, s.getPerdidas());
+    }
+
+    @Test
+    public void atrasadosTrasResincronizarNoRestanPerdidas() {
+        SecuenciaContador s = new SecuenciaContador();
+        s.registrar(10, 0);
+
+        // 8 y 7 no se contaron como perdidas: no pueden recuperar ninguna
+        assertEquals(SecuenciaContador.DUPLICADA, s.registrar(8, 100));
+        assertEquals(SecuenciaContador.DUPLICADA, s.registrar(7, 200));
+        assertEquals(0, s.getPerdidas());
+        assertEquals(1.0, s.getTasaEntrega(), 0);
+
+        // Igual tras un silencio largo
+        long t = 200 + SecuenciaContador.SILENCIO_MS + 1;
+        assertEquals(SecuenciaContador.RESINCRONIZADA, s.registrar(40, t));
+        assertEquals(SecuenciaContador.DUPLICADA, s.registrar(39, t + 100));
+        assertEquals(0, s.getPerdidas());
+
+        // Las perdidas de después sí se recuperan
+        assertEquals(SecuenciaContador.NUEVA, s.registrar(43, t + 200));
+        assertEquals(SecuenciaContador.DESORDENADA, s.registrar(41, t + 300));
+        assertEquals(1, s.getPerdidas());
+    }
+
+    @Test
+    public void reinicioDeLaPlacaSinSilencio() {
+        SecuenciaContador s = new SecuenciaContador();
+        long t = 0;
+        for (int c = 0; c <= 100; c++) s.registrar(c, t += 100);
+
+        // Se reinicia y vuelve a contar desde 0 en menos de SILENCIO_MS,
+        // repitiendo cada anuncio
+        assertEquals(SecuenciaContador.ANTIGUA, s.registrar(0, t += 100));
+        assertEquals(SecuenciaContador.ANTIGUA, s.registrar(0, t += 10));
+        assertEquals(SecuenciaContador.RESINCRONIZADA, s.registrar(1, t += 100));
+        assertEquals(SecuenciaContador.DUPLICADA, s.registrar(1, t += 10));
+
+        // Lo siguiente es nuevo, también lo que antes parecía duplicado
+        int nuevas = 0;
+        for (int c = 2; c <= 150; c++) {
+            if (SecuenciaContador.esNueva(s.registrar(c, t += 100))) nuevas++;
+        }
+        assertEquals(149, nuevas);
+        assertEquals(0, s.getPerdidas());
+        assertEquals(2, s.getResincronizaciones());
+        // Solo se pierde la primera medida tras el reinicio (dos anuncios)
+        assertEquals(2, s.getAntiguas());
+    }
+
+    @Test
+    public void perdidasAleatorias() {
+        SecuenciaContador s = new SecuenciaContador();
+        Random r = new Random(41);
+        int enviadas = 5000, recibidas = 0;
+
+        for (int i = 0; i < enviadas; i++) {
+            if (i > 0 && r.nextDouble() < 0.2) continue;   // se pierde
+            recibidas++;
+            assertTrue(SecuenciaContador.esNueva(s.registrar(i & 0xFF, i * 100L)));
+            assertFalse(SecuenciaContador.esNueva(s.registrar(i & 0xFF, i * 100L + 1)));
+        }
+
+        assertEquals(recibidas, s.getNuevas());
+        assertEquals(enviadas - recibidas, s.getPerdidas());
+        assertEquals(0.8, s.getTasaEntrega(), 0.02);
+    }
+}
@@ -0,0 +1,85 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @brief Pruebas de los algoritmos de submuestreo (min/max por bucket y LTTB).
+ *
+ * @date 19/10/2026
+ */
+public class SubmuestreoTest {
+
+    @Test
+    public void minMaxConservaLosPicosDeCadaBucket() {
+        // 10 puntos en [0, 10) → 2 buckets de 5 ms
+        long[] t = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+        float[] v = {1, 9, 2, 3, 0, 5, 5, 5, 5, 5};
+
+        long[] outT = new long[4];
+        float[] outV = new float[4];
+        int n = Submuestreo.minMax(t, v, 0, t.length, 0, 10, 2, outT, outV);
+
+        // Primer bucket: máximo (t=1) y mínimo (t=4) en orden temporal.
+        // Segundo bucket: todos iguales → un solo punto.
+        assertEquals(3, n);
+        assertEquals(1, outT[0]);
+        assertEquals(9f, outV[0], 0);
+        assertEquals(4, outT[1]);
+        assertEquals(0f, outV[1], 0);
+        assertEquals(5, outT[2]);
+    }
+
+    @Test
+    public void minMaxIgnoraPuntosFueraDeRango() {
+        long[] t = {-5, 0, 50, 100, 150};
+        float[] v = {100, 1, 2, 3, 100};
+
+        long[] outT = new long[20];
+        float[] outV = new float[20];
+        int n = Submuestreo.minMax(t, v, 0, t.length, 0, 100, 10, outT, outV);
+
+        assertEquals(2, n);
+        for (int i = 0; i < n; i++) assertTrue(outV[i] < 100);
+    }
+
+    @Test
+    public void lttbConservaExtremosYPico() {
+        int total = 10_000;
+        long[] t = new long[total];
+        float[] v = new float[total];
+        for (int i = 0; i < total; i++) {
+            t[i] = i * 1000L;
+            v[i] = (float) Math.sin(i / 500.0);
+        }
+        v[4321] = 50f; // pico aislado
+
+        long[] outT = new long[100];
+        float[] outV = new float[100];
+        int n = Submuestreo.lttb(t, v, 0, total, 100, outT, outV);
+
+        assertEquals(100, n);
+        assertEquals(t[0], outT[0]);
+        assertEquals(t[total - 1], outT[n - 1]);
+
+        boolean pico = false;
+        for (int i = 0; i < n; i++) {
+            if (i > 0) assertTrue(outT[i] > outT[i - 1]);
+            if (outV[i] == 50f) pico = true;
+        }
+        assertTrue(pico);
+    }
+
+    @Test
+    public void lttbCopiaSiHayPocosPuntos() {
+        long[] t = {1, 2, 3};
+        float[] v = {4, 5, 6};
+        long[] outT = new long[3];
+        float[] outV = new float[3];
+
+        assertEquals(3, Submuestreo.lttb(t, v, 0, 3, 10, outT, outV));
+        assertEquals(0, Submuestreo.lttb(t, v, 0, 0, 10, outT, outV));
+    }
+}
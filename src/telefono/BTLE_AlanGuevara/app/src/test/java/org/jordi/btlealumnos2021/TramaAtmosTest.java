@@ -0,0 +1,121 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @brief Pruebas del decodificador de anuncios v2 y de la vuelta al
+ *        formato iBeacon.
+ *
+ * @date 19/10/2026
+ */
+public class TramaAtmosTest {
+
+    private static final int[] GASES = {
+            ClasificadorCalidad.GAS_NO2, ClasificadorCalidad.GAS_CO,
+            ClasificadorCalidad.GAS_O3, ClasificadorCalidad.GAS_SO2
+    };
+
+    @Test
+    public void iBeaconIgualQueMedidaBeacon() {
+        TramaAtmos t = new TramaAtmos();
+
+        for (byte[] bytes : Fixtures.tramas()) {
+            MedidaBeacon m = MedidaBeacon.decodificar(bytes);
+            assertTrue(t.decodificar(bytes));
+
+            assertEquals(TramaAtmos.VERSION_IBEACON, t.getVersion());
+            assertEquals(1, t.getMedidas());
+            assertEquals(m.tipoGas, t.getGas(0));
+            assertEquals(m.valor, t.getValor(0), 0f);
+            assertEquals(m.contador, t.getContador());
+            assertEquals(TramaAtmos.BATERIA_DESCONOCIDA, t.getBateria());
+            assertEquals(9, t.getInicioId());
+        }
+    }
+
+    @Test
+    public void v2ConVariosGases() {
+        float[] valores = {0.0213f, 12.5f, -0.0001f, 838.8607f};
+        byte[] b = TramaAtmos.codificarV2("PLACA-V2", 200, 4_000_000_000L, 87, GASES, valores);
+
+        // Flags + AD de fabricante: más de 31 bytes, va en anuncio extendido
+        assertEquals(3 + 1 + 3 + 24 + 16, b.length);
+
+        TramaAtmos t = new TramaAtmos();
+        assertTrue(t.decodificar(b));
+        assertEquals(TramaAtmos.VERSION_2, t.getVersion());
+        assertEquals(200, t.getContador());
+        assertEquals(4_000_000_000L, t.getTiempoPlacaMs());
+        assertEquals(87, t.getBateria());
+        assertEquals(4, t.getMedidas());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(GASES[i], t.getGas(i));
+            assertEquals(valores[i], t.getValor(i), 1e-4f);
+        }
+
+        // El id se encuentra con RegistroPlacas, sin crear el String
+        RegistroPlacas r = new RegistroPlacas((p, m) -> { });
+        RegistroPlacas.Placa p = r.registrar("PLACA-V2", false);
+        assertSame(p, r.buscar(b, t.getInicioId()));
+
+        // Batería desconocida
+        t.decodificar(TramaAtmos.codificarV2("X", 0, 0, -1, GASES, valores));
+        assertEquals(TramaAtmos.BATERIA_DESCONOCIDA, t.getBateria());
+    }
+
+    @Test
+    public void anunciosTruncadosOAjenos() {
+        TramaAtmos t = new TramaAtmos();
+        byte[] v2 = TramaAtmos.codificarV2("PLACA", 1, 0, 50, GASES, new float[]{1, 2, 3, 4});
+
+        // Truncado dentro de la cabecera v2 (y más corto que un iBeacon)
+        assertFalse(t.decodificar(Arrays.copyOf(v2, 20)));
+
+        // Truncado en las medidas: la estructura AD está incompleta y no es
+        // v2; aunque pase de 30 bytes tampoco es un iBeacon
+        byte[] corto = Arrays.copyOf(v2, v2.length - 2);
+        assertFalse(t.decodificar(corto));
+
+        // Otra versión: ni v2 ni iBeacon
+        byte[] v3 = v2.clone();
+        v3[3 + 5] = 3;
+        assertFalse(t.decodificar(v3));
+
+        assertFalse(t.decodificar(null));
+        assertFalse(t.decodificar(new byte[0]));
+
+        // Basura aleatoria: nunca lanza excepción
+        Random r = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            byte[] b = new byte[r.nextInt(80)];
+            r.nextBytes(b);
+            if (t.decodificar(b)) {
+                assertTrue(t.getMedidas() <= TramaAtmos.MAX_MEDIDAS);
+                assertTrue(t.getInicioId() + 16 <= b.length);
+            }
+        }
+    }
+
+    @Test
+    public void soloLeeComoIBeaconConSuPrefijo() {
+        TramaAtmos t = new TramaAtmos();
+        byte[] ibeacon = Fixtures.tramas().get(0);
+        assertTrue(t.decodificar(ibeacon));
+
+        // Cualquier otro anuncio de 30 bytes o más (otro fabricante, otro
+        // tipo o longitud) no se lee como medida
+        for (int i = 5; i <= 8; i++) {
+            byte[] ajeno = ibeacon.clone();
+            ajeno[i] ^= 0x01;
+            assertFalse("byte " + i, t.decodificar(ajeno));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @brief Pruebas del formato de trazas (TrazaSensores) y de su
+ *        reproducción (ReproductorTraza) con un reloj simulado.
+ *
+ * @date 19/10/2026
+ */
+public class TrazaSensoresTest {
+
+    private static final long MS = 1_000_000L;
+
+    /** Graba las tramas de los fixtures cada 100 ms y una localización cada segundo. */
+    private static byte[] grabar(List<byte[]> tramas) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TrazaSensores.Escritor e = new TrazaSensores.Escritor(out, 1_760_000_000_000L)) {
+            long t = 5_000 * MS; // instante monótono arbitrario
+            for (int i = 0; i < tramas.size(); i++) {
+                e.anuncio(t, tramas.get(i), -60 - i % 20);
+                if (i % 10 == 0) e.localizacion(t, 38.9963612, -0.1660456, 6.5f, 1.3f);
+                t += 100 * MS;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void idaYVuelta() throws IOException {
+        List<byte[]> tramas = Fixtures.tramas();
+        byte[] traza = grabar(tramas);
+
+        TrazaSensores.Lector l = new TrazaSensores.Lector(new ByteArrayInputStream(traza));
+        assertEquals(1_760_000_000_000L, l.getInicioPared());
+
+        int i = 0;
+        TrazaSensores.Evento e;
+        while ((e = l.siguiente()) != null) {
+            if (e.tipo == TrazaSensores.LOCALIZACION) {
+                assertEquals(38.9963612, e.lat, 1e-7);
+                assertEquals(-0.1660456, e.lon, 1e-7);
+                assertEquals(6.5f, e.precision, 0);
+                continue;
+            }
+            // Los bytes se reconstruyen con el relleno de ceros incluido
+            assertArrayEquals(tramas.get(i), e.bytes);
+            assertEquals(-60 - i % 20, e.rssi);
+            assertEquals(i * 100 * MS, e.tNanos);
+            i++;
+        }
+        assertEquals(tramas.size(), i);
+    }
+
+    @Test
+    public void esCompacta() throws IOException {
+        List<byte[]> tramas = Fixtures.tramas();
+        byte[] traza = grabar(tramas);
+
+        // Los anuncios son de 62 bytes; sin el relleno se queda en ~35 por evento
+        assertTrue(traza.length < tramas.size() * 40);
+    }
+
+    @Test
+    public void unaTrazaCortadaTerminaLimpiamente() throws IOException {
+        byte[] traza = grabar(Fixtures.tramas());
+        byte[] cortada = Arrays.copyOf(traza, traza.length - 7);
+
+        TrazaSensores.Lector l = new TrazaSensores.Lector(new ByteArrayInputStream(cortada));
+        int n = 0;
+        while (l.siguiente() != null) n++;
+        assertTrue(n > 0);
+        assertNull(l.siguiente());
+    }
+
+    @Test(expected = IOException.class)
+    public void rechazaFicherosQueNoSonTrazas() throws IOException {
+        new TrazaSensores.Lector(new ByteArrayInputStream("hola mundo".getBytes()));
+    }
+
+    /** Reproductor con reloj simulado: dormir() solo avanza el reloj. */
+    private static final class ReproductorSimulado extends ReproductorTraza {
+        long reloj = 0;
+        final List<Long> entregas = new ArrayList<>();
+
+        ReproductorSimulado(double velocidad) {
+            super(velocidad);
+        }
+
+        @Override protected long ahoraNanos() { return reloj; }
+        @Override protected void dormir(long nanos) { reloj += nanos; }
+    }
+
+    @Test
+    public void reproduceAcelerado() throws Exception {
+        List<byte[]> tramas = Fixtures.tramas().subList(0, 20);
+        byte[] traza = grabar(tramas);
+
+        final ReproductorSimulado r = new ReproductorSimulado(10);
+        final List<Long> instantes = new ArrayList<>();
+        ReproductorTraza.Resumen res = r.reproducir(
+                new TrazaSensores.Lector(new ByteArrayInputStream(traza)),
+                new ReproductorTraza.Destino() {
+                    @Override public void onAnuncio(byte[] bytes, int rssi, long t) {
+                        r.entregas.add(r.reloj);
+                        instantes.add(t);
+                    }
+                    @Override public void onLocalizacion(double lat, double lon, float p, float v, long t) { }
+                });
+
+        assertEquals(20, res.anuncios);
+        assertEquals(2, res.localizaciones);
+
+        // 100 ms grabados → 10 ms a x10
+        // y cada anuncio lleva ese instante escalado
+        for (int i = 0; i < r.entregas.size(); i++) {
+            assertEquals(i * 10 * MS, (long) r.entregas.get(i));
+            assertEquals(i * 10 * MS, (long) instantes.get(i));
+        }
+        assertEquals(1900 * MS, res.duracionTrazaNanos);
+        assertEquals(190 * MS, res.duracionRealNanos);
+    }
+
+    @Test
+    public void sinEsperasNoDuerme() throws Exception {
+        byte[] traza = grabar(Fixtures.tramas());
+
+        ReproductorSimulado r = new ReproductorSimulado(0);
+        final List<Long> instantes = new ArrayList<>();
+        ReproductorTraza.Resumen res = r.reproducir(
+                new TrazaSensores.Lector(new ByteArrayInputStream(traza)),
+                new ReproductorTraza.Destino() {
+                    @Override public void onAnuncio(byte[] bytes, int rssi, long t) { instantes.add(t); }
+                    @Override public void onLocalizacion(double lat, double lon, float p, float v, long t) { }
+                });
+
+        assertEquals(0, r.reloj);
+        assertEquals(Fixtures.tramas().size(), res.anuncios);
+        // Sin esperas, los instantes siguen siendo los grabados (100 ms)
+        assertEquals(100 * MS, instantes.get(1) - instantes.get(0));
+    }
+}
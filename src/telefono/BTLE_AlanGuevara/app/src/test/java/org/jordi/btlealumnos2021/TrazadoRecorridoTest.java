@@ -0,0 +1,163 @@
+package org.jordi.btlealumnos2021;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @brief Pruebas del trazado del recorrido: simplificación en streaming,
+ *        tramos unidos y acotación para el mapa.
+ *
+ * @date 19/10/2026
+ */
+public class TrazadoRecorridoTest {
+
+    // ≈ 1 m de latitud en grados
+    private static final double M = 1 / 111195.0;
+
+    private static final double LAT = 38.99636;
+    private static final double LON = -0.16604;
+    private static final double M_LON = M / Math.cos(Math.toRadians(LAT));
+
+    /** Recoge los tramos y los decodifica en un solo trazado. */
+    private static final class Recogida implements TrazadoRecorrido.Salida {
+        final List<PolilineaCodificada.Punto> puntos = new ArrayList<>();
+        int tramos = 0;
+        int maxPuntos = 0;
+
+        @Override
+        public void tramo(long inicioMs, String codificado, int n) {
+            List<PolilineaCodificada.Punto> p = PolilineaCodificada.decodificar(codificado, inicioMs);
+            assertEquals(n, p.size());
+            if (!puntos.isEmpty()) {
+                // Cada tramo empieza donde acabó el anterior
+                PolilineaCodificada.Punto u = puntos.remove(puntos.size() - 1);
+                assertEquals(u.lat, p.get(0).lat, 1e-9);
+                assertEquals(u.tMs, p.get(0).tMs);
+            }
+            puntos.addAll(p);
+            tramos++;
+            maxPuntos = Math.max(maxPuntos, n);
+        }
+    }
+
+    @Test
+    public void enUnaEsquinaSoloGuardaTresPuntos() {
+        Recogida r = new Recogida();
+        TrazadoRecorrido t = new TrazadoRecorrido(r);
+
+        // 100 m al norte y 100 m al este, un punto cada 5 m (en menos de
+        // MAX_DURACION_TRAMO_MS, que añadiría un punto más)
+        long ms = 0;
+        for (int i = 0; i <= 20; i++, ms += 2000) t.anadir(LAT + 5 * i * M, LON, ms);
+        for (int i = 1; i <= 20; i++, ms += 2000) t.anadir(LAT + 100 * M, LON + 5 * i * M_LON, ms);
+        t.cerrar();
+
+        assertEquals(41, t.getRecibidos());
+        assertEquals(3, r.puntos.size());
+        // La esquina, o un punto a menos de la tolerancia de ella
+        PolilineaCodificada.Punto esquina = r.puntos.get(1);
+        assertTrue(FiltroRecorrido.distanciaMetros(LAT + 100 * M, LON, esquina.lat, esquina.lon)
+                <= TrazadoRecorrido.TOLERANCIA_M + 1);
+    }
+
+    @Test
+    public void nadaQuedaMasLejosQueLaTolerancia() {
+        Recogida r = new Recogida();
+        TrazadoRecorrido t = new TrazadoRecorrido(r);
+        java.util.Random rnd = new java.util.Random(3);
+
+        // 2 h andando en zigzag con ruido: 1440 posiciones
+        List<double[]> entrada = new ArrayList<>();
+        double x = 0, y = 0, rumbo = 0;
+        for (int i = 0; i < 1440; i++) {
+            if (i % 60 == 0) rumbo = rnd.nextDouble() * 2 * Math.PI;
+            x += 7 * Math.sin(rumbo) + rnd.nextGaussian();
+            y += 7 * Math.cos(rumbo) + rnd.nextGaussian();
+            double[] p = {LAT + y * M, LON + x * M_LON};
+            entrada.add(p);
+            t.anadir(p[0], p[1], i * 5000L);
+        }
+        t.cerrar();
+
+        // Tramos acotados y mucho menos puntos que posiciones
+        assertTrue(r.tramos > 1);
+        assertTrue(r.maxPuntos <= TrazadoRecorrido.MAX_PUNTOS_TRAMO);
+        assertTrue("guardados: " + r.puntos.size(), r.puntos.size() < entrada.size() / 3);
+
+        // Cada posición a menos de la tolerancia (más el redondeo a 1e-5°)
+        for (double[] p : entrada) {
+            double min = Double.MAX_VALUE;
+            for (int i = 1; i < r.puntos.size(); i++) {
+                PolilineaCodificada.Punto a = r.puntos.get(i - 1), b = r.puntos.get(i);
+                min = Math.min(min, TrazadoRecorrido.distanciaASegmento(p[0], p[1], a.lat, a.lon, b.lat, b.lon));
+            }
+            assertTrue("a " + min + " m", min <= TrazadoRecorrido.TOLERANCIA_M + 1.5);
+        }
+    }
+
+    @Test
+    public void unTramoNoDuraMasDeDosMinutos() {
+        Recogida r = new Recogida();
+        TrazadoRecorrido t = new TrazadoRecorrido(r);
+        // Zigzag de 20 m: se guardan todos los puntos, uno cada 10 s
+        for (int i = 0; i < 30; i++) {
+            t.anadir(LAT + 10 * i * M, LON + (i % 2) * 20 * M_LON, i * 10_000L);
+        }
+        assertEquals(2, r.tramos);   // a los 120 s y a los 240 s
+    }
+
+    @Test
+    public void enUnaRectaTambienSeEntregaALosDosMinutos() {
+        Recogida r = new Recogida();
+        TrazadoRecorrido t = new TrazadoRecorrido(r);
+        // Recta al norte, un punto cada 5 s: no se sale nada de la tolerancia
+        for (int i = 0; i <= 24; i++) t.anadir(LAT + 7 * i * M, LON, i * 5000L);
+
+        assertEquals(1, r.tramos);
+        assertEquals(120_000L, r.puntos.get(r.puntos.size() - 1).tMs);
+    }
+
+    @Test
+    public void alPararseSeEntregaElTramoSinCortarElTrazado() {
+        Recogida r = new Recogida();
+        TrazadoRecorrido t = new TrazadoRecorrido(r);
+        for (int i = 0; i < 6; i++) t.anadir(LAT + 7 * i * M, LON, i * 5000L);
+
+        t.entregar();
+        assertEquals(1, r.tramos);
+        assertEquals(25_000L, r.puntos.get(r.puntos.size() - 1).tMs);
+
+        // Quieto: nada nuevo que entregar
+        t.entregar();
+        assertEquals(1, r.tramos);
+
+        // Al seguir, el tramo siguiente empieza donde se paró (Recogida lo
+        // comprueba); como ya pasan de dos minutos desde ese punto, el de la
+        // pausa se entrega con la primera posición
+        for (int i = 6; i < 12; i++) t.anadir(LAT + 7 * i * M, LON, 300_000L + i * 5000L);
+        assertEquals(2, r.tramos);
+        t.cerrar();
+        assertEquals(3, r.tramos);
+    }
+
+    @Test
+    public void acotarParaElMapa() {
+        List<PolilineaCodificada.Punto> puntos = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            double lat = LAT + i * 3 * M;
+            double lon = LON + 10 * Math.sin(i / 20.0) * M_LON;
+            puntos.add(new PolilineaCodificada.Punto(lat, lon, i * 1000L));
+        }
+        List<PolilineaCodificada.Punto> acotado = TrazadoRecorrido.acotar(puntos, 500);
+        assertTrue(acotado.size() <= 500 && acotado.size() > 10);
+        assertEquals(puntos.get(0), acotado.get(0));
+        assertEquals(puntos.get(4999), acotado.get(acotado.size() - 1));
+
+        assertEquals(puntos, TrazadoRecorrido.acotar(puntos, 10_000));
+    }
+}